@@ -1,3 +1,6 @@
+import org.gradle.process.JavaExecSpec
+import javax.inject.Inject
+
 plugins {
     id("com.android.application")
     id("org.jetbrains.kotlin.android")
@@ -30,13 +33,113 @@ android {
     kotlinOptions {
         jvmTarget = "1.8"
     }
+    buildFeatures {
+        // BuildConfig.DEBUG switches the instrumentation on
+        buildConfig = true
+    }
+    androidResources {
+        // The word index is memory-mapped at runtime, which requires an uncompressed asset
+        // (the theme index shares the extension; it is small either way)
+        noCompress += "idx"
+    }
+}
+
+/**
+ * Compiles every CSV under assets/words into a single binary index (see WordIndex.java
+ * for the layout), so the app does not have to crawl and parse the CSV tree at startup.
+ * Also scores those words against the seed lists under src/main/themes into themes.idx
+ * (see ThemeIndex.java). The work is done by WordIndexCompiler and ThemeIndexCompiler
+ * from :wordengine, so the writers and the readers are the same code.
+ */
+abstract class GenerateWordIndexTask : DefaultTask() {
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val wordsDir: DirectoryProperty
+
+    @get:InputFile
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val themesFile: RegularFileProperty
+
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val themeSeedsDir: DirectoryProperty
+
+    @get:Classpath
+    abstract val compilerClasspath: ConfigurableFileCollection
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @get:Inject
+    abstract val execOperations: ExecOperations
+
+    @TaskAction
+    fun generate() {
+        execOperations.javaexec {
+            useUtf8()
+            classpath = compilerClasspath
+            mainClass.set("com.example.raptrainer.word_manager.WordIndexCompiler")
+            args(wordsDir.get().asFile.absolutePath, outputDir.get().file("words.idx").asFile.absolutePath)
+        }
+        execOperations.javaexec {
+            useUtf8()
+            classpath = compilerClasspath
+            mainClass.set("com.example.raptrainer.word_manager.ThemeIndexCompiler")
+            args(
+                wordsDir.get().asFile.absolutePath,
+                themesFile.get().asFile.absolutePath,
+                themeSeedsDir.get().asFile.absolutePath,
+                outputDir.get().file("themes.idx").asFile.absolutePath
+            )
+        }
+    }
+
+    // Category file names hold ñ and accents: under a non-UTF-8 locale the JVM reads them
+    // mangled, and names that differ only there would come out as the same category
+    private fun JavaExecSpec.useUtf8() {
+        jvmArgs("-Dfile.encoding=UTF-8", "-Dsun.jnu.encoding=UTF-8")
+        environment("LC_ALL", "C.UTF-8")
+        environment("LANG", "C.UTF-8")
+    }
+}
+
+val wordIndexCompiler by configurations.creating {
+    isCanBeConsumed = false
+    attributes {
+        attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.JAVA_RUNTIME))
+    }
+}
+
+androidComponents {
+    onVariants { variant ->
+        val generateWordIndex = tasks.register<GenerateWordIndexTask>(
+            "generate${variant.name.replaceFirstChar { it.uppercase() }}WordIndex"
+        ) {
+            wordsDir.set(layout.projectDirectory.dir("src/main/assets/words"))
+            themesFile.set(layout.projectDirectory.file("src/main/assets/themes"))
+            themeSeedsDir.set(layout.projectDirectory.dir("src/main/themes"))
+            compilerClasspath.from(wordIndexCompiler)
+        }
+        variant.sources.assets?.addGeneratedSourceDirectory(generateWordIndex, GenerateWordIndexTask::outputDir)
+    }
+}
+
+// Reports how far the automatic rhyme classifier agrees with the hand-filed lists
+tasks.register<JavaExec>("checkRhymeCategories") {
+    group = "verification"
+    classpath = wordIndexCompiler
+    mainClass.set("com.example.raptrainer.word_manager.RhymeClassifier")
+    args("check", layout.projectDirectory.dir("src/main/assets/words").asFile.absolutePath)
 }
 
 dependencies {
 
+    implementation(project(":wordengine"))
+    wordIndexCompiler(project(":wordengine"))
     implementation("androidx.core:core-ktx:1.9.0")
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.8.0")
+    implementation("androidx.recyclerview:recyclerview:1.3.0")
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
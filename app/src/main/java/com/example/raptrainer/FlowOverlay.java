@@ -0,0 +1,65 @@
+package com.example.raptrainer;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.TextView;
+
+import com.example.raptrainer.audio.FlowMeter;
+import com.example.raptrainer.audio.MicFlowMonitor;
+
+/**
+ * Shows the microphone flow meter's latest reading next to the word, polled
+ * once per displayed frame. The text is only rebuilt when a new reading was
+ * published and only set when it reads differently, so the word is not laid
+ * out again for nothing. Use from the main thread only.
+ */
+final class FlowOverlay {
+    private final TextView view;
+    private final MicFlowMonitor monitor;
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private FlowMeter.Reading shown;
+    private boolean running;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!running) return;
+            FlowMeter.Reading reading = monitor.getReading();
+            if (reading != null && reading != shown) {
+                shown = reading;
+                String text = format(reading);
+                if (!text.contentEquals(view.getText())) view.setText(text);
+            }
+            choreographer.postFrameCallback(this);
+        }
+    };
+
+    FlowOverlay(TextView view, MicFlowMonitor monitor) {
+        this.view = view;
+        this.monitor = monitor;
+    }
+
+    void start() {
+        if (running) return;
+        running = true;
+        shown = null;
+        view.setText(R.string.flow_meter_listening);
+        view.setVisibility(View.VISIBLE);
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    void stop() {
+        running = false;
+        choreographer.removeFrameCallback(frameCallback);
+        view.setVisibility(View.GONE);
+    }
+
+    private String format(FlowMeter.Reading reading) {
+        // Tenths of a second are as fine as anyone can read them changing
+        double rate = Math.round(reading.getSyllablesPerSecond() * 10) / 10.0;
+        if (reading.getSilenceMillis() > 0) {
+            return view.getContext().getString(R.string.flow_meter_gap, rate, reading.getSilenceMillis() / 100 / 10.0);
+        }
+        return view.getContext().getString(R.string.flow_meter_rate, rate);
+    }
+}
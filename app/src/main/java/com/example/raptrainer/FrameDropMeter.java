@@ -0,0 +1,63 @@
+package com.example.raptrainer;
+
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+import com.example.raptrainer.word_manager.Instrumentation;
+
+/**
+ * Counts the frames missed right after a word change, into
+ * {@link Instrumentation.Counter#DROPPED_FRAMES}. A gap of n frame periods
+ * between two frames is n - 1 dropped frames. Does nothing while
+ * instrumentation is off. Use from the main thread only.
+ */
+final class FrameDropMeter {
+    // A few frames cover the swap itself and its draw, even at 150 ms per word
+    private static final int MEASURED_FRAMES = 3;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final View view;
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private long lastFrameNanos;
+    private int framesLeft;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (lastFrameNanos != 0) {
+                long periodNanos = framePeriodNanos();
+                long missed = Math.round((frameTimeNanos - lastFrameNanos) / (double) periodNanos) - 1;
+                if (missed > 0) Instrumentation.add(Instrumentation.Counter.DROPPED_FRAMES, missed);
+            }
+            lastFrameNanos = frameTimeNanos;
+            if (--framesLeft > 0) {
+                choreographer.postFrameCallback(this);
+            }
+        }
+    };
+
+    FrameDropMeter(View view) {
+        this.view = view;
+    }
+
+    /** Call right after changing the word; restarts the count if the last one is still running. */
+    void onWordChanged() {
+        if (!Instrumentation.isEnabled()) return;
+        choreographer.removeFrameCallback(frameCallback);
+        lastFrameNanos = 0;
+        // One extra callback for the frame the intervals are measured from
+        framesLeft = MEASURED_FRAMES + 1;
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    void stop() {
+        choreographer.removeFrameCallback(frameCallback);
+    }
+
+    private long framePeriodNanos() {
+        Display display = view.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+        return (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE));
+    }
+}
@@ -5,10 +5,12 @@ import android.graphics.Typeface;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
@@ -21,10 +23,17 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.constraintlayout.widget.Guideline;
 import androidx.constraintlayout.widget.ConstraintSet;
+import androidx.core.os.TraceCompat;
 import androidx.transition.TransitionManager;
 
+import com.example.raptrainer.word_manager.BeatScheduler;
+import com.example.raptrainer.word_manager.Instrumentation;
 import com.example.raptrainer.word_manager.WordManager;
+import com.example.raptrainer.audio.BackingTrackPlayer;
+import com.example.raptrainer.audio.MicFlowMonitor;
+import com.example.raptrainer.audio.SpeechCuePlayer;
 import com.example.raptrainer.options.OptionsBottomSheet;
+import com.example.raptrainer.options.SliderControl;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -32,6 +41,18 @@ public class MainActivity extends AppCompatActivity {
     private static final float GUIDELINE_CENTER_PERCENT = 0.5f;
     private static final float WORD_CENTER_PERCENT_WITH_BUTTONS = 0.4f;
     private static final float WORD_CENTER_PERCENT_ALONE = 0.5f;
+    private static final String TRACE_FIRST_WORD = "RapTrainer:firstWordRendered";
+    private static final String STATE_SESSION = "session";
+    private static final String STATE_DELAY = "delay";
+    private static final String STATE_REPEAT = "repeat";
+    private static final String STATE_TEMPO_BPM = "tempoBpm";
+    private static final String STATE_BARS_PER_WORD = "barsPerWord";
+    private static final String STATE_FLOW_METER = "flowMeter";
+    private static final String STATE_SPEECH_CUES = "speechCues";
+    // Words laid out ahead of time; enough to cover the scheduling jitter at rapid-fire rates
+    private static final int PRELAYOUT_AHEAD = 4;
+    // Synthesis takes longer than a layout, so spoken words are prepared further ahead
+    private static final int SPEECH_AHEAD = 8;
 
     private TextView wordTextView;
     private Guideline centerGuideline;
@@ -46,17 +67,27 @@ public class MainActivity extends AppCompatActivity {
     private boolean isPaused = false;
     private boolean wasPausedBeforeOptions = false;
     private boolean areButtonsVisible = true;
+    private boolean firstWordRendered = false;
+    private boolean flowMeterEnabled = false;
 
     private final Integer GrayCode = 0xFF2F2F2F;
     private final WordManager wordManager = new WordManager();
     private final Handler handler = new Handler(Looper.getMainLooper());
+    private final BeatScheduler beatScheduler = new BeatScheduler(wordManager.getWordDisplayDelay());
+    private final BackingTrackPlayer backingTrack = new BackingTrackPlayer();
+    private final MicFlowMonitor micFlow = new MicFlowMonitor();
+    private WordPrelayout wordPrelayout;
+    private FrameDropMeter frameDropMeter;
+    private FlowOverlay flowOverlay;
+    private SpeechCuePlayer speechCues; // null while words are not spoken
 
     // Runnable to display next word - reusable and easy to cancel
     private final Runnable wordLoopRunnable = new Runnable() {
         @Override
         public void run() {
             if (!isPaused) {
-                displayNextWord();
+                beatScheduler.onTick(System.nanoTime());
+                displayNextWord(true);
             }
         }
     };
@@ -64,19 +95,39 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (BuildConfig.DEBUG) enableInstrumentation();
+        TraceCompat.beginAsyncSection(TRACE_FIRST_WORD, 0);
         setContentView(R.layout.activity_main);
 
         bindViews();
         rootLayout.setOnClickListener(v -> {});
 
         applyCustomFont();
+        wordPrelayout = new WordPrelayout(wordTextView);
+        frameDropMeter = new FrameDropMeter(wordTextView);
+        flowOverlay = new FlowOverlay(findViewById(R.id.flowTextView), micFlow);
+        restoreState(savedInstanceState);
         initializeWordManager();
         setupUIListeners();
         setupSlider();
-        repeatButton.setColorFilter(GrayCode);
+        updateRepeatButton();
         setWordCentered(false);
+        // The layout's placeholder text stays up until the first category is ready
+    }
 
-        displayNextWord();
+    /** Counters, timers and trace sections for the debug panel; off in release builds. */
+    private static void enableInstrumentation() {
+        Instrumentation.enable(new Instrumentation.TraceBackend() {
+            @Override
+            public void beginSection(String name) {
+                TraceCompat.beginSection(name);
+            }
+
+            @Override
+            public void endSection() {
+                TraceCompat.endSection();
+            }
+        });
     }
 
     private void bindViews() {
@@ -96,7 +147,55 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void initializeWordManager() {
-        wordManager.initialize(this);
+        wordManager.initializeAsync(this, handler::post, this::onWordManagerReady);
+    }
+
+    /**
+     * After rotation or process death: the drill resumes at the word that was on
+     * screen, from a seed and a position rather than a saved queue.
+     */
+    private void restoreState(Bundle savedInstanceState) {
+        if (savedInstanceState == null) return;
+        flowMeterEnabled = savedInstanceState.getBoolean(STATE_FLOW_METER, false);
+        setSpeechCuesEnabled(savedInstanceState.getBoolean(STATE_SPEECH_CUES, false));
+        wordManager.setWordDisplayDelay(savedInstanceState.getInt(STATE_DELAY, wordManager.getWordDisplayDelay()));
+        wordManager.setAllowRepeat(savedInstanceState.getBoolean(STATE_REPEAT, false));
+        double tempoBpm = savedInstanceState.getDouble(STATE_TEMPO_BPM, 0);
+        if (tempoBpm > 0) {
+            wordManager.setTempo(tempoBpm, savedInstanceState.getInt(STATE_BARS_PER_WORD, 1));
+        }
+        String session = savedInstanceState.getString(STATE_SESSION);
+        if (session == null) return;
+        try {
+            wordManager.restoreSession(session);
+        } catch (IllegalArgumentException e) {
+            Log.w("MainActivity", "Discarding saved session", e);
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_DELAY, wordManager.getWordDisplayDelay());
+        outState.putBoolean(STATE_REPEAT, wordManager.isAllowRepeat());
+        outState.putBoolean(STATE_FLOW_METER, flowMeterEnabled);
+        outState.putBoolean(STATE_SPEECH_CUES, speechCues != null);
+        if (wordManager.isTempoMode()) {
+            outState.putDouble(STATE_TEMPO_BPM, wordManager.getTempoBpm());
+            outState.putInt(STATE_BARS_PER_WORD, wordManager.getBarsPerWord());
+        }
+        if (wordManager.isReady()) {
+            outState.putString(STATE_SESSION, wordManager.saveSession());
+        }
+    }
+
+    private void onWordManagerReady() {
+        if (isDestroyed()) return;
+        // A restored session brings its own repeat setting
+        updateRepeatButton();
+        if (!isPaused) {
+            displayNextWord();
+        }
     }
 
     private void setupUIListeners() {
@@ -128,6 +227,10 @@ public class MainActivity extends AppCompatActivity {
                             return true;
                         }
                     }
+                } else if (diffX < -SWIPE_THRESHOLD && Math.abs(velocityX) > SWIPE_VELOCITY_THRESHOLD) {
+                    // Swipe left → skip the word, it will come back sooner in spaced repetition
+                    skipWord();
+                    return true;
                 }
                 return false;
             }
@@ -139,6 +242,7 @@ public class MainActivity extends AppCompatActivity {
         });
 
         pausePlayButton.setOnClickListener(v -> {
+            if (!wordManager.isReady()) return;
             if (wordManager.isEmpty()) {
                 Log.d("MainActivity", "Word list is empty. Prompting reset.");
 
@@ -153,24 +257,40 @@ public class MainActivity extends AppCompatActivity {
                 pauseWordLoop();
                 pausePlayButton.setImageResource(R.drawable.ic_play);
             }
+            wordManager.recordPaused(isPaused);
         });
 
         repeatButton.setOnClickListener(v -> toggleRepeat());
-        optionsButton.setOnClickListener(v -> showOptionsBottomSheet());
+        optionsButton.setOnClickListener(v -> {
+            if (wordManager.isReady()) showOptionsBottomSheet();
+        });
 
         resetButton.setOnClickListener(v -> {
+            if (!wordManager.isReady()) return;
             wordManager.resetAndShuffle();
             displayNextWord();
         });
     }
 
+    private void skipWord() {
+        if (!wordManager.isReady()) return;
+        wordManager.markSkipped();
+        if (!isPaused) displayNextWord();
+    }
+
     private void showOptionsBottomSheet() {
         wasPausedBeforeOptions = isPaused;
         pauseWordLoop(); // stop word loop, but don't touch the icon yet
 
         OptionsBottomSheet sheet = new OptionsBottomSheet();
         sheet.setWordManager(wordManager);
-        sheet.setOnWordRefresh(this::displayNextWord);
+        sheet.setBackingTrack(backingTrack);
+        sheet.setFlowMeter(flowMeterEnabled, this::setFlowMeterEnabled);
+        sheet.setSpeechCues(speechCues != null, this::setSpeechCuesEnabled);
+        sheet.setOnWordRefresh(() -> {
+            updateRepeatButton();
+            displayNextWord();
+        });
         sheet.setDismissListener(() -> {
             moveWordCenter();
             if (!wasPausedBeforeOptions) {
@@ -187,6 +307,42 @@ public class MainActivity extends AppCompatActivity {
     }
 
 
+    private void setFlowMeterEnabled(boolean enabled) {
+        flowMeterEnabled = enabled;
+        if (enabled) {
+            startFlowMeter();
+        } else {
+            stopFlowMeter();
+        }
+    }
+
+    /** The microphone is only held while the activity is visible. */
+    private void startFlowMeter() {
+        micFlow.start(e -> {
+            flowMeterEnabled = false;
+            flowOverlay.stop();
+            Toast.makeText(this, R.string.flow_meter_error, Toast.LENGTH_SHORT).show();
+        });
+        flowOverlay.start();
+    }
+
+    private void stopFlowMeter() {
+        micFlow.stop();
+        flowOverlay.stop();
+    }
+
+    /** The text-to-speech engine is only bound while words are spoken. */
+    private void setSpeechCuesEnabled(boolean enabled) {
+        if (enabled == (speechCues != null)) return;
+        if (enabled) {
+            speechCues = new SpeechCuePlayer(this);
+            if (wordManager.isReady()) speechCues.prepare(wordManager.peekNextWords(SPEECH_AHEAD));
+        } else {
+            speechCues.release();
+            speechCues = null;
+        }
+    }
+
     private void setButtonsVisible(boolean show) {
         int visibility = show ? View.VISIBLE : View.GONE;
 
@@ -211,28 +367,30 @@ public class MainActivity extends AppCompatActivity {
         SeekBar slider = findViewById(R.id.timeSlider);
         TextView label = findViewById(R.id.sliderLabel);
 
-        final int minSeconds = 1;
-        final int maxSeconds = 30;
-
-        int currentSeconds = wordManager.getWordDisplayDelay() / 1000;
+        int currentDelay = wordManager.getWordDisplayDelay();
 
-        slider.setMax(maxSeconds - minSeconds);
-        slider.setProgress(currentSeconds - minSeconds);
-        label.setText("Tiempo entre palabras: " + currentSeconds + "s");
+        // The first steps are the sub-second rapid-fire delays
+        slider.setMax(SliderControl.MAX_PROGRESS);
+        slider.setProgress(SliderControl.progressForDelay(currentDelay));
+        label.setText("Tiempo entre palabras: " + SliderControl.formatDelay(currentDelay));
 
         slider.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                int selectedSeconds = minSeconds + progress;
-                int delayMillis = selectedSeconds * 1000;
+                int delayMillis = SliderControl.delayForProgress(progress);
 
-                label.setText("Tiempo entre palabras: " + selectedSeconds + "s");
+                label.setText("Tiempo entre palabras: " + SliderControl.formatDelay(delayMillis));
 
                 wordManager.setWordDisplayDelay(delayMillis);
             }
 
             @Override public void onStartTrackingTouch(SeekBar seekBar) {}
-            @Override public void onStopTrackingTouch(SeekBar seekBar) {}
+
+            // Logged once per drag rather than for every step it passes
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                wordManager.recordDelayChanged();
+            }
         });
     }
 
@@ -247,35 +405,98 @@ public class MainActivity extends AppCompatActivity {
         constraintSet.applyTo(rootLayout);
     }
 
+    /** Shows a word off the beat, e.g. after a reset or a skip. */
     private void displayNextWord() {
+        displayNextWord(false);
+    }
+
+    private void displayNextWord(boolean onBeat) {
+        if (!onBeat) beatScheduler.onManualAdvance();
+        long requestedAt = Instrumentation.isEnabled() ? System.nanoTime() : 0;
         String word = wordManager.getNextWord();
         if (word != null) {
-            wordTextView.setText(word);
+            wordPrelayout.show(word);
+            frameDropMeter.onWordChanged();
+            if (speechCues != null) speechCues.speak(word);
 
             // Reset any translation or alignment changes
             resetWordTextViewTransformations();
+            if (requestedAt != 0) {
+                recordWordRendered(requestedAt);
+            }
+            if (!firstWordRendered) {
+                firstWordRendered = true;
+                traceFirstWordRendered();
+            }
 
             scheduleNextWordDisplay();
+            wordPrelayout.prepare(wordManager.peekNextWords(PRELAYOUT_AHEAD));
+            if (speechCues != null) speechCues.prepare(wordManager.peekNextWords(SPEECH_AHEAD));
         } else {
             pauseWordLoop();
             pausePlayButton.setImageResource(R.drawable.ic_play); // 👈 show play icon
         }
     }
 
+    /** Closes the startup trace section once the first word has actually been drawn. */
+    private void traceFirstWordRendered() {
+        wordTextView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                wordTextView.getViewTreeObserver().removeOnPreDrawListener(this);
+                TraceCompat.endAsyncSection(TRACE_FIRST_WORD, 0);
+                reportFullyDrawn();
+                return true;
+            }
+        });
+    }
+
+    /** Measures from asking for a word until the frame that shows it is about to draw. */
+    private void recordWordRendered(long requestedAt) {
+        wordTextView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                wordTextView.getViewTreeObserver().removeOnPreDrawListener(this);
+                Instrumentation.record(Instrumentation.Timer.WORD_RENDERED, System.nanoTime() - requestedAt);
+                return true;
+            }
+        });
+    }
+
+    /** Only touches what changed, so an unchanged view is not invalidated again on every word. */
     private void resetWordTextViewTransformations() {
-        wordTextView.setTextAlignment(TextView.TEXT_ALIGNMENT_CENTER);
-        wordTextView.setTranslationX(0);
-        wordTextView.setTranslationY(0);
+        if (wordTextView.getTextAlignment() != TextView.TEXT_ALIGNMENT_CENTER) {
+            wordTextView.setTextAlignment(TextView.TEXT_ALIGNMENT_CENTER);
+        }
+        if (wordTextView.getTranslationX() != 0) wordTextView.setTranslationX(0);
+        if (wordTextView.getTranslationY() != 0) wordTextView.setTranslationY(0);
     }
 
+    /**
+     * Posts the next word at an absolute deadline, so a late tick does not push
+     * back the ones after it. Handler time is uptime milliseconds on the same
+     * monotonic clock as nanoTime; rounding up keeps words from coming early.
+     * A playing backing loop sets the beat, whatever the tempo setting.
+     */
     private void scheduleNextWordDisplay() {
         handler.removeCallbacks(wordLoopRunnable);
-        handler.postDelayed(wordLoopRunnable, wordManager.getWordDisplayDelay());
+        if (!backingTrack.lockTo(beatScheduler, wordManager.getBarsPerWord())) {
+            if (wordManager.isTempoMode()) {
+                beatScheduler.setTempo(wordManager.getTempoBpm(), wordManager.getBarsPerWord());
+            } else {
+                beatScheduler.setDelay(wordManager.getWordDisplayDelay());
+            }
+        }
+        long now = System.nanoTime();
+        long delayNanos = beatScheduler.nextDeadline(now) - now;
+        handler.postAtTime(wordLoopRunnable, SystemClock.uptimeMillis() + (delayNanos + 999_999) / 1_000_000);
     }
 
+    /** Resuming starts a new grid, so pressing play on a downbeat lines the words up with the music. */
     private void pauseWordLoop() {
         isPaused = true;
         handler.removeCallbacks(wordLoopRunnable);
+        beatScheduler.reset();
     }
 
     private void resumeWordLoop() {
@@ -286,14 +507,16 @@ public class MainActivity extends AppCompatActivity {
     private void toggleRepeat() {
         boolean newRepeatState = !wordManager.isAllowRepeat();
         wordManager.setAllowRepeat(newRepeatState);
-
-        // Update the loop icon color based on state
-        int color = newRepeatState ? Color.WHITE : GrayCode;
-        repeatButton.setColorFilter(color);
+        updateRepeatButton();
 
         Toast.makeText(this, newRepeatState ? "Repeat Enabled" : "Repeat Disabled", Toast.LENGTH_SHORT).show();
     }
 
+    /** Update the loop icon color based on state. */
+    private void updateRepeatButton() {
+        repeatButton.setColorFilter(wordManager.isAllowRepeat() ? Color.WHITE : GrayCode);
+    }
+
     private void animateWordPosition(float guidelinePercent) {
         ConstraintSet constraintSet = new ConstraintSet();
         constraintSet.clone(rootLayout);
@@ -310,9 +533,33 @@ public class MainActivity extends AppCompatActivity {
         animateWordPosition(GUIDELINE_CENTER_PERCENT);
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        wordManager.onTrimMemory(level);
+        if (speechCues != null) speechCues.onTrimMemory(level);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (flowMeterEnabled) startFlowMeter();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopFlowMeter();
+        wordManager.saveStats(this);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
         handler.removeCallbacksAndMessages(null);  // Prevent leaks
+        frameDropMeter.stop();
+        wordPrelayout.shutdown();
+        backingTrack.release();
+        if (speechCues != null) speechCues.release();
     }
 }
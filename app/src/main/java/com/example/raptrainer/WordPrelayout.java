@@ -0,0 +1,102 @@
+package com.example.raptrainer;
+
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import com.example.raptrainer.word_manager.Instrumentation;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the upcoming words for a {@link TextView} on a background thread,
+ * so showing one is a cheap swap instead of a measure pass with the custom
+ * typeface on the main thread. Single-line words keep the view's height, so
+ * the swap only invalidates and never requests a layout.
+ * Use from the main thread only.
+ */
+final class WordPrelayout {
+    private final TextView textView;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "word-prelayout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Future<PrecomputedTextCompat>> prepared = new HashMap<>();
+    private PrecomputedTextCompat.Params params;
+
+    WordPrelayout(TextView textView) {
+        this.textView = textView;
+    }
+
+    /**
+     * Starts preparing these words and drops the ones no longer coming up.
+     * Layouts prepared for other text metrics, e.g. before a font change, are dropped too.
+     */
+    void prepare(List<String> upcomingWords) {
+        PrecomputedTextCompat.Params current = TextViewCompat.getTextMetricsParams(textView);
+        if (!current.equals(params)) {
+            params = current;
+            clear();
+        }
+
+        Iterator<Map.Entry<String, Future<PrecomputedTextCompat>>> entries = prepared.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Future<PrecomputedTextCompat>> entry = entries.next();
+            if (!upcomingWords.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+                entries.remove();
+            }
+        }
+        PrecomputedTextCompat.Params layoutParams = params;
+        for (String word : upcomingWords) {
+            if (prepared.containsKey(word)) continue;
+            prepared.put(word, executor.submit(() -> {
+                long start = Instrumentation.begin(Instrumentation.Timer.PRELAYOUT);
+                PrecomputedTextCompat text = PrecomputedTextCompat.create(word, layoutParams);
+                Instrumentation.end(Instrumentation.Timer.PRELAYOUT, start);
+                return text;
+            }));
+        }
+    }
+
+    /** Shows the word, with its prepared layout if that is ready; never waits for it. */
+    void show(String word) {
+        Future<PrecomputedTextCompat> future = prepared.remove(word);
+        PrecomputedTextCompat text = null;
+        if (future != null && future.isDone() && !future.isCancelled()) {
+            try {
+                text = future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        if (text != null && text.getParams().equals(TextViewCompat.getTextMetricsParams(textView))) {
+            TextViewCompat.setPrecomputedText(textView, text);
+            Instrumentation.increment(Instrumentation.Counter.PRELAYOUT_HITS);
+        } else {
+            textView.setText(word);
+            Instrumentation.increment(Instrumentation.Counter.PRELAYOUT_MISSES);
+        }
+    }
+
+    void clear() {
+        for (Future<PrecomputedTextCompat> future : prepared.values()) {
+            future.cancel(false);
+        }
+        prepared.clear();
+    }
+
+    void shutdown() {
+        clear();
+        executor.shutdownNow();
+    }
+}
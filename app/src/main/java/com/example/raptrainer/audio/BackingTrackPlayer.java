@@ -0,0 +1,292 @@
+package com.example.raptrainer.audio;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTimestamp;
+import android.media.AudioTrack;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.example.raptrainer.word_manager.BeatScheduler;
+import com.example.raptrainer.word_manager.Instrumentation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays backing loops through a streaming {@link AudioTrack} with the smallest
+ * buffer the device allows, fed by a dedicated audio thread that mixes small
+ * chunks with {@link AudioMixer}. The thread runs while something plays and
+ * publishes the output timestamp to an {@link AudioClock}, so the word loop
+ * can lock onto the beat via {@link #lockTo}.
+ * Call from the main thread.
+ */
+public class BackingTrackPlayer {
+    /** Bundled loops, WAVE files under assets/loops. */
+    public static final String ASSET_DIR = "loops";
+
+    private static final int CHUNK_FRAMES = 256;
+    // Timestamps and underruns are polled every this many chunks, about 50 ms
+    private static final int POLL_INTERVAL = 10;
+    // Below this the detector is guessing too, so the length-based guess stands
+    private static final double MIN_TEMPO_CONFIDENCE = 0.2;
+
+    /** Notified on the main thread when a loop has been decoded and started, or failed to. */
+    public interface LoadListener {
+        void onLoaded(PcmLoop loop);
+
+        void onError(Exception e);
+    }
+
+    /** Notified on the main thread with the tempo of a file, or why there is none. */
+    public interface TempoListener {
+        void onTempo(TempoDetector.Estimate estimate);
+
+        void onError(Exception e);
+    }
+
+    private final int sampleRate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+    private final AudioMixer mixer = new AudioMixer(sampleRate);
+    private final AudioClock clock = new AudioClock(sampleRate);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loop-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Thread audioThread;
+    private volatile boolean running;
+    private PcmLoop currentLoop;
+
+    /** Names of the bundled loops, e.g. "boom_bap.wav"; empty when none are bundled. */
+    public static List<String> listBundledLoops(Context context) {
+        try {
+            String[] names = context.getAssets().list(ASSET_DIR);
+            if (names == null) return Collections.emptyList();
+            List<String> loops = new ArrayList<>();
+            for (String name : names) {
+                if (name.toLowerCase().endsWith(".wav")) loops.add(name);
+            }
+            Collections.sort(loops);
+            return loops;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+
+    public void playAsset(Context context, String name, LoadListener listener) {
+        Context appContext = context.getApplicationContext();
+        load(() -> appContext.getAssets().open(ASSET_DIR + "/" + name), listener);
+    }
+
+    /** A file the user picked, e.g. through the system document picker. */
+    public void playUri(Context context, Uri uri, LoadListener listener) {
+        Context appContext = context.getApplicationContext();
+        load(() -> {
+            InputStream in = appContext.getContentResolver().openInputStream(uri);
+            if (in == null) throw new IOException("Cannot open " + uri);
+            return in;
+        }, listener);
+    }
+
+    /**
+     * Finds the tempo and first downbeat of a WAVE file without playing it. The
+     * file is streamed, so whole songs are fine.
+     */
+    public void detectTempo(Context context, Uri uri, TempoListener listener) {
+        Context appContext = context.getApplicationContext();
+        loader.execute(() -> {
+            TempoDetector.Estimate estimate;
+            try (InputStream in = appContext.getContentResolver().openInputStream(uri)) {
+                if (in == null) throw new IOException("Cannot open " + uri);
+                estimate = TempoDetector.analyze(in);
+                if (estimate == null || estimate.getConfidence() < MIN_TEMPO_CONFIDENCE) {
+                    throw new IOException("No steady beat in " + uri);
+                }
+            } catch (IOException | RuntimeException e) {
+                mainHandler.post(() -> listener.onError(e));
+                return;
+            }
+            mainHandler.post(() -> listener.onTempo(estimate));
+        });
+    }
+
+    /** Fades the loop out; the audio thread ends once it is silent. */
+    public void stop() {
+        currentLoop = null;
+        mixer.stop();
+    }
+
+    public boolean isPlaying() {
+        return currentLoop != null;
+    }
+
+    /** The playing loop, or null. */
+    public PcmLoop getCurrentLoop() {
+        return currentLoop;
+    }
+
+    /**
+     * Puts the scheduler on the loop's beat as it is heard, i.e. with the output
+     * latency taken into account. Returns false, leaving the scheduler alone,
+     * while no loop plays or the output has not reported its timing yet.
+     */
+    public boolean lockTo(BeatScheduler scheduler, int barsPerWord) {
+        AudioMixer.BeatGrid grid = mixer.getBeatGrid();
+        if (grid == null || !clock.isValid()) return false;
+        scheduler.lockTo(clock.frameToNanos(grid.getOriginFrame()), grid.getFramesPerBeat() * 1e9 / sampleRate, barsPerWord);
+        return true;
+    }
+
+    /** Stops playback immediately and frees the output; the player cannot be used afterwards. */
+    public void release() {
+        currentLoop = null;
+        running = false;
+        loader.shutdownNow();
+        if (audioThread != null) audioThread.interrupt();
+    }
+
+    // ===================== Internal Logic =====================
+
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private void load(StreamOpener opener, LoadListener listener) {
+        loader.execute(() -> {
+            PcmLoop loop;
+            try (InputStream in = opener.open()) {
+                loop = withDetectedBeats(WavDecoder.decode(in));
+            } catch (IOException | RuntimeException e) {
+                mainHandler.post(() -> listener.onError(e));
+                return;
+            }
+            mainHandler.post(() -> {
+                currentLoop = loop;
+                mixer.play(loop);
+                startAudioThread();
+                listener.onLoaded(loop);
+            });
+        });
+    }
+
+    /** The length alone cannot tell three bars from four; the detector can. */
+    private static PcmLoop withDetectedBeats(PcmLoop loop) {
+        TempoDetector.Estimate estimate = TempoDetector.analyze(loop);
+        if (estimate == null || estimate.getConfidence() < MIN_TEMPO_CONFIDENCE) return loop;
+        return loop.withBeats(TempoDetector.beatsInLoop(loop, estimate));
+    }
+
+    private void startAudioThread() {
+        if (running) return;
+        running = true;
+        // Cleared here rather than when the thread ends, so lockTo never sees it change under it
+        clock.clear();
+        audioThread = new Thread(this::runAudio, "backing-track");
+        audioThread.start();
+    }
+
+    private AudioTrack createTrack() {
+        int minBufferBytes = AudioTrack.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_OUT_STEREO, AudioFormat.ENCODING_PCM_16BIT);
+        AudioTrack.Builder builder = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                        .build())
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setBufferSizeInBytes(Math.max(minBufferBytes, CHUNK_FRAMES * PcmLoop.CHANNELS * 2 * 2));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+        }
+        return builder.build();
+    }
+
+    /** The audio thread: mix a chunk, write it (blocking), and now and then read the output's timing. */
+    private void runAudio() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        AudioTrack track;
+        try {
+            track = createTrack();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            mainHandler.post(() -> {
+                currentLoop = null;
+                onAudioThreadEnded();
+            });
+            return;
+        }
+
+        // Track frames count from this track's start, mixer frames from the mixer's
+        long baseFrame = mixer.getFramesRendered();
+        short[] buffer = new short[CHUNK_FRAMES * PcmLoop.CHANNELS];
+        AudioTimestamp timestamp = new AudioTimestamp();
+        long framesWritten = 0;
+        int underruns = 0;
+        int chunks = 0;
+        try {
+            track.play();
+            while (running && !mixer.isIdle()) {
+                long start = Instrumentation.begin(Instrumentation.Timer.AUDIO_RENDER);
+                mixer.render(buffer, CHUNK_FRAMES);
+                Instrumentation.end(Instrumentation.Timer.AUDIO_RENDER, start);
+
+                int written = track.write(buffer, 0, buffer.length);
+                if (written < 0) {
+                    System.err.println("Error writing audio: " + written);
+                    break;
+                }
+                framesWritten += written / PcmLoop.CHANNELS;
+
+                if (++chunks % POLL_INTERVAL == 0) {
+                    if (track.getTimestamp(timestamp)) {
+                        clock.update(baseFrame + timestamp.framePosition, timestamp.nanoTime);
+                        // A frame written now is heard once everything queued before it has played
+                        double playing = clock.nanosToFrame(System.nanoTime());
+                        Instrumentation.record(Instrumentation.Timer.AUDIO_LATENCY,
+                                Math.round((baseFrame + framesWritten - playing) * 1e9 / sampleRate));
+                    }
+                    int total = track.getUnderrunCount();
+                    if (total > underruns) {
+                        Instrumentation.add(Instrumentation.Counter.AUDIO_UNDERRUNS, total - underruns);
+                        underruns = total;
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+        } finally {
+            // Drop anything still queued so a stopped loop does not linger
+            track.pause();
+            track.flush();
+            track.release();
+            mainHandler.post(this::onAudioThreadEnded);
+        }
+    }
+
+    /** Restarts the thread if a loop was started while the previous one was winding down. */
+    private void onAudioThreadEnded() {
+        running = false;
+        audioThread = null;
+        if (currentLoop != null && !loader.isShutdown()) {
+            mixer.play(currentLoop);
+            startAudioThread();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.raptrainer.audio;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the user's flow from the microphone. A capture thread reads
+ * {@link AudioRecord} in 10 ms chunks into a {@link PcmRingBuffer}; an analysis
+ * thread drains the ring through a {@link FlowMeter}. The UI polls
+ * {@link #getReading()} at display rate, and each poll has the analysis thread
+ * publish a {@link FlowMeter.Reading} after its next chunk, so one is made per
+ * displayed frame rather than per chunk. Capture never waits on the
+ * analysis: if it falls behind, samples are dropped rather than the recorder
+ * overrunning. Needs the RECORD_AUDIO permission. Call from the main thread.
+ */
+public class MicFlowMonitor {
+    // Plenty for syllables and gaps, and every device records at it
+    private static final int SAMPLE_RATE = 16000;
+    private static final int CHUNK_SAMPLES = SAMPLE_RATE * FlowMeter.HOP_MILLIS / 1000;
+    // About a second of slack between the two threads
+    private static final int RING_CAPACITY = 16384;
+    private static final long IDLE_PARK_NANOS = 20_000_000L;
+
+    /** Notified on the main thread when the microphone cannot be opened. */
+    public interface ErrorListener {
+        void onError(Exception e);
+    }
+
+    /**
+     * One start-to-stop run with its own ring and meter, so threads of a run
+     * that is still winding down never share them with the next one.
+     */
+    private final class Run {
+        final PcmRingBuffer ring = new PcmRingBuffer(RING_CAPACITY);
+        final FlowMeter meter = new FlowMeter(SAMPLE_RATE);
+        final Thread analysisThread = new Thread(this::analyze, "flow-meter");
+        final ErrorListener listener;
+        volatile FlowMeter.Reading reading;
+        // Set by each poll and cleared when a reading is published
+        volatile boolean readingWanted = true;
+
+        Run(ErrorListener listener) {
+            this.listener = listener;
+        }
+
+        boolean isCurrent() {
+            return current == this;
+        }
+
+        /** The capture thread: read a chunk (blocking) and hand it over, nothing else. */
+        void capture() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+            AudioRecord record;
+            try {
+                record = createRecord();
+                record.startRecording();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                mainHandler.post(() -> {
+                    if (!isCurrent()) return;
+                    stop();
+                    listener.onError(e);
+                });
+                return;
+            }
+
+            short[] chunk = new short[CHUNK_SAMPLES];
+            try {
+                while (isCurrent()) {
+                    int read = record.read(chunk, 0, chunk.length);
+                    if (read < 0) {
+                        System.err.println("Error reading the microphone: " + read);
+                        break;
+                    }
+                    ring.write(chunk, 0, read);
+                    LockSupport.unpark(analysisThread);
+                }
+            } finally {
+                record.stop();
+                record.release();
+            }
+        }
+
+        /** The analysis thread: drain the ring through the meter, publishing when asked. */
+        void analyze() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+            short[] chunk = new short[CHUNK_SAMPLES];
+            while (isCurrent()) {
+                int read = ring.read(chunk, 0, chunk.length);
+                if (read == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                meter.process(chunk, 0, read);
+                if (readingWanted) {
+                    readingWanted = false;
+                    reading = meter.reading();
+                }
+            }
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile Run current;
+
+    /** Opens the microphone and starts measuring; does nothing if already running. */
+    public void start(ErrorListener listener) {
+        if (current != null) return;
+        Run run = new Run(listener);
+        current = run;
+        run.analysisThread.start();
+        new Thread(run::capture, "mic-capture").start();
+    }
+
+    /** Releases the microphone; the threads end on their own within a chunk. */
+    public void stop() {
+        Run run = current;
+        current = null;
+        if (run != null) LockSupport.unpark(run.analysisThread);
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    /**
+     * The latest measurement, or null while stopped or before the first one.
+     * Also asks for a newer one after the next chunk, so poll at display rate.
+     * Any thread.
+     */
+    public FlowMeter.Reading getReading() {
+        Run run = current;
+        if (run == null) return null;
+        run.readingWanted = true;
+        return run.reading;
+    }
+
+    // ===================== Internal Logic =====================
+
+    private static AudioRecord createRecord() {
+        int minBufferBytes = AudioRecord.getMinBufferSize(SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferBytes <= 0) throw new IllegalStateException("Recording at " + SAMPLE_RATE + " Hz is not supported");
+        // Voice recognition skips the automatic gain control that would flatten the envelope
+        AudioRecord record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, Math.max(minBufferBytes, CHUNK_SAMPLES * 2 * 4));
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            throw new IllegalStateException("Cannot open the microphone");
+        }
+        return record;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.raptrainer.audio;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Speaks each word as it is shown, for drilling without looking. The upcoming
+ * words are synthesized in the background into a {@link SpeechClipCache}, so
+ * speaking one is a lookup and a static {@link AudioTrack} started on a
+ * playback thread. A word whose clip is not ready yet stays silent rather than
+ * being spoken late, off the beat. Call from the main thread.
+ */
+public class SpeechCuePlayer {
+    public static final String CACHE_DIR = "speech_cues";
+    // A spoken word is about 40 KB decoded, so a few dozen stay in memory
+    private static final long MAX_MEMORY_BYTES = 2L << 20;
+    private static final long MAX_DISK_BYTES = 16L << 20;
+
+    private final TtsSynthesizer synthesizer;
+    private final SpeechClipCache cache;
+    private final ExecutorService synthesisExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "speech-synthesis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService playbackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "speech-playback");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private AudioTrack track; // playback thread only
+
+    public SpeechCuePlayer(Context context) {
+        synthesizer = new TtsSynthesizer(context);
+        cache = new SpeechClipCache(synthesizer, new File(context.getCacheDir(), CACHE_DIR),
+                MAX_MEMORY_BYTES, MAX_DISK_BYTES, synthesisExecutor);
+    }
+
+    /** Starts synthesizing these words and drops the queued ones no longer coming up. */
+    public void prepare(List<String> upcomingWords) {
+        cache.prefetch(upcomingWords);
+    }
+
+    /** Speaks the word if its clip is ready, cutting off the previous one; never waits. */
+    public void speak(String word) {
+        PcmLoop clip = cache.get(word);
+        if (clip == null) return;
+        playbackExecutor.execute(() -> play(clip));
+    }
+
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) cache.clearMemory();
+    }
+
+    /** Stops speaking and frees the engine; the player cannot be used afterwards. */
+    public void release() {
+        synthesisExecutor.shutdownNow();
+        playbackExecutor.execute(this::releaseTrack);
+        playbackExecutor.shutdown();
+        synthesizer.shutdown();
+    }
+
+    // ===================== Internal Logic =====================
+
+    private void play(PcmLoop clip) {
+        releaseTrack();
+        short[] samples = clip.getSamples();
+        try {
+            track = new AudioTrack.Builder()
+                    .setAudioAttributes(new AudioAttributes.Builder()
+                            .setUsage(AudioAttributes.USAGE_MEDIA)
+                            .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                            .build())
+                    .setAudioFormat(new AudioFormat.Builder()
+                            .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                            .setSampleRate(clip.getSampleRate())
+                            .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                            .build())
+                    .setTransferMode(AudioTrack.MODE_STATIC)
+                    .setBufferSizeInBytes(samples.length * 2)
+                    .build();
+            track.write(samples, 0, samples.length);
+            track.play();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            releaseTrack();
+        }
+    }
+
+    private void releaseTrack() {
+        if (track == null) return;
+        track.release();
+        track = null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.raptrainer.audio;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The platform text-to-speech engine as a {@link SpeechSynthesizer}, in
+ * Spanish. The engine binds asynchronously; the first call waits for it.
+ * One utterance at a time, as {@link SpeechClipCache} asks for them.
+ */
+public class TtsSynthesizer implements SpeechSynthesizer {
+    private static final Locale SPANISH = new Locale("es", "ES");
+    private static final long INIT_TIMEOUT_SECONDS = 10;
+    private static final long UTTERANCE_TIMEOUT_SECONDS = 10;
+
+    private final TextToSpeech tts;
+    private final CountDownLatch initialized = new CountDownLatch(1);
+    private volatile boolean available;
+    // The utterance being waited for; callbacks about earlier ones, e.g. one that timed out, are ignored
+    private volatile String utteranceId;
+    private volatile CountDownLatch utteranceDone;
+    private volatile boolean utteranceFailed;
+    private long utterances; // worker thread only
+
+    public TtsSynthesizer(Context context) {
+        tts = new TextToSpeech(context.getApplicationContext(), status -> {
+            if (status == TextToSpeech.SUCCESS) {
+                int language = tts.setLanguage(SPANISH);
+                available = language != TextToSpeech.LANG_MISSING_DATA && language != TextToSpeech.LANG_NOT_SUPPORTED;
+            }
+            initialized.countDown();
+        });
+        tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override
+            public void onStart(String utteranceId) {
+            }
+
+            @Override
+            public void onDone(String utteranceId) {
+                finish(utteranceId, false);
+            }
+
+            @Override
+            public void onError(String utteranceId) {
+                finish(utteranceId, true);
+            }
+        });
+    }
+
+    @Override
+    public String getVoiceId() throws IOException {
+        awaitEngine();
+        Voice voice = tts.getVoice();
+        return tts.getDefaultEngine() + "/" + (voice != null ? voice.getName() : SPANISH.toString());
+    }
+
+    @Override
+    public void synthesize(String word, File output) throws IOException {
+        awaitEngine();
+        String id = word + "#" + ++utterances;
+        CountDownLatch done = new CountDownLatch(1);
+        utteranceFailed = false;
+        utteranceDone = done;
+        utteranceId = id;
+        // Engines spell out words in capitals as if they were acronyms
+        if (tts.synthesizeToFile(word.toLowerCase(SPANISH), new Bundle(), output, id) != TextToSpeech.SUCCESS) {
+            throw new IOException("Text-to-speech refused " + word);
+        }
+        try {
+            if (!done.await(UTTERANCE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) throw new IOException("Text-to-speech timed out on " + word);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        if (utteranceFailed) throw new IOException("Text-to-speech failed on " + word);
+    }
+
+    public void shutdown() {
+        tts.shutdown();
+    }
+
+    private void awaitEngine() throws IOException {
+        try {
+            if (!initialized.await(INIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) throw new IOException("Text-to-speech did not start");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        if (!available) throw new IOException("No Spanish text-to-speech voice");
+    }
+
+    private void finish(String id, boolean failed) {
+        if (!id.equals(utteranceId)) return;
+        utteranceFailed = failed;
+        CountDownLatch done = utteranceDone;
+        if (done != null) done.countDown();
+    }
+}
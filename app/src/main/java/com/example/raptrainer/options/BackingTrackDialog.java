@@ -0,0 +1,73 @@
+package com.example.raptrainer.options;
+
+import android.content.Context;
+import android.net.Uri;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.audio.BackingTrackPlayer;
+import com.example.raptrainer.audio.PcmLoop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Picks a backing loop: one of the bundled ones or a WAVE file, or stops the playing one. */
+public class BackingTrackDialog {
+    private final Context context;
+    private final BackingTrackPlayer player;
+
+    public BackingTrackDialog(Context context, BackingTrackPlayer player) {
+        this.context = context;
+        this.player = player;
+    }
+
+    /** {@code onPickFile} opens the system file picker, whose result goes to {@link #playPicked}. */
+    public void show(Runnable onPickFile) {
+        List<String> loops = BackingTrackPlayer.listBundledLoops(context);
+        List<String> items = new ArrayList<>();
+        for (String loop : loops) {
+            items.add(loop.substring(0, loop.length() - ".wav".length()).replace('_', ' '));
+        }
+        items.add(context.getString(R.string.backing_track_file));
+        if (player.isPlaying()) items.add(context.getString(R.string.backing_track_stop));
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(context);
+        builder.setTitle(context.getString(R.string.backing_track));
+        builder.setItems(items.toArray(new String[0]), (dialog, which) -> {
+            if (which < loops.size()) {
+                player.playAsset(context, loops.get(which), loadListener(context));
+            } else if (which == loops.size()) {
+                onPickFile.run();
+            } else {
+                player.stop();
+            }
+        });
+        builder.setNegativeButton(android.R.string.cancel, null);
+
+        builder.create().show();
+    }
+
+    /** Plays a file returned by the picker; null when the user backed out. */
+    public static void playPicked(Context context, BackingTrackPlayer player, Uri uri) {
+        if (uri == null) return;
+        player.playUri(context, uri, loadListener(context));
+    }
+
+    private static BackingTrackPlayer.LoadListener loadListener(Context context) {
+        Context appContext = context.getApplicationContext();
+        return new BackingTrackPlayer.LoadListener() {
+            @Override
+            public void onLoaded(PcmLoop loop) {
+                Toast.makeText(appContext, appContext.getString(R.string.backing_track_playing, Math.round(loop.getBpm())),
+                        Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                Toast.makeText(appContext, appContext.getString(R.string.backing_track_error), Toast.LENGTH_SHORT).show();
+            }
+        };
+    }
+}
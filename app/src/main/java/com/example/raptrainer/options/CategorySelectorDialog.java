@@ -1,12 +1,29 @@
 package com.example.raptrainer.options;
 
 import android.content.Context;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.EditText;
 import androidx.appcompat.app.AlertDialog;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.raptrainer.R;
+import com.example.raptrainer.word_manager.CategoryTree;
 import com.example.raptrainer.word_manager.WordManager;
 
+import java.util.BitSet;
+
+/**
+ * Picks categories from a tree of stressed vowel, consonant class and ending,
+ * with word counts and a search box. Ticks are kept in a copy of the selection
+ * until OK, so backing out changes nothing.
+ */
 public class CategorySelectorDialog {
+    private static final float LIST_HEIGHT_FRACTION = 0.6f;
+
     private final WordManager wordManager;
 
     public CategorySelectorDialog(WordManager wordManager) {
@@ -14,14 +31,39 @@ public class CategorySelectorDialog {
     }
 
     public void show(Context context, Runnable onCategoriesUpdated) {
+        CategoryTree tree = wordManager.getCategoryTree();
+        BitSet selection = wordManager.getSelection();
+
+        View content = LayoutInflater.from(context).inflate(R.layout.category_picker, null);
+        RecyclerView list = content.findViewById(R.id.categoryTree);
+        list.getLayoutParams().height = Math.round(context.getResources().getDisplayMetrics().heightPixels * LIST_HEIGHT_FRACTION);
+        list.setLayoutManager(new LinearLayoutManager(context));
+        CategoryTreeAdapter adapter = new CategoryTreeAdapter(tree, selection, context.getString(R.string.category_imported),
+                (categoryIds, selected) -> {
+                    if (selected) wordManager.prefetchCategories(categoryIds); // Load words before OK is pressed
+                });
+        list.setAdapter(adapter);
+
+        CategoryTree.Search search = tree.newSearch();
+        EditText searchBox = content.findViewById(R.id.categorySearch);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                adapter.setMatches(search.match(s.toString()));
+            }
+        });
+
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle(context.getString(R.string.select_categories)); // Localized title
-
-        builder.setMultiChoiceItems(
-                wordManager.getButtonLabels(),
-                wordManager.getSelectedCategories(),
-                (dialog, index, isChecked) -> wordManager.getSelectedCategories()[index] = isChecked // Update state directly
-        );
+        builder.setView(content);
 
         builder.setNeutralButton(context.getString(R.string.select_all), (dialog, which) -> {
             wordManager.selectAllCategories();
@@ -36,6 +78,7 @@ public class CategorySelectorDialog {
         });
 
         builder.setPositiveButton(context.getString(R.string.ok), (dialog, which) -> {
+            wordManager.setSelection(selection);
             wordManager.updateSelectedCategories(); // Apply changes
             if (onCategoriesUpdated != null) onCategoriesUpdated.run();
         });
@@ -0,0 +1,156 @@
+package com.example.raptrainer.options;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.word_manager.CategoryTree;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rows of a {@link CategoryTree}: only expanded nodes have their children in
+ * the list, so it starts with the roots whatever the number of categories.
+ * While a search is active every match is shown with its ancestors open.
+ */
+class CategoryTreeAdapter extends RecyclerView.Adapter<CategoryTreeAdapter.RowHolder> {
+    private static final float PARTIAL_ALPHA = 0.5f;
+
+    interface SelectionListener {
+        /** Called after a tick added or removed {@code categoryIds}. */
+        void onSelectionChanged(BitSet categoryIds, boolean selected);
+    }
+
+    private final CategoryTree tree;
+    private final BitSet selection;
+    private final String importedLabel;
+    private final SelectionListener listener;
+    private final List<CategoryTree.Node> rows = new ArrayList<>();
+    private final Set<CategoryTree.Node> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+    private BitSet matches;
+
+    CategoryTreeAdapter(CategoryTree tree, BitSet selection, String importedLabel, SelectionListener listener) {
+        this.tree = tree;
+        this.selection = selection;
+        this.importedLabel = importedLabel;
+        this.listener = listener;
+        rows.addAll(tree.getRoots());
+    }
+
+    /** Shows only the nodes leading to {@code categoryIds}; null goes back to the collapsible tree. */
+    void setMatches(BitSet categoryIds) {
+        matches = categoryIds;
+        rows.clear();
+        if (categoryIds != null) {
+            rows.addAll(tree.rowsMatching(categoryIds));
+        } else {
+            for (CategoryTree.Node root : tree.getRoots()) collectVisible(root, rows);
+        }
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.category_tree_row, parent, false);
+        return new RowHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RowHolder holder, int position) {
+        CategoryTree.Node node = rows.get(position);
+        int indent = Math.round(holder.itemView.getResources().getDisplayMetrics().density * 24 * node.depth);
+        holder.itemView.setPaddingRelative(indent, 0, 0, 0);
+
+        holder.expand.setText(node.isLeaf() ? "" : isOpen(node) ? "▾" : "▸");
+        holder.label.setText(node.depth == 0 && node.vowel == 0 ? importedLabel : node.label);
+        holder.count.setText(node.wordCount >= 0 ? String.valueOf(node.wordCount) : "");
+
+        int state = CategoryTree.getState(node, selection);
+        holder.check.setChecked(state != CategoryTree.UNCHECKED);
+        holder.check.setAlpha(state == CategoryTree.PARTIAL ? PARTIAL_ALPHA : 1f);
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    private boolean isOpen(CategoryTree.Node node) {
+        return matches != null || expanded.contains(node);
+    }
+
+    private void toggleExpanded(int position) {
+        CategoryTree.Node node = rows.get(position);
+        if (node.isLeaf() || matches != null) return;
+        if (expanded.remove(node)) {
+            int end = position + 1;
+            while (end < rows.size() && rows.get(end).depth > node.depth) end++;
+            rows.subList(position + 1, end).clear();
+            notifyItemRangeRemoved(position + 1, end - position - 1);
+        } else {
+            expanded.add(node);
+            List<CategoryTree.Node> shown = new ArrayList<>();
+            for (CategoryTree.Node child : tree.getChildren(node)) collectVisible(child, shown);
+            rows.addAll(position + 1, shown);
+            notifyItemRangeInserted(position + 1, shown.size());
+        }
+        notifyItemChanged(position);
+    }
+
+    private void toggleSelected(int position) {
+        CategoryTree.Node node = rows.get(position);
+        boolean selected = CategoryTree.getState(node, selection) != CategoryTree.CHECKED;
+        BitSet changed = new BitSet();
+        CategoryTree.setSelected(node, changed, true);
+        CategoryTree.setSelected(node, selection, selected);
+        // Ancestors and descendants change state too; only bound rows are redrawn
+        notifyItemRangeChanged(0, rows.size());
+        listener.onSelectionChanged(changed, selected);
+    }
+
+    private void collectVisible(CategoryTree.Node node, List<CategoryTree.Node> shown) {
+        shown.add(node);
+        if (!expanded.contains(node)) return;
+        for (CategoryTree.Node child : tree.getChildren(node)) collectVisible(child, shown);
+    }
+
+    class RowHolder extends RecyclerView.ViewHolder {
+        final TextView expand;
+        final CheckBox check;
+        final TextView label;
+        final TextView count;
+
+        RowHolder(View view) {
+            super(view);
+            expand = view.findViewById(R.id.categoryExpand);
+            check = view.findViewById(R.id.categoryCheck);
+            label = view.findViewById(R.id.categoryLabel);
+            count = view.findViewById(R.id.categoryCount);
+
+            view.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) return;
+                if (rows.get(position).isLeaf()) {
+                    toggleSelected(position);
+                } else {
+                    toggleExpanded(position);
+                }
+            });
+            check.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) toggleSelected(position);
+            });
+        }
+    }
+}
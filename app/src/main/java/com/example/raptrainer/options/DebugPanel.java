@@ -0,0 +1,38 @@
+package com.example.raptrainer.options;
+
+import android.content.Context;
+import android.content.Intent;
+import androidx.appcompat.app.AlertDialog;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.word_manager.Instrumentation;
+
+/** Shows the instrumentation counters and timers, and shares them as JSON. */
+public class DebugPanel {
+    private final Context context;
+
+    public DebugPanel(Context context) {
+        this.context = context;
+    }
+
+    public void show() {
+        String summary = Instrumentation.toText();
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(context);
+        builder.setTitle(context.getString(R.string.debug_panel));
+        builder.setMessage(summary.isEmpty() ? context.getString(R.string.debug_no_data) : summary);
+
+        builder.setPositiveButton(context.getString(R.string.debug_share_json), (dialog, which) -> shareJson());
+        builder.setNeutralButton(context.getString(R.string.debug_reset), (dialog, which) -> Instrumentation.reset());
+        builder.setNegativeButton(context.getString(R.string.ok), null);
+
+        builder.create().show();
+    }
+
+    private void shareJson() {
+        Intent send = new Intent(Intent.ACTION_SEND);
+        send.setType("application/json");
+        send.putExtra(Intent.EXTRA_TEXT, Instrumentation.toJson());
+        context.startActivity(Intent.createChooser(send, context.getString(R.string.debug_share_json)));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.raptrainer.options;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.word_manager.WordManager;
+
+/**
+ * Imports a word list the user picked and shows how far along it is. The
+ * import runs in the background; hiding the dialog does not stop it, and a
+ * Toast reports the result either way.
+ */
+public class ImportDialog {
+    private static final int PADDING_DP = 24;
+
+    private ImportDialog() {
+    }
+
+    /**
+     * Imports a file returned by the picker; null when the user backed out.
+     * {@code onImported} runs on the main thread once the list is selected.
+     */
+    public static void importPicked(Context context, WordManager wordManager, Uri uri, Runnable onImported) {
+        if (uri == null) return;
+        Context appContext = context.getApplicationContext();
+
+        ProgressBar progressBar = new ProgressBar(context, null, android.R.attr.progressBarStyleHorizontal);
+        progressBar.setMax(100);
+        progressBar.setIndeterminate(true);
+        TextView message = new TextView(context);
+        message.setText(context.getString(R.string.import_running));
+
+        int padding = Math.round(PADDING_DP * context.getResources().getDisplayMetrics().density);
+        LinearLayout content = new LinearLayout(context);
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setPadding(padding, padding / 2, padding, 0);
+        content.addView(message);
+        content.addView(progressBar);
+
+        AlertDialog dialog = new AlertDialog.Builder(context)
+                .setTitle(context.getString(R.string.import_words))
+                .setView(content)
+                .setPositiveButton(context.getString(R.string.import_hide), null)
+                .create();
+        dialog.show();
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        wordManager.importWordList(appContext, uri, mainHandler::post, new WordManager.ImportListener() {
+            @Override
+            public void onProgress(int percent) {
+                progressBar.setIndeterminate(percent < 0);
+                if (percent >= 0) progressBar.setProgress(percent);
+            }
+
+            @Override
+            public void onImported(String label, int wordCount) {
+                if (dialog.isShowing()) dialog.dismiss();
+                Toast.makeText(appContext, appContext.getString(R.string.import_done, label, wordCount),
+                        Toast.LENGTH_SHORT).show();
+                onImported.run();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                if (dialog.isShowing()) dialog.dismiss();
+                Toast.makeText(appContext, appContext.getString(R.string.import_error), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.raptrainer.options;
 
+import android.Manifest;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -7,21 +9,57 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.SeekBar;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.widget.SwitchCompat;
+import androidx.core.content.ContextCompat;
 
 import com.example.raptrainer.R;
+import com.example.raptrainer.audio.BackingTrackPlayer;
+import com.example.raptrainer.word_manager.Instrumentation;
 import com.example.raptrainer.word_manager.WordManager;
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 
 public class OptionsBottomSheet extends BottomSheetDialogFragment {
+    private static final String[] WAVE_TYPES = {"audio/wav", "audio/x-wav", "audio/wave"};
+    private static final String[] WORD_LIST_TYPES = {"text/csv", "text/comma-separated-values", "text/plain"};
 
     private WordManager wordManager;
     private Runnable onWordRefresh;
     private DismissListener dismissListener;
     private DelayChangeListener delayChangeListener;
-
+    private BackingTrackPlayer backingTrack;
+    private FlowMeterListener flowMeterListener;
+    private boolean flowMeterEnabled;
+    private SwitchCompat flowMeterSwitch;
+    private SpeechCueListener speechCueListener;
+    private boolean speechCuesEnabled;
+    // Registered up front, as the result API requires
+    private final ActivityResultLauncher<String[]> loopPicker = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(),
+            uri -> BackingTrackDialog.playPicked(requireContext(), backingTrack, uri));
+    private final ActivityResultLauncher<String[]> tempoPicker = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(),
+            uri -> TempoDialog.detectPicked(requireContext(), backingTrack, wordManager, uri));
+    private final ActivityResultLauncher<String[]> wordListPicker = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(),
+            uri -> ImportDialog.importPicked(requireContext(), wordManager, uri, () -> {
+                if (onWordRefresh != null) onWordRefresh.run();
+            }));
+    private final ActivityResultLauncher<String> micPermission = registerForActivityResult(
+            new ActivityResultContracts.RequestPermission(),
+            granted -> {
+                if (granted) {
+                    if (flowMeterListener != null) flowMeterListener.onFlowMeterChanged(true);
+                } else {
+                    flowMeterSwitch.setChecked(false);
+                    Toast.makeText(requireContext(), R.string.flow_meter_denied, Toast.LENGTH_SHORT).show();
+                }
+            });
 
     public void setWordManager(WordManager manager) {
         this.wordManager = manager;
@@ -39,6 +77,20 @@ public class OptionsBottomSheet extends BottomSheetDialogFragment {
         this.delayChangeListener = listener;
     }
 
+    public void setBackingTrack(BackingTrackPlayer player) {
+        this.backingTrack = player;
+    }
+
+    public void setFlowMeter(boolean enabled, FlowMeterListener listener) {
+        this.flowMeterEnabled = enabled;
+        this.flowMeterListener = listener;
+    }
+
+    public void setSpeechCues(boolean enabled, SpeechCueListener listener) {
+        this.speechCuesEnabled = enabled;
+        this.speechCueListener = listener;
+    }
+
 
     public interface DismissListener {
         void onDismiss();
@@ -48,6 +100,14 @@ public class OptionsBottomSheet extends BottomSheetDialogFragment {
         void onDelayChanged(int delayMillis);
     }
 
+    public interface FlowMeterListener {
+        void onFlowMeterChanged(boolean enabled);
+    }
+
+    public interface SpeechCueListener {
+        void onSpeechCuesChanged(boolean enabled);
+    }
+
     @Override
     public void onDismiss(@NonNull android.content.DialogInterface dialog) {
         super.onDismiss(dialog);
@@ -67,6 +127,16 @@ public class OptionsBottomSheet extends BottomSheetDialogFragment {
 
         setupCategorySelector(view);
         setupThemeSelector(view);
+        setupRhymeChainSwitch(view);
+        setupSpacedRepetitionSwitch(view);
+        setupFlowMeterSwitch(view);
+        setupSpeechCueSwitch(view);
+        setupTempo(view);
+        setupBackingTrack(view);
+        setupImport(view);
+        setupSession(view);
+        setupStats(view);
+        setupDebugPanel(view);
 
         return view;
     }
@@ -75,8 +145,8 @@ public class OptionsBottomSheet extends BottomSheetDialogFragment {
         // Assuming your category_selector_layout is clickable or you can add a button wrapper
         view.findViewById(R.id.selectCategoriesButton).setOnClickListener(v -> {
             CategorySelectorDialog categoryDialog = new CategorySelectorDialog(wordManager);
+            // Changes are merged into the current shuffle, so no reset here
             categoryDialog.show(requireActivity(), () -> {
-                wordManager.resetAndShuffle();
                 if (onWordRefresh != null) onWordRefresh.run();
             });
         });
@@ -87,9 +157,95 @@ public class OptionsBottomSheet extends BottomSheetDialogFragment {
         Button themeButton = view.findViewById(R.id.themeSelector);
         TextView themeText = view.findViewById(R.id.themeTextView);
         ThemeSelector themeSelector = new ThemeSelector(requireContext(), wordManager.getThemesList());
+        String current = wordManager.getTheme();
+        themeText.setText(current != null ? current : getString(R.string.theme_none));
 
+        // The theme only weights the draw from now on, so no reset here
         themeButton.setOnClickListener(v ->
-                themeSelector.show(selectedWord -> themeText.setText(selectedWord))
+                themeSelector.show(selectedTheme -> {
+                    wordManager.setTheme(selectedTheme);
+                    themeText.setText(selectedTheme != null ? selectedTheme : getString(R.string.theme_none));
+                })
         );
     }
+
+    private void setupRhymeChainSwitch(View view) {
+        SwitchCompat rhymeChainSwitch = view.findViewById(R.id.rhymeChainSwitch);
+        rhymeChainSwitch.setChecked(wordManager.isRhymeChain());
+        rhymeChainSwitch.setOnCheckedChangeListener((button, isChecked) -> wordManager.setRhymeChain(isChecked));
+    }
+
+    private void setupSpacedRepetitionSwitch(View view) {
+        SwitchCompat spacedRepetitionSwitch = view.findViewById(R.id.spacedRepetitionSwitch);
+        spacedRepetitionSwitch.setChecked(wordManager.isSpacedRepetition());
+        spacedRepetitionSwitch.setOnCheckedChangeListener((button, isChecked) -> wordManager.setSpacedRepetition(isChecked));
+    }
+
+    /** Asks for the microphone the first time; the meter is only turned on once it is granted. */
+    private void setupFlowMeterSwitch(View view) {
+        flowMeterSwitch = view.findViewById(R.id.flowMeterSwitch);
+        flowMeterSwitch.setChecked(flowMeterEnabled);
+        flowMeterSwitch.setOnCheckedChangeListener((button, isChecked) -> {
+            flowMeterEnabled = isChecked;
+            if (isChecked && ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.RECORD_AUDIO)
+                    != PackageManager.PERMISSION_GRANTED) {
+                micPermission.launch(Manifest.permission.RECORD_AUDIO);
+                return;
+            }
+            if (flowMeterListener != null) flowMeterListener.onFlowMeterChanged(isChecked);
+        });
+    }
+
+    private void setupSpeechCueSwitch(View view) {
+        SwitchCompat speechCueSwitch = view.findViewById(R.id.speechCueSwitch);
+        speechCueSwitch.setChecked(speechCuesEnabled);
+        speechCueSwitch.setOnCheckedChangeListener((button, isChecked) -> {
+            speechCuesEnabled = isChecked;
+            if (speechCueListener != null) speechCueListener.onSpeechCuesChanged(isChecked);
+        });
+    }
+
+    /** Takes effect when the sheet closes and the word loop is scheduled again. */
+    private void setupTempo(View view) {
+        view.findViewById(R.id.tempoButton).setOnClickListener(v ->
+                new TempoDialog(requireContext(), wordManager).show(() -> tempoPicker.launch(WAVE_TYPES))
+        );
+    }
+
+    /** The word loop locks onto the loop's beat when it is scheduled again. */
+    private void setupBackingTrack(View view) {
+        view.findViewById(R.id.backingTrackButton).setOnClickListener(v ->
+                new BackingTrackDialog(requireContext(), backingTrack).show(() ->
+                        loopPicker.launch(WAVE_TYPES))
+        );
+    }
+
+    /** The imported list becomes a category of its own and is selected right away. */
+    private void setupImport(View view) {
+        view.findViewById(R.id.importWordsButton).setOnClickListener(v -> wordListPicker.launch(WORD_LIST_TYPES));
+    }
+
+    private void setupSession(View view) {
+        view.findViewById(R.id.sessionButton).setOnClickListener(v ->
+                new SessionDialog(requireContext(), wordManager).show(() -> {
+                    if (onWordRefresh != null) onWordRefresh.run();
+                })
+        );
+    }
+
+    /** The log syncs as the sheet opens, so the rollups are current by the time the button is tapped. */
+    private void setupStats(View view) {
+        if (wordManager.getSessionLog() != null) wordManager.getSessionLog().flush();
+        view.findViewById(R.id.statsButton).setOnClickListener(v ->
+                new StatsDialog(requireContext(), wordManager.getSessionLog()).show()
+        );
+    }
+
+    /** Only shown when instrumentation is on, i.e. in debug builds. */
+    private void setupDebugPanel(View view) {
+        if (!Instrumentation.isEnabled()) return;
+        Button debugButton = view.findViewById(R.id.debugPanelButton);
+        debugButton.setVisibility(View.VISIBLE);
+        debugButton.setOnClickListener(v -> new DebugPanel(requireContext()).show());
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.raptrainer.options;
+
+import android.content.Context;
+import android.content.Intent;
+import android.text.InputType;
+import android.widget.EditText;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.word_manager.WordManager;
+
+/** Shows the current session code to share, and joins a session from a code. */
+public class SessionDialog {
+    private final Context context;
+    private final WordManager wordManager;
+
+    public SessionDialog(Context context, WordManager wordManager) {
+        this.context = context;
+        this.wordManager = wordManager;
+    }
+
+    public void show(Runnable onSessionJoined) {
+        String code = wordManager.saveSession();
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(context);
+        builder.setTitle(context.getString(R.string.session));
+        builder.setMessage(context.getString(R.string.session_code, code));
+
+        builder.setPositiveButton(context.getString(R.string.session_share), (dialog, which) -> share(code));
+        builder.setNeutralButton(context.getString(R.string.session_join), (dialog, which) -> showJoin(onSessionJoined));
+        builder.setNegativeButton(context.getString(R.string.ok), null);
+
+        builder.create().show();
+    }
+
+    private void share(String code) {
+        Intent send = new Intent(Intent.ACTION_SEND);
+        send.setType("text/plain");
+        send.putExtra(Intent.EXTRA_TEXT, code);
+        context.startActivity(Intent.createChooser(send, context.getString(R.string.session_share)));
+    }
+
+    private void showJoin(Runnable onSessionJoined) {
+        EditText input = new EditText(context);
+        input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_CHARACTERS);
+        input.setSingleLine(true);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(context);
+        builder.setTitle(context.getString(R.string.session_join));
+        builder.setView(input);
+        builder.setPositiveButton(context.getString(R.string.ok), (dialog, which) -> {
+            try {
+                wordManager.restoreSession(input.getText().toString());
+            } catch (IllegalArgumentException e) {
+                Toast.makeText(context, context.getString(R.string.session_invalid), Toast.LENGTH_SHORT).show();
+                return;
+            }
+            if (onSessionJoined != null) onSessionJoined.run();
+        });
+        builder.setNegativeButton(android.R.string.cancel, null);
+
+        builder.create().show();
+    }
+}
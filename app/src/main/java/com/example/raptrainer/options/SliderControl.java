@@ -6,13 +6,22 @@ import android.widget.TextView;
 import com.example.raptrainer.word_manager.WordManager;
 
 public class SliderControl {
+    /**
+     * Delays the slider steps through: rapid-fire steps below a second, then
+     * whole seconds up to 30.
+     */
+    private static final int[] RAPID_FIRE_DELAYS = {150, 200, 250, 300, 400, 500};
+    private static final int MIN_SECONDS = 1;
+    private static final int MAX_SECONDS = 30;
+
+    /** Highest slider progress, for {@code SeekBar.setMax}. */
+    public static final int MAX_PROGRESS = RAPID_FIRE_DELAYS.length + MAX_SECONDS - MIN_SECONDS;
+
     private final SeekBar slider;
     private final TextView sliderValueText;
     private final WordManager wordManager;
 
-    private static final int MIN_DELAY = 1000; // 1 second
-    private static final int MAX_DELAY = 30000; // 30 seconds
-    private int currentDelay = MIN_DELAY;
+    private int currentDelay;
 
     public SliderControl(SeekBar slider, TextView sliderValueText, WordManager wordManager) {
         this.slider = slider;
@@ -21,23 +30,43 @@ public class SliderControl {
         initialize();
     }
 
-    private void initialize() {
-        final int minSeconds = 1;
-        final int maxSeconds = 30;
+    /** Delay in milliseconds for a slider progress. */
+    public static int delayForProgress(int progress) {
+        if (progress < RAPID_FIRE_DELAYS.length) return RAPID_FIRE_DELAYS[Math.max(0, progress)];
+        int seconds = MIN_SECONDS + progress - RAPID_FIRE_DELAYS.length;
+        return Math.min(seconds, MAX_SECONDS) * 1000;
+    }
 
-        slider.setMax(maxSeconds - minSeconds);
+    /** Slider progress of the step closest to, and not above, a delay. */
+    public static int progressForDelay(int delayMillis) {
+        if (delayMillis >= MIN_SECONDS * 1000) {
+            return RAPID_FIRE_DELAYS.length + Math.min(delayMillis / 1000, MAX_SECONDS) - MIN_SECONDS;
+        }
+        int progress = 0;
+        while (progress + 1 < RAPID_FIRE_DELAYS.length && RAPID_FIRE_DELAYS[progress + 1] <= delayMillis) {
+            progress++;
+        }
+        return progress;
+    }
+
+    /** E.g. "250ms" or "5s". */
+    public static String formatDelay(int delayMillis) {
+        return delayMillis < 1000 ? delayMillis + "ms" : delayMillis / 1000 + "s";
+    }
+
+    private void initialize() {
+        slider.setMax(MAX_PROGRESS);
 
-        // Convert current delay in ms to seconds for SeekBar
-        int currentSeconds = wordManager.getWordDisplayDelay() / 1000;
-        slider.setProgress(currentSeconds - minSeconds);
-        updateSliderValueText(currentSeconds);
+        currentDelay = wordManager.getWordDisplayDelay();
+        slider.setProgress(progressForDelay(currentDelay));
+        updateSliderValueText(currentDelay);
 
         slider.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-                int selectedSeconds = minSeconds + progress;
-                wordManager.setWordDisplayDelay(selectedSeconds * 1000); // convert to ms
-                updateSliderValueText(selectedSeconds);
+                currentDelay = delayForProgress(progress);
+                wordManager.setWordDisplayDelay(currentDelay);
+                updateSliderValueText(currentDelay);
             }
 
             @Override public void onStartTrackingTouch(SeekBar seekBar) {}
@@ -45,8 +74,8 @@ public class SliderControl {
         });
     }
 
-    private void updateSliderValueText(int seconds) {
-        sliderValueText.setText("Delay: " + seconds + "s");
+    private void updateSliderValueText(int delayMillis) {
+        sliderValueText.setText("Delay: " + formatDelay(delayMillis));
     }
 
     public int getCurrentDelay() {
@@ -0,0 +1,96 @@
+package com.example.raptrainer.options;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.appcompat.app.AlertDialog;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.session_log.DayRollup;
+import com.example.raptrainer.session_log.SessionLog;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Practice per day from the session log's rollups: today, the last week and the total. */
+public class StatsDialog {
+    private static final int DAYS_SHOWN = 7;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final ExecutorService readExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stats-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Context context;
+    private final SessionLog sessionLog;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public StatsDialog(Context context, SessionLog sessionLog) {
+        this.context = context;
+        this.sessionLog = sessionLog;
+    }
+
+    /** Reads the rollups on a background thread and shows the dialog on the main thread once they are in. */
+    public void show() {
+        readExecutor.execute(() -> {
+            List<DayRollup> days = readDays();
+            mainHandler.post(() -> showSummary(days));
+        });
+    }
+
+    /** Reads the small rollup file only, never the raw log; null if there is none. */
+    private List<DayRollup> readDays() {
+        try {
+            return sessionLog != null ? sessionLog.readRollups() : null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void showSummary(List<DayRollup> days) {
+        // The sheet's activity may have gone while the file was read
+        if (context instanceof Activity && (((Activity) context).isFinishing() || ((Activity) context).isDestroyed())) return;
+        AlertDialog.Builder builder = new AlertDialog.Builder(context);
+        builder.setTitle(context.getString(R.string.stats));
+        builder.setMessage(summary(days));
+        builder.setPositiveButton(context.getString(R.string.ok), null);
+        builder.create().show();
+    }
+
+    private String summary(List<DayRollup> days) {
+        if (days == null || days.isEmpty()) return context.getString(R.string.stats_empty);
+
+        // Epoch days are local calendar days, so they are formatted as UTC dates
+        SimpleDateFormat format = new SimpleDateFormat("EEE d MMM", new Locale("es"));
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder text = new StringBuilder();
+        for (int i = Math.max(0, days.size() - DAYS_SHOWN); i < days.size(); i++) {
+            DayRollup day = days.get(i);
+            String date = format.format(new Date(day.getEpochDay() * MILLIS_PER_DAY));
+            text.append(context.getString(R.string.stats_day, date, day.getWordsShown(),
+                    minutes(day.getPracticeMillis()), day.getSkips())).append('\n');
+        }
+
+        int words = 0;
+        long practiceMillis = 0;
+        for (DayRollup day : days) {
+            words += day.getWordsShown();
+            practiceMillis += day.getPracticeMillis();
+        }
+        text.append('\n').append(context.getString(R.string.stats_total, days.size(), words, minutes(practiceMillis)));
+        return text.toString();
+    }
+
+    private static long minutes(long millis) {
+        return Math.round(millis / 60_000.0);
+    }
+}
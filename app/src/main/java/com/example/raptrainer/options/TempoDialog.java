@@ -0,0 +1,118 @@
+package com.example.raptrainer.options;
+
+import android.content.Context;
+import android.net.Uri;
+import android.view.Gravity;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.NumberPicker;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
+
+import com.example.raptrainer.R;
+import com.example.raptrainer.audio.BackingTrackPlayer;
+import com.example.raptrainer.audio.TempoDetector;
+import com.example.raptrainer.word_manager.WordManager;
+
+/**
+ * Picks a tempo and how many bars each word lasts, or goes back to the fixed
+ * delay. The tempo can also be detected from an instrumental's WAVE file.
+ */
+public class TempoDialog {
+    private static final int MIN_BPM = 40;
+    private static final int MAX_BPM = 220;
+    private static final int MAX_BARS_PER_WORD = 8;
+
+    private final Context context;
+    private final WordManager wordManager;
+
+    public TempoDialog(Context context, WordManager wordManager) {
+        this.context = context;
+        this.wordManager = wordManager;
+    }
+
+    /** {@code onDetectFromFile} opens the system file picker, whose result goes to {@link #detectPicked}. */
+    public void show(Runnable onDetectFromFile) {
+        NumberPicker bpmPicker = new NumberPicker(context);
+        bpmPicker.setMinValue(MIN_BPM);
+        bpmPicker.setMaxValue(MAX_BPM);
+        bpmPicker.setValue(clamp((int) Math.round(wordManager.getTempoBpm()), MIN_BPM, MAX_BPM));
+
+        NumberPicker barsPicker = new NumberPicker(context);
+        barsPicker.setMinValue(1);
+        barsPicker.setMaxValue(MAX_BARS_PER_WORD);
+        barsPicker.setValue(clamp(wordManager.getBarsPerWord(), 1, MAX_BARS_PER_WORD));
+
+        LinearLayout layout = new LinearLayout(context);
+        layout.setOrientation(LinearLayout.HORIZONTAL);
+        layout.setGravity(Gravity.CENTER);
+        layout.addView(labeled(bpmPicker, R.string.tempo_bpm));
+        layout.addView(labeled(barsPicker, R.string.tempo_bars_per_word));
+
+        Button detectButton = new Button(context);
+        detectButton.setText(context.getString(R.string.tempo_detect));
+
+        LinearLayout content = new LinearLayout(context);
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setGravity(Gravity.CENTER_HORIZONTAL);
+        content.addView(layout);
+        content.addView(detectButton);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(context);
+        builder.setTitle(context.getString(R.string.tempo));
+        builder.setView(content);
+        builder.setPositiveButton(context.getString(R.string.ok), (dialog, which) ->
+                wordManager.setTempo(bpmPicker.getValue(), barsPicker.getValue()));
+        builder.setNeutralButton(context.getString(R.string.tempo_off), (dialog, which) -> wordManager.clearTempo());
+        builder.setNegativeButton(android.R.string.cancel, null);
+
+        AlertDialog dialog = builder.create();
+        detectButton.setOnClickListener(v -> {
+            dialog.dismiss();
+            onDetectFromFile.run();
+        });
+        dialog.show();
+    }
+
+    /**
+     * Detects the tempo of a file returned by the picker and switches to it,
+     * keeping the bars per word; null when the user backed out.
+     */
+    public static void detectPicked(Context context, BackingTrackPlayer player, WordManager wordManager, Uri uri) {
+        if (uri == null) return;
+        Context appContext = context.getApplicationContext();
+        Toast.makeText(appContext, appContext.getString(R.string.tempo_detecting), Toast.LENGTH_SHORT).show();
+        player.detectTempo(appContext, uri, new BackingTrackPlayer.TempoListener() {
+            @Override
+            public void onTempo(TempoDetector.Estimate estimate) {
+                wordManager.setTempo(estimate.getBpm(), wordManager.getBarsPerWord());
+                Toast.makeText(appContext, appContext.getString(R.string.tempo_detected, Math.round(estimate.getBpm())),
+                        Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                Toast.makeText(appContext, appContext.getString(R.string.tempo_detect_error), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private LinearLayout labeled(NumberPicker picker, int labelRes) {
+        TextView label = new TextView(context);
+        label.setText(context.getString(labelRes));
+        label.setGravity(Gravity.CENTER);
+
+        LinearLayout column = new LinearLayout(context);
+        column.setOrientation(LinearLayout.VERTICAL);
+        column.setGravity(Gravity.CENTER_HORIZONTAL);
+        column.addView(label);
+        column.addView(picker);
+        return column;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -3,11 +3,14 @@ package com.example.raptrainer.options;
 import android.content.Context;
 import android.app.AlertDialog;
 
+import com.example.raptrainer.R;
+
 import java.util.List;
 
 public class ThemeSelector {
 
     public interface OnThemeSelectedListener {
+        /** {@code selectedTheme} is null when the user chose no theme. */
         void onThemeSelected(String selectedTheme);
     }
 
@@ -20,12 +23,14 @@ public class ThemeSelector {
     }
 
     public void show(OnThemeSelectedListener listener) {
-        String[] themeArray = themes.toArray(new String[0]);
+        String[] themeArray = new String[themes.size() + 1];
+        themeArray[0] = context.getString(R.string.theme_none);
+        for (int i = 0; i < themes.size(); i++) themeArray[i + 1] = themes.get(i);
 
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle("Elegir temática");
         builder.setItems(themeArray, (dialog, which) -> {
-            String selectedTheme = themeArray[which];
+            String selectedTheme = which == 0 ? null : themeArray[which];
             listener.onThemeSelected(selectedTheme);
         });
 
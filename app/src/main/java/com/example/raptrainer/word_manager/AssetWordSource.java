@@ -0,0 +1,49 @@
+package com.example.raptrainer.word_manager;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Reads categories straight from the CSV files in the assets folder. */
+class AssetWordSource implements WordSource {
+    private final Context context;
+    private final Map<String, String> pathsByKey;
+
+    AssetWordSource(Context context) {
+        this.context = context.getApplicationContext();
+        this.pathsByKey = FileLoader.readCsvPathsByKey(context);
+    }
+
+    @Override
+    public List<String> getCategoryKeys() {
+        return new ArrayList<>(pathsByKey.keySet());
+    }
+
+    @Override
+    public String getCategoryLabel(String key) {
+        return null;
+    }
+
+    @Override
+    public List<String> readWords(String key) throws IOException {
+        String path = pathsByKey.get(key);
+        if (path == null) return Collections.emptyList();
+        try (InputStream inputStream = context.getAssets().open(path)) {
+            return CsvWordReader.readWords(inputStream);
+        }
+    }
+
+    @Override
+    public int[] readWordIds(String key, StringPool pool) throws IOException {
+        String path = pathsByKey.get(key);
+        if (path == null) return new int[0];
+        try (InputStream inputStream = context.getAssets().open(path)) {
+            return CsvWordReader.readWordIds(inputStream, pool);
+        }
+    }
+}
@@ -1,52 +1,112 @@
 package com.example.raptrainer.word_manager;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class FileLoader {
+    private static final String IMPORT_DIR = "imported_words";
+
+    /**
+     * Opens the build-time word index. The asset is stored uncompressed so it can be
+     * memory-mapped; falls back to reading the stream if it was compressed anyway.
+     * Returns null if the index is missing or unreadable.
+     */
+    public static WordIndex readWordIndex(Context context) {
+        AssetManager assetManager = context.getAssets();
+        try {
+            return WordIndex.read(mapAsset(assetManager, WordIndex.ASSET_NAME));
+        } catch (IOException e) {
+            System.err.println("Word index unavailable, falling back to CSV: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the build-time theme index into {@code corpus} unless it has one.
+     * Leaves it without one if the index is missing or unreadable.
+     */
+    public static void loadThemeIndex(Context context, WordCorpus corpus) {
+        if (corpus.getThemeIndex() != null) return;
+        try (InputStream inputStream = new BufferedInputStream(context.getAssets().open(ThemeIndex.ASSET_NAME))) {
+            corpus.loadThemes(inputStream);
+        } catch (IOException e) {
+            System.err.println("Theme index unavailable, themes will not bias the draw: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The word index when it was bundled, otherwise the CSV assets themselves,
+     * followed by the lists the user imported, if any.
+     */
+    public static WordSource openWordSource(Context context) {
+        long start = Instrumentation.begin(Instrumentation.Timer.ASSET_DISCOVERY);
+        try {
+            WordIndex wordIndex = readWordIndex(context);
+            WordSource bundled = wordIndex != null ? new IndexWordSource(wordIndex) : new AssetWordSource(context);
+            File imported = importDirectory(context);
+            return ImportedWordSource.hasLists(imported)
+                    ? new CompositeWordSource(bundled, new ImportedWordSource(imported))
+                    : bundled;
+        } finally {
+            Instrumentation.end(Instrumentation.Timer.ASSET_DISCOVERY, start);
+        }
+    }
+
+    /** App-private directory of the lists imported with {@link WordListImporter}. */
+    public static File importDirectory(Context context) {
+        return new File(context.getFilesDir(), IMPORT_DIR);
+    }
 
     public static Map<String, List<String>> readWordsGroupedByFile(Context context) {
         Map<String, List<String>> wordsByFile = new HashMap<>();
+        for (Map.Entry<String, String> entry : readCsvPathsByKey(context).entrySet()) {
+            wordsByFile.put(entry.getKey(), readWordsFromAssetPath(context, entry.getValue()));
+        }
+        return wordsByFile;
+    }
+
+    /**
+     * Discovers the CSV files under the words folder without reading them.
+     * Keys are file names without ".csv", in discovery order.
+     */
+    public static Map<String, String> readCsvPathsByKey(Context context) {
+        Map<String, String> pathsByKey = new LinkedHashMap<>();
         try {
             List<String> csvPaths = getAllCsvFilePaths(context.getAssets(), CategoryConstants.BASE_PATH);
-            System.out.println("CSV paths: " + csvPaths);
 
             for (String path : csvPaths) {
-                List<String> words = readWordsFromAssetPath(context, path);
-
                 // Use filename without ".csv" as the key
                 String fileKey = path.substring(path.lastIndexOf('/') + 1).replace(".csv", "");
-                wordsByFile.put(fileKey, words);
+                pathsByKey.put(fileKey, path);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
 
-        return wordsByFile;
+        return pathsByKey;
     }
 
-
     /** Reads words from a single CSV file path */
     public static List<String> readWordsFromAssetPath(Context context, String assetPath) {
         List<String> result = new ArrayList<>();
-        try (InputStream inputStream = context.getAssets().open(assetPath);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            System.out.println("Reading file: " + assetPath);
-            reader.lines()
-                    .flatMap(line -> Arrays.stream(line.split(",\\s*")))
-                    .map(String::trim)
-                    .filter(word -> !word.isEmpty())
-                    .forEach(result::add);
+        try (InputStream inputStream = context.getAssets().open(assetPath)) {
+            result.addAll(CsvWordReader.readWords(inputStream));
         } catch (IOException e) {
             System.err.println("Error reading file: " + assetPath);
             e.printStackTrace();
@@ -60,7 +120,6 @@ public class FileLoader {
         List<String> filePaths = new ArrayList<>();
         String[] list = assetManager.list(path);
         if (list == null) return filePaths;
-        System.out.println("path: "+path);
 
         for (String name : list) {
             String fullPath = path.isEmpty() ? name : path + "/" + name;
@@ -70,10 +129,26 @@ public class FileLoader {
                 // It's a folder — recurse
                 filePaths.addAll(getAllCsvFilePaths(assetManager, fullPath));
             } else if (name.endsWith(".csv")) {
-                System.out.println("Found CSV: " + fullPath);
                 filePaths.add(fullPath);
             }
         }
         return filePaths;
     }
+
+    private static ByteBuffer mapAsset(AssetManager assetManager, String assetPath) throws IOException {
+        try (AssetFileDescriptor fd = assetManager.openFd(assetPath);
+             FileInputStream stream = fd.createInputStream()) {
+            return stream.getChannel().map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+        } catch (FileNotFoundException compressed) {
+            try (InputStream inputStream = assetManager.open(assetPath)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = inputStream.read(chunk)) != -1) {
+                    out.write(chunk, 0, read);
+                }
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+        }
+    }
 }
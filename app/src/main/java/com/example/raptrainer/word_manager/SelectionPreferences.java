@@ -0,0 +1,57 @@
+package com.example.raptrainer.word_manager;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Base64;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/** Persists the category id assignment and the selected ids as a bit mask. */
+class SelectionPreferences {
+    private static final String PREFS_NAME = "word_selection";
+    private static final String KEY_ID_ORDER = "category_id_order";
+    private static final String KEY_SELECTION = "selected_categories";
+
+    private final SharedPreferences preferences;
+
+    SelectionPreferences(Context context) {
+        this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    List<String> loadIdOrder() {
+        String stored = preferences.getString(KEY_ID_ORDER, "");
+        if (stored.isEmpty()) return Collections.emptyList();
+        return new ArrayList<>(Arrays.asList(stored.split(",")));
+    }
+
+    void saveIdOrder(List<String> keys) {
+        StringBuilder joined = new StringBuilder();
+        for (String key : keys) {
+            if (joined.length() > 0) joined.append(',');
+            joined.append(key);
+        }
+        if (!joined.toString().equals(preferences.getString(KEY_ID_ORDER, ""))) {
+            preferences.edit().putString(KEY_ID_ORDER, joined.toString()).apply();
+        }
+    }
+
+    /** The mask is stored as the bit set's little-endian bytes in Base64. */
+    BitSet loadSelection() {
+        String stored = preferences.getString(KEY_SELECTION, "");
+        if (stored.isEmpty()) return new BitSet();
+        try {
+            return BitSet.valueOf(Base64.decode(stored, Base64.NO_WRAP));
+        } catch (IllegalArgumentException e) {
+            return new BitSet();
+        }
+    }
+
+    void saveSelection(BitSet selection) {
+        String encoded = Base64.encodeToString(selection.toByteArray(), Base64.NO_WRAP);
+        preferences.edit().putString(KEY_SELECTION, encoded).apply();
+    }
+}
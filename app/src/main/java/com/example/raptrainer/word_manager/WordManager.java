@@ -1,105 +1,368 @@
 package com.example.raptrainer.word_manager;
 
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
 import android.content.Context;
-
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import com.example.raptrainer.session_log.SessionLog;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Manages word categories, caching words from CSV files at startup,
- * and handling word selection logic for display.
+ * Connects the word engine to the app: opens the bundled words, persists the
+ * category selection and maps the selector's display rows to category ids.
+ * The selection and draw logic itself lives in {@link WordEngine}.
  */
 public class WordManager {
     private static final int DEFAULT_WORD_DISPLAY_DELAY = 5000;
+    private static final double DEFAULT_TEMPO_BPM = 90;
+    private static final String STATS_FILE = "word_stats.bin";
+    // Under the cache directory: runs left behind by a killed import may be cleared by the system
+    private static final String IMPORT_WORK_DIR = "word_import";
+    private static final String SESSION_LOG_DIR = "session_log";
+
+    private volatile List<String> themesList = Collections.emptyList();
+    private WordEngine engine;
+
+    // Static cache: category metadata up front, word lists loaded on demand
+    private static volatile WordCorpus corpus;
+    private static volatile SelectionPreferences selectionPreferences;
+    // One writer per process, whatever the number of activities
+    private static volatile SessionLog sessionLog;
+    private static final ExecutorService initExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "word-init");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "word-import");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private final List<String> themesList = new ArrayList<>();
-    private final List<String> activeCategoryFiles = new ArrayList<>();
-    private final List<String> wordList = new ArrayList<>();
-    private final List<String> currentWordQueue = new ArrayList<>();
-
-    // Static cache: category folder -> list of words
-    private static final Map<String, List<String>> wordsCache = new HashMap<>();
-
-    private String[] buttonLabels;
-    private boolean[] selectedCategories;
-    private int currentWordIndex = 0;
     private int wordDisplayDelay = DEFAULT_WORD_DISPLAY_DELAY;
+    private boolean tempoMode = false;
+    private double tempoBpm = DEFAULT_TEMPO_BPM;
+    private int barsPerWord = 1;
     private boolean allowRepeat = false;
+    private boolean rhymeChain = false;
+    private boolean spacedRepetition = false;
+    private String theme;
+    private volatile boolean ready = false;
+    // Restored before initialization finished; applied by initializeCategories
+    private volatile DrillSession pendingSession;
+
+    /** Notified once the first selected category can be drawn from. */
+    public interface ReadyListener {
+        void onReady();
+    }
+
+    /** Progress and outcome of {@link #importWordList}, on its callback executor. */
+    public interface ImportListener {
+        /** Share of the file read so far, 0 to 100, or -1 when its size is unknown. */
+        void onProgress(int percent);
+
+        /** The list is now a category of its own, selected in addition to the previous selection. */
+        void onImported(String label, int wordCount);
+
+        void onError(Exception e);
+    }
 
-    /** Initializes category setup and loads theme words. */
+    /** Initializes category setup and loads the themes. */
     public void initialize(Context context) {
-        preloadWords(context);
+        openSessionLog(context);
+        loadCategories(context);
         initializeCategories();
-        shuffleWords();
 
         loadThemes(context);
+        ready = true;
+    }
+
+    /**
+     * Same as {@link #initialize(Context)} but off the calling thread.
+     * The listener runs on {@code callbackExecutor} as soon as the first selected
+     * category is loaded; themes keep loading in the background afterwards.
+     * No other method may be called until then, except the delay and repeat settings.
+     */
+    public void initializeAsync(Context context, Executor callbackExecutor, ReadyListener listener) {
+        Context appContext = context.getApplicationContext();
+        openSessionLog(appContext);
+        initExecutor.execute(() -> {
+            loadCategories(appContext);
+            initializeCategories();
+            ready = true;
+            callbackExecutor.execute(listener::onReady);
+
+            loadThemes(appContext);
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reads category metadata only; words are loaded when a category is first selected.
+     * Cheap to call again, the corpus is shared across instances.
+     */
+    public static synchronized void loadCategories(Context context) {
+        if (corpus != null) return;
+
+        SelectionPreferences preferences = new SelectionPreferences(context);
+        WordCorpus wordCorpus = new WordCorpus(FileLoader.openWordSource(context), preferences.loadIdOrder());
+        preferences.saveIdOrder(wordCorpus.getRegistry().getIdOrder());
+        loadStats(context, wordCorpus);
+        wordCorpus.getCategoryTree(); // Grouped here, usually off the main thread, so the picker opens at once
+
+        selectionPreferences = preferences;
+        corpus = wordCorpus;
     }
 
     /**
      * Loads all category folders into cache.
-     * Call this once at app startup or before usage.
+     * Eager alternative to {@link #loadCategories(Context)}.
      */
     public static void preloadWords(Context context) {
-        wordsCache.clear();
-        Map<String, List<String>> words = FileLoader.readWordsGroupedByFile(context);
-        wordsCache.putAll(words);
-        System.out.println("wordsCache: " + wordsCache);
+        loadCategories(context);
+        corpus.loadAll();
     }
 
+    /**
+     * Restores a session passed to {@link #restoreSession} before initialization,
+     * else the persisted selection, or selects the first category on first run.
+     */
     public void initializeCategories() {
-        List<String> cachedCategories = new ArrayList<>(wordsCache.keySet());
+        WordEngine wordEngine = newEngine();
 
-        selectedCategories = new boolean[cachedCategories.size()];
-        selectedCategories[0] = true;
-
-        activeCategoryFiles.clear();
-        activeCategoryFiles.add(cachedCategories.get(0));
+        DrillSession session = pendingSession;
+        pendingSession = null;
+        if (session != null && restoreSession(wordEngine, session)) {
+            engine = wordEngine;
+            return;
+        }
 
-        buttonLabels = cachedCategories.stream()
-                .map(this::extractButtonLabel)
-                .toArray(String[]::new);
+        wordEngine.setSelectedCategories(selectionPreferences.loadSelection());
+        if (wordEngine.getSelectedCategories().isEmpty()) {
+            wordEngine.setCategorySelected(corpus.getRegistry().idAtRow(0), true);
+        }
 
-        loadCategoryWordsFromCache();
-        shuffleWords();
+        wordEngine.applySelection();
+        engine = wordEngine;
     }
 
     /**
-     * Updates selected category files and reloads from cached words.
+     * Applies the pending selection, keeping the progress through the current
+     * shuffle, see {@link WordEngine#applySelection()}.
      */
     public void updateSelectedCategories() {
-        List<String> cachedCategories = new ArrayList<>(wordsCache.keySet());
+        engine.applySelection();
+        selectionPreferences.saveSelection(engine.getSelectedCategories());
+        sessionLog.categoriesSelected(engine.getActiveCategories().cardinality());
+    }
 
-        activeCategoryFiles.clear();
-        for (int i = 0; i < selectedCategories.length; i++) {
-            if (selectedCategories[i]) {
-                activeCategoryFiles.add(cachedCategories.get(i));
+    /**
+     * Imports a user word list of any size, e.g. one picked with the system
+     * document picker, as a new category named after the file. The file is
+     * streamed and sorted in bounded batches on a background thread, stored in
+     * app-private storage and kept across runs; importing a file with the same
+     * name again replaces that list. Its words are also filed into the rhyme
+     * categories they belong to. Call only once initialized.
+     */
+    public void importWordList(Context context, Uri uri, Executor callbackExecutor, ImportListener listener) {
+        Context appContext = context.getApplicationContext();
+        importExecutor.execute(() -> {
+            String label;
+            int wordCount;
+            WordCorpus imported;
+            try {
+                ContentResolver resolver = appContext.getContentResolver();
+                String[] nameAndSize = queryNameAndSize(resolver, uri);
+                label = labelOf(nameAndSize[0] != null ? nameAndSize[0] : uri.getLastPathSegment());
+                long size = nameAndSize[1] != null ? Long.parseLong(nameAndSize[1]) : -1;
+                int[] lastPercent = {Integer.MIN_VALUE};
+
+                WordListImporter importer = new WordListImporter(new File(appContext.getCacheDir(), IMPORT_WORK_DIR));
+                File target = ImportedWordSource.fileFor(FileLoader.importDirectory(appContext), label);
+                try (InputStream in = resolver.openInputStream(uri)) {
+                    if (in == null) throw new IOException("Cannot open " + uri);
+                    wordCount = importer.importWords(in, label, target, (bytesRead, wordsRead) -> {
+                        int percent = size > 0 ? (int) Math.min(100, bytesRead * 100 / size) : -1;
+                        if (percent == lastPercent[0]) return;
+                        lastPercent[0] = percent;
+                        callbackExecutor.execute(() -> listener.onProgress(percent));
+                    });
+                }
+                ImportedWordSource.fileRhymes(target, corpus.getRegistry().getIdOrder());
+                imported = reloadCorpus(appContext);
+            } catch (IOException | RuntimeException e) {
+                callbackExecutor.execute(() -> listener.onError(e));
+                return;
             }
-        }
+            callbackExecutor.execute(() -> {
+                switchCorpus(imported, ImportedWordSource.keyFor(label));
+                listener.onImported(label, wordCount);
+            });
+        });
+    }
 
-        loadCategoryWordsFromCache();
-        shuffleWords();
+    /** Warms categories in the background, e.g. as soon as they are ticked in the selector. */
+    public void prefetchCategories(BitSet categoryIds) {
+        corpus.prefetch(categoryIds);
     }
 
-    /** Returns the next word in the shuffled queue, reshuffling if needed. */
+    /**
+     * Releases word lists of unselected categories under memory pressure.
+     * Forwarded from {@code onTrimMemory}; the selection keeps its own references to the selected lists.
+     */
+    public void onTrimMemory(int level) {
+        if (engine != null && level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            corpus.evictExcept(engine.getActiveCategories());
+        }
+    }
+
+    /**
+     * Returns the next word in the shuffled queue, reshuffling if needed.
+     * In rhyme-chain mode the word rhymes with the previous one whenever the
+     * rhyme index is ready and has a rhyme; otherwise it comes from the queue.
+     */
     public String getNextWord() {
-        if (currentWordIndex < currentWordQueue.size()) {
-            return currentWordQueue.get(currentWordIndex++);
+        String word = engine.getNextWord();
+        if (word != null) sessionLog.wordShown(word);
+        return word;
+    }
+
+    /** Words {@link #getNextWord()} returns next, in every mode; see {@link WordEngine#peekNextWords}. */
+    public List<String> peekNextWords(int count) {
+        return engine.peekNextWords(count);
+    }
+
+    /**
+     * Switches rhyme-chain mode. The rhyme index covers the whole corpus and is
+     * built in the background the first time the mode is enabled.
+     */
+    public void setRhymeChain(boolean enabled) {
+        rhymeChain = enabled;
+        if (engine != null) engine.setRhymeChain(enabled);
+    }
+
+    public boolean isRhymeChain() {
+        return rhymeChain;
+    }
+
+    /** Draws words the user tends to skip more often; see {@link WordEngine#setSpacedRepetition}. */
+    public void setSpacedRepetition(boolean enabled) {
+        spacedRepetition = enabled;
+        if (engine != null) engine.setSpacedRepetition(enabled);
+    }
+
+    public boolean isSpacedRepetition() {
+        return spacedRepetition;
+    }
+
+    /** Biases the draw towards a theme from {@link #getThemesList}, or none for null; see {@link WordEngine#setTheme}. */
+    public void setTheme(String label) {
+        theme = label;
+        if (engine != null) engine.setTheme(label);
+    }
+
+    public String getTheme() {
+        return theme;
+    }
+
+    /** The user passed on the current word. */
+    public void markSkipped() {
+        engine.markSkipped();
+        sessionLog.skipped();
+    }
+
+    /** Records that the user paused or resumed the drill in the session log. */
+    public void recordPaused(boolean paused) {
+        if (sessionLog == null) return;
+        if (paused) {
+            sessionLog.paused();
+        } else {
+            sessionLog.resumed();
         }
-        if (allowRepeat) {
-            resetAndShuffle();
-            return getNextWord();
+    }
+
+    /** Records the delay the user settled on with the slider in the session log. */
+    public void recordDelayChanged() {
+        if (sessionLog != null) sessionLog.delayChanged(wordDisplayDelay);
+    }
+
+    /** What was drilled, day by day; null until initialization started. */
+    public SessionLog getSessionLog() {
+        return sessionLog;
+    }
+
+    /**
+     * Writes the per-word stats in the background and has the session log
+     * sync; call when the app goes to the background.
+     */
+    public void saveStats(Context context) {
+        if (sessionLog != null) sessionLog.flush();
+        WordCorpus wordCorpus = corpus;
+        if (wordCorpus == null) return;
+        File statsFile = new File(context.getFilesDir(), STATS_FILE);
+        initExecutor.execute(() -> writeStats(statsFile, wordCorpus));
+    }
+
+    /**
+     * The current drill as a short code, for {@code onSaveInstanceState} or to
+     * share; null until initialized. See {@link DrillSession}.
+     */
+    public String saveSession() {
+        return engine != null ? engine.snapshot().toCode() : null;
+    }
+
+    /**
+     * Continues the drill described by a {@link #saveSession()} code: its
+     * categories, its position and its repeat setting. May be called before
+     * initialization, which then restores it instead of the saved selection.
+     *
+     * @throws IllegalArgumentException if the code is malformed or, once
+     *                                  initialized, made for a different word list
+     */
+    public void restoreSession(String code) {
+        DrillSession session = DrillSession.parse(code);
+        if (engine == null) {
+            pendingSession = session;
+            return;
         }
-        return null;
+        engine.restore(session);
+        allowRepeat = engine.isAllowRepeat();
+        selectionPreferences.saveSelection(engine.getSelectedCategories());
+    }
+
+    /** Rhyme index over the whole corpus, or null while it has not been built. */
+    public static RhymeIndex getRhymeIndex() {
+        return corpus != null ? corpus.getRhymeIndex() : null;
     }
 
     /** Resets the word index and reshuffles the queue. */
     public void resetAndShuffle() {
-        currentWordIndex = 0;
-        shuffleWords();
+        engine.resetAndShuffle();
+        sessionLog.reset();
     }
 
     public void setWordDisplayDelay(int delay) {
@@ -110,8 +373,36 @@ public class WordManager {
         return wordDisplayDelay;
     }
 
+    /**
+     * Shows a word every {@code barsPerWord} bars at {@code bpm} instead of every
+     * {@link #getWordDisplayDelay()}; see {@link BeatScheduler}.
+     */
+    public void setTempo(double bpm, int barsPerWord) {
+        if (!(bpm > 0) || barsPerWord <= 0) throw new IllegalArgumentException("Invalid tempo: " + bpm + " bpm, " + barsPerWord + " bars");
+        this.tempoBpm = bpm;
+        this.barsPerWord = barsPerWord;
+        this.tempoMode = true;
+    }
+
+    /** Back to the fixed delay; the tempo is kept for the next time. */
+    public void clearTempo() {
+        tempoMode = false;
+    }
+
+    public boolean isTempoMode() {
+        return tempoMode;
+    }
+
+    public double getTempoBpm() {
+        return tempoBpm;
+    }
+
+    public int getBarsPerWord() {
+        return barsPerWord;
+    }
+
     public boolean isEmpty() {
-        return currentWordIndex >= currentWordQueue.size();
+        return engine.isEmpty();
     }
 
     public boolean isAllowRepeat() {
@@ -120,22 +411,44 @@ public class WordManager {
 
     public void setAllowRepeat(boolean allowRepeat) {
         this.allowRepeat = allowRepeat;
+        if (engine != null) engine.setAllowRepeat(allowRepeat);
     }
 
-    public String[] getButtonLabels() {
-        return buttonLabels;
+    /** The categories grouped by stressed vowel, consonant class and ending, for the picker. */
+    public CategoryTree getCategoryTree() {
+        return corpus.getCategoryTree();
     }
 
-    public boolean[] getSelectedCategories() {
-        return selectedCategories;
+    /** Pending selection, by category id; returns a copy. */
+    public BitSet getSelection() {
+        return engine.getSelectedCategories();
+    }
+
+    /** Replaces the pending selection; applied on the next {@link #updateSelectedCategories()}. */
+    public void setSelection(BitSet categoryIds) {
+        engine.setSelectedCategories(categoryIds);
     }
 
     public void selectAllCategories() {
-        Arrays.fill(selectedCategories, true);
+        engine.selectAllCategories();
     }
 
     public void deselectAllCategories() {
-        Arrays.fill(selectedCategories, false);
+        engine.deselectAllCategories();
+    }
+
+    /** Selects or deselects every category with the given stressed vowel. */
+    public void setVowelSelected(char vowel, boolean selected) {
+        engine.setVowelSelected(vowel, selected);
+    }
+
+    public CategoryRegistry getCategoryRegistry() {
+        return corpus.getRegistry();
+    }
+
+    /** The engine behind this manager; null until initialized. */
+    public WordEngine getEngine() {
+        return engine;
     }
 
     public List<String> getThemesList() {
@@ -144,43 +457,129 @@ public class WordManager {
 
     // ===================== Internal Logic =====================
 
-    /** Loads all words for the selected categories from the cache. */
-    private void loadCategoryWordsFromCache() {
-        wordList.clear();
-        for (String category : activeCategoryFiles) {
-            List<String> cachedWords = wordsCache.get(category);
-            if (cachedWords != null) {
-                wordList.addAll(cachedWords);
-            }
+    /** A fresh engine over the current corpus with this manager's settings. */
+    private WordEngine newEngine() {
+        WordEngine wordEngine = new WordEngine(corpus);
+        wordEngine.setAllowRepeat(allowRepeat);
+        wordEngine.setRhymeChain(rhymeChain);
+        wordEngine.setSpacedRepetition(spacedRepetition);
+        wordEngine.setTheme(theme);
+        return wordEngine;
+    }
+
+    /**
+     * A new corpus over the bundled and imported lists. Known categories keep
+     * their ids, so selections and saved sessions stay valid.
+     */
+    private static synchronized WordCorpus reloadCorpus(Context context) {
+        WordCorpus wordCorpus = new WordCorpus(FileLoader.openWordSource(context), selectionPreferences.loadIdOrder());
+        selectionPreferences.saveIdOrder(wordCorpus.getRegistry().getIdOrder());
+        wordCorpus.getCategoryTree();
+        // Theme words are ids of the corpus' pool, so the new corpus reads its own
+        FileLoader.loadThemeIndex(context, wordCorpus);
+        return wordCorpus;
+    }
+
+    /**
+     * Moves the drill onto {@code wordCorpus} and selects {@code addedKey} too.
+     * Stats are copied here rather than in the background so no recorded view is lost.
+     */
+    private void switchCorpus(WordCorpus wordCorpus, String addedKey) {
+        WordCorpus previous = corpus;
+        try {
+            ByteArrayOutputStream stats = new ByteArrayOutputStream();
+            previous.getStats().writeTo(stats, previous.getPool());
+            wordCorpus.getStats().readFrom(new ByteArrayInputStream(stats.toByteArray()), wordCorpus.getPool());
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        BitSet selected = engine.getSelectedCategories();
+        corpus = wordCorpus;
+
+        WordEngine wordEngine = newEngine();
+        wordEngine.setSelectedCategories(selected);
+        CategoryRegistry.Category added = wordCorpus.getRegistry().get(addedKey);
+        if (added != null) wordEngine.setCategorySelected(added.id, true);
+        wordEngine.applySelection();
+        engine = wordEngine;
+        selectionPreferences.saveSelection(wordEngine.getSelectedCategories());
     }
 
-    /** Loads theme-related words from the theme CSV file. */
-    private void loadThemes(Context context) {
-        themesList.clear();
-        themesList.addAll(FileLoader.readWordsFromAssetPath(context, CategoryConstants.THEME_CSV_FILE));
-    }
-
-    /** Shuffles the selected word list and resets the queue. */
-    private void shuffleWords() {
-        currentWordQueue.clear();
-        currentWordQueue.addAll(wordList);
-        Collections.shuffle(currentWordQueue);
-        currentWordIndex = 0;
-    }
-
-    /** Extracts a UI-friendly label from a file name. */
-    private String extractButtonLabel(String fileName) {
-        String[] parts = fileName.split("_");
-        if (parts.length > 2) {
-            String categoryPart = parts[2];
-            String formattedCategory = categoryPart.replace("1", "/");
-            String response = parts[1] + " (" + formattedCategory + ") ";
-            if (parts.length == 4) {
-                response += parts[3];
+    /** Display name and size of a picked document; either is null when the provider does not tell. */
+    private static String[] queryNameAndSize(ContentResolver resolver, Uri uri) {
+        String[] result = new String[2];
+        String[] columns = {OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE};
+        try (Cursor cursor = resolver.query(uri, columns, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                if (!cursor.isNull(0)) result[0] = cursor.getString(0);
+                if (!cursor.isNull(1)) result[1] = Long.toString(cursor.getLong(1));
             }
-            return response;
         }
-        return parts[1];
+        return result;
+    }
+
+    /** "Mis rimas.csv" -> "Mis rimas". */
+    private static String labelOf(String fileName) {
+        if (fileName == null) return "lista";
+        int dot = fileName.lastIndexOf('.');
+        String label = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return label.trim().isEmpty() ? "lista" : label.trim();
+    }
+
+    /** Falls back to the saved selection if the word list changed since the session was saved. */
+    private boolean restoreSession(WordEngine wordEngine, DrillSession session) {
+        try {
+            wordEngine.restore(session);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error restoring session: " + e.getMessage());
+            return false;
+        }
+        allowRepeat = wordEngine.isAllowRepeat();
+        selectionPreferences.saveSelection(wordEngine.getSelectedCategories());
+        return true;
+    }
+
+    private static synchronized void openSessionLog(Context context) {
+        if (sessionLog == null) {
+            sessionLog = new SessionLog(new File(context.getFilesDir(), SESSION_LOG_DIR), TimeZone.getDefault());
+        }
+    }
+
+    private static void loadStats(Context context, WordCorpus wordCorpus) {
+        File statsFile = new File(context.getFilesDir(), STATS_FILE);
+        if (!statsFile.exists()) return;
+        try (InputStream in = new FileInputStream(statsFile)) {
+            wordCorpus.getStats().readFrom(in, wordCorpus.getPool());
+        } catch (IOException e) {
+            System.err.println("Error reading word stats: " + e.getMessage());
+        }
+    }
+
+    /** Writes to a temporary file first so a crash never leaves a truncated stats file. */
+    private static void writeStats(File statsFile, WordCorpus wordCorpus) {
+        File temporary = new File(statsFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temporary)) {
+            wordCorpus.getStats().writeTo(new BufferedOutputStream(out), wordCorpus.getPool());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (!temporary.renameTo(statsFile)) {
+            System.err.println("Error saving word stats to " + statsFile);
+        }
+    }
+
+    /**
+     * Loads the themes and how related each word is to them. Without the
+     * build-time theme index the labels come from the theme CSV file and
+     * choosing one does not change the draw.
+     */
+    private void loadThemes(Context context) {
+        WordCorpus wordCorpus = corpus;
+        FileLoader.loadThemeIndex(context, wordCorpus);
+        ThemeIndex themes = wordCorpus.getThemeIndex();
+        themesList = themes != null
+                ? themes.getLabels()
+                : FileLoader.readWordsFromAssetPath(context, CategoryConstants.THEME_CSV_FILE);
     }
 }
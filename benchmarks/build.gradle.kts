@@ -0,0 +1,24 @@
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    jmh(project(":wordengine"))
+}
+
+// ./gradlew :benchmarks:jmh — results in build/results/jmh/results.json
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    jvmArgsAppend.add("-Draptrainer.wordsDir=" + rootProject.file("app/src/main/assets/words").absolutePath)
+}
@@ -0,0 +1,53 @@
+package com.example.raptrainer.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minute of 48 kHz microphone input passed through the ring and the meter
+ * in 10 ms reads, as the capture and DSP threads do; the budget is a small
+ * fraction of the minute on a phone. Run with {@code -prof gc} to check that
+ * the steady state allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlowMeterBenchmark {
+    private static final int RATE = 48000;
+    private static final int CHUNK = RATE / 100;
+
+    private short[] pcm;
+    private final PcmRingBuffer ring = new PcmRingBuffer(8192);
+    private final short[] chunk = new short[CHUNK];
+    private final FlowMeter meter = new FlowMeter(RATE);
+
+    @Setup
+    public void setUp() {
+        pcm = new short[60 * RATE];
+        Random random = new Random(11);
+        double period = RATE / 6.0;
+        for (int i = 0; i < pcm.length; i++) {
+            double phase = (i % period) / (period * 0.7);
+            double swell = phase < 1 ? 0.5 - 0.5 * Math.cos(2 * Math.PI * phase) : 0;
+            pcm[i] = (short) (9000 * swell * Math.sin(2 * Math.PI * 180 * i / RATE) + random.nextGaussian() * 20);
+        }
+    }
+
+    @Benchmark
+    public long meterOneMinute() {
+        for (int start = 0; start + CHUNK <= pcm.length; start += CHUNK) {
+            ring.write(pcm, start, CHUNK);
+            int read = ring.read(chunk, 0, CHUNK);
+            meter.process(chunk, 0, read);
+        }
+        return meter.getSyllableCount();
+    }
+}
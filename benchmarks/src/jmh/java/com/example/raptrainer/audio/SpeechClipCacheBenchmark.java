@@ -0,0 +1,90 @@
+package com.example.raptrainer.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a tick costs with speech cues on: looking up a ready clip, which runs
+ * on the main thread, and bringing a clip back from disk without synthesis,
+ * which is the worker's usual job once the words have been heard before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpeechClipCacheBenchmark {
+    private static final int RATE = 24000;
+    // About half a second, as an engine speaks a short word
+    private static final int CLIP_FRAMES = RATE / 2;
+    private static final int WORDS = 64;
+
+    /** Writes the same mono clip for every word; only the cache is measured. */
+    private static final class SilentSynthesizer implements SpeechSynthesizer {
+        @Override
+        public String getVoiceId() {
+            return "benchmark";
+        }
+
+        @Override
+        public void synthesize(String word, File output) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(output))) {
+                int dataBytes = CLIP_FRAMES * 2;
+                out.writeBytes("RIFF");
+                out.writeInt(Integer.reverseBytes(36 + dataBytes));
+                out.writeBytes("WAVEfmt ");
+                out.writeInt(Integer.reverseBytes(16));
+                out.writeShort(Short.reverseBytes((short) 1));
+                out.writeShort(Short.reverseBytes((short) 1));
+                out.writeInt(Integer.reverseBytes(RATE));
+                out.writeInt(Integer.reverseBytes(RATE * 2));
+                out.writeShort(Short.reverseBytes((short) 2));
+                out.writeShort(Short.reverseBytes((short) 16));
+                out.writeBytes("data");
+                out.writeInt(Integer.reverseBytes(dataBytes));
+                out.write(new byte[dataBytes]);
+            }
+        }
+    }
+
+    private SpeechClipCache cache;
+    private final List<String> words = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        File directory = Files.createTempDirectory("speech-cues").toFile();
+        directory.deleteOnExit();
+        for (int i = 0; i < WORDS; i++) words.add("palabra" + i);
+        cache = new SpeechClipCache(new SilentSynthesizer(), directory, 64L << 20, 64L << 20, Runnable::run);
+        cache.prefetch(words);
+    }
+
+    @Benchmark
+    public PcmLoop lookUpReadyClip() {
+        next = (next + 1) % WORDS;
+        return cache.get(words.get(next));
+    }
+
+    @Benchmark
+    public PcmLoop reloadClipFromDisk() {
+        next = (next + 1) % WORDS;
+        String word = words.get(next);
+        cache.clearMemory();
+        cache.prefetch(Collections.singletonList(word));
+        return cache.get(word);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.raptrainer.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** A 3-minute 44.1 kHz stereo track, fed in decoder-sized blocks; the budget on a phone is well under a second. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TempoDetectorBenchmark {
+    private static final int RATE = 44100;
+    private static final int BLOCK_FRAMES = 4096;
+
+    private short[] track;
+    private final short[] block = new short[BLOCK_FRAMES * 2];
+
+    @Setup
+    public void setUp() {
+        int frames = 180 * RATE;
+        track = new short[frames * 2];
+        Random random = new Random(7);
+        double period = 60.0 / 93 * RATE;
+        for (int i = 0; i < frames; i++) {
+            double sinceBeat = (i % period) / RATE;
+            double value = random.nextGaussian() * 300 + 12000 * Math.sin(2 * Math.PI * 60 * sinceBeat) * Math.exp(-sinceBeat / 0.05);
+            track[i * 2] = (short) value;
+            track[i * 2 + 1] = (short) value;
+        }
+    }
+
+    @Benchmark
+    public TempoDetector.Estimate analyzeThreeMinutes() {
+        TempoDetector detector = new TempoDetector(RATE);
+        int frames = track.length / 2;
+        for (int start = 0; start < frames; start += BLOCK_FRAMES) {
+            int count = Math.min(BLOCK_FRAMES, frames - start);
+            System.arraycopy(track, start * 2, block, 0, count * 2);
+            detector.process(block, count);
+        }
+        return detector.finish();
+    }
+}
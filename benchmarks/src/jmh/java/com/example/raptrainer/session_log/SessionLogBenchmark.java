@@ -0,0 +1,42 @@
+package com.example.raptrainer.session_log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What logging costs the UI thread: one enqueue per shown word, with the
+ * writer batching to disk meanwhile. Far above any drill rate, the queue
+ * fills and events are dropped; the cost must stay flat either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionLogBenchmark {
+    private SessionLog log;
+
+    @Setup
+    public void setUp() throws IOException {
+        log = new SessionLog(Files.createTempDirectory("session-log").toFile(), TimeZone.getTimeZone("UTC"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        log.close();
+    }
+
+    @Benchmark
+    public void wordShown() {
+        log.wordShown("corazón");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark inputs: the real assets/words tree, or a synthetic corpus of about
+ * one million words spread over the same 280 categories.
+ */
+final class BenchmarkCorpus {
+    static final String ASSETS = "assets";
+    static final String SYNTHETIC_1M = "synthetic1M";
+
+    private static final String WORDS_DIR_PROPERTY = "raptrainer.wordsDir";
+    private static final int SYNTHETIC_WORDS_PER_CATEGORY = 3572;
+    private static final String SYNTHETIC_LETTERS = "abcdefghijklmnopqrstuvwxyzñáéíóú";
+
+    final List<String> keys = new ArrayList<>();
+    final List<byte[]> csvFiles = new ArrayList<>();
+    final List<List<String>> words = new ArrayList<>();
+    final Path wordsDir;
+
+    private BenchmarkCorpus(Path wordsDir) {
+        this.wordsDir = wordsDir;
+    }
+
+    static BenchmarkCorpus load(String name) throws IOException {
+        Path realTree = Paths.get(System.getProperty(WORDS_DIR_PROPERTY, "app/src/main/assets/words"));
+        List<Path> csvPaths = listCsvFiles(realTree);
+
+        if (ASSETS.equals(name)) {
+            BenchmarkCorpus corpus = new BenchmarkCorpus(realTree);
+            for (Path path : csvPaths) {
+                corpus.add(csvKey(path), Files.readAllBytes(path));
+            }
+            return corpus;
+        }
+        if (SYNTHETIC_1M.equals(name)) {
+            // Same category keys as the real tree, written to a temporary tree for the crawl benchmark
+            Path syntheticTree = Files.createTempDirectory("synthetic-words");
+            BenchmarkCorpus corpus = new BenchmarkCorpus(syntheticTree);
+            Random random = new Random(42);
+            for (Path path : csvPaths) {
+                byte[] csv = syntheticCsv(random);
+                Files.write(syntheticTree.resolve(path.getFileName().toString()), csv);
+                corpus.add(csvKey(path), csv);
+            }
+            return corpus;
+        }
+        throw new IllegalArgumentException("Unknown corpus: " + name);
+    }
+
+    int wordCount() {
+        int count = 0;
+        for (List<String> category : words) count += category.size();
+        return count;
+    }
+
+    WordSource toWordSource() {
+        Map<String, List<String>> wordsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            wordsByKey.put(keys.get(i), words.get(i));
+        }
+        return new InMemoryWordSource(wordsByKey);
+    }
+
+    InputStream openCsv(int category) {
+        return new ByteArrayInputStream(csvFiles.get(category));
+    }
+
+    byte[] buildIndex() throws IOException {
+        WordIndexWriter writer = new WordIndexWriter();
+        for (int i = 0; i < keys.size(); i++) {
+            writer.addCategory(keys.get(i), CategoryRegistry.extractButtonLabel(keys.get(i)), words.get(i));
+        }
+        return writer.toByteArray();
+    }
+
+    static List<Path> listCsvFiles(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(path -> path.toString().endsWith(".csv"))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static String csvKey(Path path) {
+        return path.getFileName().toString().replace(".csv", "");
+    }
+
+    private void add(String key, byte[] csv) throws IOException {
+        keys.add(key);
+        csvFiles.add(csv);
+        words.add(CsvWordReader.readWords(new ByteArrayInputStream(csv)));
+    }
+
+    private static byte[] syntheticCsv(Random random) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < SYNTHETIC_WORDS_PER_CATEGORY; i++) {
+            if (i > 0) csv.append(i % 12 == 0 ? ",\n" : ", ");
+            int length = 4 + random.nextInt(9);
+            for (int j = 0; j < length; j++) {
+                csv.append(SYNTHETIC_LETTERS.charAt(random.nextInt(SYNTHETIC_LETTERS.length())));
+            }
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Label extraction for every category key, as done when the selector is populated. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CategoryLabelBenchmark {
+
+    private List<String> keys;
+
+    @Setup
+    public void setUp() throws IOException {
+        keys = BenchmarkCorpus.load(BenchmarkCorpus.ASSETS).keys;
+    }
+
+    @Benchmark
+    public void extractButtonLabel(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(CategoryRegistry.extractButtonLabel(key));
+        }
+    }
+}
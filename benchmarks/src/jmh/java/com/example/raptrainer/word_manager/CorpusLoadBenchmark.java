@@ -0,0 +1,60 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Loading every category: crawling and parsing the CSV tree versus reading the binary index. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CorpusLoadBenchmark {
+
+    @Param({BenchmarkCorpus.ASSETS, BenchmarkCorpus.SYNTHETIC_1M})
+    public String corpus;
+
+    private BenchmarkCorpus words;
+    private ByteBuffer index;
+
+    @Setup
+    public void setUp() throws IOException {
+        words = BenchmarkCorpus.load(corpus);
+        index = ByteBuffer.wrap(words.buildIndex());
+    }
+
+    @Benchmark
+    public Map<String, List<String>> csvTree() throws IOException {
+        Map<String, List<String>> wordsByFile = new HashMap<>();
+        for (Path path : BenchmarkCorpus.listCsvFiles(words.wordsDir)) {
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                wordsByFile.put(BenchmarkCorpus.csvKey(path), CsvWordReader.readWords(inputStream));
+            }
+        }
+        return wordsByFile;
+    }
+
+    @Benchmark
+    public Map<String, List<String>> wordIndex() throws IOException {
+        WordIndex wordIndex = WordIndex.read(index);
+        Map<String, List<String>> wordsByFile = new HashMap<>();
+        for (int i = 0; i < wordIndex.getCategoryCount(); i++) {
+            wordsByFile.put(wordIndex.getCategoryKey(i), wordIndex.getWords(i));
+        }
+        return wordsByFile;
+    }
+}
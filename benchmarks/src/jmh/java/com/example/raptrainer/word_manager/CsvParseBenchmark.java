@@ -0,0 +1,49 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** CSV parsing as done by FileLoader.readWordsFromAssetPath, from memory so no I/O is measured. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CsvParseBenchmark {
+
+    @Param({BenchmarkCorpus.ASSETS, BenchmarkCorpus.SYNTHETIC_1M})
+    public String corpus;
+
+    private BenchmarkCorpus words;
+    private int largestCategory;
+
+    @Setup
+    public void setUp() throws IOException {
+        words = BenchmarkCorpus.load(corpus);
+        for (int i = 1; i < words.csvFiles.size(); i++) {
+            if (words.csvFiles.get(i).length > words.csvFiles.get(largestCategory).length) {
+                largestCategory = i;
+            }
+        }
+    }
+
+    @Benchmark
+    public Object parseLargestFile() throws IOException {
+        return CsvWordReader.readWords(words.openCsv(largestCategory));
+    }
+
+    @Benchmark
+    public void parseAllFiles(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < words.csvFiles.size(); i++) {
+            blackhole.consume(CsvWordReader.readWords(words.openCsv(i)));
+        }
+    }
+}
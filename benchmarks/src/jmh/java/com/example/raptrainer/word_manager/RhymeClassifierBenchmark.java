@@ -0,0 +1,50 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rhyme classification throughput, reported per word: the bundled words,
+ * repeated to a million so a run is long enough to time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RhymeClassifierBenchmark {
+    private static final int WORDS = 1_000_000;
+
+    private final RhymeClassifier classifier = new RhymeClassifier();
+    private char[][] words;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<char[]> all = new ArrayList<>();
+        for (List<String> category : BenchmarkCorpus.load(BenchmarkCorpus.ASSETS).words) {
+            for (String word : category) {
+                all.add(word.toCharArray());
+            }
+        }
+        words = new char[WORDS][];
+        for (int i = 0; i < WORDS; i++) words[i] = all.get(i % all.size());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public void classifyWords(Blackhole blackhole) {
+        for (char[] word : words) {
+            blackhole.consume(classifier.classify(word, 0, word.length));
+        }
+    }
+}
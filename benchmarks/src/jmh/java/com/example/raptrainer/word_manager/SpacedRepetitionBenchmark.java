@@ -0,0 +1,60 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Weighted draws and scheduler rebuilds with every category selected and a third of the words skipped once. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpacedRepetitionBenchmark {
+
+    @Param({BenchmarkCorpus.ASSETS, BenchmarkCorpus.SYNTHETIC_1M})
+    public String corpus;
+
+    private WordEngine engine;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkCorpus words = BenchmarkCorpus.load(corpus);
+        WordCorpus wordCorpus = new WordCorpus(words.toWordSource(), Collections.<String>emptyList());
+        wordCorpus.loadAll();
+
+        WordStats stats = wordCorpus.getStats();
+        long now = System.currentTimeMillis();
+        for (int id = 0; id < wordCorpus.getPool().size(); id++) {
+            stats.recordShown(id, now - id * 60_000L);
+            if (id % 3 == 0) stats.recordSkipped(id);
+        }
+
+        engine = new WordEngine(wordCorpus, new Random(7));
+        engine.selectAllCategories();
+        engine.applySelection();
+        engine.setSpacedRepetition(true);
+        engine.getNextWord();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public String getNextWord() {
+        return engine.getNextWord();
+    }
+
+    /** Rebuilding the weights, which happens after every selection change or reset. */
+    @Benchmark
+    public String resetAndFirstWord() {
+        engine.resetAndShuffle();
+        return engine.getNextWord();
+    }
+}
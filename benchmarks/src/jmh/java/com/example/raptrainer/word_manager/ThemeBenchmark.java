@@ -0,0 +1,95 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A theme relating one word in twenty, as the bundled lexicons do for the
+ * assets: a single relevance lookup, choosing the theme over every category,
+ * which builds the draw of its related words, and themed getNextWord.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ThemeBenchmark {
+    private static final String THEME = "tema";
+
+    @Param({BenchmarkCorpus.ASSETS, BenchmarkCorpus.SYNTHETIC_1M})
+    public String corpus;
+
+    private WordEngine engine;
+    private ThemeIndex.Theme theme;
+    private int[] wordIds;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkCorpus words = BenchmarkCorpus.load(corpus);
+        WordCorpus wordCorpus = new WordCorpus(words.toWordSource(), Collections.<String>emptyList());
+        wordCorpus.loadAll();
+
+        TreeSet<String> distinct = new TreeSet<>();
+        for (List<String> list : words.words) distinct.addAll(list);
+        SortedMap<String, Integer> scores = new TreeMap<>();
+        Random random = new Random(11);
+        int count = 0;
+        for (String word : distinct) {
+            if (count++ % 20 == 0) scores.put(word, 1 + random.nextInt(255));
+        }
+        Map<String, SortedMap<String, Integer>> themes = new LinkedHashMap<>();
+        themes.put(THEME, scores);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThemeIndex.write(out, themes);
+        wordCorpus.loadThemes(new ByteArrayInputStream(out.toByteArray()));
+        theme = wordCorpus.getThemeIndex().get(THEME);
+
+        wordIds = new int[4096];
+        for (int i = 0; i < wordIds.length; i++) wordIds[i] = random.nextInt(wordCorpus.getPool().size());
+
+        engine = new WordEngine(wordCorpus, new Random(7));
+        engine.setAllowRepeat(true);
+        engine.selectAllCategories();
+        engine.applySelection();
+        engine.setTheme(THEME);
+    }
+
+    @Benchmark
+    public int score() {
+        next = (next + 1) & (wordIds.length - 1);
+        return theme.score(wordIds[next]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean chooseTheme() {
+        engine.setTheme(THEME);
+        return engine.isEmpty();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String getNextWord() {
+        return engine.getNextWord();
+    }
+}
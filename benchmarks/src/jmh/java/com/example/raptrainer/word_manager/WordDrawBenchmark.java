@@ -0,0 +1,80 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WordEngine's updateSelectedCategories, resetAndShuffle and getNextWord with
+ * 1, 10 or all categories selected, and a category toggled part way through a
+ * shuffle, which should cost that category's size whatever the selection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WordDrawBenchmark {
+
+    @Param({BenchmarkCorpus.ASSETS, BenchmarkCorpus.SYNTHETIC_1M})
+    public String corpus;
+
+    @Param({"1", "10", "all"})
+    public String categories;
+
+    private WordEngine engine;
+    private int selectedCount;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkCorpus words = BenchmarkCorpus.load(corpus);
+        WordCorpus wordCorpus = new WordCorpus(words.toWordSource(), Collections.<String>emptyList());
+        wordCorpus.loadAll();
+
+        engine = new WordEngine(wordCorpus, new Random(7));
+        engine.setAllowRepeat(true);
+        selectedCount = "all".equals(categories) ? words.keys.size() : Integer.parseInt(categories);
+        updateSelectedCategories();
+    }
+
+    @Benchmark
+    public boolean updateSelectedCategories() {
+        engine.deselectAllCategories();
+        for (int id = 0; id < selectedCount; id++) {
+            engine.setCategorySelected(id, true);
+        }
+        engine.applySelection();
+        return engine.isEmpty();
+    }
+
+    @Benchmark
+    public boolean toggleCategoryMidShuffle() {
+        engine.getNextWord();
+        engine.setCategorySelected(0, false);
+        engine.applySelection();
+        engine.setCategorySelected(0, true);
+        engine.applySelection();
+        return engine.isEmpty();
+    }
+
+    @Benchmark
+    public boolean resetAndShuffle() {
+        engine.resetAndShuffle();
+        return engine.isEmpty();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String getNextWord() {
+        return engine.getNextWord();
+    }
+}
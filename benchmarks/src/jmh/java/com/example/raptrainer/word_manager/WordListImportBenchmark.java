@@ -0,0 +1,66 @@
+package com.example.raptrainer.word_manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing a whole corpus as one user list: parse, sorted runs and merge,
+ * written to a temporary directory. Run with a small heap (e.g. -Xmx64m) to
+ * check that memory stays flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WordListImportBenchmark {
+
+    @Param({BenchmarkCorpus.ASSETS, BenchmarkCorpus.SYNTHETIC_1M})
+    public String corpus;
+
+    private byte[] file;
+    private File directory;
+    private WordListImporter importer;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkCorpus words = BenchmarkCorpus.load(corpus);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] csv : words.csvFiles) {
+            out.write(csv);
+            out.write('\n');
+        }
+        file = out.toByteArray();
+        directory = Files.createTempDirectory("import-bench").toFile();
+        importer = new WordListImporter(new File(directory, "work"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = new File(directory, "work").listFiles();
+        if (files != null) {
+            for (File child : files) child.delete();
+        }
+        new File(directory, "work").delete();
+        new File(directory, "list.words").delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public int importWholeCorpus() throws IOException {
+        return importer.importWords(new ByteArrayInputStream(file), "bench", new File(directory, "list.words"),
+                (bytesRead, wordsRead) -> { });
+    }
+}
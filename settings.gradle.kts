@@ -15,3 +15,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "RapTrainer"
 include(":app")
+include(":wordengine")
+include(":benchmarks")
@@ -0,0 +1,26 @@
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Compile against the Java 8 API, not only to its bytecode: on a newer JDK, ByteBuffer.position(int)
+// and limit(int) would link to overloads that Java 8 and older Android do not have. The sources
+// hold accented literals, so their encoding must not depend on the build machine's locale.
+tasks.withType<JavaCompile>().configureEach {
+    options.release.set(8)
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
+
+// ThemeIndexTest checks the app's theme lexicons against its corpus
+tasks.test {
+    systemProperty("raptrainer.wordsDir", rootProject.file("app/src/main/assets/words").absolutePath)
+    systemProperty("raptrainer.lexiconDir", rootProject.file("app/src/main/themes").absolutePath)
+}
@@ -0,0 +1,61 @@
+package com.example.raptrainer.audio;
+
+/**
+ * Maps output frames to the monotonic clock ({@code System.nanoTime}, which
+ * is what Android audio timestamps use). The audio thread publishes a
+ * (frame, time) pair from the output's timestamp every few buffers; any
+ * thread can read the mapping without locking. Re-publishing keeps the
+ * mapping on the audio hardware's clock rather than the CPU's, which drift
+ * apart by a few ms a minute.
+ */
+public final class AudioClock {
+
+    private static final class Timestamp {
+        final long frame;
+        final long nanoTime;
+
+        Timestamp(long frame, long nanoTime) {
+            this.frame = frame;
+            this.nanoTime = nanoTime;
+        }
+    }
+
+    private final int sampleRate;
+    private volatile Timestamp timestamp;
+
+    public AudioClock(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /** Output frame {@code frame} was or will be heard at {@code nanoTime}. */
+    public void update(long frame, long nanoTime) {
+        timestamp = new Timestamp(frame, nanoTime);
+    }
+
+    public void clear() {
+        timestamp = null;
+    }
+
+    /** Whether a timestamp was published since the last {@link #clear()}. */
+    public boolean isValid() {
+        return timestamp != null;
+    }
+
+    /** When output frame {@code frame} is heard; requires {@link #isValid()}. */
+    public long frameToNanos(double frame) {
+        Timestamp current = timestamp;
+        if (current == null) throw new IllegalStateException("No audio timestamp yet");
+        return current.nanoTime + Math.round((frame - current.frame) * 1e9 / sampleRate);
+    }
+
+    /** The output frame heard at {@code nanoTime}; requires {@link #isValid()}. */
+    public double nanosToFrame(long nanoTime) {
+        Timestamp current = timestamp;
+        if (current == null) throw new IllegalStateException("No audio timestamp yet");
+        return current.frame + (nanoTime - current.nanoTime) * (double) sampleRate / 1e9;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.raptrainer.audio;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders the backing loop into 16-bit stereo buffers for the output.
+ * {@link #play} and {@link #stop} may be called from any thread and take
+ * effect at the start of the next buffer; switching loops crossfades.
+ * {@link #render} belongs to the audio thread: it takes no locks and does not
+ * allocate once its mix buffer has grown to the buffer size.
+ */
+public final class AudioMixer {
+    private static final Object STOP = new Object();
+
+    /** Where the beats fall in output frames; immutable. */
+    public static final class BeatGrid {
+        private final double originFrame;
+        private final double framesPerBeat;
+
+        BeatGrid(double originFrame, double framesPerBeat) {
+            this.originFrame = originFrame;
+            this.framesPerBeat = framesPerBeat;
+        }
+
+        /** Output frame of the loop's first downbeat, i.e. the first time its loop start plays. */
+        public double getOriginFrame() {
+            return originFrame;
+        }
+
+        public double getFramesPerBeat() {
+            return framesPerBeat;
+        }
+    }
+
+    private final int outputRate;
+    private final AtomicReference<Object> pending = new AtomicReference<>();
+    private volatile float gain = 1f;
+    private volatile BeatGrid beatGrid;
+
+    // Audio thread only
+    private LoopVoice current;
+    private LoopVoice fading;
+    private float[] mix = new float[0];
+    private long framesRendered;
+
+    public AudioMixer(int outputRate) {
+        this.outputRate = outputRate;
+    }
+
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    /** Starts the loop from its first frame, replacing the current one. */
+    public void play(PcmLoop loop) {
+        pending.set(loop);
+    }
+
+    /** Fades out the current loop. */
+    public void stop() {
+        pending.set(STOP);
+    }
+
+    public void setGain(float gain) {
+        this.gain = gain;
+    }
+
+    /** The current loop's beats, or null when nothing plays. */
+    public BeatGrid getBeatGrid() {
+        return beatGrid;
+    }
+
+    /** Nothing playing, fading or pending; the output can be released. Audio thread only. */
+    public boolean isIdle() {
+        return current == null && fading == null && pending.get() == null;
+    }
+
+    /** Output frames rendered so far, i.e. the index of the next frame {@link #render} produces. */
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /** Renders {@code frames} interleaved stereo frames into {@code out}. */
+    public void render(short[] out, int frames) {
+        applyCommand();
+        int samples = frames * PcmLoop.CHANNELS;
+        if (mix.length < samples) mix = new float[samples];
+        Arrays.fill(mix, 0, samples, 0f);
+
+        if (current != null) current.render(mix, frames);
+        if (fading != null) {
+            fading.render(mix, frames);
+            if (fading.isSilent()) fading = null;
+        }
+
+        float outputGain = gain;
+        for (int i = 0; i < samples; i++) {
+            int value = Math.round(mix[i] * outputGain);
+            out[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        framesRendered += frames;
+    }
+
+    private void applyCommand() {
+        Object command = pending.getAndSet(null);
+        if (command == null) return;
+        if (current != null) {
+            current.fadeOut();
+            fading = current;
+            current = null;
+        }
+        if (command == STOP) {
+            beatGrid = null;
+            return;
+        }
+        PcmLoop loop = (PcmLoop) command;
+        current = new LoopVoice(loop, outputRate);
+        double step = current.getStep();
+        beatGrid = new BeatGrid(framesRendered + loop.loopStart / step, loop.getFramesPerBeat() / step);
+    }
+
+    /** For tests: the next loop starts at full gain. */
+    void skipRamp() {
+        applyCommand();
+        if (current != null) current.skipRamp();
+    }
+}
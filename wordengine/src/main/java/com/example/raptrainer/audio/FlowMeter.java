@@ -0,0 +1,255 @@
+package com.example.raptrainer.audio;
+
+import java.util.Arrays;
+
+/**
+ * Follows a rapper's delivery from mono microphone PCM: syllables per second
+ * and the gaps between lines. Fed in blocks of any size; nothing is allocated
+ * after construction, so it can keep up with the microphone on any thread.
+ * <ol>
+ * <li>The signal is cut into {@value #HOP_MILLIS} ms hops, and each hop's
+ * energy in dBFS is smoothed into an envelope.</li>
+ * <li>The noise floor is the envelope's minimum over the last
+ * {@value #FLOOR_SECONDS} seconds, so it follows the room without creeping up
+ * during a long verse. Hops well above it are voiced.</li>
+ * <li>The onset envelope is the envelope's rise since its last dip. A syllable
+ * starts when that rise reaches {@value #PROMINENCE_DB} dB in voiced audio; the
+ * next one needs the envelope to fall as far from its peak first, and at
+ * least {@value #MIN_SYLLABLE_MILLIS} ms.</li>
+ * <li>The rate counts syllable starts over the last {@value #RATE_WINDOW_MILLIS}
+ * ms; unvoiced runs of at least {@value #MIN_GAP_MILLIS} ms are gaps.</li>
+ * </ol>
+ * Not thread-safe; {@link #reading()} takes a snapshot for another thread.
+ */
+public final class FlowMeter {
+    public static final int HOP_MILLIS = 10;
+    static final double PROMINENCE_DB = 4;
+    static final int MIN_SYLLABLE_MILLIS = 80;
+    static final int RATE_WINDOW_MILLIS = 3000;
+    static final int MIN_GAP_MILLIS = 200;
+    private static final int FLOOR_SECONDS = 5;
+    // The floor is the least of one minimum per block, so it moves on block by block
+    private static final int FLOOR_BLOCKS = 10;
+    private static final double VOICE_MARGIN_DB = 10;
+    // Hiss over digital silence is not voice, however quiet the floor
+    private static final double MIN_VOICE_DB = -50;
+    private static final double SILENCE_DB = -100;
+    // One-pole smoothing per hop, a time constant of about 15 ms
+    private static final double SMOOTHING = 0.5;
+    // A single syllable in the first moments is not a rate of 10 per second
+    private static final int MIN_RATE_MILLIS = 1000;
+    private static final double FULL_SCALE_SQUARED = 32768.0 * 32768.0;
+
+    /** What the meter last measured; immutable. */
+    public static final class Reading {
+        private final double syllablesPerSecond;
+        private final boolean voiced;
+        private final int silenceMillis;
+        private final int lastGapMillis;
+        private final int gapCount;
+        private final long syllableCount;
+
+        Reading(double syllablesPerSecond, boolean voiced, int silenceMillis, int lastGapMillis, int gapCount, long syllableCount) {
+            this.syllablesPerSecond = syllablesPerSecond;
+            this.voiced = voiced;
+            this.silenceMillis = silenceMillis;
+            this.lastGapMillis = lastGapMillis;
+            this.gapCount = gapCount;
+            this.syllableCount = syllableCount;
+        }
+
+        public double getSyllablesPerSecond() {
+            return syllablesPerSecond;
+        }
+
+        public boolean isVoiced() {
+            return voiced;
+        }
+
+        /** How long the current gap has lasted, 0 while rapping or before the first syllable. */
+        public int getSilenceMillis() {
+            return silenceMillis;
+        }
+
+        /** Length of the last finished gap, 0 if there was none. */
+        public int getLastGapMillis() {
+            return lastGapMillis;
+        }
+
+        public int getGapCount() {
+            return gapCount;
+        }
+
+        public long getSyllableCount() {
+            return syllableCount;
+        }
+    }
+
+    private final int hopSamples;
+    private final int minSyllableHops;
+    private final int minGapHops;
+    private final int minRateHops;
+
+    // The hop being filled
+    private long hopEnergy;
+    private int hopFill;
+    private long hops;
+
+    private double envelope;
+    private final double[] floorBlocks = new double[FLOOR_BLOCKS];
+    private final int hopsPerFloorBlock;
+    private double floor;
+    private boolean voiced;
+
+    // Syllables: armed while waiting for the next rise, with the dip it is measured from
+    private boolean armed = true;
+    private double valley = Double.POSITIVE_INFINITY;
+    private double peak;
+    private long lastSyllableHop = Long.MIN_VALUE / 2;
+    private long syllableCount;
+    // One flag per hop of the rate window, with their running sum
+    private final boolean[] syllableStarts;
+    private int syllablesInWindow;
+
+    // Gaps
+    private boolean spoken;
+    private int unvoicedHops;
+    private int lastGapHops;
+    private int gapCount;
+
+    public FlowMeter(int sampleRate) {
+        if (sampleRate < 1000 / HOP_MILLIS) throw new IllegalArgumentException("Invalid sample rate: " + sampleRate);
+        this.hopSamples = sampleRate * HOP_MILLIS / 1000;
+        this.minSyllableHops = MIN_SYLLABLE_MILLIS / HOP_MILLIS;
+        this.minGapHops = MIN_GAP_MILLIS / HOP_MILLIS;
+        this.minRateHops = MIN_RATE_MILLIS / HOP_MILLIS;
+        this.syllableStarts = new boolean[RATE_WINDOW_MILLIS / HOP_MILLIS];
+        this.hopsPerFloorBlock = FLOOR_SECONDS * 1000 / HOP_MILLIS / FLOOR_BLOCKS;
+    }
+
+    /** Feeds {@code count} mono samples. */
+    public void process(short[] samples, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            int sample = samples[i];
+            hopEnergy += sample * sample;
+            if (++hopFill == hopSamples) endHop();
+        }
+    }
+
+    /** Forgets everything heard, e.g. when the microphone is reopened. */
+    public void reset() {
+        hopEnergy = 0;
+        hopFill = 0;
+        hops = 0;
+        armed = true;
+        valley = Double.POSITIVE_INFINITY;
+        lastSyllableHop = Long.MIN_VALUE / 2;
+        syllableCount = 0;
+        Arrays.fill(syllableStarts, false);
+        syllablesInWindow = 0;
+        voiced = false;
+        spoken = false;
+        unvoicedHops = 0;
+        lastGapHops = 0;
+        gapCount = 0;
+    }
+
+    public double getSyllablesPerSecond() {
+        long heard = Math.max(minRateHops, Math.min(hops, syllableStarts.length));
+        return syllablesInWindow * 1000.0 / (heard * HOP_MILLIS);
+    }
+
+    public boolean isVoiced() {
+        return voiced;
+    }
+
+    public int getSilenceMillis() {
+        return spoken && unvoicedHops >= minGapHops ? unvoicedHops * HOP_MILLIS : 0;
+    }
+
+    public int getLastGapMillis() {
+        return lastGapHops * HOP_MILLIS;
+    }
+
+    public int getGapCount() {
+        return gapCount;
+    }
+
+    public long getSyllableCount() {
+        return syllableCount;
+    }
+
+    /** The smoothed level of the last hop, in dBFS. */
+    public double getLevelDb() {
+        return envelope;
+    }
+
+    /** A snapshot of the getters; the one allocation, so call it at display rate rather than per hop. */
+    public Reading reading() {
+        return new Reading(getSyllablesPerSecond(), voiced, getSilenceMillis(), getLastGapMillis(), gapCount, syllableCount);
+    }
+
+    // ===================== Internal Logic =====================
+
+    private void endHop() {
+        double db = hopEnergy == 0 ? SILENCE_DB : Math.max(SILENCE_DB, 10 * Math.log10(hopEnergy / (hopSamples * FULL_SCALE_SQUARED)));
+        hopEnergy = 0;
+        hopFill = 0;
+        envelope = hops == 0 ? db : envelope + (db - envelope) * SMOOTHING;
+        updateFloor();
+        voiced = envelope > Math.max(floor + VOICE_MARGIN_DB, MIN_VOICE_DB);
+
+        boolean started = detectSyllable();
+        int slot = (int) (hops % syllableStarts.length);
+        if (syllableStarts[slot]) syllablesInWindow--;
+        syllableStarts[slot] = started;
+        if (started) syllablesInWindow++;
+
+        updateGaps();
+        hops++;
+    }
+
+    private void updateFloor() {
+        int block = (int) (hops / hopsPerFloorBlock % FLOOR_BLOCKS);
+        if (hops % hopsPerFloorBlock == 0) {
+            floorBlocks[block] = envelope;
+        } else {
+            floorBlocks[block] = Math.min(floorBlocks[block], envelope);
+        }
+        // Until the blocks have all been filled once, only the filled ones count
+        int filled = (int) Math.min(FLOOR_BLOCKS, hops / hopsPerFloorBlock + 1);
+        floor = floorBlocks[0];
+        for (int i = 1; i < filled; i++) floor = Math.min(floor, floorBlocks[i]);
+    }
+
+    private boolean detectSyllable() {
+        if (!armed) {
+            peak = Math.max(peak, envelope);
+            if (envelope <= peak - PROMINENCE_DB || !voiced) {
+                armed = true;
+                valley = envelope;
+            }
+            return false;
+        }
+        valley = Math.min(valley, envelope);
+        if (!voiced || envelope - valley < PROMINENCE_DB || hops - lastSyllableHop < minSyllableHops) return false;
+        armed = false;
+        peak = envelope;
+        lastSyllableHop = hops;
+        syllableCount++;
+        return true;
+    }
+
+    private void updateGaps() {
+        if (!voiced) {
+            unvoicedHops++;
+            return;
+        }
+        if (spoken && unvoicedHops >= minGapHops) {
+            lastGapHops = unvoicedHops;
+            gapCount++;
+        }
+        spoken = true;
+        unvoicedHops = 0;
+    }
+}
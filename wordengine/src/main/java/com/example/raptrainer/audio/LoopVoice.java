@@ -0,0 +1,76 @@
+package com.example.raptrainer.audio;
+
+/**
+ * Plays a {@link PcmLoop} at any output rate: linear interpolation between
+ * source frames, an integer source index plus a fractional phase so the loop
+ * wraps exactly at its end frame, and short gain ramps so starting and
+ * stopping never click. Audio thread only.
+ */
+final class LoopVoice {
+    // About 5 ms at common output rates
+    static final int RAMP_FRAMES = 256;
+
+    private final PcmLoop loop;
+    private final double step; // source frames per output frame
+    private int index;
+    private double fraction;
+    private float gain;
+    private float targetGain = 1f;
+
+    LoopVoice(PcmLoop loop, int outputRate) {
+        this.loop = loop;
+        this.step = loop.sampleRate / (double) outputRate;
+    }
+
+    /** Source frames per output frame. */
+    double getStep() {
+        return step;
+    }
+
+    /** Source frame being played, with its fractional part. */
+    double sourcePosition() {
+        return index + fraction;
+    }
+
+    void fadeOut() {
+        targetGain = 0f;
+    }
+
+    /** Faded out completely; nothing more to render. */
+    boolean isSilent() {
+        return targetGain == 0f && gain == 0f;
+    }
+
+    /** Adds {@code frames} stereo frames into {@code mix}. */
+    void render(float[] mix, int frames) {
+        short[] samples = loop.samples;
+        int loopStart = loop.loopStart;
+        int loopEnd = loop.loopEnd;
+        float rampStep = 1f / RAMP_FRAMES;
+        for (int frame = 0; frame < frames; frame++) {
+            if (gain != targetGain) {
+                gain = gain < targetGain ? Math.min(targetGain, gain + rampStep) : Math.max(targetGain, gain - rampStep);
+            }
+            // The frame after the last one of the loop is its first one, so the seam is seamless
+            int next = index + 1 == loopEnd ? loopStart : index + 1;
+            float weight = (float) fraction;
+            float left = samples[index * 2] + (samples[next * 2] - samples[index * 2]) * weight;
+            float right = samples[index * 2 + 1] + (samples[next * 2 + 1] - samples[index * 2 + 1]) * weight;
+            mix[frame * 2] += left * gain;
+            mix[frame * 2 + 1] += right * gain;
+
+            fraction += step;
+            if (fraction >= 1) {
+                int whole = (int) fraction;
+                fraction -= whole;
+                index += whole;
+                while (index >= loopEnd) index -= loopEnd - loopStart;
+            }
+        }
+    }
+
+    /** Starts at full gain, for tests that compare samples exactly. */
+    void skipRamp() {
+        gain = targetGain;
+    }
+}
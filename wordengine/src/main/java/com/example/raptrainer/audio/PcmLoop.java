@@ -0,0 +1,90 @@
+package com.example.raptrainer.audio;
+
+/**
+ * A decoded backing loop: 16-bit stereo frames, the sample-accurate loop
+ * region [loopStart, loopEnd) and how many beats that region holds.
+ * Anything before loopStart plays once as an intro. Immutable.
+ */
+public final class PcmLoop {
+    public static final int CHANNELS = 2;
+
+    private static final int BEATS_PER_BAR = 4;
+    private static final double MIN_GUESSED_BPM = 70;
+
+    final short[] samples; // interleaved left/right
+    final int sampleRate;
+    final int frames;
+    final int loopStart;
+    final int loopEnd;
+    final int beatsInLoop;
+
+    /**
+     * @param samples      interleaved stereo frames; not copied
+     * @param beatsInLoop  beats in the loop region, or 0 to guess them from its length
+     */
+    public PcmLoop(short[] samples, int sampleRate, int loopStart, int loopEnd, int beatsInLoop) {
+        if (samples.length % CHANNELS != 0) throw new IllegalArgumentException("Samples are not whole stereo frames");
+        if (sampleRate <= 0) throw new IllegalArgumentException("Invalid sample rate: " + sampleRate);
+        int frames = samples.length / CHANNELS;
+        if (loopStart < 0 || loopEnd > frames || loopStart >= loopEnd) {
+            throw new IllegalArgumentException("Invalid loop [" + loopStart + ", " + loopEnd + ") of " + frames + " frames");
+        }
+        this.samples = samples;
+        this.sampleRate = sampleRate;
+        this.frames = frames;
+        this.loopStart = loopStart;
+        this.loopEnd = loopEnd;
+        this.beatsInLoop = beatsInLoop > 0 ? beatsInLoop : guessBeats(loopEnd - loopStart, sampleRate);
+    }
+
+    /** Same audio with a different beat count, e.g. once the user or a detector knows better. */
+    public PcmLoop withBeats(int beats) {
+        return new PcmLoop(samples, sampleRate, loopStart, loopEnd, beats);
+    }
+
+    /**
+     * Loops are almost always a power-of-two number of 4/4 bars, so pick the one
+     * that puts the tempo in [70, 140) bpm.
+     */
+    static int guessBeats(int loopFrames, int sampleRate) {
+        double seconds = loopFrames / (double) sampleRate;
+        int beats = BEATS_PER_BAR;
+        while (beats * 60 / seconds < MIN_GUESSED_BPM && beats < (1 << 20)) beats *= 2;
+        return beats;
+    }
+
+    /** The interleaved stereo frames; not copied, do not modify. */
+    public short[] getSamples() {
+        return samples;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public int getLoopStart() {
+        return loopStart;
+    }
+
+    public int getLoopEnd() {
+        return loopEnd;
+    }
+
+    public int getBeatsInLoop() {
+        return beatsInLoop;
+    }
+
+    /** Exact tempo of the loop region, from its length and beat count. */
+    public double getBpm() {
+        return beatsInLoop * 60.0 * sampleRate / (loopEnd - loopStart);
+    }
+
+    /** Source frames per beat; fractional, so long sessions stay in time. */
+    public double getFramesPerBeat() {
+        return (loopEnd - loopStart) / (double) beatsInLoop;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.raptrainer.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ring of PCM samples between exactly one writing thread, e.g. the one
+ * reading the microphone, and one reading thread. Each side only advances its
+ * own position and publishes it with an ordered store, so neither takes a
+ * lock, waits or allocates. When the ring is full the samples that do not fit
+ * are dropped and counted; the writer is never held up by a slow reader.
+ */
+public final class PcmRingBuffer {
+    private final short[] samples;
+    private final int mask;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+    // Each side's last look at the other's position, so the shared one is read only when it has to be
+    private long cachedReadPosition; // writer only
+    private long cachedWritePosition; // reader only
+    private volatile long dropped; // written by the writer only
+
+    /** @param capacity in samples, a power of two */
+    public PcmRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        samples = new short[capacity];
+        mask = capacity - 1;
+    }
+
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    /** Copies in as many of the samples as fit and returns how many; writer thread only. */
+    public int write(short[] source, int offset, int count) {
+        long write = writePosition.get();
+        if (write + count - cachedReadPosition > samples.length) cachedReadPosition = readPosition.get();
+        int written = (int) Math.min(count, samples.length - (write - cachedReadPosition));
+        copy(source, offset, samples, (int) write & mask, written, true);
+        writePosition.lazySet(write + written);
+        if (written < count) dropped += count - written;
+        return written;
+    }
+
+    /** Copies out up to {@code count} samples, oldest first, and returns how many; reader thread only. */
+    public int read(short[] destination, int offset, int count) {
+        long read = readPosition.get();
+        if (cachedWritePosition - read < count) cachedWritePosition = writePosition.get();
+        int taken = (int) Math.min(count, cachedWritePosition - read);
+        copy(samples, (int) read & mask, destination, offset, taken, false);
+        readPosition.lazySet(read + taken);
+        return taken;
+    }
+
+    /** Samples written and not read yet; exact only on the reader thread. */
+    public int available() {
+        return (int) (writePosition.get() - readPosition.get());
+    }
+
+    /** Samples that did not fit since the ring was created. */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /** Copies {@code count} samples, wrapping around the end of the ring on the ring's side. */
+    private void copy(short[] from, int fromIndex, short[] to, int toIndex, int count, boolean intoRing) {
+        int ringIndex = intoRing ? toIndex : fromIndex;
+        int first = Math.min(count, samples.length - ringIndex);
+        System.arraycopy(from, fromIndex, to, toIndex, first);
+        if (first == count) return;
+        if (intoRing) {
+            System.arraycopy(from, fromIndex + first, to, 0, count - first);
+        } else {
+            System.arraycopy(from, 0, to, toIndex + first, count - first);
+        }
+    }
+}
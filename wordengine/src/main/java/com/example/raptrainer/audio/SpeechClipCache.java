@@ -0,0 +1,223 @@
+package com.example.raptrainer.audio;
+
+import com.example.raptrainer.word_manager.Instrumentation;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Spoken clips of the upcoming words, synthesized ahead of time so a word can
+ * be heard the moment it is shown. Two least-recently-used tiers, each bounded
+ * in bytes: decoded clips in memory, and the synthesizer's WAVE files on disk,
+ * which outlive the process so a word is only ever synthesized once per voice.
+ * <p>
+ * {@link #prefetch} and {@link #get} may be called from any thread and never
+ * wait on synthesis or disk. The work runs on the given executor, which must
+ * run one task at a time; it alone touches the disk tier.
+ */
+public final class SpeechClipCache {
+    private static final String CLIP_SUFFIX = ".wav";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final SpeechSynthesizer synthesizer;
+    private final File directory;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final Executor executor;
+
+    // Guarded by this; in access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, PcmLoop> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    // Words queued or being filled; a word dropped from here before its turn is skipped
+    private final Set<String> pending = new HashSet<>();
+
+    // Worker thread only: file name to size, least recently used first
+    private LinkedHashMap<String, Long> disk;
+    private long diskBytes;
+
+    public SpeechClipCache(SpeechSynthesizer synthesizer, File directory, long maxMemoryBytes, long maxDiskBytes, Executor executor) {
+        this.synthesizer = synthesizer;
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the words that are not in memory yet, in order, and drops queued
+     * ones that are no longer coming up.
+     */
+    public void prefetch(Collection<String> upcomingWords) {
+        List<String> queued = new ArrayList<>();
+        synchronized (this) {
+            pending.retainAll(upcomingWords);
+            for (String word : upcomingWords) {
+                if (!memory.containsKey(word) && pending.add(word)) queued.add(word);
+            }
+        }
+        for (String word : queued) {
+            executor.execute(() -> fill(word));
+        }
+    }
+
+    /** The clip of a word if it is in memory, else null; never waits for it. */
+    public PcmLoop get(String word) {
+        PcmLoop clip;
+        synchronized (this) {
+            clip = memory.get(word);
+        }
+        Instrumentation.increment(clip != null ? Instrumentation.Counter.SPEECH_CUE_HITS : Instrumentation.Counter.SPEECH_CUE_MISSES);
+        return clip;
+    }
+
+    /** Drops the decoded clips; the files stay, so they come back without synthesis. */
+    public synchronized void clearMemory() {
+        memory.clear();
+        memoryBytes = 0;
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    // ===================== Internal Logic =====================
+
+    private void fill(String word) {
+        synchronized (this) {
+            if (!pending.contains(word)) return;
+            if (memory.containsKey(word)) {
+                pending.remove(word);
+                return;
+            }
+        }
+        PcmLoop clip = null;
+        try {
+            clip = load(word);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error synthesizing word: " + word);
+            e.printStackTrace();
+        }
+        synchronized (this) {
+            pending.remove(word);
+            if (clip != null) remember(word, clip);
+        }
+    }
+
+    /** From disk if it is there, else synthesized to disk first. */
+    private PcmLoop load(String word) throws IOException {
+        if (disk == null) indexDisk();
+        String name = fileName(synthesizer.getVoiceId(), word);
+        File file = new File(directory, name);
+        if (disk.get(name) != null) {
+            file.setLastModified(System.currentTimeMillis());
+        } else {
+            synthesize(word, file);
+            disk.put(name, file.length());
+            diskBytes += file.length();
+            trimDisk();
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return WavDecoder.decode(in);
+        } catch (IOException e) {
+            // A damaged file would fail every time; the next prefetch makes it again
+            forget(name);
+            throw e;
+        }
+    }
+
+    /** Into a temporary file first, so a crash part way never leaves a truncated clip. */
+    private void synthesize(String word, File file) throws IOException {
+        File temporary = new File(directory, file.getName() + TEMPORARY_SUFFIX);
+        long start = Instrumentation.begin(Instrumentation.Timer.SPEECH_SYNTHESIS);
+        try {
+            synthesizer.synthesize(word, temporary);
+            if (!temporary.renameTo(file)) throw new IOException("Cannot replace " + file);
+        } finally {
+            temporary.delete();
+            Instrumentation.end(Instrumentation.Timer.SPEECH_SYNTHESIS, start);
+        }
+    }
+
+    /** Lists the clips already on disk, least recently used first, and clears out leftovers. */
+    private void indexDisk() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create " + directory);
+        File[] files = directory.listFiles();
+        if (files == null) throw new IOException("Cannot list " + directory);
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        disk = new LinkedHashMap<>(16, 0.75f, true);
+        for (File file : files) {
+            if (file.getName().endsWith(CLIP_SUFFIX)) {
+                disk.put(file.getName(), file.length());
+                diskBytes += file.length();
+            } else if (file.getName().endsWith(TEMPORARY_SUFFIX)) {
+                file.delete();
+            }
+        }
+        trimDisk();
+    }
+
+    /** Deletes the least recently used files until the rest fit; the newest always stays. */
+    private void trimDisk() {
+        Iterator<Map.Entry<String, Long>> entries = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && disk.size() > 1) {
+            Map.Entry<String, Long> eldest = entries.next();
+            new File(directory, eldest.getKey()).delete();
+            diskBytes -= eldest.getValue();
+            entries.remove();
+        }
+    }
+
+    private void forget(String name) {
+        Long size = disk.remove(name);
+        if (size != null) diskBytes -= size;
+        new File(directory, name).delete();
+    }
+
+    /** Adds a clip and evicts the least recently used ones beyond the budget; the newest always stays. */
+    private void remember(String word, PcmLoop clip) {
+        PcmLoop previous = memory.put(word, clip);
+        if (previous != null) memoryBytes -= sizeOf(previous);
+        memoryBytes += sizeOf(clip);
+        Iterator<Map.Entry<String, PcmLoop>> entries = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && memory.size() > 1) {
+            memoryBytes -= sizeOf(entries.next().getValue());
+            entries.remove();
+        }
+    }
+
+    private static long sizeOf(PcmLoop clip) {
+        return (long) clip.getFrames() * PcmLoop.CHANNELS * 2;
+    }
+
+    /** A hash, since words can hold any character and voices have long names. */
+    static String fileName(String voiceId, String word) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest((voiceId + '\n' + word).getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder(hash.length * 2 + CLIP_SUFFIX.length());
+        for (byte b : hash) {
+            name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return name.append(CLIP_SUFFIX).toString();
+    }
+}
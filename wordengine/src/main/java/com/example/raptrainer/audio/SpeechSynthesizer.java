@@ -0,0 +1,17 @@
+package com.example.raptrainer.audio;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Speaks a word into a WAVE file, e.g. through the platform's text-to-speech
+ * engine. {@link SpeechClipCache} calls it from its worker thread only, so an
+ * implementation may block.
+ */
+public interface SpeechSynthesizer {
+    /** Names the engine, voice and settings; clips made with another voice are not reused. */
+    String getVoiceId() throws IOException;
+
+    /** Writes {@code word}, spoken, to {@code output}; returns once the file is complete. */
+    void synthesize(String word, File output) throws IOException;
+}
@@ -0,0 +1,433 @@
+package com.example.raptrainer.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Estimates the tempo and the first downbeat of a track, fed in blocks of any
+ * size so a whole song never has to be in memory.
+ * <ol>
+ * <li>The audio is mixed to mono and decimated to about 11 kHz.</li>
+ * <li>Log-magnitude spectral flux over short FFT frames gives an onset
+ * envelope at about 86 Hz, plus a second one for the kick-drum band.</li>
+ * <li>The envelope's autocorrelation is accumulated as it arrives, over the
+ * lags of 60 to 200 bpm and their multiples; the strongest lag, weighted
+ * towards moderate tempos, is the beat. Where half or double the tempo fits
+ * as well, the one nearer 100 bpm wins, so 180 bpm reads as 90.</li>
+ * <li>The beat phase and which beat of the bar is the downbeat come from the
+ * first {@value #PHASE_SECONDS} seconds of envelope, the only part kept.</li>
+ * </ol>
+ * Memory is a few tens of kilobytes whatever the track's length. Not thread-safe.
+ */
+public final class TempoDetector {
+    public static final double MIN_BPM = 60;
+    public static final double MAX_BPM = 200;
+
+    private static final int TARGET_RATE = 11025;
+    private static final int FFT_SIZE = 256;
+    private static final int HOP = 128;
+    private static final float LOG_GAIN = 100f;
+    private static final double KICK_MAX_HZ = 150;
+    // The running mean subtracted from the flux follows about half a second
+    private static final double MEAN_SECONDS = 0.5;
+    // Multiples of the beat lag tracked, to refine the period from a later peak
+    private static final int MAX_MULTIPLE = 8;
+    private static final int PHASE_SECONDS = 30;
+    private static final int BEATS_PER_BAR = 4;
+    // Tempo prior: a log-normal around 100 bpm, one octave wide
+    private static final double PRIOR_BPM = 100;
+    private static final double PRIOR_OCTAVES = 1;
+    private static final double MIN_ANALYSIS_SECONDS = 4;
+    private static final double KICK_FALLBACK_WEIGHT = 0.1;
+    // Downbeats with less than this share of the average onset come before the music
+    private static final double SILENT_DOWNBEAT = 0.25;
+
+    /** What the detector found; immutable. */
+    public static final class Estimate {
+        private final double bpm;
+        private final double downbeatSeconds;
+        private final double confidence;
+
+        Estimate(double bpm, double downbeatSeconds, double confidence) {
+            this.bpm = bpm;
+            this.downbeatSeconds = downbeatSeconds;
+            this.confidence = confidence;
+        }
+
+        public double getBpm() {
+            return bpm;
+        }
+
+        /** When the first downbeat falls, in seconds from the start of the audio. */
+        public double getDownbeatSeconds() {
+            return downbeatSeconds;
+        }
+
+        /** Autocorrelation at the beat, from 0 (no pulse) to 1 (a perfect click track). */
+        public double getConfidence() {
+            return confidence;
+        }
+    }
+
+    private final int sampleRate;
+    private final int decimation;
+    private final double envelopeRate;
+
+    // Decimation and framing
+    private float decimatedSum;
+    private int decimatedCount;
+    private final float[] frame = new float[FFT_SIZE];
+    private int frameFill = FFT_SIZE - HOP; // starts with silence, so onsets at time 0 count
+
+    // FFT: the real frame is packed into a complex one of half the size
+    private static final int HALF = FFT_SIZE / 2;
+    private final float[] window = new float[FFT_SIZE];
+    private final float[] cos = new float[HALF];
+    private final float[] sin = new float[HALF];
+    private final int[] bitReverse = new int[HALF];
+    private final float[] real = new float[HALF];
+    private final float[] imaginary = new float[HALF];
+    private final float[] previousMagnitude = new float[FFT_SIZE / 2 + 1];
+    private final int kickBins;
+
+    // Onset envelope
+    private double fluxMean;
+    private final double meanWeight;
+    private long onsets;
+    private double onsetSum;
+
+    // Autocorrelation over lags [0, autocorrelation.length); the history ring is
+    // stored twice over, so the lags of a new onset are one unbroken run
+    private final int minLag;
+    private final int maxLag;
+    private final float[] history;
+    private final double[] autocorrelation;
+
+    // The start of the envelope, for the phase
+    private final float[] storedOnsets;
+    private final float[] storedKicks;
+
+    public TempoDetector(int sampleRate) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("Invalid sample rate: " + sampleRate);
+        this.sampleRate = sampleRate;
+        this.decimation = Math.max(1, (int) Math.round(sampleRate / (double) TARGET_RATE));
+        double decimatedRate = sampleRate / (double) decimation;
+        this.envelopeRate = decimatedRate / HOP;
+        this.meanWeight = 1 / (MEAN_SECONDS * envelopeRate);
+        this.kickBins = Math.max(1, (int) Math.round(KICK_MAX_HZ * FFT_SIZE / decimatedRate));
+
+        this.minLag = (int) Math.floor(envelopeRate * 60 / MAX_BPM);
+        this.maxLag = (int) Math.ceil(envelopeRate * 60 / MIN_BPM);
+        this.autocorrelation = new double[MAX_MULTIPLE * (maxLag + 1) + 2];
+        this.history = new float[2 * autocorrelation.length];
+
+        int stored = (int) Math.ceil(PHASE_SECONDS * envelopeRate);
+        this.storedOnsets = new float[stored];
+        this.storedKicks = new float[stored];
+
+        for (int i = 0; i < FFT_SIZE; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / FFT_SIZE));
+        }
+        for (int i = 0; i < HALF; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(HALF));
+            cos[i] = (float) Math.cos(2 * Math.PI * i / FFT_SIZE);
+            sin[i] = (float) -Math.sin(2 * Math.PI * i / FFT_SIZE);
+        }
+    }
+
+    /** Streams a WAVE file through a detector; null when it is too short or has no pulse. */
+    public static Estimate analyze(InputStream wav) throws IOException {
+        TempoDetector[] detector = new TempoDetector[1];
+        WavDecoder.stream(wav, new WavDecoder.Sink() {
+            @Override
+            public void onFormat(int sampleRate) {
+                detector[0] = new TempoDetector(sampleRate);
+            }
+
+            @Override
+            public void onFrames(short[] samples, int frames) {
+                detector[0].process(samples, frames);
+            }
+        });
+        return detector[0].finish();
+    }
+
+    /**
+     * Analyzes a loop's region, played round enough times to hear a few bars.
+     * The downbeat is then relative to the loop start.
+     */
+    public static Estimate analyze(PcmLoop loop) {
+        TempoDetector detector = new TempoDetector(loop.sampleRate);
+        int loopFrames = loop.loopEnd - loop.loopStart;
+        long total = Math.max(loopFrames, (long) Math.ceil(2 * MIN_ANALYSIS_SECONDS * loop.sampleRate));
+        short[] block = new short[4096 * PcmLoop.CHANNELS];
+        int position = loop.loopStart;
+        for (long done = 0; done < total; ) {
+            int frames = (int) Math.min(Math.min(4096, total - done), loop.loopEnd - position);
+            System.arraycopy(loop.samples, position * PcmLoop.CHANNELS, block, 0, frames * PcmLoop.CHANNELS);
+            detector.process(block, frames);
+            done += frames;
+            position += frames;
+            if (position == loop.loopEnd) position = loop.loopStart;
+        }
+        return detector.finish();
+    }
+
+    /** How many whole beats the loop region holds at the estimated tempo; at least one. */
+    public static int beatsInLoop(PcmLoop loop, Estimate estimate) {
+        double seconds = (loop.loopEnd - loop.loopStart) / (double) loop.sampleRate;
+        return (int) Math.max(1, Math.round(seconds * estimate.getBpm() / 60));
+    }
+
+    /** Feeds {@code frames} interleaved stereo frames. */
+    public void process(short[] samples, int frames) {
+        for (int i = 0; i < frames; i++) {
+            decimatedSum += samples[i * 2] + samples[i * 2 + 1];
+            if (++decimatedCount < decimation) continue;
+            // The box average is a crude anti-alias filter, but onsets survive it
+            frame[frameFill++] = decimatedSum / (2f * decimation * Short.MAX_VALUE);
+            decimatedSum = 0;
+            decimatedCount = 0;
+            if (frameFill == FFT_SIZE) {
+                analyzeFrame();
+                System.arraycopy(frame, HOP, frame, 0, FFT_SIZE - HOP);
+                frameFill = FFT_SIZE - HOP;
+            }
+        }
+    }
+
+    /** The estimate for everything fed so far; null when that is too short or has no pulse. */
+    public Estimate finish() {
+        long count = onsets;
+        if (count < Math.max(MIN_ANALYSIS_SECONDS * envelopeRate, 4 * (maxLag + 1))) return null;
+
+        double mean = onsetSum / count;
+        double[] centered = new double[autocorrelation.length];
+        for (int lag = 0; lag < centered.length; lag++) {
+            centered[lag] = autocorrelation[lag] / (count - lag) - mean * mean;
+        }
+        double variance = centered[0];
+        if (variance <= 0) return null;
+
+        int best = -1;
+        double bestScore = 0;
+        for (int lag = Math.max(1, minLag); lag <= maxLag; lag++) {
+            // A beat lag also peaks at twice itself, a double-time lag does not. Peaks
+            // are narrower than a lag, so take the best neighbour of each.
+            double score = (near(centered, lag) + 0.5 * near(centered, 2 * lag)) * prior(lag);
+            if (best < 0 || score > bestScore) {
+                best = lag;
+                bestScore = score;
+            }
+        }
+        if (bestScore <= 0) return null;
+
+        // Sharpen the lag on later multiples, where the same error is spread over more beats
+        double period = peakNear(centered, best);
+        for (int multiple = 2; multiple <= MAX_MULTIPLE; multiple *= 2) {
+            int around = (int) Math.round(period * multiple);
+            // Lags over half the envelope have too few pairs to trust
+            if (around + 2 >= centered.length || 2 * around > count) break;
+            period = peakNear(centered, around) / multiple;
+        }
+
+        double confidence = Math.max(0, Math.min(1, centered[(int) Math.round(period)] / variance));
+        int stored = (int) Math.min(count, storedOnsets.length);
+        double phase = bestPhase(storedOnsets, stored, period);
+        double downbeat = firstDownbeat(stored, period, phase);
+
+        double bpm = 60 * envelopeRate / period;
+        return new Estimate(bpm, envelopeFrameToSeconds(downbeat), confidence);
+    }
+
+    // ===================== Internal Logic =====================
+
+    private void analyzeFrame() {
+        // Even samples as the real part, odd ones as the imaginary part
+        for (int i = 0; i < HALF; i++) {
+            int source = 2 * bitReverse[i];
+            real[i] = frame[source] * window[source];
+            imaginary[i] = frame[source + 1] * window[source + 1];
+        }
+        fft();
+
+        float flux = 0;
+        float kickFlux = 0;
+        for (int bin = 1; bin <= HALF; bin++) {
+            float binReal;
+            float binImaginary;
+            if (bin == HALF) {
+                binReal = real[0] - imaginary[0];
+                binImaginary = 0;
+            } else {
+                // Split the packed spectrum into the even and odd samples' ones and recombine
+                float evenReal = (real[bin] + real[HALF - bin]) / 2;
+                float evenImaginary = (imaginary[bin] - imaginary[HALF - bin]) / 2;
+                float oddReal = (imaginary[bin] + imaginary[HALF - bin]) / 2;
+                float oddImaginary = (real[HALF - bin] - real[bin]) / 2;
+                binReal = evenReal + cos[bin] * oddReal - sin[bin] * oddImaginary;
+                binImaginary = evenImaginary + cos[bin] * oddImaginary + sin[bin] * oddReal;
+            }
+            float magnitude = log(1 + LOG_GAIN * (float) Math.sqrt(binReal * binReal + binImaginary * binImaginary));
+            float rise = magnitude - previousMagnitude[bin];
+            previousMagnitude[bin] = magnitude;
+            if (rise > 0) {
+                flux += rise;
+                if (bin <= kickBins) kickFlux += rise;
+            }
+        }
+        addOnset(flux, kickFlux);
+    }
+
+    /** In-place radix-2 FFT of real/imaginary, whose input is already in bit-reversed order. */
+    private void fft() {
+        for (int size = 2; size <= HALF; size <<= 1) {
+            int half = size >> 1;
+            // The tables are for FFT_SIZE; a size-point twiddle is every FFT_SIZE / size-th entry
+            int stride = FFT_SIZE / size;
+            for (int start = 0; start < HALF; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * stride];
+                    float wi = sin[k * stride];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = real[b] * wr - imaginary[b] * wi;
+                    float ti = real[b] * wi + imaginary[b] * wr;
+                    real[b] = real[a] - tr;
+                    imaginary[b] = imaginary[a] - ti;
+                    real[a] += tr;
+                    imaginary[a] += ti;
+                }
+            }
+        }
+    }
+
+    private void addOnset(float flux, float kickFlux) {
+        // Keep only rises above the recent level, so sustained loudness does not correlate.
+        // The level is a plain average until there is half a second of it; the first
+        // frame, a rise from the silent padding, is left out of it.
+        float onset = (float) Math.max(0, flux - fluxMean);
+        if (onsets > 0) fluxMean += (flux - fluxMean) * Math.max(meanWeight, 1.0 / onsets);
+
+        int length = autocorrelation.length;
+        int slot = (int) (onsets % length) + length;
+        history[slot] = onset;
+        history[slot - length] = onset;
+        int lags = (int) Math.min(length, onsets + 1);
+        for (int lag = 0; lag < lags; lag++) {
+            autocorrelation[lag] += onset * history[slot - lag];
+        }
+
+        if (onsets < storedOnsets.length) {
+            storedOnsets[(int) onsets] = onset;
+            storedKicks[(int) onsets] = kickFlux;
+        }
+        onsetSum += onset;
+        onsets++;
+    }
+
+    private static double near(double[] values, int lag) {
+        return Math.max(values[lag], Math.max(values[lag - 1], values[lag + 1]));
+    }
+
+    private double prior(int lag) {
+        double octaves = Math.log(60 * envelopeRate / lag / PRIOR_BPM) / Math.log(2);
+        return Math.exp(-0.5 * (octaves / PRIOR_OCTAVES) * (octaves / PRIOR_OCTAVES));
+    }
+
+    /**
+     * Natural log for x >= 1, to about 0.01: exponent plus a quadratic for the
+     * mantissa. Math.log would be most of the analysis time on a phone.
+     */
+    private static float log(float x) {
+        int bits = Float.floatToRawIntBits(x);
+        int exponent = (bits >>> 23) - 127;
+        float mantissa = Float.intBitsToFloat((bits & 0x7FFFFF) | 0x3F800000);
+        float log2 = exponent + (-0.34484843f * mantissa + 2.02466578f) * mantissa - 0.67487759f;
+        return log2 * 0.6931472f;
+    }
+
+    /** The fractional position of the highest value within two lags of {@code around}. */
+    private static double peakNear(double[] values, int around) {
+        int peak = around;
+        for (int lag = Math.max(1, around - 2); lag <= around + 2 && lag + 1 < values.length; lag++) {
+            if (values[lag] > values[peak]) peak = lag;
+        }
+        if (peak < 1 || peak + 1 >= values.length) return peak;
+        double left = values[peak - 1];
+        double centre = values[peak];
+        double right = values[peak + 1];
+        double curvature = left - 2 * centre + right;
+        if (curvature >= 0) return peak;
+        return peak + 0.5 * (left - right) / curvature;
+    }
+
+    /** The offset in [0, period) whose comb of beats collects the most envelope, to a quarter frame. */
+    private static double bestPhase(float[] envelope, int length, double period) {
+        double best = 0;
+        double bestSum = -1;
+        for (double offset = 0; offset < period; offset += 0.25) {
+            double sum = 0;
+            for (double position = offset; position < length - 1; position += period) {
+                int index = (int) position;
+                double fraction = position - index;
+                sum += envelope[index] * (1 - fraction) + envelope[index + 1] * fraction;
+            }
+            if (sum > bestSum) {
+                best = offset;
+                bestSum = sum;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The first downbeat: of the four beats from {@code phase}, the one with the
+     * most kick drum (or failing that the loudest) starts the bar; then the
+     * bars before the music comes in are skipped.
+     */
+    private double firstDownbeat(int length, double period, double phase) {
+        double bar = period * BEATS_PER_BAR;
+        double best = phase;
+        double bestScore = -1;
+        for (int beat = 0; beat < BEATS_PER_BAR; beat++) {
+            double offset = phase + beat * period;
+            double score = 0;
+            for (double position = offset; position < length - 1; position += bar) {
+                int index = (int) Math.round(position);
+                score += storedKicks[index] + KICK_FALLBACK_WEIGHT * storedOnsets[index];
+            }
+            if (score > bestScore) {
+                best = offset;
+                bestScore = score;
+            }
+        }
+        // A beat just before frame 0 lands at the end of the phase range
+        if (best - bar > -1) best -= bar;
+
+        double total = 0;
+        int downbeats = 0;
+        for (double position = Math.max(0, best); position < length - 1; position += bar) {
+            total += onsetAround(length, position);
+            downbeats++;
+        }
+        double threshold = SILENT_DOWNBEAT * total / Math.max(1, downbeats);
+        while (best + bar < length - 1 && onsetAround(length, best) < threshold) best += bar;
+        return best;
+    }
+
+    private float onsetAround(int length, double position) {
+        int index = (int) Math.round(position);
+        float onset = 0;
+        for (int i = Math.max(0, index - 1); i <= Math.min(length - 1, index + 1); i++) {
+            onset = Math.max(onset, storedOnsets[i]);
+        }
+        return onset;
+    }
+
+    /** Frame i's window ends at decimated sample (i + 1) * HOP; an onset is dated at its centre. */
+    private double envelopeFrameToSeconds(double frameIndex) {
+        double decimatedSample = (frameIndex + 1) * HOP - FFT_SIZE / 2.0;
+        return Math.max(0, (decimatedSample * decimation + (decimation - 1) / 2.0) / sampleRate);
+    }
+}
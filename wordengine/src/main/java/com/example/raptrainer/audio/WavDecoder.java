@@ -0,0 +1,249 @@
+package com.example.raptrainer.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes RIFF/WAVE files to a {@link PcmLoop}: 8, 16, 24 and 32-bit integer
+ * PCM and 32-bit float, mono or stereo (further channels are dropped). The
+ * first loop of a "smpl" chunk, as written by most loop editors, becomes the
+ * loop region; without one the whole file loops. {@link #stream} decodes in
+ * blocks instead, for files too long to hold in memory.
+ */
+public final class WavDecoder {
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private static final int STREAM_BLOCK_FRAMES = 4096;
+
+    /** Receives the audio as {@link #stream} decodes it. */
+    public interface Sink {
+        /** Called once, before any frames. */
+        void onFormat(int sampleRate);
+
+        /** {@code frames} interleaved stereo frames; the array is reused for the next block. */
+        void onFrames(short[] samples, int frames);
+    }
+
+    private WavDecoder() {
+    }
+
+    /** Reads the whole stream; the stream is left open. */
+    public static PcmLoop decode(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return decode(out.toByteArray());
+    }
+
+    public static PcmLoop decode(byte[] wav) throws IOException {
+        if (wav.length < 12 || !tagAt(wav, 0, "RIFF") || !tagAt(wav, 8, "WAVE")) {
+            throw new IOException("Not a WAVE file");
+        }
+        Format format = null;
+        int dataOffset = -1;
+        int dataLength = 0;
+        long smplStart = -1;
+        long smplEnd = -1;
+
+        int position = 12;
+        while (position + 8 <= wav.length) {
+            int size = readInt(wav, position + 4);
+            int body = position + 8;
+            if (size < 0 || body + size > wav.length) {
+                // Truncated files are common; take what is there of the data chunk
+                if (tagAt(wav, position, "data")) size = wav.length - body;
+                else break;
+            }
+            if (tagAt(wav, position, "fmt ") && size >= 16) {
+                format = Format.parse(wav, body, size);
+            } else if (tagAt(wav, position, "data")) {
+                dataOffset = body;
+                dataLength = size;
+            } else if (tagAt(wav, position, "smpl") && size >= 36 + 24 && readInt(wav, body + 28) > 0) {
+                smplStart = readInt(wav, body + 36 + 8) & 0xFFFFFFFFL;
+                // The end sample is inclusive
+                smplEnd = (readInt(wav, body + 36 + 12) & 0xFFFFFFFFL) + 1;
+            }
+            position = body + size + (size & 1);
+        }
+
+        if (format == null || dataOffset < 0) throw new IOException("Missing fmt or data chunk");
+        format.validate();
+
+        int frames = dataLength / format.blockAlign;
+        if (frames == 0) throw new IOException("No audio frames");
+        short[] samples = new short[frames * PcmLoop.CHANNELS];
+        for (int frame = 0; frame < frames; frame++) {
+            format.readFrame(wav, dataOffset + frame * format.blockAlign, samples, frame * 2);
+        }
+
+        int loopStart = 0;
+        int loopEnd = frames;
+        if (smplStart >= 0 && smplStart < smplEnd && smplEnd <= frames) {
+            loopStart = (int) smplStart;
+            loopEnd = (int) smplEnd;
+        }
+        return new PcmLoop(samples, format.sampleRate, loopStart, loopEnd, 0);
+    }
+
+    /**
+     * Decodes the data chunk in blocks of a few thousand frames, using a fixed
+     * amount of memory whatever the file's length. Loop points are ignored.
+     * The stream is left open.
+     */
+    public static void stream(InputStream in, Sink sink) throws IOException {
+        byte[] header = new byte[12];
+        if (!readFully(in, header, 12) || !tagAt(header, 0, "RIFF") || !tagAt(header, 8, "WAVE")) {
+            throw new IOException("Not a WAVE file");
+        }
+        Format format = null;
+        byte[] chunkHeader = new byte[8];
+        while (readFully(in, chunkHeader, 8)) {
+            long size = readInt(chunkHeader, 4) & 0xFFFFFFFFL;
+            if (tagAt(chunkHeader, 0, "data")) {
+                if (format == null) throw new IOException("Missing fmt chunk");
+                streamData(in, size, format, sink);
+                return;
+            }
+            if (tagAt(chunkHeader, 0, "fmt ") && size >= 16 && size <= 1024) {
+                byte[] body = new byte[(int) size];
+                if (!readFully(in, body, body.length)) break;
+                format = Format.parse(body, 0, body.length);
+                format.validate();
+                if ((size & 1) != 0) skipFully(in, 1);
+            } else {
+                skipFully(in, size + (size & 1));
+            }
+        }
+        throw new IOException("Missing data chunk");
+    }
+
+    private static void streamData(InputStream in, long size, Format format, Sink sink) throws IOException {
+        sink.onFormat(format.sampleRate);
+        byte[] block = new byte[STREAM_BLOCK_FRAMES * format.blockAlign];
+        short[] samples = new short[STREAM_BLOCK_FRAMES * PcmLoop.CHANNELS];
+        long remaining = size - size % format.blockAlign;
+        int pending = 0; // bytes of a frame split across reads
+        while (remaining > 0) {
+            int read = in.read(block, pending, (int) Math.min(block.length - pending, remaining));
+            // Truncated files are common; decode what is there
+            if (read == -1) break;
+            remaining -= read;
+            int available = pending + read;
+            int frames = available / format.blockAlign;
+            for (int frame = 0; frame < frames; frame++) {
+                format.readFrame(block, frame * format.blockAlign, samples, frame * 2);
+            }
+            if (frames > 0) sink.onFrames(samples, frames);
+            pending = available - frames * format.blockAlign;
+            System.arraycopy(block, frames * format.blockAlign, block, 0, pending);
+        }
+    }
+
+    /** A "fmt " chunk. */
+    private static final class Format {
+        int format;
+        int channels;
+        int sampleRate;
+        int bitsPerSample;
+        int blockAlign;
+
+        static Format parse(byte[] data, int body, int size) {
+            Format result = new Format();
+            result.format = readShort(data, body);
+            result.channels = readShort(data, body + 2);
+            result.sampleRate = readInt(data, body + 4);
+            result.blockAlign = readShort(data, body + 12);
+            result.bitsPerSample = readShort(data, body + 14);
+            if (result.format == FORMAT_EXTENSIBLE && size >= 26) {
+                result.format = readShort(data, body + 24);
+            }
+            return result;
+        }
+
+        void validate() throws IOException {
+            if (format != FORMAT_PCM && format != FORMAT_FLOAT) throw new IOException("Unsupported WAVE format: " + format);
+            int bytesPerSample = bitsPerSample / 8;
+            boolean supported = format == FORMAT_FLOAT ? bitsPerSample == 32 : bytesPerSample >= 1 && bytesPerSample <= 4;
+            if (!supported || bitsPerSample % 8 != 0) throw new IOException("Unsupported sample size: " + bitsPerSample);
+            if (channels < 1 || sampleRate <= 0 || blockAlign < channels * bytesPerSample) {
+                throw new IOException("Invalid fmt chunk");
+            }
+        }
+
+        /** Decodes the frame at {@code offset} into stereo samples at {@code out[index]}. */
+        void readFrame(byte[] data, int offset, short[] out, int index) {
+            int bytes = bitsPerSample / 8;
+            short left = readSample(data, offset, bytes, format);
+            out[index] = left;
+            out[index + 1] = channels > 1 ? readSample(data, offset + bytes, bytes, format) : left;
+        }
+    }
+
+    private static short readSample(byte[] wav, int offset, int bytes, int format) {
+        if (format == FORMAT_FLOAT) {
+            float value = Float.intBitsToFloat(readInt(wav, offset));
+            if (Float.isNaN(value)) return 0;
+            return (short) Math.round(Math.max(-1f, Math.min(1f, value)) * Short.MAX_VALUE);
+        }
+        switch (bytes) {
+            case 1:
+                // 8-bit WAVE is unsigned
+                return (short) (((wav[offset] & 0xFF) - 128) << 8);
+            case 2:
+                return (short) readShort(wav, offset);
+            default:
+                // Keep the top 16 bits of 24 and 32-bit samples
+                return (short) ((wav[offset + bytes - 2] & 0xFF) | (wav[offset + bytes - 1] << 8));
+        }
+    }
+
+    /** False if the stream ended before the first byte; throws if it ended part way. */
+    private static boolean readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(buffer, total, length - total);
+            if (read == -1) {
+                if (total == 0) return false;
+                throw new EOFException("Truncated WAVE file");
+            }
+            total += read;
+        }
+        return true;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                // skip() may give up early; read() tells whether the stream really ended
+                if (in.read() == -1) throw new EOFException("Truncated WAVE file");
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static boolean tagAt(byte[] data, int offset, String tag) {
+        for (int i = 0; i < 4; i++) {
+            if (data[offset + i] != tag.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+}
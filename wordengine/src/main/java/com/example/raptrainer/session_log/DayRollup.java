@@ -0,0 +1,60 @@
+package com.example.raptrainer.session_log;
+
+/**
+ * What the user drilled on one day, folded from the event log by the
+ * {@link SessionLog} writer. Days are local calendar days, numbered like
+ * {@code LocalDate.toEpochDay()}.
+ */
+public final class DayRollup {
+    private final int epochDay;
+    int wordsShown;
+    int skips;
+    int pauses;
+    int resets;
+    int delayChanges;
+    int selectionChanges;
+    long practiceMillis;
+    int lastDelayMillis = -1;
+
+    DayRollup(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public int getWordsShown() {
+        return wordsShown;
+    }
+
+    public int getSkips() {
+        return skips;
+    }
+
+    public int getPauses() {
+        return pauses;
+    }
+
+    public int getResets() {
+        return resets;
+    }
+
+    public int getDelayChanges() {
+        return delayChanges;
+    }
+
+    public int getSelectionChanges() {
+        return selectionChanges;
+    }
+
+    /** Time between consecutive words, leaving out pauses and long breaks. */
+    public long getPracticeMillis() {
+        return practiceMillis;
+    }
+
+    /** The delay the user last chose with the slider that day, -1 if they did not. */
+    public int getLastDelayMillis() {
+        return lastDelayMillis;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.raptrainer.session_log;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded queue of events in preallocated slots: any number of threads
+ * offer, one thread drains. Offering is a compare-and-set on the tail and
+ * never waits; when the queue is full the event is dropped and counted.
+ * Each slot carries a sequence number that says whose turn it is, so neither
+ * side takes a lock (D. Vyukov's bounded queue).
+ */
+final class EventQueue {
+    interface Sink {
+        void accept(int type, long timeMillis, int value, String word) throws IOException;
+    }
+
+    private final int mask;
+    // Slot i is free for the offer at position p when sequences[i] == p, full for the drain at p when p + 1
+    private final AtomicLongArray sequences;
+    private final byte[] types;
+    private final long[] times;
+    private final int[] values;
+    private final String[] words;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head; // drain thread only
+
+    /** @param capacity a power of two */
+    EventQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+        types = new byte[capacity];
+        times = new long[capacity];
+        values = new int[capacity];
+        words = new String[capacity];
+    }
+
+    /** Adds an event unless the queue is full; never blocks. */
+    boolean offer(int type, long timeMillis, int value, String word) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            // Otherwise another thread claimed the position first; try the next one
+        }
+        types[slot] = (byte) type;
+        times[slot] = timeMillis;
+        values[slot] = value;
+        words[slot] = word;
+        sequences.lazySet(slot, position + 1);
+        return true;
+    }
+
+    /** Hands every published event to {@code sink} in order; drain thread only. Returns how many. */
+    int drain(Sink sink) throws IOException {
+        int count = 0;
+        while (true) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) return count;
+            String word = words[slot];
+            words[slot] = null;
+            // The slot is released even if the sink fails, so a bad event cannot jam the queue
+            try {
+                sink.accept(types[slot], times[slot], values[slot], word);
+            } finally {
+                sequences.lazySet(slot, head + mask + 1);
+                head++;
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Whether an offer has claimed a slot the drain has not reached yet,
+     * published or still being filled; drain thread only. A volatile read of
+     * the tail, so an offer that ends before this starts is always seen.
+     */
+    boolean hasPending() {
+        return tail.get() != head;
+    }
+
+    /** Events dropped because the queue was full. */
+    long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.raptrainer.session_log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * The per-day aggregates and how much of the event log they cover: the log's
+ * generation, which changes when compaction rewrites it, and the byte offset
+ * up to which its events have been folded in. Only the writer thread touches
+ * an instance.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * magic, version, long generation, long rolledUpTo, long lastWordMillis, int dayCount
+ * per day: int epochDay, int wordsShown, int skips, int pauses, int resets,
+ *          int delayChanges, int selectionChanges, long practiceMillis, int lastDelayMillis
+ * </pre>
+ */
+final class Rollups {
+    static final int MAGIC = 0x52545352; // "RTSR"
+    static final int VERSION = 1;
+    /** Gaps between words longer than this are breaks, not practice. */
+    static final long MAX_PRACTICE_GAP_MILLIS = 60_000;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /** Generation of the log covered; -1 when nothing has been rolled up yet. */
+    long generation = -1;
+    long rolledUpTo;
+    // Time of the last word while the drill ran, 0 after a pause
+    private long lastWordMillis;
+    private final TreeMap<Integer, DayRollup> days = new TreeMap<>();
+
+    /** Folds one event into its day. */
+    void apply(int type, long timeMillis, int value, TimeZone zone) {
+        DayRollup day = day(epochDay(timeMillis, zone));
+        switch (type) {
+            case SessionLog.WORD_SHOWN:
+                day.wordsShown++;
+                long gap = timeMillis - lastWordMillis;
+                if (lastWordMillis > 0 && gap > 0 && gap <= MAX_PRACTICE_GAP_MILLIS) day.practiceMillis += gap;
+                lastWordMillis = timeMillis;
+                break;
+            case SessionLog.PAUSED:
+                day.pauses++;
+                lastWordMillis = 0;
+                break;
+            case SessionLog.RESUMED:
+                break;
+            case SessionLog.RESET:
+                day.resets++;
+                break;
+            case SessionLog.SKIPPED:
+                day.skips++;
+                break;
+            case SessionLog.DELAY_CHANGED:
+                day.delayChanges++;
+                day.lastDelayMillis = value;
+                break;
+            case SessionLog.CATEGORIES_SELECTED:
+                day.selectionChanges++;
+                break;
+            default:
+                // Events of a newer version are kept in the log but not counted
+                break;
+        }
+    }
+
+    /** Every day with at least one event, oldest first. */
+    List<DayRollup> days() {
+        return new ArrayList<>(days.values());
+    }
+
+    static int epochDay(long timeMillis, TimeZone zone) {
+        return (int) Math.floorDiv(timeMillis + zone.getOffset(timeMillis), MILLIS_PER_DAY);
+    }
+
+    private DayRollup day(int epochDay) {
+        DayRollup day = days.get(epochDay);
+        if (day == null) {
+            day = new DayRollup(epochDay);
+            days.put(epochDay, day);
+        }
+        return day;
+    }
+
+    /** Reads a rollup file; a missing one has nothing rolled up. */
+    static Rollups read(File file) throws IOException {
+        Rollups rollups = new Rollups();
+        if (!file.exists()) return rollups;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a rollup file");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported rollup version: " + version);
+            rollups.generation = in.readLong();
+            rollups.rolledUpTo = in.readLong();
+            rollups.lastWordMillis = in.readLong();
+            int dayCount = in.readInt();
+            for (int i = 0; i < dayCount; i++) {
+                DayRollup day = rollups.day(in.readInt());
+                day.wordsShown = in.readInt();
+                day.skips = in.readInt();
+                day.pauses = in.readInt();
+                day.resets = in.readInt();
+                day.delayChanges = in.readInt();
+                day.selectionChanges = in.readInt();
+                day.practiceMillis = in.readLong();
+                day.lastDelayMillis = in.readInt();
+            }
+        }
+        return rollups;
+    }
+
+    /** Writes to a temporary file first, so a crash leaves the previous rollups. */
+    void write(File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeLong(rolledUpTo);
+            out.writeLong(lastWordMillis);
+            out.writeInt(days.size());
+            for (DayRollup day : days.values()) {
+                out.writeInt(day.getEpochDay());
+                out.writeInt(day.wordsShown);
+                out.writeInt(day.skips);
+                out.writeInt(day.pauses);
+                out.writeInt(day.resets);
+                out.writeInt(day.delayChanges);
+                out.writeInt(day.selectionChanges);
+                out.writeLong(day.practiceMillis);
+                out.writeInt(day.lastDelayMillis);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (!temporary.renameTo(file)) throw new IOException("Cannot replace " + file);
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.raptrainer.session_log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An append-only log of what the user drilled, with per-day rollups for a
+ * stats screen. Logging only puts the event in an {@link EventQueue}, so it
+ * never waits for the disk or a lock and is safe to call from the UI thread;
+ * if the writer falls behind, events are dropped rather than queued without
+ * bound. A single daemon thread writes each batch with one call, fsyncs at
+ * most every few seconds and then saves the rollups. With everything synced
+ * it sleeps until the next event rather than waking on a timer. Once the log grows past
+ * a limit it is rewritten to keep only the last days; the rollups keep the
+ * rest. Events a crash left out of the rollups are replayed from the log on
+ * the next start.
+ *
+ * Log layout (big-endian):
+ * <pre>
+ * magic, version, long generation
+ * per event: byte type, long timeMillis, int value, for {@link #WORD_SHOWN} the word (modified UTF-8)
+ * </pre>
+ */
+public final class SessionLog implements Closeable {
+    public static final int WORD_SHOWN = 1;
+    public static final int PAUSED = 2;
+    public static final int RESUMED = 3;
+    public static final int RESET = 4;
+    public static final int SKIPPED = 5;
+    public static final int DELAY_CHANGED = 6;
+    public static final int CATEGORIES_SELECTED = 7;
+
+    static final String LOG_FILE = "events.log";
+    static final String ROLLUP_FILE = "rollups.bin";
+    static final int MAGIC = 0x5254534C; // "RTSL"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long MAX_LOG_BYTES = 1 << 20;
+    private static final int RAW_DAYS = 7;
+    private static final long WAKE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final File logFile;
+    private final File rollupFile;
+    private final TimeZone zone;
+    private final EventQueue queue;
+    private final long maxLogBytes;
+    private final int rawDays;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean flushRequested;
+    // The writer is parked until log, flush or close wakes it
+    private volatile boolean idle;
+
+    // Writer thread only
+    private Rollups rollups;
+    private FileOutputStream out;
+    private long logLength;
+    private long compactedLength;
+    private boolean unsynced;
+    private long lastSync = System.nanoTime();
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(8192);
+    private final DataOutputStream batchOut = new DataOutputStream(batch);
+
+    /** Opens or creates the log in {@code directory}; days are counted in {@code zone}. */
+    public SessionLog(File directory, TimeZone zone) {
+        this(directory, zone, QUEUE_CAPACITY, MAX_LOG_BYTES, RAW_DAYS);
+    }
+
+    SessionLog(File directory, TimeZone zone, int queueCapacity, long maxLogBytes, int rawDays) {
+        this.logFile = new File(directory, LOG_FILE);
+        this.rollupFile = new File(directory, ROLLUP_FILE);
+        this.zone = zone;
+        this.queue = new EventQueue(queueCapacity);
+        this.maxLogBytes = maxLogBytes;
+        this.rawDays = rawDays;
+        writer = new Thread(this::run, "session-log");
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void wordShown(String word) {
+        log(WORD_SHOWN, System.currentTimeMillis(), 0, word);
+    }
+
+    public void paused() {
+        log(PAUSED, System.currentTimeMillis(), 0, null);
+    }
+
+    public void resumed() {
+        log(RESUMED, System.currentTimeMillis(), 0, null);
+    }
+
+    public void reset() {
+        log(RESET, System.currentTimeMillis(), 0, null);
+    }
+
+    public void skipped() {
+        log(SKIPPED, System.currentTimeMillis(), 0, null);
+    }
+
+    public void delayChanged(int delayMillis) {
+        log(DELAY_CHANGED, System.currentTimeMillis(), delayMillis, null);
+    }
+
+    /** The drill now draws from {@code categoryCount} categories. */
+    public void categoriesSelected(int categoryCount) {
+        log(CATEGORIES_SELECTED, System.currentTimeMillis(), categoryCount, null);
+    }
+
+    /** Queues an event; false when it was dropped because the log is closed or behind. */
+    boolean log(int type, long timeMillis, int value, String word) {
+        if (closed) return false;
+        boolean queued = queue.offer(type, timeMillis, value, word);
+        // Read after the offer, so the writer either sees the event or is woken for it
+        if (idle) LockSupport.unpark(writer);
+        return queued;
+    }
+
+    /** Events dropped so far because the writer fell behind. */
+    public long getDropped() {
+        return queue.getDropped();
+    }
+
+    /** Asks the writer to fsync and save the rollups now rather than within a few seconds; does not wait. */
+    public void flush() {
+        flushRequested = true;
+        LockSupport.unpark(writer);
+    }
+
+    /** Writes what is queued, saves the rollups and stops the writer, waiting for it. */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The per-day aggregates as of the last save, oldest first. Reads the
+     * small rollup file only, never the log.
+     */
+    public List<DayRollup> readRollups() throws IOException {
+        return Rollups.read(rollupFile).days();
+    }
+
+    // ===================== Writer thread =====================
+
+    private void run() {
+        try {
+            open();
+            while (true) {
+                boolean closing = closed;
+                if (queue.drain(this::append) > 0) writeBatch();
+                if (unsynced && (closing || flushRequested || System.nanoTime() - lastSync >= SYNC_INTERVAL_NANOS)) {
+                    sync();
+                }
+                if (closing) break;
+                if (unsynced) {
+                    // Gathers the next events into one batch until the sync is due
+                    LockSupport.parkNanos(this, WAKE_INTERVAL_NANOS);
+                } else {
+                    idle = true;
+                    if (!queue.hasPending() && !closed && !flushRequested) LockSupport.park(this);
+                    idle = false;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Session log stopped: " + e.getMessage());
+            e.printStackTrace();
+            closed = true;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /** Recovers the rollups from the log where they fall behind, and opens it for appending. */
+    private void open() throws IOException {
+        File directory = logFile.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create " + directory);
+        try {
+            rollups = Rollups.read(rollupFile);
+        } catch (IOException e) {
+            System.err.println("Rebuilding session rollups: " + e.getMessage());
+            rollups = new Rollups();
+        }
+
+        long generation = readGeneration();
+        if (generation < 0) {
+            // No usable log: start one that the rollups cover entirely
+            generation = Math.max(0, rollups.generation);
+            writeHeader(logFile, generation);
+            rollups.generation = generation;
+            rollups.rolledUpTo = HEADER_BYTES;
+            unsynced = true;
+        } else if (rollups.generation < 0
+                || rollups.generation == generation && rollups.rolledUpTo <= logFile.length()) {
+            long from = rollups.generation < 0 ? HEADER_BYTES : rollups.rolledUpTo;
+            rollups.generation = generation;
+            rollups.rolledUpTo = replay(from, true);
+            unsynced = true;
+        } else {
+            // Compaction was interrupted between its two renames, and it only ever runs once
+            // everything is rolled up; or the rollups outran a log that lost its tail
+            rollups.generation = generation;
+            rollups.rolledUpTo = replay(HEADER_BYTES, false);
+            unsynced = true;
+        }
+        logLength = rollups.rolledUpTo;
+        compactedLength = logLength;
+        out = new FileOutputStream(logFile, true);
+    }
+
+    /** The log's generation, or -1 when it is missing or not a log. */
+    private long readGeneration() {
+        if (!logFile.isFile()) return -1;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(logFile))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return -1;
+            return in.readLong();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the events from byte {@code from} on, folding them into the rollups
+     * if {@code apply}, and cuts off a record a crash left half written.
+     * Returns the length of the log.
+     */
+    private long replay(long from, boolean apply) throws IOException {
+        long end = from;
+        try (FileInputStream fileIn = new FileInputStream(logFile)) {
+            long skipped = 0;
+            while (skipped < from) {
+                long step = fileIn.skip(from - skipped);
+                if (step <= 0) throw new EOFException("Rollups are ahead of the session log");
+                skipped += step;
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn));
+            Event event = new Event();
+            while (event.read(in)) {
+                if (apply) rollups.apply(event.type, event.timeMillis, event.value, zone);
+                end += event.length();
+            }
+        }
+        if (end < logFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                file.setLength(end);
+            }
+        }
+        return end;
+    }
+
+    private void append(int type, long timeMillis, int value, String word) throws IOException {
+        Event.write(batchOut, type, timeMillis, value, word);
+        rollups.apply(type, timeMillis, value, zone);
+    }
+
+    private void writeBatch() throws IOException {
+        batchOut.flush();
+        batch.writeTo(out);
+        logLength += batch.size();
+        batch.reset();
+        unsynced = true;
+    }
+
+    /** Makes the log durable, then saves the rollups as covering it. */
+    private void sync() throws IOException {
+        out.getFD().sync();
+        rollups.rolledUpTo = logLength;
+        rollups.write(rollupFile);
+        unsynced = false;
+        flushRequested = false;
+        lastSync = System.nanoTime();
+        if (logLength > Math.max(maxLogBytes, 2 * compactedLength)) compact();
+    }
+
+    /**
+     * Rewrites the log with only the events of the last days, as a new
+     * generation. Every event is rolled up by now, so the rollups are saved
+     * as covering the whole new log before it replaces the old one.
+     */
+    private void compact() throws IOException {
+        long generation = rollups.generation + 1;
+        File temporary = new File(logFile.getPath() + ".tmp");
+        writeHeader(temporary, generation);
+        long keptLength = HEADER_BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+             FileOutputStream fileOut = new FileOutputStream(temporary, true)) {
+            in.readFully(new byte[HEADER_BYTES]);
+            int firstKeptDay = Rollups.epochDay(System.currentTimeMillis(), zone) - rawDays + 1;
+            DataOutputStream kept = new DataOutputStream(new BufferedOutputStream(fileOut));
+            Event event = new Event();
+            while (event.read(in)) {
+                if (Rollups.epochDay(event.timeMillis, zone) < firstKeptDay) continue;
+                event.write(kept);
+                keptLength += event.length();
+            }
+            kept.flush();
+            fileOut.getFD().sync();
+        }
+
+        out.close();
+        rollups.generation = generation;
+        rollups.rolledUpTo = keptLength;
+        rollups.write(rollupFile);
+        if (!temporary.renameTo(logFile)) throw new IOException("Cannot replace " + logFile);
+        out = new FileOutputStream(logFile, true);
+        logLength = keptLength;
+        compactedLength = keptLength;
+    }
+
+    private static void writeHeader(File file, long generation) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file)) {
+            DataOutputStream header = new DataOutputStream(fileOut);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeLong(generation);
+            header.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    /** One record of the log, reused while reading it. */
+    private static final class Event {
+        int type;
+        long timeMillis;
+        int value;
+        String word;
+
+        /** Reads the next record; false at the end, including a record cut short by a crash. */
+        boolean read(DataInputStream in) throws IOException {
+            try {
+                type = in.readUnsignedByte();
+                timeMillis = in.readLong();
+                value = in.readInt();
+                word = type == WORD_SHOWN ? in.readUTF() : null;
+                return true;
+            } catch (EOFException | UTFDataFormatException e) {
+                return false;
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            write(out, type, timeMillis, value, word);
+        }
+
+        static void write(DataOutputStream out, int type, long timeMillis, int value, String word) throws IOException {
+            out.writeByte(type);
+            out.writeLong(timeMillis);
+            out.writeInt(value);
+            if (type == WORD_SHOWN) out.writeUTF(word != null ? word : "");
+        }
+
+        /** Bytes of the record in the log. */
+        long length() {
+            long length = 13;
+            if (word == null) return length;
+            length += 2;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+            }
+            return length;
+        }
+    }
+}
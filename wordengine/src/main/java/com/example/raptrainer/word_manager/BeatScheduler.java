@@ -0,0 +1,157 @@
+package com.example.raptrainer.word_manager;
+
+/**
+ * When to show the next word: every fixed delay, or every few bars at a
+ * tempo. Deadlines are absolute, {@code origin + n * period} on a monotonic
+ * nanosecond clock, so a late tick delays only itself and errors never add up
+ * the way chained relative delays do. A tick later than a whole period skips
+ * the beats it missed instead of catching up in a burst.
+ * Not thread-safe; the caller provides the clock readings.
+ */
+public final class BeatScheduler {
+    public static final int BEATS_PER_BAR = 4;
+
+    private static final double NANOS_PER_MINUTE = 60e9;
+
+    private double periodNanos;
+    private boolean tempoMode;
+    private double bpm;
+    private int barsPerWord;
+
+    // Grid: beat n is due at origin + n * periodNanos; unanchored until the first deadline
+    private boolean anchored;
+    private long originNanos;
+    private long beat;
+    // Whether deadline(beat) was handed out and has not ticked yet
+    private boolean pending;
+    // Locked onto a new grid; beats before now were never due, so they do not count as missed
+    private boolean fresh;
+
+    public BeatScheduler(int delayMillis) {
+        setDelay(delayMillis);
+    }
+
+    /** One word every {@code delayMillis}; keeps the phase of a running grid. */
+    public void setDelay(int delayMillis) {
+        if (delayMillis <= 0) throw new IllegalArgumentException("Delay must be positive: " + delayMillis);
+        if (!tempoMode && periodNanos == delayMillis * 1e6) return;
+        tempoMode = false;
+        setPeriod(delayMillis * 1e6);
+    }
+
+    /** One word every {@code barsPerWord} bars of {@link #BEATS_PER_BAR} beats at {@code bpm}. */
+    public void setTempo(double bpm, int barsPerWord) {
+        if (!(bpm > 0) || barsPerWord <= 0) throw new IllegalArgumentException("Invalid tempo: " + bpm + " bpm, " + barsPerWord + " bars");
+        if (tempoMode && this.bpm == bpm && this.barsPerWord == barsPerWord) return;
+        tempoMode = true;
+        this.bpm = bpm;
+        this.barsPerWord = barsPerWord;
+        setPeriod(NANOS_PER_MINUTE * BEATS_PER_BAR * barsPerWord / bpm);
+    }
+
+    /**
+     * Follows an external beat, e.g. the backing track's: one word every
+     * {@code barsPerWord} bars of beats {@code beatPeriodNanos} long, on the
+     * grid through {@code downbeatNanos}. Call again before every
+     * {@link #nextDeadline} so the grid tracks the external clock; a pending
+     * deadline moves to the nearest point of the new grid.
+     */
+    public void lockTo(long downbeatNanos, double beatPeriodNanos, int barsPerWord) {
+        if (!(beatPeriodNanos > 0) || barsPerWord <= 0) throw new IllegalArgumentException("Invalid beat: " + beatPeriodNanos + " ns, " + barsPerWord + " bars");
+        double newPeriodNanos = beatPeriodNanos * BEATS_PER_BAR * barsPerWord;
+        if (anchored) {
+            long current = deadline(beat);
+            beat = Math.round((current - downbeatNanos) / newPeriodNanos);
+        } else {
+            anchored = true;
+            fresh = true;
+            pending = false;
+            // The downbeat itself is the first candidate
+            beat = -1;
+        }
+        originNanos = downbeatNanos;
+        periodNanos = newPeriodNanos;
+        tempoMode = true;
+        // Not a tempo set through setTempo, so that the next setTempo always applies
+        bpm = Double.NaN;
+        this.barsPerWord = barsPerWord;
+    }
+
+    public boolean isTempoMode() {
+        return tempoMode;
+    }
+
+    public long getPeriodNanos() {
+        return Math.round(periodNanos);
+    }
+
+    /**
+     * Drops the grid, e.g. when pausing; the next {@link #nextDeadline} starts a
+     * new one at that time.
+     */
+    public void reset() {
+        anchored = false;
+    }
+
+    /**
+     * A word was shown off the grid, e.g. skipped by the user. With a fixed
+     * delay the next one is a full delay away; at a tempo the grid is kept, so
+     * the next word still lands on the beat.
+     */
+    public void onManualAdvance() {
+        if (!tempoMode) anchored = false;
+    }
+
+    /**
+     * Called when the tick for the pending deadline runs; records how late it
+     * ran. Ticks without a pending deadline are ignored.
+     */
+    public void onTick(long nowNanos) {
+        if (!anchored || !pending) return;
+        pending = false;
+        Instrumentation.record(Instrumentation.Timer.BEAT_LATENESS, nowNanos - deadline(beat));
+    }
+
+    /**
+     * The deadline to post the next tick at: the pending one if it is still
+     * ahead, else the first beat after {@code nowNanos}. Starts a grid at
+     * {@code nowNanos} if there is none.
+     */
+    public long nextDeadline(long nowNanos) {
+        if (!anchored) {
+            anchored = true;
+            originNanos = nowNanos;
+            beat = 0;
+            pending = false;
+            fresh = false;
+        }
+        long next = pending ? beat : beat + 1;
+        if (deadline(next) <= nowNanos) {
+            long target = (long) Math.floor((nowNanos - originNanos) / periodNanos) + 1;
+            while (deadline(target) <= nowNanos) target++;
+            if (!fresh) Instrumentation.add(Instrumentation.Counter.BEATS_MISSED, target - next);
+            next = target;
+        }
+        beat = next;
+        pending = true;
+        fresh = false;
+        return deadline(beat);
+    }
+
+    /** Absolute time of beat {@code n}; exact from the origin, so no rounding error accumulates. */
+    long deadline(long n) {
+        return originNanos + Math.round(n * periodNanos);
+    }
+
+    /**
+     * Keeps a running grid's phase: the deadline last handed out stays and the
+     * ones after it follow the new period.
+     */
+    private void setPeriod(double newPeriodNanos) {
+        if (anchored) {
+            originNanos = deadline(beat);
+            beat = 0;
+        }
+        periodNanos = newPeriodNanos;
+    }
+}
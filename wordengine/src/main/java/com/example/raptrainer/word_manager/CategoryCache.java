@@ -0,0 +1,121 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Knows every category up front but only loads a category's words the first
+ * time they are requested. Lists can be warmed in the background with
+ * {@link #prefetch} and dropped again with {@link #evictExcept}.
+ * A loaded category is an {@code int[]} of ids into the shared {@link StringPool}.
+ */
+class CategoryCache {
+    private final WordSource wordSource;
+    private final Executor prefetchExecutor;
+    private final List<String> keys;
+    private final StringPool pool;
+    private final Map<String, int[]> loadedWords = new ConcurrentHashMap<>();
+
+    /** Reads category metadata only; no word lists are loaded here. */
+    CategoryCache(WordSource wordSource, StringPool pool, Executor prefetchExecutor) {
+        this.wordSource = wordSource;
+        this.pool = pool;
+        this.prefetchExecutor = prefetchExecutor;
+
+        List<String> categoryKeys;
+        try {
+            categoryKeys = new ArrayList<>(wordSource.getCategoryKeys());
+        } catch (IOException e) {
+            e.printStackTrace();
+            categoryKeys = new ArrayList<>();
+        }
+        keys = Collections.unmodifiableList(categoryKeys);
+    }
+
+    List<String> getKeys() {
+        return keys;
+    }
+
+    /** Label precomputed by the source, or null when it has to be derived from the key. */
+    String getPrecomputedLabel(String key) {
+        return wordSource.getCategoryLabel(key);
+    }
+
+    /** Returns the word ids of a category, loading them on the calling thread if needed; do not modify. */
+    int[] getWordIds(String key) {
+        int[] words = loadedWords.get(key);
+        if (words == null) {
+            words = load(key);
+            loadedWords.put(key, words);
+        }
+        return words;
+    }
+
+    /** Exact once the category is loaded, else what the source can tell without loading it, possibly -1. */
+    int getWordCount(String key) {
+        int[] words = loadedWords.get(key);
+        return words != null ? words.length : wordSource.getWordCount(key);
+    }
+
+    boolean isLoaded(String key) {
+        return loadedWords.containsKey(key);
+    }
+
+    /** Loads the given categories on a background thread. */
+    void prefetch(Collection<String> categoryKeys) {
+        List<String> pending = new ArrayList<>();
+        for (String key : categoryKeys) {
+            if (!loadedWords.containsKey(key)) {
+                pending.add(key);
+            }
+        }
+        if (pending.isEmpty()) return;
+
+        prefetchExecutor.execute(() -> {
+            for (String key : pending) {
+                getWordIds(key);
+            }
+        });
+    }
+
+    /** Loads every category on the calling thread. */
+    void loadAll() {
+        for (String key : keys) {
+            getWordIds(key);
+        }
+    }
+
+    /**
+     * Drops every loaded list except the given ones. Their words stay in the pool,
+     * which is bounded by the corpus and makes reloading them cheap.
+     */
+    void evictExcept(Collection<String> retainedKeys) {
+        int before = loadedWords.size();
+        loadedWords.keySet().retainAll(retainedKeys);
+        Instrumentation.add(Instrumentation.Counter.EVICTIONS, before - loadedWords.size());
+        wordSource.trimMemory();
+    }
+
+    private int[] load(String key) {
+        long start = Instrumentation.begin(Instrumentation.Timer.PARSE);
+        try {
+            int[] ids = wordSource.readWordIds(key, pool);
+            Instrumentation.increment(Instrumentation.Counter.CATEGORIES_LOADED);
+            Instrumentation.add(Instrumentation.Counter.WORDS_LOADED, ids.length);
+            return ids;
+        } catch (IOException e) {
+            Instrumentation.increment(Instrumentation.Counter.LOAD_ERRORS);
+            System.err.println("Error reading category: " + key);
+            e.printStackTrace();
+            return new int[0];
+        } finally {
+            Instrumentation.end(Instrumentation.Timer.PARSE, start);
+        }
+    }
+}
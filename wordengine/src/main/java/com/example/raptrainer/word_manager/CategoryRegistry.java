@@ -0,0 +1,183 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every category a stable int id, so selections can be kept as bit sets.
+ *
+ * Ids follow a persisted key order: known keys keep their id, new keys are
+ * appended, and keys that disappeared keep their slot but are never present.
+ * Display order is independent of ids and sorted by key, which groups the
+ * categories by stressed vowel.
+ */
+public final class CategoryRegistry {
+    /** Prefix of the keys that name a rhyme, e.g. "words_a_c1t1p_e"; other keys are used as they are. */
+    public static final String RHYME_PREFIX = "words_";
+
+    /** Metadata parsed once from a category key such as "words_a_c1t1p_e". */
+    public static final class Category {
+        public final int id;
+        public final String key;
+        public final String label;
+        public final char vowel;            // stressed vowel
+        public final String consonantClass; // e.g. "c/t/p"; for stressed endings the final consonants, e.g. "r/n/l"
+        public final String ending;         // final vowel, empty when the word ends on the stressed syllable
+
+        Category(int id, String key, String label) {
+            this.id = id;
+            this.key = key;
+            this.label = label;
+
+            String[] parts = key.split("_");
+            if (!key.startsWith(RHYME_PREFIX)) {
+                // Imported lists are not grouped by rhyme
+                vowel = 0;
+                consonantClass = "";
+                ending = "";
+            } else if (parts.length > 2) {
+                vowel = parts[1].charAt(0);
+                consonantClass = parts[2].replace("1", "/");
+                ending = parts.length == 4 ? parts[3] : "";
+            } else {
+                // "words_ar1an1al": alternatives of a stressed last syllable
+                String[] alternatives = parts[1].split("1");
+                StringBuilder consonants = new StringBuilder();
+                for (String alternative : alternatives) {
+                    if (consonants.length() > 0) consonants.append('/');
+                    consonants.append(alternative.substring(1));
+                }
+                vowel = parts[1].charAt(0);
+                consonantClass = consonants.toString();
+                ending = "";
+            }
+        }
+    }
+
+    private final Category[] byId;          // null for ids whose key is no longer present
+    private final Map<String, Category> byKey = new HashMap<>();
+    private final int[] displayOrder;       // display row -> id
+    private final int[] displayRows;        // id -> display row, -1 when absent
+    private final String[] displayLabels;
+    private final BitSet presentMask = new BitSet();
+    private final Map<Character, BitSet> vowelMasks = new HashMap<>();
+    private final List<String> idOrder;
+
+    /**
+     * @param keys          category keys currently available
+     * @param labels        precomputed labels by key, may miss entries
+     * @param knownIdOrder  keys in id order from a previous run, empty on first run
+     */
+    public CategoryRegistry(List<String> keys, Map<String, String> labels, List<String> knownIdOrder) {
+        List<String> order = new ArrayList<>(knownIdOrder);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            ids.put(order.get(i), i);
+        }
+        for (String key : keys) {
+            if (!ids.containsKey(key)) {
+                ids.put(key, order.size());
+                order.add(key);
+            }
+        }
+        idOrder = Collections.unmodifiableList(order);
+
+        byId = new Category[order.size()];
+        for (String key : keys) {
+            int id = ids.get(key);
+            String label = labels.get(key);
+            Category category = new Category(id, key, label != null ? label : extractButtonLabel(key));
+            byId[id] = category;
+            byKey.put(key, category);
+            presentMask.set(id);
+
+            BitSet vowelMask = vowelMasks.get(category.vowel);
+            if (vowelMask == null) {
+                vowelMask = new BitSet();
+                vowelMasks.put(category.vowel, vowelMask);
+            }
+            vowelMask.set(id);
+        }
+
+        List<String> sortedKeys = new ArrayList<>(keys);
+        Collections.sort(sortedKeys);
+        displayOrder = new int[sortedKeys.size()];
+        displayLabels = new String[sortedKeys.size()];
+        displayRows = new int[byId.length];
+        Arrays.fill(displayRows, -1);
+        for (int row = 0; row < sortedKeys.size(); row++) {
+            Category category = byKey.get(sortedKeys.get(row));
+            displayOrder[row] = category.id;
+            displayRows[category.id] = row;
+            displayLabels[row] = category.label;
+        }
+    }
+
+    /** Upper bound (exclusive) of the ids in use. */
+    public int getIdLimit() {
+        return byId.length;
+    }
+
+    /** Number of categories currently present. */
+    public int size() {
+        return displayOrder.length;
+    }
+
+    public Category get(int id) {
+        return byId[id];
+    }
+
+    public Category get(String key) {
+        return byKey.get(key);
+    }
+
+    public int idAtRow(int row) {
+        return displayOrder[row];
+    }
+
+    public int rowOf(int id) {
+        return displayRows[id];
+    }
+
+    /** Labels in display order; shared array, do not modify. */
+    public String[] getDisplayLabels() {
+        return displayLabels;
+    }
+
+    /** Keys in id order, to be persisted and passed back as {@code knownIdOrder}. */
+    public List<String> getIdOrder() {
+        return idOrder;
+    }
+
+    /** Ids of all present categories; returns a copy. */
+    public BitSet getPresentMask() {
+        return (BitSet) presentMask.clone();
+    }
+
+    /** Ids of the present categories with the given stressed vowel; returns a copy. */
+    public BitSet getVowelMask(char vowel) {
+        BitSet mask = vowelMasks.get(vowel);
+        return mask != null ? (BitSet) mask.clone() : new BitSet();
+    }
+
+    /** Extracts a UI-friendly label from a file name, e.g. "a (c/t/p) e". */
+    static String extractButtonLabel(String fileName) {
+        if (!fileName.startsWith(RHYME_PREFIX)) return fileName;
+        String[] parts = fileName.split("_");
+        if (parts.length > 2) {
+            String categoryPart = parts[2];
+            String formattedCategory = categoryPart.replace("1", "/");
+            String response = parts[1] + " (" + formattedCategory + ") ";
+            if (parts.length == 4) {
+                response += parts[3];
+            }
+            return response;
+        }
+        return parts[1];
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.raptrainer.word_manager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The categories as a tree for the picker: stressed vowel, then consonant
+ * class, then ending, e.g. "a" / "c/t/p" / "e". Imported lists hang from one
+ * more root with vowel 0. Only the roots are built up front; a node's children
+ * are grouped the first time they are asked for. Selections are bit sets of
+ * category ids, as in {@link WordEngine}. Thread-safe.
+ */
+public final class CategoryTree {
+    public static final int UNCHECKED = 0;
+    public static final int PARTIAL = 1;
+    public static final int CHECKED = 2;
+
+    public static final class Node {
+        public final String label;
+        public final int depth;
+        /** Stressed vowel of every category below; 0 for imported lists. */
+        public final char vowel;
+        /** Category id of a leaf, -1 for groups. */
+        public final int categoryId;
+        /** Words in every category below, -1 when some count is not known before loading. */
+        public final int wordCount;
+        private final int[] members; // category ids in display order
+        private final BitSet ids = new BitSet();
+        private List<Node> children;
+
+        Node(String label, int depth, char vowel, int categoryId, int[] members, int wordCount) {
+            this.label = label;
+            this.depth = depth;
+            this.vowel = vowel;
+            this.categoryId = categoryId;
+            this.members = members;
+            this.wordCount = wordCount;
+            for (int id : members) ids.set(id);
+            if (categoryId >= 0) children = Collections.emptyList();
+        }
+
+        public boolean isLeaf() {
+            return categoryId >= 0;
+        }
+
+        /** Number of categories below, 1 for a leaf. */
+        public int getCategoryCount() {
+            return members.length;
+        }
+    }
+
+    private final CategoryRegistry registry;
+    private final int[] wordCounts; // by category id
+    private final List<Node> roots;
+    private String[] searchText;    // by category id, built on the first search
+
+    /**
+     * Groups the categories by stressed vowel; the rest of the tree waits for
+     * {@link #getChildren}.
+     *
+     * @param wordCounts words per category id, -1 where unknown
+     */
+    public CategoryTree(CategoryRegistry registry, int[] wordCounts) {
+        this.registry = registry;
+        this.wordCounts = wordCounts;
+
+        Map<Character, List<Integer>> byVowel = new LinkedHashMap<>();
+        for (char vowel : "aeiou".toCharArray()) byVowel.put(vowel, new ArrayList<Integer>());
+        byVowel.put((char) 0, new ArrayList<Integer>());
+        for (int row = 0; row < registry.size(); row++) {
+            int id = registry.idAtRow(row);
+            List<Integer> group = byVowel.get(registry.get(id).vowel);
+            if (group == null) {
+                group = new ArrayList<>();
+                byVowel.put(registry.get(id).vowel, group);
+            }
+            group.add(id);
+        }
+        List<Node> vowelNodes = new ArrayList<>();
+        Node imported = null;
+        for (Map.Entry<Character, List<Integer>> entry : byVowel.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+            char vowel = entry.getKey();
+            Node node = group(vowel == 0 ? "" : String.valueOf(vowel), 0, vowel, entry.getValue());
+            if (vowel == 0) {
+                imported = node;
+            } else {
+                vowelNodes.add(node);
+            }
+        }
+        if (imported != null) vowelNodes.add(imported);
+        roots = Collections.unmodifiableList(vowelNodes);
+    }
+
+    /** Vowels in order, then the imported lists if any. */
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Children of a node, grouped on first use: consonant classes under a
+     * vowel, endings under a class. A class with a single category and no
+     * ending, e.g. "ar/an/al", is a leaf of its own.
+     */
+    public synchronized List<Node> getChildren(Node node) {
+        if (node.children != null) return node.children;
+
+        List<Node> children = new ArrayList<>();
+        if (node.depth == 0 && node.vowel != 0) {
+            Map<String, List<Integer>> byClass = new LinkedHashMap<>();
+            for (int id : node.members) {
+                CategoryRegistry.Category category = registry.get(id);
+                // Word-final families never share a node with the classes before an ending
+                String classKey = category.ending.isEmpty() ? "#" + category.key : category.consonantClass;
+                List<Integer> group = byClass.get(classKey);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    byClass.put(classKey, group);
+                }
+                group.add(id);
+            }
+            for (List<Integer> group : byClass.values()) {
+                CategoryRegistry.Category first = registry.get(group.get(0));
+                if (group.size() == 1 && first.ending.isEmpty()) {
+                    children.add(leaf(first, finalLabel(first), 1));
+                } else {
+                    children.add(group(first.consonantClass, 1, node.vowel, group));
+                }
+            }
+        } else {
+            for (int id : node.members) {
+                CategoryRegistry.Category category = registry.get(id);
+                String label = node.vowel == 0 || category.ending.isEmpty() ? category.label : category.ending;
+                children.add(leaf(category, label, node.depth + 1));
+            }
+        }
+        node.children = Collections.unmodifiableList(children);
+        return node.children;
+    }
+
+    /** Every node with a category in {@code ids}, depth first, as rows of a fully expanded tree. */
+    public List<Node> rowsMatching(BitSet ids) {
+        List<Node> rows = new ArrayList<>();
+        for (Node root : roots) addMatching(root, ids, rows);
+        return rows;
+    }
+
+    /** {@link #CHECKED} when every category below is in {@code selection}, {@link #PARTIAL} when some are. */
+    public static int getState(Node node, BitSet selection) {
+        if (node.isLeaf()) return selection.get(node.categoryId) ? CHECKED : UNCHECKED;
+        BitSet selected = (BitSet) node.ids.clone();
+        selected.and(selection);
+        int count = selected.cardinality();
+        return count == 0 ? UNCHECKED : count == node.members.length ? CHECKED : PARTIAL;
+    }
+
+    /** Adds or removes every category below {@code node}. */
+    public static void setSelected(Node node, BitSet selection, boolean selected) {
+        if (selected) {
+            selection.or(node.ids);
+        } else {
+            selection.andNot(node.ids);
+        }
+    }
+
+    /** A new search over this tree; keep one per search box. */
+    public Search newSearch() {
+        return new Search();
+    }
+
+    /**
+     * Matches categories against what the user typed. Typing more letters only
+     * rechecks the previous matches, so each key press costs at most the
+     * matches of the one before.
+     */
+    public final class Search {
+        private String lastQuery;
+        private BitSet lastMatches;
+
+        private Search() {
+        }
+
+        /** Ids of the categories whose label contains every word of {@code query}; null when it is blank. */
+        public BitSet match(String query) {
+            String normalized = normalize(query).trim();
+            if (normalized.isEmpty()) {
+                lastQuery = null;
+                lastMatches = null;
+                return null;
+            }
+            String[] terms = normalized.split("\\s+");
+            String[] text = searchText();
+            BitSet candidates = lastQuery != null && normalized.startsWith(lastQuery)
+                    ? lastMatches : registry.getPresentMask();
+            BitSet matches = new BitSet();
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (containsAll(text[id], terms)) matches.set(id);
+            }
+            lastQuery = normalized;
+            lastMatches = matches;
+            return (BitSet) matches.clone();
+        }
+    }
+
+    private void addMatching(Node node, BitSet ids, List<Node> rows) {
+        if (!node.ids.intersects(ids)) return;
+        rows.add(node);
+        for (Node child : getChildren(node)) addMatching(child, ids, rows);
+    }
+
+    private Node group(String label, int depth, char vowel, List<Integer> ids) {
+        int[] members = new int[ids.size()];
+        int count = 0;
+        for (int i = 0; i < members.length; i++) {
+            members[i] = ids.get(i);
+            count = addCount(count, wordCounts[members[i]]);
+        }
+        return new Node(label, depth, vowel, -1, members, count);
+    }
+
+    private Node leaf(CategoryRegistry.Category category, String label, int depth) {
+        return new Node(label, depth, category.vowel, category.id, new int[]{category.id}, wordCounts[category.id]);
+    }
+
+    private synchronized String[] searchText() {
+        if (searchText == null) {
+            String[] text = new String[registry.getIdLimit()];
+            for (int id = 0; id < text.length; id++) {
+                CategoryRegistry.Category category = registry.get(id);
+                if (category == null) continue;
+                String vowel = category.vowel != 0 ? String.valueOf(category.vowel) : "";
+                text[id] = normalize(category.label + " " + vowel + " " + category.consonantClass
+                        + " " + category.ending + " " + finalLabel(category));
+            }
+            searchText = text;
+        }
+        return searchText;
+    }
+
+    /** "words_ar1an1al" -> "ar/an/al"; other keys keep their label. */
+    private static String finalLabel(CategoryRegistry.Category category) {
+        if (!category.key.startsWith(CategoryRegistry.RHYME_PREFIX) || !category.ending.isEmpty()) return category.label;
+        String[] parts = category.key.split("_");
+        return parts.length == 2 ? parts[1].replace('1', '/') : category.label;
+    }
+
+    private static int addCount(int total, int count) {
+        return total < 0 || count < 0 ? -1 : total + count;
+    }
+
+    private static boolean containsAll(String text, String[] terms) {
+        for (String term : terms) {
+            if (!text.contains(term)) return false;
+        }
+        return true;
+    }
+
+    /** Lower case without accents, so "cancion" finds "canción". */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder plain = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) plain.append(c);
+        }
+        return plain.toString().toLowerCase(Locale.ROOT);
+    }
+}
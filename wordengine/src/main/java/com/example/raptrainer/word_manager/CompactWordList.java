@@ -0,0 +1,172 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A sorted, duplicate-free word list stored front-coded: each word keeps only
+ * the bytes that differ from the previous one, which makes a sorted Spanish
+ * list about a third of its UTF-8 size. Written and read strictly in order,
+ * so neither side holds more than one word.
+ *
+ * Layout (big-endian ints, unsigned LEB128 varints):
+ * <pre>
+ * magic, version, label (modified UTF-8, see DataOutput.writeUTF)
+ * per word: varint sharedPrefixBytes, varint suffixBytes, byte[suffixBytes]
+ * varint 0, varint 0       end marker (words are never empty)
+ * int wordCount
+ * </pre>
+ */
+public final class CompactWordList {
+    public static final String EXTENSION = ".words";
+
+    static final int MAGIC = 0x5254574C; // "RTWL"
+    static final int VERSION = 1;
+
+    private CompactWordList() {
+    }
+
+    /** Writes words given in ascending {@link String#compareTo} order; repeats of the previous word are dropped. */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private byte[] previous = new byte[0];
+        private String previousWord;
+        private int count;
+
+        public Writer(OutputStream outputStream, String label) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(outputStream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(label);
+        }
+
+        public void add(String word) throws IOException {
+            if (word.isEmpty()) throw new IllegalArgumentException("Empty word");
+            if (previousWord != null) {
+                int order = word.compareTo(previousWord);
+                if (order == 0) return;
+                if (order < 0) throw new IllegalArgumentException("Out of order: " + word + " after " + previousWord);
+            }
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            int limit = Math.min(bytes.length, previous.length);
+            while (shared < limit && bytes[shared] == previous[shared]) shared++;
+            writeVarint(shared);
+            writeVarint(bytes.length - shared);
+            out.write(bytes, shared, bytes.length - shared);
+            previous = bytes;
+            previousWord = word;
+            count++;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /** Writes the end marker and the count, and closes the stream. */
+        @Override
+        public void close() throws IOException {
+            try {
+                writeVarint(0);
+                writeVarint(0);
+                out.writeInt(count);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+
+    /** Reads the words back in order. */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final String label;
+        private byte[] bytes = new byte[64];
+        private int length;
+        private boolean finished;
+
+        public Reader(InputStream inputStream) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(inputStream));
+            if (in.readInt() != MAGIC) throw new IOException("Not a word list");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported word list version: " + version);
+            label = in.readUTF();
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** The next word, or null after the last one. */
+        public String next() throws IOException {
+            if (finished) return null;
+            int shared = readVarint();
+            int suffix = readVarint();
+            if (suffix == 0) {
+                finished = true;
+                return null;
+            }
+            if (shared > length) throw new IOException("Corrupt word list");
+            if (shared + suffix > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, shared + suffix));
+            in.readFully(bytes, shared, suffix);
+            length = shared + suffix;
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.read();
+                if (b < 0) throw new EOFException("Truncated word list");
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Corrupt word list");
+        }
+    }
+
+    /** The word count from the end of a list file, without reading the words. */
+    public static int readCount(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < 4) throw new EOFException("Truncated word list");
+            in.seek(in.length() - 4);
+            return in.readInt();
+        }
+    }
+
+    /** Interns every word of the list into {@code pool}; the stream is left open. */
+    public static int[] readWordIds(InputStream inputStream, StringPool pool) throws IOException {
+        Reader reader = new Reader(inputStream);
+        int[] ids = new int[256];
+        int count = 0;
+        String word;
+        while ((word = reader.next()) != null) {
+            if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+            ids[count++] = pool.intern(word);
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serves the categories of several sources as one, e.g. the bundled index plus
+ * the imported lists. When two sources have the same key their words are
+ * merged, repeats dropped, and the first source's label is used.
+ */
+public class CompositeWordSource implements WordSource {
+    private final List<WordSource> sources;
+    private Map<String, List<WordSource>> owners;
+    private List<String> keys;
+
+    public CompositeWordSource(WordSource... sources) {
+        this.sources = Arrays.asList(sources.clone());
+    }
+
+    @Override
+    public synchronized List<String> getCategoryKeys() throws IOException {
+        return new ArrayList<>(keys());
+    }
+
+    @Override
+    public String getCategoryLabel(String key) {
+        for (WordSource source : owners(key)) {
+            String label = source.getCategoryLabel(key);
+            if (label != null) return label;
+        }
+        return null;
+    }
+
+    @Override
+    public List<String> readWords(String key) throws IOException {
+        List<WordSource> keySources = owners(key);
+        if (keySources.size() == 1) return keySources.get(0).readWords(key);
+        Set<String> words = new LinkedHashSet<>();
+        for (WordSource source : keySources) {
+            words.addAll(source.readWords(key));
+        }
+        return new ArrayList<>(words);
+    }
+
+    @Override
+    public int[] readWordIds(String key, StringPool pool) throws IOException {
+        List<WordSource> keySources = owners(key);
+        if (keySources.size() == 1) return keySources.get(0).readWordIds(key, pool);
+        List<int[]> parts = new ArrayList<>(keySources.size());
+        for (WordSource source : keySources) {
+            parts.add(source.readWordIds(key, pool));
+        }
+        return distinct(parts);
+    }
+
+    /** For a key several sources share, the sum of their counts; a word they have in common counts twice. */
+    @Override
+    public int getWordCount(String key) {
+        int count = 0;
+        for (WordSource source : owners(key)) {
+            int sourceCount = source.getWordCount(key);
+            if (sourceCount < 0) return -1;
+            count += sourceCount;
+        }
+        return count;
+    }
+
+    @Override
+    public void trimMemory() {
+        for (WordSource source : sources) {
+            source.trimMemory();
+        }
+    }
+
+    /** The ids of every part in order, each id only the first time it appears. */
+    static int[] distinct(List<int[]> parts) {
+        int total = 0;
+        for (int[] part : parts) total += part.length;
+        int[] merged = new int[total];
+        BitSet seen = new BitSet();
+        int count = 0;
+        for (int[] part : parts) {
+            for (int id : part) {
+                if (!seen.get(id)) {
+                    seen.set(id);
+                    merged[count++] = id;
+                }
+            }
+        }
+        return count == total ? merged : Arrays.copyOf(merged, count);
+    }
+
+    private synchronized List<WordSource> owners(String key) {
+        try {
+            keys();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+        List<WordSource> keySources = owners.get(key);
+        return keySources != null ? keySources : Collections.<WordSource>emptyList();
+    }
+
+    /** Keys of every source in source order, each source's own order kept. */
+    private List<String> keys() throws IOException {
+        if (keys == null) {
+            Map<String, List<WordSource>> found = new HashMap<>();
+            List<String> ordered = new ArrayList<>();
+            for (WordSource source : sources) {
+                for (String key : source.getCategoryKeys()) {
+                    List<WordSource> keySources = found.get(key);
+                    if (keySources == null) {
+                        keySources = new ArrayList<>(1);
+                        found.put(key, keySources);
+                        ordered.add(key);
+                    }
+                    keySources.add(source);
+                }
+            }
+            owners = found;
+            keys = ordered;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Serves categories from a directory tree of CSV files laid out like assets/words. */
+public class CsvDirectoryWordSource implements WordSource {
+    private final File root;
+    private Map<String, File> files;
+
+    public CsvDirectoryWordSource(File root) {
+        this.root = root;
+    }
+
+    @Override
+    public synchronized List<String> getCategoryKeys() throws IOException {
+        return new ArrayList<>(files().keySet());
+    }
+
+    @Override
+    public String getCategoryLabel(String key) {
+        return null;
+    }
+
+    @Override
+    public List<String> readWords(String key) throws IOException {
+        File file = file(key);
+        if (file == null) return Collections.emptyList();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return CsvWordReader.readWords(inputStream);
+        }
+    }
+
+    @Override
+    public int[] readWordIds(String key, StringPool pool) throws IOException {
+        File file = file(key);
+        if (file == null) return new int[0];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return CsvWordReader.readWordIds(inputStream, pool);
+        }
+    }
+
+    private synchronized File file(String key) throws IOException {
+        return files().get(key);
+    }
+
+    /** Keys sorted by file name, like the build-time index. */
+    private Map<String, File> files() throws IOException {
+        if (files == null) {
+            if (!root.isDirectory()) {
+                throw new IOException("Not a directory: " + root);
+            }
+            Map<String, File> found = new TreeMap<>();
+            collectCsvFiles(root, found);
+            files = found;
+        }
+        return files;
+    }
+
+    /**
+     * Two files of one key, e.g. in different vowel directories, are an error
+     * rather than one hiding the other. So is a name the JVM cannot open again,
+     * as with "words_a_ñ_$" under a non-UTF-8 file name encoding, rather than
+     * its categories going missing.
+     */
+    private static void collectCsvFiles(File directory, Map<String, File> found) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (!child.exists()) {
+                throw new IOException("Cannot open " + child + ", is the file name encoding UTF-8?");
+            }
+            if (child.isDirectory()) {
+                collectCsvFiles(child, found);
+            } else if (child.getName().endsWith(".csv")) {
+                String key = child.getName().substring(0, child.getName().length() - ".csv".length());
+                File other = found.put(key, child);
+                if (other != null) {
+                    throw new IOException("Category " + key + " is in both " + other + " and " + child);
+                }
+            }
+        }
+    }
+}
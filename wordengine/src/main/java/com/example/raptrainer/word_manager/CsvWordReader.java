@@ -0,0 +1,121 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses the comma separated word lists used by the category CSV files.
+ * Words are separated by commas or line breaks and trimmed like {@link String#trim()};
+ * spaces inside a word are kept. Input is always UTF-8, a leading byte order mark is skipped.
+ * <p>
+ * The text is decoded in bulk into a {@code char[]} and scanned by hand, so the only
+ * per-word allocation is the word itself (or none, for a {@link WordSink} that pools).
+ */
+public final class CsvWordReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    /** Receives each word as a range of a reused buffer; the range is only valid during the call. */
+    public interface WordSink {
+        void onWord(char[] buffer, int offset, int length);
+    }
+
+    private CsvWordReader() {
+    }
+
+    /** Reads every non-empty, trimmed word; the stream is left open. */
+    public static List<String> readWords(InputStream inputStream) throws IOException {
+        List<String> result = new ArrayList<>();
+        readWords(inputStream, (buffer, offset, length) -> result.add(new String(buffer, offset, length)));
+        return result;
+    }
+
+    /** Interns every word into {@code pool} and returns their ids in file order; the stream is left open. */
+    public static int[] readWordIds(InputStream inputStream, StringPool pool) throws IOException {
+        IdCollector ids = new IdCollector(pool);
+        readWords(inputStream, ids);
+        return Arrays.copyOf(ids.ids, ids.count);
+    }
+
+    /** Feeds every non-empty, trimmed word to {@code sink}, in file order; the stream is left open. */
+    public static void readWords(InputStream inputStream, WordSink sink) throws IOException {
+        Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        char[] buffer = new char[BUFFER_SIZE];
+        // Carries a word that straddles two reads; grows only for words longer than the buffer
+        char[] pending = new char[64];
+        int pendingLength = 0;
+        boolean first = true;
+
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int start = 0;
+            if (first && read > 0) {
+                first = false;
+                if (buffer[0] == BYTE_ORDER_MARK) start = 1;
+            }
+
+            int wordStart = start;
+            for (int i = start; i < read; i++) {
+                char c = buffer[i];
+                if (c != ',' && c != '\n' && c != '\r') continue;
+
+                if (pendingLength > 0) {
+                    pending = append(pending, pendingLength, buffer, wordStart, i - wordStart);
+                    emitTrimmed(pending, 0, pendingLength + i - wordStart, sink);
+                    pendingLength = 0;
+                } else {
+                    emitTrimmed(buffer, wordStart, i - wordStart, sink);
+                }
+                wordStart = i + 1;
+            }
+
+            int rest = read - wordStart;
+            if (rest > 0) {
+                pending = append(pending, pendingLength, buffer, wordStart, rest);
+                pendingLength += rest;
+            }
+        }
+        emitTrimmed(pending, 0, pendingLength, sink);
+    }
+
+    private static final class IdCollector implements WordSink {
+        private final StringPool pool;
+        private int[] ids = new int[256];
+        private int count;
+
+        IdCollector(StringPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void onWord(char[] buffer, int offset, int length) {
+            if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+            ids[count++] = pool.intern(buffer, offset, length);
+        }
+    }
+
+    private static void emitTrimmed(char[] chars, int offset, int length, WordSink sink) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && chars[start] <= ' ') start++;
+        while (end > start && chars[end - 1] <= ' ') end--;
+        if (end > start) {
+            sink.onWord(chars, start, end - start);
+        }
+    }
+
+    /** Appends {@code chars[offset, offset + length)} after {@code used} chars of {@code target}, growing it if needed. */
+    private static char[] append(char[] target, int used, char[] chars, int offset, int length) {
+        if (used + length > target.length) {
+            target = Arrays.copyOf(target, Math.max(target.length * 2, used + length));
+        }
+        System.arraycopy(chars, offset, target, used, length);
+        return target;
+    }
+}
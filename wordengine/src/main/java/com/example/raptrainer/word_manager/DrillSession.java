@@ -0,0 +1,387 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Everything needed to resume a drill: the shuffle seed, the selected
+ * categories and the position in the draw. Since the shuffle is an
+ * {@link IndexPermutation} of the seed, this is a few bytes however long the
+ * queue is, and the same session drills the same words on every device with
+ * the same word list. When the selection changed part way through the shuffle,
+ * the session also lists the changes: how many words had been drawn, the rows
+ * selected or deselected, and the seed of the words added. Replaying them
+ * rebuilds the merged draw exactly.
+ * <p>
+ * Categories are stored by display row, which only depends on the bundled
+ * keys; a 16-bit check over the session and the selected keys catches codes
+ * from a different word list as well as typos. Immutable.
+ */
+public final class DrillSession {
+    static final int VERSION = 1;
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int GROUP_LENGTH = 4;
+    private static final int FLAG_REPEAT = 1;
+    private static final int FLAG_ROW_BITSET = 2;
+    private static final int FLAG_CHANGES = 4;
+
+    /** A change of the selection part way through a shuffle. */
+    static final class Change {
+        final int position;   // words drawn in the shuffle before it
+        final int[] rows;     // the selected display rows after it, ascending
+        final long seed;      // of the segment holding the words it added
+
+        Change(int position, int[] rows, long seed) {
+            this.position = position;
+            this.rows = rows;
+            this.seed = seed;
+        }
+    }
+
+    private final long seed;
+    private final int[] rows;              // as of the start of the shuffle
+    private final List<Change> changes;
+    private final long round;
+    private final int index;
+    private final boolean allowRepeat;
+    private final int check;
+
+    private DrillSession(long seed, int[] rows, List<Change> changes, long round, int index, boolean allowRepeat, int check) {
+        this.seed = seed;
+        this.rows = rows;
+        this.changes = changes;
+        this.round = round;
+        this.index = index;
+        this.allowRepeat = allowRepeat;
+        this.check = check;
+    }
+
+    /**
+     * @param rows  selected display rows, ascending
+     * @param keys  the category keys at those rows, used for the check
+     */
+    static DrillSession create(long seed, int[] rows, List<String> keys, long round, int index, boolean allowRepeat) {
+        return create(seed, rows, Collections.<Change>emptyList(), keys, round, index, allowRepeat);
+    }
+
+    /**
+     * @param rows     display rows selected at the start of the shuffle, ascending
+     * @param changes  the selection changes since, in order
+     * @param keys     the category keys at {@link #referencedRows}, used for the check
+     */
+    static DrillSession create(long seed, int[] rows, List<Change> changes, List<String> keys, long round, int index,
+                               boolean allowRepeat) {
+        List<Change> copies = new ArrayList<>(changes.size());
+        for (Change change : changes) copies.add(new Change(change.position, change.rows.clone(), change.seed));
+        DrillSession unchecked = new DrillSession(seed, rows.clone(), Collections.unmodifiableList(copies), round, index, allowRepeat, 0);
+        return new DrillSession(seed, unchecked.rows, unchecked.changes, round, index, allowRepeat, unchecked.computeCheck(keys));
+    }
+
+    /** Every row selected at some point of the shuffle, ascending. */
+    static int[] referencedRows(int[] rows, List<Change> changes) {
+        int[] referenced = rows;
+        for (Change change : changes) referenced = union(referenced, change.rows);
+        return referenced;
+    }
+
+    /** Decodes a {@link #toCode()} result; case, dashes and spaces are ignored. */
+    public static DrillSession parse(String code) {
+        byte[] bytes = decodeBase32(code);
+        Reader in = new Reader(bytes);
+        int header = in.readByte();
+        if (header >>> 4 != VERSION) throw new IllegalArgumentException("Unsupported session version: " + (header >>> 4));
+        long seed = in.readVarLong();
+        long round = in.readVarLong();
+        long index = in.readVarLong();
+        if (index > Integer.MAX_VALUE) throw new IllegalArgumentException("Malformed session code");
+
+        int[] rows;
+        if ((header & FLAG_ROW_BITSET) != 0) {
+            long length = in.readVarLong();
+            if (length > bytes.length) throw new IllegalArgumentException("Malformed session code");
+            int[] found = new int[(int) length * 8];
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                int b = in.readByte();
+                for (int bit = 0; bit < 8; bit++) {
+                    if ((b & (1 << bit)) != 0) found[count++] = i * 8 + bit;
+                }
+            }
+            rows = Arrays.copyOf(found, count);
+        } else {
+            rows = readGaps(in, bytes.length);
+        }
+
+        List<Change> changes = new ArrayList<>();
+        if ((header & FLAG_CHANGES) != 0) {
+            long count = in.readVarLong();
+            if (count > bytes.length) throw new IllegalArgumentException("Malformed session code");
+            long position = 0;
+            int[] previous = rows;
+            for (int i = 0; i < count; i++) {
+                position += in.readVarLong();
+                if (position > index + 1) throw new IllegalArgumentException("Malformed session code");
+                long changeSeed = in.readVarLong();
+                previous = toggle(previous, readGaps(in, bytes.length));
+                changes.add(new Change((int) position, previous, changeSeed));
+            }
+        }
+        int check = in.readByte() << 8 | in.readByte();
+        if (!in.atEnd()) throw new IllegalArgumentException("Malformed session code");
+        return new DrillSession(seed, rows, Collections.unmodifiableList(changes), round, (int) index,
+                (header & FLAG_REPEAT) != 0, check);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** Selected display rows, ascending, i.e. as of the last change if there was one; returns a copy. */
+    public int[] getRows() {
+        return (changes.isEmpty() ? rows : changes.get(changes.size() - 1).rows).clone();
+    }
+
+    /** Display rows selected at the start of the shuffle, ascending; returns a copy. */
+    int[] getRoundRows() {
+        return rows.clone();
+    }
+
+    /** The selection changes since the start of the shuffle, in order; empty if there were none. */
+    List<Change> getChanges() {
+        return changes;
+    }
+
+    /** How many full shuffles of the selection came before the current one. */
+    public long getRound() {
+        return round;
+    }
+
+    /** Position within the current shuffle. */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isAllowRepeat() {
+        return allowRepeat;
+    }
+
+    /** Whether this session was created over these keys, i.e. the ones at {@link #referencedRows} here. */
+    boolean matches(List<String> keys) {
+        return computeCheck(keys) == check;
+    }
+
+    /**
+     * Short shareable form, Crockford base32 in dash-separated groups,
+     * e.g. "4ZK8-0QX2-M1A7-H3". A handful of categories at the start of a
+     * draw takes about 20 characters.
+     */
+    public String toCode() {
+        byte[] payload = payload();
+        byte[] bytes = Arrays.copyOf(payload, payload.length + 2);
+        bytes[payload.length] = (byte) (check >>> 8);
+        bytes[payload.length + 1] = (byte) check;
+        String symbols = encodeBase32(bytes);
+        StringBuilder code = new StringBuilder(symbols.length() + symbols.length() / GROUP_LENGTH);
+        for (int i = 0; i < symbols.length(); i++) {
+            if (i > 0 && i % GROUP_LENGTH == 0) code.append('-');
+            code.append(symbols.charAt(i));
+        }
+        return code.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toCode();
+    }
+
+    // ===================== Internal Logic =====================
+
+    /**
+     * Everything but the check. Rows are a bitset or gap-encoded, whichever is
+     * shorter; a change as the number of words since the one before, its seed
+     * and the rows it toggled, gap-encoded.
+     */
+    private byte[] payload() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] gaps = encodeGaps(rows);
+        int bitsetLength = rows.length == 0 ? 0 : rows[rows.length - 1] / 8 + 1;
+        boolean useBitset = bitsetLength + varLongLength(bitsetLength) < gaps.length;
+
+        out.write(VERSION << 4 | (useBitset ? FLAG_ROW_BITSET : 0) | (allowRepeat ? FLAG_REPEAT : 0)
+                | (changes.isEmpty() ? 0 : FLAG_CHANGES));
+        writeVarLong(out, seed);
+        writeVarLong(out, round);
+        writeVarLong(out, index);
+        if (useBitset) {
+            byte[] bitset = new byte[bitsetLength];
+            for (int row : rows) bitset[row / 8] |= (byte) (1 << (row % 8));
+            writeVarLong(out, bitsetLength);
+            out.write(bitset, 0, bitset.length);
+        } else {
+            out.write(gaps, 0, gaps.length);
+        }
+        if (!changes.isEmpty()) {
+            writeVarLong(out, changes.size());
+            int position = 0;
+            int[] previous = rows;
+            for (Change change : changes) {
+                writeVarLong(out, change.position - position);
+                writeVarLong(out, change.seed);
+                byte[] toggled = encodeGaps(toggle(previous, change.rows));
+                out.write(toggled, 0, toggled.length);
+                position = change.position;
+                previous = change.rows;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeGaps(int[] rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarLong(out, rows.length);
+        int previous = -1;
+        for (int row : rows) {
+            writeVarLong(out, row - previous - 1);
+            previous = row;
+        }
+        return out.toByteArray();
+    }
+
+    private static int[] readGaps(Reader in, int maxCount) {
+        long count = in.readVarLong();
+        if (count > maxCount) throw new IllegalArgumentException("Malformed session code");
+        int[] rows = new int[(int) count];
+        long row = -1;
+        for (int i = 0; i < rows.length; i++) {
+            row += in.readVarLong() + 1;
+            if (row > Integer.MAX_VALUE) throw new IllegalArgumentException("Malformed session code");
+            rows[i] = (int) row;
+        }
+        return rows;
+    }
+
+    /** The rows in exactly one of two ascending arrays, ascending. */
+    private static int[] toggle(int[] a, int[] b) {
+        return merge(a, b, false);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        return merge(a, b, true);
+    }
+
+    private static int[] merge(int[] a, int[] b, boolean keepCommon) {
+        int[] merged = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                merged[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                merged[count++] = b[j++];
+            } else {
+                if (keepCommon) merged[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    private int computeCheck(List<String> keys) {
+        CRC32 crc = new CRC32();
+        crc.update(payload());
+        for (String key : keys) {
+            crc.update(key.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        long value = crc.getValue();
+        return (int) ((value ^ (value >>> 16)) & 0xFFFF);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static int varLongLength(long value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) length++;
+        return length;
+    }
+
+    private static String encodeBase32(byte[] bytes) {
+        StringBuilder out = new StringBuilder((bytes.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : bytes) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                out.append(ALPHABET.charAt((buffer >>> bits) & 31));
+            }
+        }
+        if (bits > 0) out.append(ALPHABET.charAt((buffer << (5 - bits)) & 31));
+        return out.toString();
+    }
+
+    /** Crockford decoding: O reads as 0, I and L as 1. */
+    private static byte[] decodeBase32(String code) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = Character.toUpperCase(code.charAt(i));
+            if (c == '-' || Character.isWhitespace(c)) continue;
+            if (c == 'O') c = '0';
+            if (c == 'I' || c == 'L') c = '1';
+            int value = ALPHABET.indexOf(c);
+            if (value < 0) throw new IllegalArgumentException("Invalid character in session code: " + code.charAt(i));
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                out.write((buffer >>> bits) & 0xFF);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) throw new IllegalArgumentException("Session code is too short");
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed session code");
+        }
+
+        boolean atEnd() {
+            return position == bytes.length;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Positions [position, end) of an endless sequence of shuffles of a selection.
+ * Every shuffle ("round") is an {@link IndexPermutation} with its own seed
+ * derived from the base seed, so any range can be generated independently and
+ * the output does not depend on how the work was split.
+ */
+final class DrillSpliterator implements Spliterator<String> {
+    private final WordSelection selection;
+    private final StringPool pool;
+    private final long seed;
+    private final int roundSize;
+    private long position;
+    private final long end;
+    private IndexPermutation permutation;
+    private long permutationRound = -1;
+
+    DrillSpliterator(WordSelection selection, StringPool pool, long seed, long position, long end) {
+        this.selection = selection;
+        this.pool = pool;
+        this.seed = seed;
+        this.roundSize = selection.size();
+        this.position = position;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (position >= end) return false;
+        long round = position / roundSize;
+        if (round != permutationRound) {
+            permutation = new IndexPermutation(roundSize, roundSeed(seed, round));
+            permutationRound = round;
+        }
+        int index = (int) (position - round * roundSize);
+        position++;
+        action.accept(pool.get(selection.get(permutation.get(index))));
+        return true;
+    }
+
+    /** Hands the prefix up to a round boundary to a new spliterator. */
+    @Override
+    public Spliterator<String> trySplit() {
+        if (position >= end) return null;
+        long firstRound = position / roundSize;
+        long lastRound = (end - 1) / roundSize;
+        if (lastRound == firstRound) return null;
+
+        long splitAt = ((firstRound + lastRound + 1) / 2) * roundSize;
+        DrillSpliterator prefix = new DrillSpliterator(selection, pool, seed, position, splitAt);
+        position = splitAt;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    /** Seed of one round; the mix keeps neighbouring rounds unrelated. Shared with {@link WordEngine}. */
+    static long roundSeed(long seed, long round) {
+        return IndexPermutation.mix(seed + round * 0x9E3779B97F4A7C15L);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves the lists imported with {@link WordListImporter}: one {@link CompactWordList}
+ * per list in a directory, keyed "user_" plus the file name and labelled with
+ * the name the user gave the list. Lists filed with {@link #fileRhymes} also
+ * contribute their words to the rhyme categories, e.g. "words_a_c1t1p_a".
+ */
+public class ImportedWordSource implements WordSource {
+    public static final String KEY_PREFIX = "user_";
+
+    private static final String RHYMES_SUFFIX = ".rhymes";
+
+    private final File directory;
+    private Map<String, File> files;
+    private final Map<String, String> labels = new TreeMap<>();
+    // Rhyme key -> its part of every list that has one
+    private final Map<String, List<File>> rhymeFiles = new TreeMap<>();
+
+    public ImportedWordSource(File directory) {
+        this.directory = directory;
+    }
+
+    /** Where the list called {@code label} is stored in {@code directory}; importing again replaces it. */
+    public static File fileFor(File directory, String label) {
+        return new File(directory, slug(label) + CompactWordList.EXTENSION);
+    }
+
+    /** The category key of the list called {@code label}. */
+    public static String keyFor(String label) {
+        return KEY_PREFIX + slug(label);
+    }
+
+    /** True when at least one list has been imported into {@code directory}. */
+    public static boolean hasLists(File directory) {
+        File[] children = directory.listFiles();
+        if (children == null) return false;
+        for (File child : children) {
+            if (child.getName().endsWith(CompactWordList.EXTENSION)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Files the words of an imported list into rhyme categories with
+     * {@link RhymeClassifier}, next to the list, replacing an earlier filing.
+     * The list is read once per stressed vowel so only that vowel's categories
+     * are open at a time. Returns how many words found a category.
+     *
+     * @param existingKeys categories to prefer, see {@link RhymeClassifier#RhymeClassifier(Collection)}
+     */
+    public static int fileRhymes(File list, Collection<String> existingKeys) throws IOException {
+        File rhymes = rhymeDirectory(list);
+        if (!rhymes.isDirectory() && !rhymes.mkdirs()) throw new IOException("Cannot create " + rhymes);
+        File[] old = rhymes.listFiles();
+        if (old != null) {
+            for (File file : old) {
+                if (!file.delete()) throw new IOException("Cannot replace " + file);
+            }
+        }
+
+        RhymeClassifier classifier = new RhymeClassifier(existingKeys);
+        int filed = 0;
+        for (char vowel : "aeiou".toCharArray()) {
+            String vowelPrefix = CategoryRegistry.RHYME_PREFIX + vowel;
+            Map<String, CompactWordList.Writer> writers = new HashMap<>();
+            try (CompactWordList.Reader reader = new CompactWordList.Reader(new FileInputStream(list))) {
+                String word;
+                while ((word = reader.next()) != null) {
+                    String key = classifier.classify(word);
+                    if (key == null || !key.startsWith(vowelPrefix)) continue;
+                    CompactWordList.Writer writer = writers.get(key);
+                    if (writer == null) {
+                        writer = new CompactWordList.Writer(new FileOutputStream(new File(rhymes, key + CompactWordList.EXTENSION)), "");
+                        writers.put(key, writer);
+                    }
+                    // The list is sorted, so every part is too
+                    writer.add(word);
+                    filed++;
+                }
+            } finally {
+                for (CompactWordList.Writer writer : writers.values()) writer.close();
+            }
+        }
+        return filed;
+    }
+
+    @Override
+    public synchronized List<String> getCategoryKeys() throws IOException {
+        List<String> keys = new ArrayList<>(files().keySet());
+        keys.addAll(rhymeFiles.keySet());
+        return keys;
+    }
+
+    @Override
+    public synchronized String getCategoryLabel(String key) {
+        return labels.get(key);
+    }
+
+    @Override
+    public List<String> readWords(String key) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (File file : filesOf(key)) {
+            try (CompactWordList.Reader reader = new CompactWordList.Reader(new FileInputStream(file))) {
+                String word;
+                while ((word = reader.next()) != null) words.add(word);
+            }
+        }
+        return words;
+    }
+
+    @Override
+    public int[] readWordIds(String key, StringPool pool) throws IOException {
+        List<File> keyFiles = filesOf(key);
+        List<int[]> parts = new ArrayList<>(keyFiles.size());
+        for (File file : keyFiles) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                parts.add(CompactWordList.readWordIds(inputStream, pool));
+            }
+        }
+        return parts.size() == 1 ? parts.get(0) : CompositeWordSource.distinct(parts);
+    }
+
+    @Override
+    public int getWordCount(String key) {
+        int count = 0;
+        try {
+            for (File file : filesOf(key)) count += CompactWordList.readCount(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+        return count;
+    }
+
+    private synchronized List<File> filesOf(String key) throws IOException {
+        File file = files().get(key);
+        if (file != null) return Collections.singletonList(file);
+        List<File> parts = rhymeFiles.get(key);
+        return parts != null ? parts : Collections.<File>emptyList();
+    }
+
+    /** Lists the directory once, reading only each file's header; a missing directory has no lists. */
+    private Map<String, File> files() throws IOException {
+        if (files == null) {
+            Map<String, File> found = new TreeMap<>();
+            File[] children = directory.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    String name = child.getName();
+                    if (!name.endsWith(CompactWordList.EXTENSION)) continue;
+                    String key = KEY_PREFIX + name.substring(0, name.length() - CompactWordList.EXTENSION.length());
+                    try (CompactWordList.Reader reader = new CompactWordList.Reader(new FileInputStream(child))) {
+                        labels.put(key, reader.getLabel());
+                    } catch (IOException e) {
+                        System.err.println("Skipping unreadable word list: " + child);
+                        e.printStackTrace();
+                        continue;
+                    }
+                    found.put(key, child);
+                    collectRhymes(rhymeDirectory(child));
+                }
+            }
+            files = found;
+        }
+        return files;
+    }
+
+    private void collectRhymes(File rhymes) {
+        File[] parts = rhymes.listFiles();
+        if (parts == null) return;
+        for (File part : parts) {
+            String name = part.getName();
+            if (!name.endsWith(CompactWordList.EXTENSION)) continue;
+            String key = name.substring(0, name.length() - CompactWordList.EXTENSION.length());
+            List<File> keyFiles = rhymeFiles.get(key);
+            if (keyFiles == null) {
+                keyFiles = new ArrayList<>();
+                rhymeFiles.put(key, keyFiles);
+            }
+            keyFiles.add(part);
+        }
+    }
+
+    /** "mis-rimas.words" -> "mis-rimas.rhymes", next to it. */
+    private static File rhymeDirectory(File list) {
+        String name = list.getName();
+        String base = name.endsWith(CompactWordList.EXTENSION)
+                ? name.substring(0, name.length() - CompactWordList.EXTENSION.length())
+                : name;
+        return new File(list.getParentFile(), base + RHYMES_SUFFIX);
+    }
+
+    /** ASCII letters and digits of the label, accents removed, e.g. "Mis rimas ñ" -> "mis-rimas-n". */
+    static String slug(String label) {
+        String stripped = Normalizer.normalize(label, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder slug = new StringBuilder();
+        for (int i = 0; i < stripped.length() && slug.length() < 40; i++) {
+            char c = stripped.charAt(i);
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                slug.append(c);
+            } else if (Character.isLetterOrDigit(c) || Character.isWhitespace(c) || c == '-' || c == '_') {
+                if (slug.length() > 0 && slug.charAt(slug.length() - 1) != '-') slug.append('-');
+            }
+        }
+        while (slug.length() > 0 && slug.charAt(slug.length() - 1) == '-') slug.setLength(slug.length() - 1);
+        return slug.length() > 0 ? slug.toString() : "lista";
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Serves categories from lists already in memory, in insertion order. */
+public class InMemoryWordSource implements WordSource {
+    private final Map<String, List<String>> wordsByKey;
+
+    public InMemoryWordSource(Map<String, List<String>> wordsByKey) {
+        this.wordsByKey = new LinkedHashMap<>(wordsByKey);
+    }
+
+    @Override
+    public List<String> getCategoryKeys() {
+        return new ArrayList<>(wordsByKey.keySet());
+    }
+
+    @Override
+    public String getCategoryLabel(String key) {
+        return null;
+    }
+
+    @Override
+    public List<String> readWords(String key) {
+        List<String> words = wordsByKey.get(key);
+        return words != null ? words : Collections.<String>emptyList();
+    }
+
+    @Override
+    public int getWordCount(String key) {
+        List<String> words = wordsByKey.get(key);
+        return words != null ? words.size() : 0;
+    }
+}
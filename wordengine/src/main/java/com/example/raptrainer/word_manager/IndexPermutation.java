@@ -0,0 +1,89 @@
+package com.example.raptrainer.word_manager;
+
+/**
+ * A pseudo-random permutation of 0..size-1 that can be evaluated at any index
+ * without computing the ones before it: a balanced Feistel network over the
+ * smallest even-bit power of two covering {@code size}, with cycle walking to
+ * stay inside the range. {@link #get} is O(1) expected (under four rounds of
+ * walking) with no state besides the round keys, so a draw is fully described
+ * by (seed, size, index).
+ * <p>
+ * The output for a given seed is part of the share code format; changing the
+ * rounds or the mixing function requires a new {@link DrillSession} version.
+ */
+final class IndexPermutation {
+    private static final int ROUNDS = 4;
+
+    private final int size;
+    private final int halfBits;
+    private final int halfMask;
+    private final long[] keys = new long[ROUNDS];
+
+    IndexPermutation(int size, long seed) {
+        if (size < 0) throw new IllegalArgumentException("Negative size: " + size);
+        this.size = size;
+        int bits = 2;
+        while (bits < 32 && (1L << bits) < size) bits += 2;
+        this.halfBits = bits / 2;
+        this.halfMask = (1 << halfBits) - 1;
+        long state = seed;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            keys[i] = mix(state);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** The element at {@code index}, for 0 <= index < size. */
+    int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        int value = index;
+        do {
+            value = encrypt(value);
+            // Negative means at least 2^31 in a 32-bit domain, so also out of range
+        } while (value < 0 || value >= size);
+        return value;
+    }
+
+    /** The index at which {@code value} appears, i.e. the inverse of {@link #get}. */
+    int indexOf(int value) {
+        if (value < 0 || value >= size) throw new IndexOutOfBoundsException("Value " + value + " of " + size);
+        int index = value;
+        do {
+            index = decrypt(index);
+        } while (index < 0 || index >= size);
+        return index;
+    }
+
+    private int encrypt(int value) {
+        int left = value >>> halfBits;
+        int right = value & halfMask;
+        for (long key : keys) {
+            int next = left ^ (int) (mix(right ^ key) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private int decrypt(int value) {
+        int left = value >>> halfBits;
+        int right = value & halfMask;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            int previous = right ^ (int) (mix(left ^ keys[i]) & halfMask);
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /** SplitMix64 finalizer. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
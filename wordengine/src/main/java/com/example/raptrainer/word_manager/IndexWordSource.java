@@ -0,0 +1,60 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Serves categories from a {@link WordIndex}; no parsing at all. */
+public class IndexWordSource implements WordSource {
+    private final WordIndex wordIndex;
+    private final List<String> keys;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public IndexWordSource(WordIndex wordIndex) {
+        this.wordIndex = wordIndex;
+        List<String> categoryKeys = new ArrayList<>(wordIndex.getCategoryCount());
+        for (int i = 0; i < wordIndex.getCategoryCount(); i++) {
+            String key = wordIndex.getCategoryKey(i);
+            categoryKeys.add(key);
+            positions.put(key, i);
+        }
+        this.keys = Collections.unmodifiableList(categoryKeys);
+    }
+
+    @Override
+    public List<String> getCategoryKeys() {
+        return keys;
+    }
+
+    @Override
+    public String getCategoryLabel(String key) {
+        Integer position = positions.get(key);
+        return position != null ? wordIndex.getCategoryLabel(position) : null;
+    }
+
+    @Override
+    public List<String> readWords(String key) {
+        Integer position = positions.get(key);
+        return position != null ? wordIndex.getWords(position) : Collections.<String>emptyList();
+    }
+
+    @Override
+    public int[] readWordIds(String key, StringPool pool) {
+        Integer position = positions.get(key);
+        return position != null ? wordIndex.internWords(position, pool) : new int[0];
+    }
+
+    @Override
+    public int getWordCount(String key) {
+        Integer position = positions.get(key);
+        return position != null ? wordIndex.getWordCount(position) : 0;
+    }
+
+    /** Drops the index's decoded string cache, see {@link WordIndex#trimDecodedStrings()}. */
+    @Override
+    public void trimMemory() {
+        wordIndex.trimDecodedStrings();
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process counters and timers for startup and the drill hot path, plus
+ * optional trace sections through a {@link TraceBackend}.
+ * Disabled by default: every call is then a single volatile read, so release
+ * builds pay nothing. Enable it once, before the engine is used.
+ */
+public final class Instrumentation {
+
+    public enum Timer {
+        ASSET_DISCOVERY("RapTrainer:assetDiscovery"),
+        PARSE("RapTrainer:parse"),
+        CACHE_BUILD("RapTrainer:cacheBuild"),
+        SELECTION_UPDATE("RapTrainer:selectionUpdate"),
+        SHUFFLE("RapTrainer:shuffle"),
+        NEXT_WORD("RapTrainer:nextWord"),
+        RHYME_INDEX("RapTrainer:rhymeIndex"),
+        /** A whole user list import: parse, sort runs and merge. */
+        IMPORT("RapTrainer:import"),
+        /** Text layout of an upcoming word, off the main thread; recorded by the UI. */
+        PRELAYOUT("RapTrainer:prelayout"),
+        /** How late each timed word change ran after its deadline; the spread is the jitter. */
+        BEAT_LATENESS("RapTrainer:beatLateness"),
+        /** Time to mix one output buffer on the audio thread. */
+        AUDIO_RENDER("RapTrainer:audioRender"),
+        /** From writing a frame to the audio output until it is heard. */
+        AUDIO_LATENCY("RapTrainer:audioLatency"),
+        /** From asking for a word to the frame that shows it; recorded by the UI. */
+        WORD_RENDERED("RapTrainer:wordRendered"),
+        /** Synthesizing one spoken word into a file, in the background. */
+        SPEECH_SYNTHESIS("RapTrainer:speechSynthesis");
+
+        final String traceName;
+
+        Timer(String traceName) {
+            this.traceName = traceName;
+        }
+    }
+
+    public enum Counter {
+        CATEGORIES_LOADED,
+        WORDS_LOADED,
+        LOAD_ERRORS,
+        WORDS_DRAWN,
+        RHYMES_CHAINED,
+        THEMED_WORDS,
+        EVICTIONS,
+        /** Words shown with a layout prepared in the background, or without one; counted by the UI. */
+        PRELAYOUT_HITS,
+        PRELAYOUT_MISSES,
+        /** Frames missed right after a word change; counted by the UI. */
+        DROPPED_FRAMES,
+        /** Word changes skipped because the main thread was busy for a whole period. */
+        BEATS_MISSED,
+        /** Times the audio output ran dry because a buffer came too late. */
+        AUDIO_UNDERRUNS,
+        /** Words whose spoken clip was ready when they were shown, or was not. */
+        SPEECH_CUE_HITS,
+        SPEECH_CUE_MISSES
+    }
+
+    /** Platform tracing, e.g. {@code android.os.Trace}; sections are begun and ended on the same thread. */
+    public interface TraceBackend {
+        void beginSection(String name);
+
+        void endSection();
+    }
+
+    private static final TraceBackend NO_TRACE = new TraceBackend() {
+        @Override
+        public void beginSection(String name) {
+        }
+
+        @Override
+        public void endSection() {
+        }
+    };
+
+    private static final TimerStats[] TIMERS = new TimerStats[Timer.values().length];
+    private static final AtomicLong[] COUNTERS = new AtomicLong[Counter.values().length];
+
+    static {
+        for (int i = 0; i < TIMERS.length; i++) TIMERS[i] = new TimerStats();
+        for (int i = 0; i < COUNTERS.length; i++) COUNTERS[i] = new AtomicLong();
+    }
+
+    private static volatile boolean enabled;
+    private static volatile TraceBackend traceBackend = NO_TRACE;
+
+    private Instrumentation() {
+    }
+
+    /** Starts collecting; {@code backend} may be null for counters and timers only. */
+    public static void enable(TraceBackend backend) {
+        traceBackend = backend != null ? backend : NO_TRACE;
+        enabled = true;
+    }
+
+    /** Stops collecting; what was collected so far stays until {@link #reset}. */
+    public static void disable() {
+        enabled = false;
+        traceBackend = NO_TRACE;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens a timed section. Pass the result to {@link #end}, on the same thread;
+     * returns 0 and does nothing while disabled.
+     */
+    public static long begin(Timer timer) {
+        if (!enabled) return 0;
+        traceBackend.beginSection(timer.traceName);
+        return System.nanoTime();
+    }
+
+    public static void end(Timer timer, long startNanos) {
+        if (startNanos == 0) return;
+        long elapsed = System.nanoTime() - startNanos;
+        traceBackend.endSection();
+        TIMERS[timer.ordinal()].record(elapsed);
+    }
+
+    /** Records a duration measured elsewhere, e.g. across threads or frames. */
+    public static void record(Timer timer, long elapsedNanos) {
+        if (!enabled) return;
+        TIMERS[timer.ordinal()].record(elapsedNanos);
+    }
+
+    public static void increment(Counter counter) {
+        add(counter, 1);
+    }
+
+    public static void add(Counter counter, long delta) {
+        if (!enabled) return;
+        COUNTERS[counter.ordinal()].addAndGet(delta);
+    }
+
+    public static long getCount(Counter counter) {
+        return COUNTERS[counter.ordinal()].get();
+    }
+
+    public static TimerStats getStats(Timer timer) {
+        return TIMERS[timer.ordinal()];
+    }
+
+    public static void reset() {
+        for (TimerStats stats : TIMERS) stats.reset();
+        for (AtomicLong counter : COUNTERS) counter.set(0);
+    }
+
+    /** Human-readable summary, one line per timer and counter that has data. */
+    public static String toText() {
+        StringBuilder text = new StringBuilder();
+        for (Timer timer : Timer.values()) {
+            TimerStats stats = getStats(timer);
+            long count = stats.getCount();
+            if (count == 0) continue;
+            text.append(timer.name().toLowerCase(Locale.ROOT)).append(": ").append(count).append("x")
+                    .append("  avg ").append(formatMillis(stats.getTotalNanos() / count))
+                    .append("  p95 ").append(formatMillis(stats.getPercentileNanos(0.95)))
+                    .append("  max ").append(formatMillis(stats.getMaxNanos()))
+                    .append('\n');
+        }
+        for (Counter counter : Counter.values()) {
+            long count = getCount(counter);
+            if (count == 0) continue;
+            text.append(counter.name().toLowerCase(Locale.ROOT)).append(": ").append(count).append('\n');
+        }
+        return text.toString();
+    }
+
+    /** Every timer and counter as a JSON object, durations in nanoseconds. */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\"timers\":{");
+        Timer[] timers = Timer.values();
+        for (int i = 0; i < timers.length; i++) {
+            TimerStats stats = getStats(timers[i]);
+            if (i > 0) json.append(',');
+            json.append('"').append(timers[i].name().toLowerCase(Locale.ROOT)).append("\":{")
+                    .append("\"count\":").append(stats.getCount())
+                    .append(",\"totalNs\":").append(stats.getTotalNanos())
+                    .append(",\"maxNs\":").append(stats.getMaxNanos())
+                    .append(",\"lastNs\":").append(stats.getLastNanos())
+                    .append(",\"p50Ns\":").append(stats.getPercentileNanos(0.5))
+                    .append(",\"p95Ns\":").append(stats.getPercentileNanos(0.95))
+                    .append('}');
+        }
+        json.append("},\"counters\":{");
+        Counter[] counters = Counter.values();
+        for (int i = 0; i < counters.length; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(counters[i].name().toLowerCase(Locale.ROOT)).append("\":").append(getCount(counters[i]));
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1e6);
+    }
+
+    /**
+     * Lock-free duration statistics. Percentiles come from power-of-two buckets,
+     * so they are upper bounds within a factor of two.
+     */
+    public static final class TimerStats {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong lastNanos = new AtomicLong();
+        // Bucket b counts durations of bit length b, i.e. in [2^(b-1), 2^b) ns
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            lastNanos.set(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+        }
+
+        void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            lastNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getLastNanos() {
+            return lastNanos.get();
+        }
+
+        /** Upper bound of the bucket holding the given quantile, capped at the maximum; 0 without data. */
+        public long getPercentileNanos(double quantile) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    long upper = i == 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upper, getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Arrays;
+
+/**
+ * Part of a shuffle: some categories' word lists drawn in {@link IndexPermutation}
+ * order. A category removed part way through is not taken out of the
+ * permutation; its words are skipped when their turn comes and leave the
+ * remaining count at once. Either costs the size of that category only.
+ * The lists and the {@link WordSelection} over them are shared, never modified.
+ */
+final class QueueSegment {
+    private static final int DRAWN = -1;     // excludedAt: the list is still drawn
+    private static final int TAKEN = -2;     // excludedAt: its unseen words moved to another segment
+
+    private final WordSelection words;
+    private final int[] categoryIds;         // by list
+    private final IndexPermutation permutation;
+    private int[] excludedAt;                // by list, index at removal; null until something is removed
+    private int index;
+    private int remaining;
+
+    /** Draws {@code words} in the order of the permutation for {@code seed}, from position {@code index} on. */
+    QueueSegment(WordSelection words, int[] categoryIds, long seed, int index) {
+        this.words = words;
+        this.categoryIds = categoryIds;
+        this.permutation = new IndexPermutation(words.size(), seed);
+        this.index = index;
+        this.remaining = words.size() - index;
+    }
+
+    private QueueSegment(QueueSegment other) {
+        words = other.words;
+        categoryIds = other.categoryIds;
+        permutation = other.permutation;
+        excludedAt = other.excludedAt;
+        index = other.index;
+        remaining = other.remaining;
+    }
+
+    /** A cursor that can draw ahead without moving this one; drop it before the next {@link #remove}. */
+    QueueSegment copy() {
+        return new QueueSegment(this);
+    }
+
+    /** Words still to come, removed categories not counted. */
+    int remaining() {
+        return remaining;
+    }
+
+    /** Position in the permutation; the words before it have been drawn or skipped. */
+    int index() {
+        return index;
+    }
+
+    /** Whether a removed category's unseen words are still here for {@link #takeUnseen}. */
+    boolean holdsRemoved() {
+        if (excludedAt == null) return false;
+        for (int removedAt : excludedAt) {
+            if (removedAt >= 0) return true;
+        }
+        return false;
+    }
+
+    /** The next word id, or -1 when the segment is used up. */
+    int next() {
+        while (index < words.size()) {
+            int position = permutation.get(index++);
+            if (excludedAt == null || excludedAt[words.listAt(position)] == DRAWN) {
+                remaining--;
+                return words.get(position);
+            }
+        }
+        return -1;
+    }
+
+    /** Stops drawing a category's words; false if it is not drawn here. */
+    boolean remove(int categoryId) {
+        int list = listOf(categoryId, false);
+        if (list < 0) return false;
+        int start = words.listStart(list);
+        int unseen = 0;
+        for (int position = start; position < start + words.listSize(list); position++) {
+            if (permutation.indexOf(position) >= index) unseen++;
+        }
+        if (excludedAt == null) {
+            excludedAt = new int[categoryIds.length];
+            Arrays.fill(excludedAt, DRAWN);
+        }
+        excludedAt[list] = index;
+        remaining -= unseen;
+        return true;
+    }
+
+    /**
+     * The words of a removed category that had not been shown when it was
+     * removed, for another segment to draw; null if it was not removed here.
+     */
+    int[] takeUnseen(int categoryId) {
+        int list = listOf(categoryId, true);
+        if (list < 0) return null;
+        int removedAt = excludedAt[list];
+        int start = words.listStart(list);
+        int[] unseen = new int[words.listSize(list)];
+        int count = 0;
+        for (int position = start; position < start + unseen.length; position++) {
+            if (permutation.indexOf(position) >= removedAt) unseen[count++] = words.get(position);
+        }
+        excludedAt[list] = TAKEN;
+        return Arrays.copyOf(unseen, count);
+    }
+
+    /** The list of a category that is still drawn, or removed and not taken yet; -1 if there is none. */
+    private int listOf(int categoryId, boolean removed) {
+        for (int list = 0; list < categoryIds.length; list++) {
+            if (categoryIds[list] != categoryId) continue;
+            int removedAt = excludedAt != null ? excludedAt[list] : DRAWN;
+            if (removed ? removedAt >= 0 : removedAt == DRAWN) return list;
+        }
+        return -1;
+    }
+}
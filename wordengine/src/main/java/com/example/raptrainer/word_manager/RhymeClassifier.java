@@ -0,0 +1,462 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Files a Spanish word into the category scheme of assets/words: the stressed
+ * vowel, the class of the consonants between it and the next vowel, and the
+ * final vowel, e.g. "plata" -> "words_a_c1t1p_a", "mundo" -> "words_u_nb1ng1nd_o".
+ * Words stressed on the last syllable go by what follows the vowel instead:
+ * "papá", "capaz" -> "words_as1az", "canción" -> "words_or1on1ol", "verdad" -> "words_ad1ab".
+ * <p>
+ * Stress follows the written rules on the spelling itself (so "feliz" is stressed
+ * on the last syllable even though z sounds like s); consonants are compared by
+ * sound (v/b, soft c/z/s, soft g/j, ll/y, silent h and u). Multi-word entries are
+ * filed by their last word. Returns null for words the scheme has no place for:
+ * no vowel, or a vowel right after the stressed one ("día").
+ * <p>
+ * An instance keeps scratch buffers, so {@link #classify(char[], int, int)}
+ * allocates nothing and runs at several million words per second; use one
+ * instance per thread. Keys are shared, pre-built strings.
+ */
+public final class RhymeClassifier {
+    // Consonant classes, as spelled in the category keys
+    private static final String[] CLASSES = {
+            "c1t1p", "b1g1d", "f1s1j", "m1n", "r1l", "rr", "ll", "ñ", "ch",
+            "bl1gl", "br1gr1dr", "cr1pr1tr", "ct1pt", "ft1st", "nb1ng1nd", "nc1np1nt", "rm1lm", "rt1lt", "sm",
+    };
+    private static final int CTP = 0, BGD = 1, FSJ = 2, MN = 3, RL = 4, RR = 5, LL = 6, NY = 7, CH = 8,
+            BLGL = 9, BRGRDR = 10, CRPRTR = 11, CTPT = 12, FTST = 13, NBNGND = 14, NCNPNT = 15, RMLM = 16, RTLT = 17,
+            SM = 18;
+    private static final String VOWELS = "aeiou";
+    private static final int E = 1, I = 2, O = 3, U = 4;
+    // What follows a stressed last vowel: nothing or s/z, r/n/l, d/b
+    private static final int FINAL_S = 0, FINAL_RNL = 1, FINAL_DB = 2;
+
+    private static final String[][][] KEYS = new String[5][CLASSES.length][5];
+    private static final String[][] FINAL_KEYS = new String[5][3];
+
+    static {
+        for (int v = 0; v < 5; v++) {
+            char vowel = VOWELS.charAt(v);
+            for (int c = 0; c < CLASSES.length; c++) {
+                for (int e = 0; e < 5; e++) {
+                    KEYS[v][c][e] = CategoryRegistry.RHYME_PREFIX + vowel + "_" + CLASSES[c] + "_" + VOWELS.charAt(e);
+                }
+            }
+            FINAL_KEYS[v][FINAL_S] = CategoryRegistry.RHYME_PREFIX + vowel + "s1" + vowel + "z";
+            FINAL_KEYS[v][FINAL_RNL] = CategoryRegistry.RHYME_PREFIX + vowel + "r1" + vowel + "n1" + vowel + "l";
+            FINAL_KEYS[v][FINAL_DB] = CategoryRegistry.RHYME_PREFIX + vowel + "d1" + vowel + "b";
+        }
+    }
+
+    // Longer words are filed by their last letters only
+    private static final int MAX_LETTERS = 48;
+
+    /*
+     * A word is rewritten into sounds: vowels are 'a'..'u' with flags, consonants one
+     * char each, with 'R' for the trilled r, 'y' for ll/y, 'ĉ' for ch and 'j' for soft g.
+     */
+    private final char[] sounds = new char[MAX_LETTERS * 2];
+    private final boolean[] accented = new boolean[MAX_LETTERS * 2];
+    private final int[] groupStart = new int[MAX_LETTERS * 2];
+    private final int[] groupEnd = new int[MAX_LETTERS * 2];
+    private final int[] groupNucleus = new int[MAX_LETTERS * 2];
+    private final Set<String> existingKeys;
+    private boolean finalVowelY;
+
+    /** Files words by sound alone; keys may name categories that do not exist yet. */
+    public RhymeClassifier() {
+        existingKeys = null;
+    }
+
+    /**
+     * Prefers the categories in {@code existingKeys}: a word ending in i or u
+     * whose category is missing goes with the e or o endings, as in the bundled lists.
+     */
+    public RhymeClassifier(Collection<String> existingKeys) {
+        this.existingKeys = new HashSet<>(existingKeys);
+    }
+
+    /** The category key of {@code word}, or null if it has none. */
+    public String classify(String word) {
+        return classify(word.toCharArray(), 0, word.length());
+    }
+
+    /** Same as {@link #classify(String)} on {@code buffer[offset, offset + length)}, e.g. from a {@link CsvWordReader.WordSink}. */
+    public String classify(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && !Character.isLetter(buffer[end - 1])) end--;
+        int start = end;
+        while (start > offset && end - start < MAX_LETTERS && Character.isLetter(buffer[start - 1])) start--;
+        if (start == end) return null;
+
+        int count = toSounds(buffer, start, end);
+        int groups = findGroups(count);
+        if (groups == 0) return null;
+
+        int stressed = stressedGroup(groups, lower(buffer[end - 1]));
+        int vowel = VOWELS.indexOf(sounds[groupNucleus[stressed]]);
+        if (stressed == groups - 1) {
+            return FINAL_KEYS[vowel][finalFamily(groupEnd[stressed], count)];
+        }
+        int consonantClass = consonantClass(groupEnd[stressed], groupStart[stressed + 1], count);
+        if (consonantClass < 0) return null;
+        int ending = VOWELS.indexOf(sounds[groupNucleus[groups - 1]]);
+        if (consonantClass == SM && (existingKeys == null || !existingKeys.contains(KEYS[vowel][SM][ending]))) {
+            // Only "asma"/"plasma" have a list of their own; elsewhere sm goes with rm/lm
+            consonantClass = RMLM;
+        }
+        String key = KEYS[vowel][consonantClass][ending];
+        if (existingKeys != null && !existingKeys.contains(key) && (ending == I || ending == U)) {
+            // "casi" goes with the e endings and "otaku" with the o ones when there is no list of their own
+            String nearest = KEYS[vowel][consonantClass][ending == I ? E : O];
+            if (existingKeys.contains(nearest)) return nearest;
+        }
+        return key;
+    }
+
+    // ===================== Internal Logic =====================
+
+    /** Fills {@link #sounds} from the letters {@code [start, end)}; returns how many. */
+    private int toSounds(char[] buffer, int start, int end) {
+        int count = 0;
+        finalVowelY = false;
+        for (int i = start; i < end; i++) {
+            char c = lower(buffer[i]);
+            char next = i + 1 < end ? lower(buffer[i + 1]) : 0;
+            accented[count] = false;
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'o': case 'u':
+                    sounds[count++] = c;
+                    break;
+                case 'á': case 'é': case 'í': case 'ó': case 'ú':
+                    accented[count] = true;
+                    sounds[count++] = baseVowel(c);
+                    break;
+                case 'ü':
+                    sounds[count++] = 'u';
+                    break;
+                case 'à': case 'è': case 'ì': case 'ò': case 'ù': case 'â': case 'ê': case 'î': case 'ô': case 'û':
+                    sounds[count++] = baseVowel(c);
+                    break;
+                case 'y':
+                    if (i + 1 < end) {
+                        sounds[count++] = 'y';
+                    } else {
+                        // A final y closes a vowel like an i, "hoy", or after a consonant is one, "candy"
+                        finalVowelY = count == 0 || !isVowel(sounds[count - 1]);
+                        sounds[count++] = 'i';
+                    }
+                    break;
+                case 'h':
+                    break;
+                case 'c':
+                    if (next == 'h') {
+                        sounds[count++] = 'ĉ';
+                        i++;
+                    } else {
+                        sounds[count++] = isFrontVowel(next) ? 's' : 'k';
+                    }
+                    break;
+                case 'q':
+                    sounds[count++] = 'k';
+                    if (next == 'u') i++;
+                    break;
+                case 'g':
+                    sounds[count++] = isFrontVowel(next) ? 'j' : 'g';
+                    if (next == 'u' && i + 2 < end && isFrontVowel(lower(buffer[i + 2]))) i++;
+                    break;
+                case 'l':
+                    if (next == 'l') {
+                        sounds[count++] = 'y';
+                        i++;
+                    } else {
+                        sounds[count++] = 'l';
+                    }
+                    break;
+                case 'r':
+                    if (next == 'r') {
+                        sounds[count++] = 'R';
+                        i++;
+                    } else {
+                        sounds[count++] = count == 0 ? 'R' : 'r';
+                    }
+                    break;
+                case 'v': case 'w':
+                    sounds[count++] = 'b';
+                    break;
+                case 'z': case 'ç':
+                    sounds[count++] = 's';
+                    break;
+                case 'x':
+                    sounds[count++] = 'k';
+                    sounds[count++] = 's';
+                    break;
+                default:
+                    sounds[count++] = c;
+            }
+        }
+        return count;
+    }
+
+    /** Splits the vowels into syllable nuclei; returns the number of groups. */
+    private int findGroups(int count) {
+        int groups = 0;
+        int i = 0;
+        while (i < count) {
+            if (!isVowel(sounds[i])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            i++;
+            // Two strong vowels, or one with an accented i/u, belong to different syllables
+            while (i < count && isVowel(sounds[i]) && !(isStrong(i - 1) && isStrong(i))) i++;
+            groupStart[groups] = start;
+            groupEnd[groups] = i;
+            groupNucleus[groups] = nucleus(start, i);
+            groups++;
+        }
+        return groups;
+    }
+
+    /** An accent mark wins; otherwise a final vowel, n or s means the second-to-last syllable. */
+    private int stressedGroup(int groups, char lastLetter) {
+        for (int g = 0; g < groups; g++) {
+            if (accented[groupNucleus[g]]) return g;
+        }
+        boolean penultimate = lastLetter == 'n' || lastLetter == 's' || isVowel(baseVowel(lastLetter)) || finalVowelY;
+        return penultimate && groups > 1 ? groups - 2 : groups - 1;
+    }
+
+    /** The accented vowel of a group, else the first strong one, else the last: "ui" -> i. */
+    private int nucleus(int start, int end) {
+        for (int j = start; j < end; j++) {
+            if (accented[j]) return j;
+        }
+        for (int j = start; j < end; j++) {
+            char c = sounds[j];
+            if (c == 'a' || c == 'e' || c == 'o') return j;
+        }
+        return end - 1;
+    }
+
+    /** What follows a stressed last vowel; the last sound decides. */
+    private int finalFamily(int start, int count) {
+        if (start == count) return FINAL_S;
+        switch (sounds[count - 1]) {
+            case 'r': case 'R': case 'n': case 'l': case 'm': case 'ñ':
+                return FINAL_RNL;
+            case 'd': case 'b': case 't': case 'k': case 'p': case 'g':
+                return FINAL_DB;
+            default:
+                return FINAL_S;
+        }
+    }
+
+    /** Class of the consonants {@code [start, end)} between the stressed vowel and the next one, or -1. */
+    private int consonantClass(int start, int end, int count) {
+        int length = end - start;
+        if (length == 0) return -1;
+        if (length == 1) {
+            // An unstressed i gliding into the next vowel palatalizes n: "genio" sounds like "geño"
+            boolean glide = end + 1 < count && sounds[end] == 'i' && !accented[end] && isVowel(sounds[end + 1]);
+            return sounds[start] == 'n' && glide ? NY : single(sounds[start]);
+        }
+        // Longer clusters sound like their last two: "hambre" like "br", "texto" like "st"
+        char a = sounds[end - 2];
+        char b = sounds[end - 1];
+
+        if (b == 'ĉ') return CH;
+        if ((b == 'r' || b == 'l') && isStop(a) || (b == 'r' || b == 'l') && a == 'f') {
+            if (b == 'l') return BLGL;
+            return a == 'b' || a == 'g' || a == 'd' ? BRGRDR : CRPRTR;
+        }
+        if (b == 'r' && (a == 'n' || a == 'l' || a == 's')) return RR;
+        if (a == 'm' || a == 'n') {
+            if (b == 'b' || b == 'g' || b == 'd') return NBNGND;
+            if (b == 'k' || b == 'p' || b == 't') return NCNPNT;
+            if (b == 'm' || b == 'n') return MN;
+            return single(b);
+        }
+        if (a == 'r' || a == 'l' || a == 'R') {
+            if (b == 'm' || b == 'n') return RMLM;
+            if (isStop(b)) return RTLT;
+            return single(b);
+        }
+        if (a == 's' && b == 'm') return SM;
+        if (b == 'm' || b == 'n') return a == 'g' && b == 'n' ? NY : RMLM;
+        if (a == 's' && (b == 't' || b == 'k' || b == 'p') || a == 'f' && b == 't') return FTST;
+        if (b == 't' && isStop(a)) return CTPT;
+        return single(b);
+    }
+
+    private static int single(char c) {
+        switch (c) {
+            case 'k': case 't': case 'p':
+                return CTP;
+            case 'b': case 'g': case 'd':
+                return BGD;
+            case 'f': case 's': case 'j':
+                return FSJ;
+            case 'm': case 'n':
+                return MN;
+            case 'r': case 'l':
+                return RL;
+            case 'R':
+                return RR;
+            case 'y':
+                return LL;
+            case 'ñ':
+                return NY;
+            case 'ĉ':
+                return CH;
+            default:
+                return -1;
+        }
+    }
+
+    private boolean isStrong(int i) {
+        char c = sounds[i];
+        return c == 'a' || c == 'e' || c == 'o' || accented[i];
+    }
+
+    private static boolean isStop(char c) {
+        return c == 'b' || c == 'g' || c == 'd' || c == 'k' || c == 'p' || c == 't';
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    private static boolean isFrontVowel(char c) {
+        return c == 'e' || c == 'i' || c == 'é' || c == 'í';
+    }
+
+    private static char baseVowel(char c) {
+        switch (c) {
+            case 'á': case 'à': case 'â': return 'a';
+            case 'é': case 'è': case 'ê': return 'e';
+            case 'í': case 'ì': case 'î': return 'i';
+            case 'ó': case 'ò': case 'ô': return 'o';
+            case 'ú': case 'ù': case 'û': case 'ü': return 'u';
+            default: return c;
+        }
+    }
+
+    private static char lower(char c) {
+        if (c >= 'A' && c <= 'Z') return (char) (c + ('a' - 'A'));
+        return c < 0x80 ? c : Character.toLowerCase(c);
+    }
+
+    // ===================== Batch tool =====================
+
+    /**
+     * {@code RhymeClassifier check <wordsDir>} compares every word of a CSV tree
+     * with the category it was filed in and lists the disagreements;
+     * {@code RhymeClassifier split <wordList> <outputDir>} files the words of
+     * one CSV list into category CSVs.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("check")) {
+            Agreement agreement = check(new CsvDirectoryWordSource(new File(args[1])));
+            for (String mismatch : agreement.mismatches) System.out.println(mismatch);
+            System.out.printf("Rhyme classifier agrees on %d of %d words (%.1f%%)%n",
+                    agreement.matching, agreement.total, 100.0 * agreement.matching / Math.max(1, agreement.total));
+        } else if (args.length == 3 && args[0].equals("split")) {
+            Map<String, List<String>> categories;
+            try (InputStream in = new FileInputStream(args[1])) {
+                categories = split(in);
+            }
+            writeCategories(categories, new File(args[2]));
+            System.out.println("Filed into " + categories.size() + " categories");
+        } else {
+            System.err.println("Usage: RhymeClassifier check <wordsDir> | split <wordList> <outputDir>");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * How many distinct words of a source are filed where the classifier would
+     * file them. A word filed in several categories (some lists are copies of
+     * others) counts as matching if any of them is right.
+     */
+    static final class Agreement {
+        int total;
+        int matching;
+        final List<String> mismatches = new ArrayList<>();
+    }
+
+    static Agreement check(WordSource source) throws IOException {
+        Map<String, List<String>> filedIn = new TreeMap<>();
+        for (String key : source.getCategoryKeys()) {
+            for (String word : source.readWords(key)) {
+                List<String> keys = filedIn.get(word);
+                if (keys == null) {
+                    keys = new ArrayList<>();
+                    filedIn.put(word, keys);
+                }
+                if (!keys.contains(key)) keys.add(key);
+            }
+        }
+        RhymeClassifier classifier = new RhymeClassifier(source.getCategoryKeys());
+        Agreement agreement = new Agreement();
+        for (Map.Entry<String, List<String>> entry : filedIn.entrySet()) {
+            String classified = classifier.classify(entry.getKey());
+            agreement.total++;
+            if (entry.getValue().contains(classified)) {
+                agreement.matching++;
+            } else {
+                agreement.mismatches.add(entry.getKey() + ": filed in " + entry.getValue() + ", classified " + classified);
+            }
+        }
+        return agreement;
+    }
+
+    /** Streams a CSV word list into categories, in key order; words without a key are left out. */
+    static Map<String, List<String>> split(InputStream in) throws IOException {
+        RhymeClassifier classifier = new RhymeClassifier();
+        Map<String, List<String>> categories = new TreeMap<>();
+        CsvWordReader.readWords(in, (buffer, offset, length) -> {
+            String key = classifier.classify(buffer, offset, length);
+            if (key == null) return;
+            List<String> words = categories.get(key);
+            if (words == null) {
+                words = new ArrayList<>();
+                categories.put(key, words);
+            }
+            words.add(new String(buffer, offset, length));
+        });
+        return categories;
+    }
+
+    private static void writeCategories(Map<String, List<String>> categories, File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create " + directory);
+        for (Map.Entry<String, List<String>> category : categories.entrySet()) {
+            File file = new File(directory, category.getKey() + ".csv");
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                List<String> words = category.getValue();
+                for (int i = 0; i < words.size(); i++) {
+                    if (i > 0) out.write(", ");
+                    out.write(words.get(i));
+                }
+                out.write('\n');
+            }
+        }
+    }
+}
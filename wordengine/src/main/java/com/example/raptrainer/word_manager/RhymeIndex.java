@@ -0,0 +1,118 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Groups a corpus into rhyme classes so "words that rhyme with W" is a key
+ * computation plus a hash lookup, independent of the corpus size.
+ * Immutable once built; safe to query from any thread.
+ */
+public final class RhymeIndex {
+
+    public enum RhymeType {
+        /** Same sounds from the stressed vowel on ("canción" / "razón"). */
+        CONSONANT,
+        /** Same vowels from the stressed vowel on ("tierna" / "cerca"). */
+        ASSONANT
+    }
+
+    // Class members are ids into the pool, so the index holds no copy of the words
+    private final StringPool words;
+    private final int size;
+    private final Map<String, int[]> consonantClasses;
+    private final Map<String, int[]> assonantClasses;
+
+    private RhymeIndex(StringPool words, int size, Map<String, int[]> consonantClasses, Map<String, int[]> assonantClasses) {
+        this.words = words;
+        this.size = size;
+        this.consonantClasses = consonantClasses;
+        this.assonantClasses = assonantClasses;
+    }
+
+    /** Builds the index; duplicates are ignored. Linear in the number of words. */
+    public static RhymeIndex build(Collection<String> corpus) {
+        StringPool pool = new StringPool(corpus.size());
+        for (String word : corpus) {
+            pool.intern(word);
+        }
+        return build(pool);
+    }
+
+    /** Indexes every word currently in {@code pool}; words interned later are not covered. */
+    public static RhymeIndex build(StringPool pool) {
+        int size = pool.size();
+        Map<String, List<Integer>> consonant = new HashMap<>();
+        Map<String, List<Integer>> assonant = new HashMap<>();
+        for (int id = 0; id < size; id++) {
+            String word = pool.get(id);
+            addTo(consonant, SpanishRhyme.consonantKey(word), id);
+            addTo(assonant, SpanishRhyme.assonantKey(word), id);
+        }
+        return new RhymeIndex(pool, size, toArrays(consonant), toArrays(assonant));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns up to {@code count} distinct random words rhyming with {@code word},
+     * never the word itself. Costs O(count) after the key computation.
+     */
+    public List<String> findRhymes(String word, RhymeType type, int count, Random random) {
+        Map<String, int[]> classes = type == RhymeType.CONSONANT ? consonantClasses : assonantClasses;
+        String key = type == RhymeType.CONSONANT ? SpanishRhyme.consonantKey(word) : SpanishRhyme.assonantKey(word);
+        int[] members = classes.get(key);
+        List<String> rhymes = new ArrayList<>(count);
+        if (members == null) return rhymes;
+
+        int available = members.length;
+        if (available <= count + 1) {
+            for (int id : members) {
+                if (!words.matches(id, word)) rhymes.add(words.get(id));
+            }
+            return rhymes;
+        }
+
+        // Floyd's sampling of distinct positions, then drop the query word if it was drawn
+        Set<Integer> picked = new LinkedHashSet<>();
+        for (int j = available - (count + 1); j < available; j++) {
+            int candidate = random.nextInt(j + 1);
+            picked.add(picked.contains(candidate) ? j : candidate);
+        }
+        for (int position : picked) {
+            int id = members[position];
+            if (rhymes.size() < count && !words.matches(id, word)) rhymes.add(words.get(id));
+        }
+        return rhymes;
+    }
+
+    private static void addTo(Map<String, List<Integer>> classes, String key, int id) {
+        List<Integer> members = classes.get(key);
+        if (members == null) {
+            members = new ArrayList<>();
+            classes.put(key, members);
+        }
+        members.add(id);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> classes) {
+        Map<String, int[]> arrays = new HashMap<>(classes.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : classes.entrySet()) {
+            List<Integer> members = entry.getValue();
+            int[] ids = new int[members.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = members.get(i);
+            }
+            arrays.put(entry.getKey(), ids);
+        }
+        return arrays;
+    }
+}
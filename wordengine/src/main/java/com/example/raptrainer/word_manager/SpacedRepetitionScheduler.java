@@ -0,0 +1,50 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Random;
+
+/**
+ * Draws positions of a {@link WordSelection} with probability proportional to
+ * each word's {@link WordStats#weight}, so words the user stumbles on come back
+ * sooner. A drawn word sits out the next few draws; when it comes back its
+ * weight is recomputed from the stats it has collected meanwhile.
+ * Building is O(n), every draw O(log n).
+ */
+final class SpacedRepetitionScheduler {
+    static final int MAX_COOLDOWN = 16;
+
+    private final WordSelection selection;
+    private final WordStats stats;
+    private final WeightedSampler sampler;
+    // Ring of the positions sitting out, oldest at head
+    private final int[] coolingDown;
+    private int head;
+    private int cooling;
+
+    SpacedRepetitionScheduler(WordSelection selection, WordStats stats, long nowMillis) {
+        this.selection = selection;
+        this.stats = stats;
+        long[] weights = new long[selection.size()];
+        for (int position = 0; position < weights.length; position++) {
+            weights[position] = stats.weight(selection.get(position), nowMillis);
+        }
+        this.sampler = new WeightedSampler(weights);
+        this.coolingDown = new int[Math.max(0, Math.min(MAX_COOLDOWN, weights.length - 1))];
+    }
+
+    /** A position to show next, or -1 if the selection is empty. */
+    int next(Random random, long nowMillis) {
+        int position = sampler.sample(random);
+        if (position < 0 || coolingDown.length == 0) return position;
+
+        if (cooling == coolingDown.length) {
+            int released = coolingDown[head];
+            head = (head + 1) % coolingDown.length;
+            cooling--;
+            sampler.setWeight(released, stats.weight(selection.get(released), nowMillis));
+        }
+        sampler.setWeight(position, 0);
+        coolingDown[(head + cooling) % coolingDown.length] = position;
+        cooling++;
+        return position;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Locale;
+
+/**
+ * Rhyme keys for Spanish words, computed from the stressed vowel onwards.
+ *
+ * Stress follows the written rules: an accent mark wins, otherwise words ending
+ * in a vowel, n or s stress the second-to-last vowel group and the rest the last.
+ * Spelling is normalized to sound (b/v, s/z/soft c, y/ll, silent h and u in
+ * que/qui/gue/gui) so that, e.g., "nave" and "cabe" share a consonant key.
+ */
+public final class SpanishRhyme {
+
+    private SpanishRhyme() {
+    }
+
+    /** Everything from the stressed vowel to the end, normalized to sound: "canción" -> "on". */
+    public static String consonantKey(String word) {
+        String phonetic = toPhonetic(word);
+        int stressed = stressedVowelIndex(phonetic);
+        return stressed < 0 ? phonetic : stripAccents(phonetic.substring(stressed));
+    }
+
+    /** Only the vowels from the stressed one on, ignoring glides: "tierna" -> "ea", "agua" -> "aa". */
+    public static String assonantKey(String word) {
+        String phonetic = toPhonetic(word);
+        int stressed = stressedVowelIndex(phonetic);
+        if (stressed < 0) return "";
+
+        StringBuilder vowels = new StringBuilder();
+        vowels.append(baseVowel(phonetic.charAt(stressed)));
+        int i = stressed + 1;
+        // Skip the rest of the stressed vowel group
+        while (i < phonetic.length() && isVowel(phonetic.charAt(i)) && !startsHiatus(phonetic, i)) i++;
+        while (i < phonetic.length()) {
+            if (!isVowel(phonetic.charAt(i))) {
+                i++;
+                continue;
+            }
+            int groupStart = i;
+            while (i < phonetic.length() && isVowel(phonetic.charAt(i)) && (i == groupStart || !startsHiatus(phonetic, i))) i++;
+            vowels.append(baseVowel(phonetic.charAt(nucleus(phonetic, groupStart, i))));
+        }
+        return vowels.toString();
+    }
+
+    /** The stressed vowel without accent, or 0 if the word has no vowel. */
+    public static char stressedVowel(String word) {
+        String phonetic = toPhonetic(word);
+        int stressed = stressedVowelIndex(phonetic);
+        return stressed < 0 ? 0 : baseVowel(phonetic.charAt(stressed));
+    }
+
+    // ===================== Internal Logic =====================
+
+    /** Index of the stressed vowel in an already normalized word, -1 if there is none. */
+    static int stressedVowelIndex(String phonetic) {
+        int groups = 0;
+        int lastStart = -1;
+        int lastEnd = -1;
+        int previousStart = -1;
+        int previousEnd = -1;
+
+        int i = 0;
+        while (i < phonetic.length()) {
+            char c = phonetic.charAt(i);
+            if (!isVowel(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < phonetic.length() && isVowel(phonetic.charAt(i)) && (i == start || !startsHiatus(phonetic, i))) i++;
+            for (int j = start; j < i; j++) {
+                if (isAccented(phonetic.charAt(j))) return j;
+            }
+            previousStart = lastStart;
+            previousEnd = lastEnd;
+            lastStart = start;
+            lastEnd = i;
+            groups++;
+        }
+        if (groups == 0) return -1;
+
+        char last = phonetic.charAt(phonetic.length() - 1);
+        boolean penultimate = groups > 1 && (isVowel(last) || last == 'n' || last == 's');
+        return penultimate ? nucleus(phonetic, previousStart, previousEnd) : nucleus(phonetic, lastStart, lastEnd);
+    }
+
+    /** The vowel carrying a vowel group: accented, else strong (a, e, o), else the last one. */
+    private static int nucleus(String phonetic, int start, int end) {
+        for (int j = start; j < end; j++) {
+            if (isAccented(phonetic.charAt(j))) return j;
+        }
+        for (int j = start; j < end; j++) {
+            if (isStrong(phonetic.charAt(j))) return j;
+        }
+        return end - 1;
+    }
+
+    /** True when the vowel at i starts a new syllable rather than joining the previous vowel. */
+    private static boolean startsHiatus(String phonetic, int i) {
+        char previous = phonetic.charAt(i - 1);
+        char current = phonetic.charAt(i);
+        boolean previousStrong = isStrong(previous) || isAccented(previous);
+        boolean currentStrong = isStrong(current) || isAccented(current);
+        return previousStrong && currentStrong;
+    }
+
+    /** Lower-cases and rewrites spelling that sounds alike into a single form. */
+    static String toPhonetic(String word) {
+        String lower = word.trim().toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            char next = i + 1 < lower.length() ? lower.charAt(i + 1) : 0;
+            switch (c) {
+                case 'h':
+                    if (i > 0 && lower.charAt(i - 1) == 'c') {
+                        out.setCharAt(out.length() - 1, 'ĉ'); // "ch" as a single sound
+                    }
+                    break;
+                case 'v':
+                    out.append('b');
+                    break;
+                case 'z':
+                    out.append('s');
+                    break;
+                case 'c':
+                    out.append(isFrontVowel(next) ? 's' : 'k');
+                    break;
+                case 'q':
+                    out.append('k');
+                    if (next == 'u') i++;
+                    break;
+                case 'g':
+                    out.append('g');
+                    if (next == 'u' && i + 2 < lower.length() && isFrontVowel(lower.charAt(i + 2))) i++;
+                    break;
+                case 'l':
+                    if (next == 'l') {
+                        out.append('y');
+                        i++;
+                    } else {
+                        out.append('l');
+                    }
+                    break;
+                case 'ü':
+                    out.append('u');
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String stripAccents(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            out.append(isVowel(c) ? baseVowel(c) : c);
+        }
+        return out.toString();
+    }
+
+    static boolean isVowel(char c) {
+        switch (c) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+            case 'á': case 'é': case 'í': case 'ó': case 'ú':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isStrong(char c) {
+        return c == 'a' || c == 'e' || c == 'o';
+    }
+
+    private static boolean isAccented(char c) {
+        return c == 'á' || c == 'é' || c == 'í' || c == 'ó' || c == 'ú';
+    }
+
+    private static boolean isFrontVowel(char c) {
+        return c == 'e' || c == 'i' || c == 'é' || c == 'í';
+    }
+
+    static char baseVowel(char c) {
+        switch (c) {
+            case 'á': return 'a';
+            case 'é': return 'e';
+            case 'í': return 'i';
+            case 'ó': return 'o';
+            case 'ú': return 'u';
+            default: return c;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Arrays;
+
+/**
+ * Deduplicated word storage: every distinct word is kept once, back to back in a
+ * single {@code char[]}, and is addressed by a dense int id in first-seen order.
+ * A word costs its characters plus one offset and one hash slot instead of a
+ * String, a char[] and a list slot per occurrence.
+ * <p>
+ * {@link #intern} is synchronized; {@link #get} and the other readers are lock-free
+ * and may be called from any thread for ids that were handed to it.
+ */
+public final class StringPool {
+    private static final int EMPTY = -1;
+
+    // Replaced (never mutated below the published size) on growth, chars before offsets
+    private volatile char[] chars;
+    private volatile int[] offsets;
+    private int size;
+    private int charCount;
+    // Open addressing, linear probing: slot -> id, or EMPTY
+    private int[] table;
+
+    public StringPool() {
+        this(256);
+    }
+
+    public StringPool(int expectedWords) {
+        int capacity = Math.max(4, expectedWords);
+        chars = new char[capacity * 8];
+        offsets = new int[capacity + 1];
+        table = new int[tableSizeFor(capacity)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /** Id of the word {@code buffer[offset, offset + length)}, adding it if it is new. */
+    public synchronized int intern(char[] buffer, int offset, int length) {
+        int hash = hash(buffer, offset, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (int id; (id = table[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (matches(id, buffer, offset, length)) return id;
+        }
+
+        char[] newChars = chars;
+        if (charCount + length > newChars.length) {
+            newChars = Arrays.copyOf(newChars, Math.max(newChars.length * 2, charCount + length));
+        }
+        int[] newOffsets = offsets;
+        if (size + 2 > newOffsets.length) {
+            newOffsets = Arrays.copyOf(newOffsets, newOffsets.length * 2);
+        }
+        System.arraycopy(buffer, offset, newChars, charCount, length);
+        charCount += length;
+        int id = size++;
+        newOffsets[id + 1] = charCount;
+        chars = newChars;
+        offsets = newOffsets;
+
+        table[slot] = id;
+        if (size * 4 > table.length * 3) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    public int intern(String word) {
+        return intern(word.toCharArray(), 0, word.length());
+    }
+
+    /** A new String holding the word; callers that only compare should use {@link #matches}. */
+    public String get(int id) {
+        int[] currentOffsets = offsets;
+        char[] currentChars = chars;
+        int start = currentOffsets[id];
+        return new String(currentChars, start, currentOffsets[id + 1] - start);
+    }
+
+    public boolean matches(int id, String word) {
+        int[] currentOffsets = offsets;
+        char[] currentChars = chars;
+        int start = currentOffsets[id];
+        int length = currentOffsets[id + 1] - start;
+        if (length != word.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (currentChars[start + i] != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Number of distinct words so far. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Characters stored, i.e. the pool's payload in chars. */
+    public synchronized int charCount() {
+        return charCount;
+    }
+
+    private boolean matches(int id, char[] buffer, int offset, int length) {
+        int[] currentOffsets = offsets;
+        char[] currentChars = chars;
+        int start = currentOffsets[id];
+        if (currentOffsets[id + 1] - start != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (currentChars[start + i] != buffer[offset + i]) return false;
+        }
+        return true;
+    }
+
+    /** Same hash as {@link String#hashCode()}, spread so the low bits depend on every char. */
+    private static int hash(char[] buffer, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash(int newLength) {
+        int[] newTable = new int[newLength];
+        Arrays.fill(newTable, EMPTY);
+        int mask = newLength - 1;
+        for (int id = 0; id < size; id++) {
+            int start = offsets[id];
+            int slot = hash(chars, start, offsets[id + 1] - start) & mask;
+            while (newTable[slot] != EMPTY) slot = (slot + 1) & mask;
+            newTable[slot] = id;
+        }
+        table = newTable;
+    }
+
+    private static int tableSizeFor(int words) {
+        int size = 1;
+        while (size * 3 < words * 4) size <<= 1;
+        return size * 2;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * How related words are to each theme, e.g. "deporte": "gol" 255, "golpe" 120.
+ * Compiled at build time by {@link ThemeIndexCompiler}; at runtime a theme's
+ * words are ids of the corpus' {@link StringPool}, so asking for a word's
+ * relevance is a bit test and, for the few related words, a binary search.
+ *
+ * Layout (big-endian ints):
+ * <pre>
+ * magic, version, themeCount
+ * per theme: label (modified UTF-8), int listBytes,
+ *            {@link CompactWordList} of its words (listBytes),
+ *            byte[wordCount] relevance 1..255, in word order
+ * </pre>
+ */
+public final class ThemeIndex {
+    public static final String ASSET_NAME = "themes.idx";
+
+    static final int MAGIC = 0x52545448; // "RTTH"
+    static final int VERSION = 1;
+
+    /** One theme's related words. Immutable. */
+    public static final class Theme {
+        public final String label;
+        private final int[] wordIds; // ascending
+        private final byte[] scores; // by wordIds index, unsigned
+        private final BitSet members = new BitSet();
+
+        Theme(String label, int[] wordIds, byte[] scores) {
+            this.label = label;
+            this.wordIds = wordIds;
+            this.scores = scores;
+            for (int id : wordIds) members.set(id);
+        }
+
+        /** Relevance of a word, 1 to 255, or 0 when it is not related. */
+        public int score(int wordId) {
+            if (wordId < 0 || !members.get(wordId)) return 0;
+            return scores[Arrays.binarySearch(wordIds, wordId)] & 0xFF;
+        }
+
+        /** Number of related words. */
+        public int size() {
+            return wordIds.length;
+        }
+    }
+
+    private final Map<String, Theme> themes;
+
+    private ThemeIndex(Map<String, Theme> themes) {
+        this.themes = themes;
+    }
+
+    /** Theme labels in file order. */
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(new ArrayList<>(themes.keySet()));
+    }
+
+    /** The theme called {@code label}, or null. */
+    public Theme get(String label) {
+        return themes.get(label);
+    }
+
+    /** Reads an index, interning its words into {@code pool}; the stream is left open. */
+    public static ThemeIndex read(InputStream inputStream, StringPool pool) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) throw new IOException("Not a theme index");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported theme index version: " + version);
+        int themeCount = in.readInt();
+
+        Map<String, Theme> themes = new LinkedHashMap<>();
+        for (int t = 0; t < themeCount; t++) {
+            String label = in.readUTF();
+            byte[] list = new byte[in.readInt()];
+            in.readFully(list);
+            int[] ids = CompactWordList.readWordIds(new ByteArrayInputStream(list), pool);
+            byte[] scores = new byte[ids.length];
+            in.readFully(scores);
+
+            // Sorted by id for lookups; ids stay below 2^31, so id and score pack into a long
+            long[] pairs = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) pairs[i] = (long) ids[i] << 8 | (scores[i] & 0xFF);
+            Arrays.sort(pairs);
+            int[] sortedIds = new int[pairs.length];
+            byte[] sortedScores = new byte[pairs.length];
+            for (int i = 0; i < pairs.length; i++) {
+                sortedIds[i] = (int) (pairs[i] >>> 8);
+                sortedScores[i] = (byte) pairs[i];
+            }
+            themes.put(label, new Theme(label, sortedIds, sortedScores));
+        }
+        return new ThemeIndex(themes);
+    }
+
+    /**
+     * Writes an index; the stream is left open.
+     *
+     * @param themes word relevance 1..255 by theme label, in display order
+     */
+    public static void write(OutputStream outputStream, Map<String, SortedMap<String, Integer>> themes) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(themes.size());
+        for (Map.Entry<String, SortedMap<String, Integer>> theme : themes.entrySet()) {
+            ByteArrayOutputStream list = new ByteArrayOutputStream();
+            byte[] scores = new byte[theme.getValue().size()];
+            int count = 0;
+            try (CompactWordList.Writer writer = new CompactWordList.Writer(list, theme.getKey())) {
+                for (Map.Entry<String, Integer> word : theme.getValue().entrySet()) {
+                    int score = word.getValue();
+                    if (score < 1 || score > 255) throw new IllegalArgumentException("Score out of range: " + word);
+                    writer.add(word.getKey());
+                    scores[count++] = (byte) score;
+                }
+            }
+            out.writeUTF(theme.getKey());
+            out.writeInt(list.size());
+            list.writeTo(out);
+            out.write(scores, 0, count);
+        }
+        out.flush();
+    }
+}
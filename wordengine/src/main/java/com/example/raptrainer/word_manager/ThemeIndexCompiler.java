@@ -0,0 +1,163 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compiles the themes into a {@link ThemeIndex} file. Each theme has a lexicon,
+ * "&lt;slug&gt;.csv" in the lexicon directory, e.g. deporte.csv for "deporte":
+ * its first line lists the theme's own words, e.g. "gol", and each further line
+ * words associated with it more loosely, e.g. "guante" and then "calambre".
+ * A corpus word on the first line is fully related, one on a later line half
+ * as much as one on the line before, and a word's inflection, e.g. "iglesias"
+ * or "futbolista", less than the word itself. Sharing a prefix is not enough:
+ * "sector" is no form of "secta". Run by the app's
+ * generateWordIndex build tasks:
+ * {@code ThemeIndexCompiler <wordsDir> <themesFile> <lexiconDir> <outputFile>}.
+ */
+public final class ThemeIndexCompiler {
+    static final int SEED_SCORE = 255;
+    static final int PLURAL_SCORE = 224;
+    static final int DERIVATION_SCORE = 128;
+    // Shorter stems take suffixes that make unrelated words, e.g. "costo" and "costera"
+    private static final int MIN_STEM = 5;
+    private static final String VOWELS = "aeiou";
+    private static final String[] DERIVATION_SUFFIXES = {"ista", "ero", "era"};
+
+    private ThemeIndexCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: ThemeIndexCompiler <wordsDir> <themesFile> <lexiconDir> <outputFile>");
+            System.exit(2);
+        }
+        List<String> labels;
+        try (InputStream in = new FileInputStream(args[1])) {
+            labels = CsvWordReader.readWords(in);
+        }
+        compile(new CsvDirectoryWordSource(new File(args[0])), labels, new File(args[2]), new File(args[3]));
+    }
+
+    public static void compile(WordSource source, List<String> labels, File lexiconDir, File outputFile) throws IOException {
+        Collection<String> words = new TreeSet<>();
+        for (String key : source.getCategoryKeys()) words.addAll(source.readWords(key));
+
+        Map<String, SortedMap<String, Integer>> themes = new LinkedHashMap<>();
+        for (String label : labels) {
+            File lexicon = new File(lexiconDir, ImportedWordSource.slug(label) + ".csv");
+            List<List<String>> tiers = Collections.emptyList();
+            if (lexicon.isFile()) {
+                tiers = readLexicon(lexicon);
+            } else {
+                System.err.println("No lexicon for theme " + label + ": " + lexicon);
+            }
+            SortedMap<String, Integer> scores = score(words, tiers);
+            themes.put(label, scores);
+            System.out.println("Theme " + label + ": " + scores.size() + " of " + words.size() + " words related");
+        }
+
+        File parent = outputFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            ThemeIndex.write(out, themes);
+        }
+    }
+
+    /** The lines of a lexicon file, each split like a category CSV; blank lines are kept as empty tiers. */
+    static List<List<String>> readLexicon(File lexicon) throws IOException {
+        List<List<String>> tiers = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(lexicon), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> tier = new ArrayList<>();
+                for (String word : line.split(",")) {
+                    word = word.replace("\uFEFF", "").trim();
+                    if (!word.isEmpty()) tier.add(word);
+                }
+                tiers.add(tier);
+            }
+        }
+        return tiers;
+    }
+
+    /** {@link #score(Collection, List)} of a lexicon with {@code seeds} as its only line. */
+    static SortedMap<String, Integer> score(Collection<String> words, Collection<String> seeds) {
+        return score(words, Collections.singletonList(seeds));
+    }
+
+    /**
+     * Relevance of each of {@code words} to a theme described by the tiers of
+     * its lexicon, compared without accents or case; unrelated words are left
+     * out. A word of the first tier scores {@link #SEED_SCORE}, of each further
+     * tier half as much as of the one before. Only inflections of a lexicon
+     * word count: a plural scores almost like the word, a derivation such as
+     * "futbolista" about half as much.
+     */
+    static SortedMap<String, Integer> score(Collection<String> words, List<? extends Collection<String>> tiers) {
+        Map<String, Integer> related = new HashMap<>();
+        for (int tier = 0; tier < tiers.size(); tier++) {
+            for (String seed : tiers.get(tier)) {
+                String normalized = CategoryTree.normalize(seed.trim());
+                if (normalized.isEmpty()) continue;
+                relate(related, normalized, SEED_SCORE >> tier);
+                addInflections(related, normalized, tier);
+            }
+        }
+
+        SortedMap<String, Integer> scores = new TreeMap<>();
+        for (String word : words) {
+            Integer score = related.get(CategoryTree.normalize(word));
+            if (score != null) scores.put(word, score);
+        }
+        return scores;
+    }
+
+    /**
+     * Relates the inflected forms of a normalized seed: "pelota" gives
+     * "pelotas", "pelotero", "pelotista" and their plurals; "gol" only
+     * "goles", as its stem is too short to tell derivations from other words.
+     * The other gender is left out: it is as often another word, e.g.
+     * "cuenta" and "cuento", as the same one. The scores are those of
+     * {@code tier}, like the seed's own.
+     */
+    static void addInflections(Map<String, Integer> related, String seed, int tier) {
+        char last = seed.charAt(seed.length() - 1);
+        boolean vowel = VOWELS.indexOf(last) >= 0;
+        relate(related, seed + (vowel ? "s" : "es"), PLURAL_SCORE >> tier);
+        String stem = vowel ? seed.substring(0, seed.length() - 1) : seed;
+        if (stem.length() < MIN_STEM) return;
+        for (String suffix : DERIVATION_SUFFIXES) {
+            relate(related, stem + suffix, DERIVATION_SCORE >> tier);
+            relate(related, stem + suffix + "s", DERIVATION_SCORE >> tier);
+        }
+    }
+
+    /** A form reachable from several lexicon words keeps its best score; a tier too deep to score relates nothing. */
+    private static void relate(Map<String, Integer> related, String form, int score) {
+        if (score == 0) return;
+        Integer previous = related.get(form);
+        if (previous == null || previous < score) related.put(form, score);
+    }
+}
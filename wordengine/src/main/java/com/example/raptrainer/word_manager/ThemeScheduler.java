@@ -0,0 +1,69 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Draws the words of a {@link WordSelection} that belong to a theme, with
+ * probability proportional to their relevance, each once until {@link #refill}.
+ * Building is one bit test per position of the selection; every draw O(log n)
+ * in the number of related words.
+ */
+final class ThemeScheduler {
+    private final int[] wordIds;
+    private final long[] weights;
+    private final WeightedSampler sampler;
+    private int remaining;
+
+    ThemeScheduler(ThemeIndex.Theme theme, WordSelection selection) {
+        int[] ids = new int[Math.min(theme.size(), selection.size())];
+        long[] scores = new long[ids.length];
+        BitSet seen = new BitSet();
+        int count = 0;
+        for (int position = 0; position < selection.size() && count < ids.length; position++) {
+            int wordId = selection.get(position);
+            int score = theme.score(wordId);
+            // A word in several selected categories is drawn once
+            if (score == 0 || seen.get(wordId)) continue;
+            seen.set(wordId);
+            ids[count] = wordId;
+            scores[count++] = score;
+        }
+        wordIds = Arrays.copyOf(ids, count);
+        weights = Arrays.copyOf(scores, count);
+        sampler = new WeightedSampler(weights);
+        remaining = count;
+    }
+
+    /** Related words not drawn since the last refill. */
+    int remaining() {
+        return remaining;
+    }
+
+    /** A related word id, or -1 when every one has been drawn. */
+    int next(Random random) {
+        int position = sampler.sample(random);
+        if (position < 0) return -1;
+        sampler.setWeight(position, 0);
+        remaining--;
+        return wordIds[position];
+    }
+
+    /** Makes a drawn word drawable again, e.g. one drawn ahead and then dropped; O(n). */
+    void putBack(int wordId) {
+        for (int position = 0; position < wordIds.length; position++) {
+            if (wordIds[position] == wordId && sampler.getWeight(position) == 0) {
+                sampler.setWeight(position, weights[position]);
+                remaining++;
+                return;
+            }
+        }
+    }
+
+    /** Makes every related word drawable again. */
+    void refill() {
+        for (int position = 0; position < weights.length; position++) sampler.setWeight(position, weights[position]);
+        remaining = weights.length;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.Random;
+
+/**
+ * Draws positions with probability proportional to their weight, backed by a
+ * Fenwick tree: building is O(n), and drawing and reweighting are O(log n).
+ * Weights are integers so sums never drift.
+ */
+final class WeightedSampler {
+    private final long[] weights;
+    // 1-based Fenwick tree over weights
+    private final long[] tree;
+    private final int highestBit;
+    private long total;
+
+    WeightedSampler(long[] initialWeights) {
+        int size = initialWeights.length;
+        weights = initialWeights.clone();
+        tree = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            if (weights[i] < 0) throw new IllegalArgumentException("Negative weight at " + i);
+            total += weights[i];
+            tree[i + 1] += weights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= size) tree[parent] += tree[i + 1];
+        }
+        highestBit = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    int size() {
+        return weights.length;
+    }
+
+    long getWeight(int position) {
+        return weights[position];
+    }
+
+    void setWeight(int position, long weight) {
+        if (weight < 0) throw new IllegalArgumentException("Negative weight: " + weight);
+        long delta = weight - weights[position];
+        if (delta == 0) return;
+        weights[position] = weight;
+        total += delta;
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    /** The position whose cumulative weight range contains {@code target}, for 0 <= target < total(). */
+    int find(long target) {
+        int position = 0;
+        for (int step = highestBit; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /** A random position, or -1 when every weight is zero. */
+    int sample(Random random) {
+        if (total <= 0) return -1;
+        long target = (long) (random.nextDouble() * total);
+        return find(Math.min(target, total - 1));
+    }
+}
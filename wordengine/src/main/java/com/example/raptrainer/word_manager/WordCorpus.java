@@ -0,0 +1,155 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Everything about the words that can be shared between drill sessions:
+ * the category registry, lazily loaded word lists, the rhyme index and the themes.
+ * Words are stored once in a {@link StringPool}; categories are arrays of word ids.
+ * Thread-safe; background work runs on a single low-priority daemon thread.
+ */
+public class WordCorpus {
+    private final StringPool pool = new StringPool(4096);
+    private final WordStats stats = new WordStats();
+    private final CategoryCache categoryCache;
+    private final CategoryRegistry categoryRegistry;
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "word-prefetch");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile RhymeIndex rhymeIndex;
+    private volatile ThemeIndex themeIndex;
+    private CategoryTree categoryTree;
+
+    /**
+     * Reads category metadata only.
+     *
+     * @param knownIdOrder category keys in id order from a previous run, see {@link CategoryRegistry}
+     */
+    public WordCorpus(WordSource wordSource, List<String> knownIdOrder) {
+        long start = Instrumentation.begin(Instrumentation.Timer.CACHE_BUILD);
+        categoryCache = new CategoryCache(wordSource, pool, backgroundExecutor);
+        Map<String, String> labels = new HashMap<>();
+        for (String key : categoryCache.getKeys()) {
+            String label = categoryCache.getPrecomputedLabel(key);
+            if (label != null) labels.put(key, label);
+        }
+        categoryRegistry = new CategoryRegistry(categoryCache.getKeys(), labels, knownIdOrder);
+        Instrumentation.end(Instrumentation.Timer.CACHE_BUILD, start);
+    }
+
+    public CategoryRegistry getRegistry() {
+        return categoryRegistry;
+    }
+
+    /** Word ids of a category, loaded on the calling thread if needed. Shared; do not modify. */
+    public int[] getWordIds(int categoryId) {
+        return categoryCache.getWordIds(categoryRegistry.get(categoryId).key);
+    }
+
+    /** Words of a category as Strings; allocates one per word, prefer {@link #getWordIds}. */
+    public List<String> getWords(int categoryId) {
+        int[] ids = getWordIds(categoryId);
+        List<String> words = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            words.add(pool.get(id));
+        }
+        return words;
+    }
+
+    /** Words in a category, without loading it when the source knows; -1 when it does not. */
+    public int getWordCount(int categoryId) {
+        return categoryCache.getWordCount(categoryRegistry.get(categoryId).key);
+    }
+
+    /** The categories grouped for the picker; built on first use, then shared. */
+    public synchronized CategoryTree getCategoryTree() {
+        if (categoryTree == null) {
+            int[] wordCounts = new int[categoryRegistry.getIdLimit()];
+            for (int id = 0; id < wordCounts.length; id++) {
+                wordCounts[id] = categoryRegistry.get(id) != null ? getWordCount(id) : 0;
+            }
+            categoryTree = new CategoryTree(categoryRegistry, wordCounts);
+        }
+        return categoryTree;
+    }
+
+    /** The word behind an id from {@link #getWordIds}. */
+    public String getWord(int wordId) {
+        return pool.get(wordId);
+    }
+
+    public StringPool getPool() {
+        return pool;
+    }
+
+    /** Per-word practice stats shared by every engine on this corpus, see {@link WordEngine#setSpacedRepetition}. */
+    public WordStats getStats() {
+        return stats;
+    }
+
+    /** Loads the given categories in the background. */
+    public void prefetch(BitSet categoryIds) {
+        categoryCache.prefetch(keysOf(categoryIds));
+    }
+
+    /** Loads every category on the calling thread. */
+    public void loadAll() {
+        categoryCache.loadAll();
+    }
+
+    /** Drops the word lists of every category outside {@code retainedIds}. */
+    public void evictExcept(BitSet retainedIds) {
+        categoryCache.evictExcept(keysOf(retainedIds));
+    }
+
+    /** Rhyme index over the whole corpus, or null until {@link #requestRhymeIndex()} has finished. */
+    public RhymeIndex getRhymeIndex() {
+        return rhymeIndex;
+    }
+
+    /** Builds the rhyme index in the background if it does not exist yet. */
+    public void requestRhymeIndex() {
+        if (rhymeIndex == null) {
+            backgroundExecutor.execute(this::buildRhymeIndex);
+        }
+    }
+
+    /** Word relevance by theme, or null until {@link #loadThemes} has run. */
+    public ThemeIndex getThemeIndex() {
+        return themeIndex;
+    }
+
+    /** Reads a {@link ThemeIndex} into this corpus' pool; the stream is left open. */
+    public void loadThemes(InputStream inputStream) throws IOException {
+        themeIndex = ThemeIndex.read(inputStream, pool);
+    }
+
+    private synchronized void buildRhymeIndex() {
+        if (rhymeIndex != null) return;
+        long start = Instrumentation.begin(Instrumentation.Timer.RHYME_INDEX);
+        categoryCache.loadAll();
+        rhymeIndex = RhymeIndex.build(pool);
+        Instrumentation.end(Instrumentation.Timer.RHYME_INDEX, start);
+    }
+
+    private Collection<String> keysOf(BitSet categoryIds) {
+        List<String> keys = new ArrayList<>(categoryIds.cardinality());
+        for (int id = categoryIds.nextSetBit(0); id >= 0; id = categoryIds.nextSetBit(id + 1)) {
+            CategoryRegistry.Category category = categoryRegistry.get(id);
+            if (category != null) keys.add(category.key);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,662 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One drill session over a {@link WordCorpus}: the selected categories, the
+ * shuffled draw through them, the optional rhyme chain and theme.
+ * Not thread-safe; use one engine per session. Has no Android dependency, so
+ * the same selection and shuffle logic runs on a device and on a server.
+ */
+public class WordEngine {
+    private static final int RHYME_CANDIDATES = 4;
+    private static final int RECENT_RHYME_HISTORY = 16;
+    // Share of draws given to words of the chosen theme while any are left
+    private static final double THEME_SHARE = 0.5;
+
+    private final WordCorpus corpus;
+    private final CategoryRegistry registry;
+    private final BitSet selectedCategories = new BitSet();
+    private final BitSet activeCategories = new BitSet();
+    // The active categories' lists in display order, and the category of each list
+    private WordSelection selection = new WordSelection();
+    private int[] selectionIds = new int[0];
+    private final Random random;
+    private final ArrayDeque<String> recentWords = new ArrayDeque<>();
+
+    // The draw: shuffle number round, each an IndexPermutation of the seed over the selection
+    // as of its start. Categories added part way through are further segments, see applySelection.
+    private long seed;
+    private long round;
+    private final List<QueueSegment> segments = new ArrayList<>();
+    private int drawn;               // words drawn in this round
+    // The active rows at the start of the round and the selection changes since, for sessions
+    private int[] roundRows = new int[0];
+    private final List<DrillSession.Change> changes = new ArrayList<>();
+
+    private boolean allowRepeat = false;
+    private boolean rhymeChain = false;
+    private boolean spacedRepetition = false;
+    // Built on the first weighted draw after the selection changed or the draw was reset
+    private SpacedRepetitionScheduler scheduler;
+    private ThemeIndex.Theme theme;
+    // Built on the first themed draw after the selection or the theme changed
+    private ThemeScheduler themeScheduler;
+    private String lastWord;
+    private int lastWordId = -1;
+    // Words drawn ahead of being shown, oldest first, see peekNextWords. Queue draws among them moved
+    // aheadSegments, copies of the segments, which the segments catch up with as the words are shown.
+    private final ArrayDeque<Drawn> ahead = new ArrayDeque<>();
+    private List<QueueSegment> aheadSegments; // null until a queue draw is ahead
+    private long aheadRound;
+    private int aheadDrawn;
+
+    public WordEngine(WordCorpus corpus) {
+        this(corpus, new Random());
+    }
+
+    public WordEngine(WordCorpus corpus, Random random) {
+        this.corpus = corpus;
+        this.registry = corpus.getRegistry();
+        this.random = random;
+    }
+
+    public WordCorpus getCorpus() {
+        return corpus;
+    }
+
+    // ===================== Selection =====================
+
+    /** Pending selection, by category id; returns a copy. */
+    public BitSet getSelectedCategories() {
+        return (BitSet) selectedCategories.clone();
+    }
+
+    /** Replaces the pending selection; ids of absent categories are ignored. */
+    public void setSelectedCategories(BitSet categoryIds) {
+        selectedCategories.clear();
+        selectedCategories.or(categoryIds);
+        selectedCategories.and(registry.getPresentMask());
+    }
+
+    public boolean isCategorySelected(int categoryId) {
+        return selectedCategories.get(categoryId);
+    }
+
+    public void setCategorySelected(int categoryId, boolean selected) {
+        selectedCategories.set(categoryId, selected);
+    }
+
+    public void selectAllCategories() {
+        selectedCategories.or(registry.getPresentMask());
+    }
+
+    public void deselectAllCategories() {
+        selectedCategories.clear();
+    }
+
+    /** Selects or deselects every category with the given stressed vowel. */
+    public void setVowelSelected(char vowel, boolean selected) {
+        BitSet vowelMask = registry.getVowelMask(vowel);
+        if (selected) {
+            selectedCategories.or(vowelMask);
+        } else {
+            selectedCategories.andNot(vowelMask);
+        }
+    }
+
+    /** Categories the current draw comes from, i.e. the selection as of the last apply; returns a copy. */
+    public BitSet getActiveCategories() {
+        return (BitSet) activeCategories.clone();
+    }
+
+    /**
+     * Makes the pending selection active. Before the first word of a shuffle
+     * this restarts the draw; later on only the difference is applied, so the
+     * user keeps their progress: words of added categories join the unseen
+     * rest of the shuffle at random positions, words of removed ones leave it,
+     * and shown words stay shown. That costs the size of the added and removed
+     * categories, not of the selection. Loads the newly selected categories on
+     * the calling thread and prefetches their neighbours.
+     */
+    public void applySelection() {
+        long start = Instrumentation.begin(Instrumentation.Timer.SELECTION_UPDATE);
+        dropAhead();
+        if (drawn == 0) {
+            applyFully();
+        } else {
+            // 32 bits like the shuffle seed, since sessions record it
+            applyChanges(random.nextInt() & 0xFFFFFFFFL);
+        }
+        prefetchNeighbourCategories();
+        Instrumentation.end(Instrumentation.Timer.SELECTION_UPDATE, start);
+    }
+
+    // ===================== Sessions =====================
+
+    /**
+     * The active selection and the position of the draw, as a few bytes, plus
+     * the selection changes made part way through the shuffle. The position is
+     * that of the word last returned, so restoring the session returns it again
+     * first; words drawn ahead by {@link #peekNextWords} are drawn again.
+     */
+    public DrillSession snapshot() {
+        return DrillSession.create(seed, roundRows, changes, keysAt(DrillSession.referencedRows(roundRows, changes)),
+                round, Math.max(0, drawn - 1), allowRepeat);
+    }
+
+    /**
+     * Selects the session's categories, applies them and moves the draw to the
+     * session's position, loading the categories on the calling thread.
+     * Also takes over the session's repeat setting.
+     *
+     * @throws IllegalArgumentException if the session was made for another word list
+     */
+    public void restore(DrillSession session) {
+        List<DrillSession.Change> sessionChanges = session.getChanges();
+        int[] rows = DrillSession.referencedRows(session.getRoundRows(), sessionChanges);
+        for (int row : rows) {
+            if (row >= registry.size()) throw new IllegalArgumentException("Session has unknown category row " + row);
+        }
+        if (!session.matches(keysAt(rows))) {
+            throw new IllegalArgumentException("Session was made for a different word list");
+        }
+        dropAhead();
+
+        setSelectedCategories(idsAt(session.getRoundRows()));
+        applyFully();
+        seed = session.getSeed();
+        round = session.getRound();
+        int index = session.getIndex();
+        if (sessionChanges.isEmpty()) {
+            if (index > selection.size()) {
+                throw new IllegalArgumentException("Session position " + index + " is past the selection");
+            }
+            startRound(index);
+        } else {
+            replayChanges(sessionChanges, index);
+        }
+        allowRepeat = session.isAllowRepeat();
+        prefetchNeighbourCategories();
+    }
+
+    // ===================== Drawing =====================
+
+    /**
+     * Returns the next word in the shuffled queue, reshuffling if repeat is on,
+     * or a weighted draw in spaced-repetition mode.
+     * In rhyme-chain mode the word rhymes with the previous one whenever the
+     * rhyme index is ready and has a rhyme; otherwise it comes from the queue.
+     * With a theme set, about half the words are the selection's words related
+     * to it, more related ones more often; those may come up again from the queue.
+     * Words drawn ahead by {@link #peekNextWords} come first.
+     * Every word returned counts as shown in the corpus' {@link WordStats}.
+     */
+    public String getNextWord() {
+        long start = Instrumentation.begin(Instrumentation.Timer.NEXT_WORD);
+        Drawn next = ahead.pollFirst();
+        if (next == null) {
+            next = drawNext(true);
+        } else if (next.queued) {
+            // Draws the same word: the segments are where aheadSegments were when it was drawn
+            nextQueuedId();
+        }
+        if (ahead.isEmpty()) aheadSegments = null;
+        String word = null;
+        if (next != null) {
+            word = next.word;
+            lastWordId = next.wordId;
+            rememberWord(word);
+            corpus.getStats().recordShown(lastWordId, System.currentTimeMillis());
+            if (next.counter != null) Instrumentation.increment(next.counter);
+            Instrumentation.increment(Instrumentation.Counter.WORDS_DRAWN);
+        }
+        Instrumentation.end(Instrumentation.Timer.NEXT_WORD, start);
+        return word;
+    }
+
+    /**
+     * The next {@code count} words {@link #getNextWord} returns, fewer if the
+     * draw runs out, e.g. to prepare their layout or speech ahead of time. They
+     * are drawn now and kept for it, so this holds in every mode. Nothing counts
+     * as shown until they are returned, and the session position stays at the
+     * last word returned. Changing the selection, the theme or a mode drops
+     * them; the words after the change are drawn afresh.
+     */
+    public List<String> peekNextWords(int count) {
+        while (ahead.size() < count) {
+            Drawn next = drawNext(false);
+            if (next == null) break;
+            ahead.addLast(next);
+        }
+        List<String> words = new ArrayList<>(Math.min(count, ahead.size()));
+        for (Drawn next : ahead) {
+            if (words.size() == count) break;
+            words.add(next.word);
+        }
+        return words;
+    }
+
+    /** Restarts the draw over the active categories with a new seed; O(1), nothing is shuffled up front. */
+    public void resetAndShuffle() {
+        long start = Instrumentation.begin(Instrumentation.Timer.SHUFFLE);
+        dropAhead();
+        // 32 bits keep session codes short and still give billions of orders
+        seed = random.nextInt() & 0xFFFFFFFFL;
+        round = 0;
+        startRound(0);
+        scheduler = null;
+        themeScheduler = null;
+        Instrumentation.end(Instrumentation.Timer.SHUFFLE, start);
+    }
+
+    public boolean isEmpty() {
+        if (!ahead.isEmpty()) return false;
+        if (spacedRepetition) return selection.size() == 0;
+        return remaining(segments) == 0 && !(rhymeChain && corpus.getRhymeIndex() != null && lastWord != null)
+                && (theme == null || themeScheduler().remaining() == 0);
+    }
+
+    /** Marks the last drawn word as one the user passed on, making it come back sooner. */
+    public void markSkipped() {
+        if (lastWordId >= 0) {
+            corpus.getStats().recordSkipped(lastWordId);
+        }
+    }
+
+    public boolean isSpacedRepetition() {
+        return spacedRepetition;
+    }
+
+    /**
+     * Switches between the shuffled queue and weighted draws from the corpus'
+     * {@link WordStats}. Weighted draws never run out, like a queue with repeat on.
+     */
+    public void setSpacedRepetition(boolean enabled) {
+        if (enabled != spacedRepetition) dropAhead();
+        spacedRepetition = enabled;
+        scheduler = null;
+    }
+
+    public boolean isAllowRepeat() {
+        return allowRepeat;
+    }
+
+    public void setAllowRepeat(boolean allowRepeat) {
+        if (allowRepeat != this.allowRepeat) dropAhead();
+        this.allowRepeat = allowRepeat;
+    }
+
+    public boolean isRhymeChain() {
+        return rhymeChain;
+    }
+
+    /** Switches rhyme-chain mode; the corpus builds its rhyme index in the background if needed. */
+    public void setRhymeChain(boolean enabled) {
+        if (enabled != rhymeChain) dropAhead();
+        rhymeChain = enabled;
+        if (enabled) {
+            corpus.requestRhymeIndex();
+        }
+    }
+
+    /** Label of the theme words are biased towards, or null. */
+    public String getTheme() {
+        return theme != null ? theme.label : null;
+    }
+
+    /**
+     * Biases the draw towards words related to a theme of the corpus'
+     * {@link ThemeIndex}; null, or a theme the index does not have, draws
+     * without one. Related words are drawn once per shuffle, or again after
+     * all have come up when words repeat.
+     */
+    public void setTheme(String label) {
+        ThemeIndex themes = corpus.getThemeIndex();
+        dropAhead();
+        theme = label != null && themes != null ? themes.get(label) : null;
+        themeScheduler = null;
+    }
+
+    // ===================== Streaming =====================
+
+    /**
+     * {@code count} words drawn from the active categories as consecutive
+     * shuffles, fully determined by {@code seed}: the same words, in the same
+     * order, as this engine draws with repeat on after a reset to that seed.
+     * The spliterator splits on shuffle boundaries, so parallel streams produce
+     * the same sequence. Independent of this engine's own draw.
+     */
+    public Spliterator<String> drillSpliterator(long count, long seed) {
+        // Selections are replaced, never modified, so the stream can keep this one
+        WordSelection snapshot = selection;
+        return new DrillSpliterator(snapshot, corpus.getPool(), seed, 0, snapshot.size() == 0 ? 0 : count);
+    }
+
+    /** Sequential stream over {@link #drillSpliterator}; call {@code parallel()} to split it. */
+    public Stream<String> drill(long count, long seed) {
+        return StreamSupport.stream(drillSpliterator(count, seed), false);
+    }
+
+    public Iterator<String> drillIterator(long count, long seed) {
+        return Spliterators.iterator(drillSpliterator(count, seed));
+    }
+
+    // ===================== Internal Logic =====================
+
+    private void applyFully() {
+        activeCategories.clear();
+        activeCategories.or(selectedCategories);
+        selectActiveLists();
+        resetAndShuffle();
+    }
+
+    /**
+     * Removed categories are skipped by the segments that hold them. Added ones
+     * become a new segment: their whole list, or for a category removed earlier
+     * in this shuffle only the words it had not shown yet.
+     */
+    private void applyChanges(long segmentSeed) {
+        BitSet removed = (BitSet) activeCategories.clone();
+        removed.andNot(selectedCategories);
+        BitSet added = (BitSet) selectedCategories.clone();
+        added.andNot(activeCategories);
+        if (removed.isEmpty() && added.isEmpty()) return;
+
+        for (int id = removed.nextSetBit(0); id >= 0; id = removed.nextSetBit(id + 1)) {
+            for (QueueSegment segment : segments) segment.remove(id);
+        }
+        List<int[]> addedLists = new ArrayList<>();
+        List<Integer> addedIds = new ArrayList<>();
+        // In display order, like the selection, so a session replays the same segment on another install
+        int[] addedRows = new int[added.cardinality()];
+        int count = 0;
+        for (int id = added.nextSetBit(0); id >= 0; id = added.nextSetBit(id + 1)) addedRows[count++] = registry.rowOf(id);
+        Arrays.sort(addedRows);
+        for (int row : addedRows) {
+            int id = registry.idAtRow(row);
+            boolean returning = false;
+            for (QueueSegment segment : segments) {
+                int[] unseen = segment.takeUnseen(id);
+                if (unseen == null) continue;
+                returning = true;
+                addedLists.add(unseen);
+                addedIds.add(id);
+            }
+            if (!returning) {
+                addedLists.add(corpus.getWordIds(id));
+                addedIds.add(id);
+            }
+        }
+        // Keeps toggling a category from piling up used-up segments
+        for (int i = segments.size() - 1; i > 0; i--) {
+            if (segments.get(i).remaining() == 0 && !segments.get(i).holdsRemoved()) segments.remove(i);
+        }
+        if (!addedLists.isEmpty()) {
+            WordSelection addedWords = new WordSelection();
+            addedWords.set(addedLists);
+            int[] ids = new int[addedIds.size()];
+            for (int i = 0; i < ids.length; i++) ids[i] = addedIds.get(i);
+            segments.add(new QueueSegment(addedWords, ids, segmentSeed, 0));
+        }
+
+        activeCategories.clear();
+        activeCategories.or(selectedCategories);
+        selectActiveLists();
+        changes.add(new DrillSession.Change(drawn, activeRows(), segmentSeed));
+        scheduler = null;
+        themeScheduler = null;
+    }
+
+    /**
+     * In display order rather than id order, since ids depend on the install's
+     * history and sessions must not. A new object rather than an update, since
+     * segments and streams keep referencing the old one.
+     */
+    private void selectActiveLists() {
+        List<int[]> lists = new ArrayList<>(activeCategories.cardinality());
+        int[] ids = new int[activeCategories.cardinality()];
+        for (int row = 0; row < registry.size(); row++) {
+            int id = registry.idAtRow(row);
+            if (!activeCategories.get(id)) continue;
+            ids[lists.size()] = id;
+            lists.add(corpus.getWordIds(id));
+        }
+        WordSelection active = new WordSelection();
+        active.set(lists);
+        selection = active;
+        selectionIds = ids;
+    }
+
+    /** Starts shuffle {@code round} of the active selection at {@code index}; O(1). */
+    private void startRound(int index) {
+        segments.clear();
+        segments.add(new QueueSegment(selection, selectionIds, DrillSpliterator.roundSeed(seed, round), index));
+        drawn = index;
+        roundRows = activeRows();
+        changes.clear();
+    }
+
+    /**
+     * Moves a fresh round to a session's position by drawing up to each change
+     * and applying it. A change right after the word at the position comes
+     * after drawing that word, so the word waits ahead to be returned again.
+     */
+    private void replayChanges(List<DrillSession.Change> sessionChanges, int index) {
+        startRound(0);
+        int lastId = -1;
+        for (DrillSession.Change change : sessionChanges) {
+            while (drawn < change.position) lastId = replayDraw();
+            setSelectedCategories(idsAt(change.rows));
+            applyChanges(change.seed);
+        }
+        if (drawn > index) {
+            ahead.addLast(new Drawn(lastId, corpus.getWord(lastId), null, false));
+        } else {
+            while (drawn < index) replayDraw();
+        }
+    }
+
+    private int replayDraw() {
+        if (remaining(segments) == 0) throw new IllegalArgumentException("Session position is past the selection");
+        return draw(segments, DrillSpliterator.roundSeed(seed, round), drawn++);
+    }
+
+    /** The active categories' display rows, ascending. */
+    private int[] activeRows() {
+        int[] rows = new int[activeCategories.cardinality()];
+        int count = 0;
+        for (int row = 0; row < registry.size() && count < rows.length; row++) {
+            if (activeCategories.get(registry.idAtRow(row))) rows[count++] = row;
+        }
+        return rows;
+    }
+
+    private BitSet idsAt(int[] rows) {
+        BitSet ids = new BitSet();
+        for (int row : rows) ids.set(registry.idAtRow(row));
+        return ids;
+    }
+
+    private static int remaining(List<QueueSegment> queue) {
+        int remaining = 0;
+        for (QueueSegment segment : queue) remaining += segment.remaining();
+        return remaining;
+    }
+
+    /**
+     * The next word of a round. Each word comes from a segment picked with
+     * probability proportional to its remaining words, which interleaves the
+     * segments uniformly at random; the pick is a hash of the round and the
+     * draw count, so a peek sees the same words.
+     */
+    private static int draw(List<QueueSegment> queue, long roundSeed, int drawn) {
+        QueueSegment segment = queue.get(0);
+        if (queue.size() > 1) {
+            long pick = Long.remainderUnsigned(IndexPermutation.mix(roundSeed + drawn), remaining(queue));
+            for (QueueSegment candidate : queue) {
+                if (pick < candidate.remaining()) {
+                    segment = candidate;
+                    break;
+                }
+                pick -= candidate.remaining();
+            }
+        }
+        return segment.next();
+    }
+
+    private List<String> keysAt(int[] rows) {
+        List<String> keys = new ArrayList<>(rows.length);
+        for (int row : rows) keys.add(registry.get(registry.idAtRow(row)).key);
+        return keys;
+    }
+
+    /**
+     * The word after those ahead, or null when the draw has run out. Queue draws
+     * move the segments if the word is shown at once, else aheadSegments. Only
+     * the drawn word becomes a String; the queue itself is positions into id arrays.
+     */
+    private Drawn drawNext(boolean shown) {
+        String rhyme = rhymeChain ? nextRhyme(ahead.isEmpty() ? lastWord : ahead.peekLast().word) : null;
+        if (rhyme != null) {
+            // Rhymes come from the pool, so this is a lookup
+            return new Drawn(corpus.getPool().intern(rhyme), rhyme, Instrumentation.Counter.RHYMES_CHAINED, false);
+        }
+        if (theme != null && random.nextDouble() < THEME_SHARE) {
+            Drawn themed = nextThemedWord();
+            if (themed != null) return themed;
+        }
+        int wordId = spacedRepetition ? nextWeightedId() : shown ? nextQueuedId() : nextAheadQueuedId();
+        if (wordId >= 0) return new Drawn(wordId, corpus.getWord(wordId), null, !shown && !spacedRepetition);
+        return theme != null ? nextThemedWord() : null;
+    }
+
+    private int nextWeightedId() {
+        if (scheduler == null) {
+            scheduler = new SpacedRepetitionScheduler(selection, corpus.getStats(), System.currentTimeMillis());
+        }
+        int position = scheduler.next(random, System.currentTimeMillis());
+        return position >= 0 ? selection.get(position) : -1;
+    }
+
+    private int nextQueuedId() {
+        if (remaining(segments) == 0) {
+            if (!allowRepeat || selection.size() == 0) return -1;
+            round++;
+            startRound(0);
+        }
+        return draw(segments, DrillSpliterator.roundSeed(seed, round), drawn++);
+    }
+
+    /** {@link #nextQueuedId} on aheadSegments, which start as copies of the segments. */
+    private int nextAheadQueuedId() {
+        if (aheadSegments == null) {
+            aheadSegments = new ArrayList<>(segments.size());
+            for (QueueSegment segment : segments) aheadSegments.add(segment.copy());
+            aheadRound = round;
+            aheadDrawn = drawn;
+        }
+        if (remaining(aheadSegments) == 0) {
+            if (!allowRepeat || selection.size() == 0) return -1;
+            aheadRound++;
+            aheadDrawn = 0;
+            aheadSegments.clear();
+            aheadSegments.add(new QueueSegment(selection, selectionIds, DrillSpliterator.roundSeed(seed, aheadRound), 0));
+        }
+        return draw(aheadSegments, DrillSpliterator.roundSeed(seed, aheadRound), aheadDrawn++);
+    }
+
+    /** Forgets the words drawn ahead as if they had not been drawn; the themed ones can come up again. */
+    private void dropAhead() {
+        for (Drawn next : ahead) {
+            if (next.counter == Instrumentation.Counter.THEMED_WORDS && themeScheduler != null) {
+                themeScheduler.putBack(next.wordId);
+            }
+        }
+        ahead.clear();
+        aheadSegments = null;
+    }
+
+    private ThemeScheduler themeScheduler() {
+        if (themeScheduler == null) themeScheduler = new ThemeScheduler(theme, selection);
+        return themeScheduler;
+    }
+
+    /** A related word of the selection, weighted by relevance; null when none is left. */
+    private Drawn nextThemedWord() {
+        ThemeScheduler themed = themeScheduler();
+        if (themed.remaining() == 0 && (allowRepeat || spacedRepetition)) themed.refill();
+        int wordId = themed.next(random);
+        if (wordId < 0) return null;
+        return new Drawn(wordId, corpus.getWord(wordId), Instrumentation.Counter.THEMED_WORDS, false);
+    }
+
+    /** A consonant rhyme of a word if possible, else an assonant one, skipping recent and upcoming words. */
+    private String nextRhyme(String word) {
+        RhymeIndex index = corpus.getRhymeIndex();
+        if (index == null || word == null) return null;
+
+        for (RhymeIndex.RhymeType type : RhymeIndex.RhymeType.values()) {
+            for (String rhyme : index.findRhymes(word, type, RHYME_CANDIDATES, random)) {
+                if (!recentWords.contains(rhyme) && !isAhead(rhyme)) return rhyme;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAhead(String word) {
+        for (Drawn next : ahead) {
+            if (next.word.equals(word)) return true;
+        }
+        return false;
+    }
+
+    private void rememberWord(String word) {
+        lastWord = word;
+        recentWords.addLast(word);
+        if (recentWords.size() > RECENT_RHYME_HISTORY) {
+            recentWords.removeFirst();
+        }
+    }
+
+    /**
+     * Categories next to a selected one in display order share its stressed
+     * vowel and are the likeliest to be picked next, so load them early.
+     */
+    private void prefetchNeighbourCategories() {
+        BitSet neighbours = new BitSet();
+        int rows = registry.size();
+        for (int id = activeCategories.nextSetBit(0); id >= 0; id = activeCategories.nextSetBit(id + 1)) {
+            int row = registry.rowOf(id);
+            if (row > 0) neighbours.set(registry.idAtRow(row - 1));
+            if (row + 1 < rows) neighbours.set(registry.idAtRow(row + 1));
+        }
+        neighbours.andNot(activeCategories);
+        corpus.prefetch(neighbours);
+    }
+
+    /** A word drawn ahead of being shown. */
+    private static final class Drawn {
+        final int wordId;
+        final String word;
+        final Instrumentation.Counter counter; // counted once shown, if any
+        final boolean queued;                  // drawn from aheadSegments, so the segments still have to draw it
+
+        Drawn(int wordId, String word, Instrumentation.Counter counter, boolean queued) {
+            this.wordId = wordId;
+            this.word = word;
+            this.counter = counter;
+            this.queued = queued;
+        }
+    }
+}
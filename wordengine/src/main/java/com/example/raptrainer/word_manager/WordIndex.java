@@ -0,0 +1,175 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view over the binary word index generated at build time from the
+ * CSV files under {@code assets/words} (see the {@code generate<Variant>WordIndex} tasks).
+ * Nothing is copied out of the buffer: the tables are int views of it and a
+ * string is decoded when it is first asked for, so a memory-mapped index
+ * costs page faults for the categories actually used rather than a heap copy.
+ * Safe for concurrent readers; only absolute reads touch the shared buffers.
+ *
+ * Layout (big-endian ints):
+ * <pre>
+ * magic, version, stringCount, categoryCount, wordRefCount, stringDataLength
+ * int[stringCount + 1]    string offsets into the string data
+ * int[categoryCount * 4]  (keyId, labelId, firstWordRef, wordCount) per category
+ * int[wordRefCount]       string ids of every category's words, back to back
+ * byte[stringDataLength]  UTF-8 string data
+ * </pre>
+ */
+public final class WordIndex {
+    public static final String ASSET_NAME = "words.idx";
+
+    static final int MAGIC = 0x52545749; // "RTWI"
+    static final int VERSION = 1;
+
+    private static final int HEADER_INTS = 6;
+    private static final int CATEGORY_RECORD_SIZE = 4;
+
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringData;
+    private final IntBuffer categoryRecords;
+    private final IntBuffer wordRefs;
+    private final String[] decodedStrings;
+
+    private WordIndex(IntBuffer stringOffsets, ByteBuffer stringData, IntBuffer categoryRecords, IntBuffer wordRefs) {
+        this.stringOffsets = stringOffsets;
+        this.stringData = stringData;
+        this.categoryRecords = categoryRecords;
+        this.wordRefs = wordRefs;
+        this.decodedStrings = new String[stringOffsets.limit() - 1];
+    }
+
+    /** Reads an index from a buffer positioned at its first byte; the index keeps using the buffer. */
+    public static WordIndex read(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (in.remaining() < HEADER_INTS * 4 || in.getInt() != MAGIC) {
+            throw new IOException("Not a word index");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported word index version: " + version);
+        }
+
+        int stringCount = in.getInt();
+        int categoryCount = in.getInt();
+        int wordRefCount = in.getInt();
+        int stringDataLength = in.getInt();
+        long length = 4L * ((long) stringCount + 1 + (long) categoryCount * CATEGORY_RECORD_SIZE + wordRefCount) + stringDataLength;
+        if (stringCount < 0 || categoryCount < 0 || wordRefCount < 0 || stringDataLength < 0 || length > in.remaining()) {
+            throw new IOException("Truncated word index");
+        }
+
+        IntBuffer stringOffsets = intView(in, stringCount + 1);
+        IntBuffer categoryRecords = intView(in, categoryCount * CATEGORY_RECORD_SIZE);
+        IntBuffer wordRefs = intView(in, wordRefCount);
+        ByteBuffer stringData = in.slice();
+        stringData.limit(stringDataLength);
+
+        return new WordIndex(stringOffsets, stringData, categoryRecords, wordRefs);
+    }
+
+    public int getCategoryCount() {
+        return categoryRecords.limit() / CATEGORY_RECORD_SIZE;
+    }
+
+    /** Category key, i.e. the CSV file name without ".csv". */
+    public String getCategoryKey(int category) {
+        return getString(categoryRecords.get(category * CATEGORY_RECORD_SIZE));
+    }
+
+    /** UI label precomputed at build time. */
+    public String getCategoryLabel(int category) {
+        return getString(categoryRecords.get(category * CATEGORY_RECORD_SIZE + 1));
+    }
+
+    public int getWordCount(int category) {
+        return categoryRecords.get(category * CATEGORY_RECORD_SIZE + 3);
+    }
+
+    /** Returns the words of a category; words shared between categories are the same instance. */
+    public List<String> getWords(int category) {
+        int first = categoryRecords.get(category * CATEGORY_RECORD_SIZE + 2);
+        int count = getWordCount(category);
+        List<String> words = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            words.add(getString(wordRefs.get(i)));
+        }
+        return words;
+    }
+
+    /**
+     * Interns the words of a category into {@code pool}, bypassing the decoded
+     * string cache: each word is decoded from the buffer into one reused char
+     * array, so no String is made for it.
+     */
+    public int[] internWords(int category, StringPool pool) {
+        int first = categoryRecords.get(category * CATEGORY_RECORD_SIZE + 2);
+        int[] ids = new int[getWordCount(category)];
+        ByteBuffer bytes = stringData.duplicate();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(32);
+        for (int i = 0; i < ids.length; i++) {
+            int id = wordRefs.get(first + i);
+            int start = stringOffsets.get(id);
+            int end = stringOffsets.get(id + 1);
+            bytes.limit(end);
+            bytes.position(start);
+            // A UTF-8 byte never decodes to more than one char
+            if (chars.capacity() < end - start) chars = CharBuffer.allocate(end - start);
+            chars.clear();
+            decoder.reset();
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            ids[i] = pool.intern(chars.array(), 0, chars.position());
+        }
+        return ids;
+    }
+
+    private String getString(int id) {
+        String value = decodedStrings[id];
+        if (value == null) {
+            value = decode(id);
+            decodedStrings[id] = value;
+        }
+        return value;
+    }
+
+    private String decode(int id) {
+        int start = stringOffsets.get(id);
+        int length = stringOffsets.get(id + 1) - start;
+        if (stringData.hasArray()) {
+            return new String(stringData.array(), stringData.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = stringData.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Drops decoded strings; lists already handed out keep their own references. */
+    public void trimDecodedStrings() {
+        Arrays.fill(decodedStrings, null);
+    }
+
+    /** The next {@code count} ints of {@code in} as a view, moving past them. */
+    private static IntBuffer intView(ByteBuffer in, int count) {
+        IntBuffer view = in.slice().asIntBuffer();
+        view.limit(count);
+        in.position(in.position() + count * 4);
+        return view;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles a CSV word tree into a {@link WordIndex} file. A category key that
+ * comes up twice fails the build instead of merging two categories. Run by the app's
+ * generateWordIndex build tasks: {@code WordIndexCompiler <wordsDir> <outputFile>}.
+ */
+public final class WordIndexCompiler {
+
+    private WordIndexCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: WordIndexCompiler <wordsDir> <outputFile>");
+            System.exit(2);
+        }
+        compile(new CsvDirectoryWordSource(new File(args[0])), new File(args[1]));
+    }
+
+    public static void compile(WordSource source, File outputFile) throws IOException {
+        WordIndexWriter writer = new WordIndexWriter();
+        Set<String> keys = new HashSet<>();
+        int words = 0;
+        for (String key : source.getCategoryKeys()) {
+            if (!keys.add(key)) throw new IOException("Duplicate category key: " + key);
+            String label = source.getCategoryLabel(key);
+            List<String> categoryWords = source.readWords(key);
+            writer.addCategory(key, label != null ? label : CategoryRegistry.extractButtonLabel(key), categoryWords);
+            words += categoryWords.size();
+        }
+
+        File parent = outputFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            writer.writeTo(out);
+        }
+        System.out.println("Word index: " + source.getCategoryKeys().size() + " categories, " + words + " words");
+    }
+}
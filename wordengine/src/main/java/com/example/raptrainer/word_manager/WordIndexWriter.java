@@ -0,0 +1,83 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Builds the binary layout read by {@link WordIndex}; strings are deduplicated. */
+public final class WordIndexWriter {
+    private final Map<String, Integer> stringIds = new LinkedHashMap<>();
+    private final List<int[]> categories = new ArrayList<>();
+    private int[] wordRefs = new int[1024];
+    private int wordRefCount;
+
+    public void addCategory(String key, String label, List<String> words) {
+        categories.add(new int[] {intern(key), intern(label), wordRefCount, words.size()});
+        for (String word : words) {
+            if (wordRefCount == wordRefs.length) {
+                int[] grown = new int[wordRefs.length * 2];
+                System.arraycopy(wordRefs, 0, grown, 0, wordRefCount);
+                wordRefs = grown;
+            }
+            wordRefs[wordRefCount++] = intern(word);
+        }
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(stringIds.size());
+        int stringDataLength = 0;
+        for (String value : stringIds.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            stringDataLength += bytes.length;
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(WordIndex.MAGIC);
+        out.writeInt(WordIndex.VERSION);
+        out.writeInt(encoded.size());
+        out.writeInt(categories.size());
+        out.writeInt(wordRefCount);
+        out.writeInt(stringDataLength);
+
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            offset += bytes.length;
+            out.writeInt(offset);
+        }
+        for (int[] record : categories) {
+            for (int value : record) {
+                out.writeInt(value);
+            }
+        }
+        for (int i = 0; i < wordRefCount; i++) {
+            out.writeInt(wordRefs[i]);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return out.toByteArray();
+    }
+
+    private int intern(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = stringIds.size();
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+}
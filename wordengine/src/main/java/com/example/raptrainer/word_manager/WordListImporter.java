@@ -0,0 +1,241 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Turns a user's word list of any size into a {@link CompactWordList}: the file
+ * is streamed through {@link CsvWordReader}, words are normalized and collected
+ * in batches of bounded size, each batch is sorted and written as a run, and
+ * the runs are merged (dropping duplicates) a few at a time. Memory use depends
+ * on the batch size and fan-in, never on the size of the file.
+ * Blocking; run it on a background thread, which may be interrupted to cancel.
+ */
+public final class WordListImporter {
+    /** Longer entries are sentences or garbage, not words to rap. */
+    public static final int MAX_WORD_LENGTH = 64;
+
+    // About 1 MB of strings per batch
+    private static final int DEFAULT_BATCH_WORDS = 20_000;
+    private static final int DEFAULT_FAN_IN = 32;
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    /** Notified on the importing thread as the input is read. */
+    public interface ProgressListener {
+        void onProgress(long bytesRead, long wordsRead);
+    }
+
+    private final File workDir;
+    private final int batchWords;
+    private final int fanIn;
+
+    /** @param workDir where the temporary runs go; created if needed */
+    public WordListImporter(File workDir) {
+        this(workDir, DEFAULT_BATCH_WORDS, DEFAULT_FAN_IN);
+    }
+
+    WordListImporter(File workDir, int batchWords, int fanIn) {
+        if (batchWords < 1 || fanIn < 2) throw new IllegalArgumentException("batchWords " + batchWords + ", fanIn " + fanIn);
+        this.workDir = workDir;
+        this.batchWords = batchWords;
+        this.fanIn = fanIn;
+    }
+
+    /** Lower case and composed, so "Canción" and "canción" are the same word. */
+    public static String normalize(String word) {
+        return Normalizer.normalize(word, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reads every word of {@code in} and writes the sorted, distinct words to
+     * {@code target}, replacing it only once the import has succeeded. The
+     * stream is left open.
+     *
+     * @return the number of distinct words written
+     */
+    public int importWords(InputStream in, String label, File target, ProgressListener listener) throws IOException {
+        long start = Instrumentation.begin(Instrumentation.Timer.IMPORT);
+        if (!workDir.isDirectory() && !workDir.mkdirs()) {
+            throw new IOException("Cannot create " + workDir);
+        }
+        List<File> temporary = new ArrayList<>();
+        List<File> runs = new ArrayList<>();
+        File output = new File(target.getPath() + ".tmp");
+        temporary.add(output);
+        try {
+            BatchSink batch = new BatchSink(new CountingInputStream(in), listener, runs, temporary);
+            CsvWordReader.readWords(batch.counter, batch);
+            batch.flush();
+            listener.onProgress(batch.counter.count, batch.wordsRead);
+
+            while (runs.size() > fanIn) {
+                List<File> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<File> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                    File run = newRunFile(temporary);
+                    merged.add(run);
+                    merge(group, run, "");
+                    deleteAll(group);
+                }
+                runs = merged;
+            }
+            int count = merge(runs, output, label);
+            if (target.exists() && !target.delete() || !output.renameTo(target)) {
+                throw new IOException("Cannot replace " + target);
+            }
+            return count;
+        } finally {
+            deleteAll(temporary);
+            Instrumentation.end(Instrumentation.Timer.IMPORT, start);
+        }
+    }
+
+    /** Collects normalized words and spills each full batch to a sorted run. */
+    private final class BatchSink implements CsvWordReader.WordSink {
+        final CountingInputStream counter;
+        final ProgressListener listener;
+        final List<File> runs;
+        final List<File> temporary;
+        final String[] words = new String[batchWords];
+        int size;
+        long wordsRead;
+        IOException error;
+
+        BatchSink(CountingInputStream counter, ProgressListener listener, List<File> runs, List<File> temporary) {
+            this.counter = counter;
+            this.listener = listener;
+            this.runs = runs;
+            this.temporary = temporary;
+        }
+
+        @Override
+        public void onWord(char[] buffer, int offset, int length) {
+            if (error != null || length > MAX_WORD_LENGTH) return;
+            words[size++] = normalize(new String(buffer, offset, length));
+            if (++wordsRead % PROGRESS_INTERVAL == 0) listener.onProgress(counter.count, wordsRead);
+            if (size == words.length) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    // The sink cannot throw; the reader is stopped by the counter instead
+                    error = e;
+                    counter.failure = e;
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            if (error != null) throw error;
+            if (size > 0) spill();
+        }
+
+        private void spill() throws IOException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Import cancelled");
+            Arrays.sort(words, 0, size);
+            File run = newRunFile(temporary);
+            runs.add(run);
+            try (CompactWordList.Writer writer = new CompactWordList.Writer(new FileOutputStream(run), "")) {
+                for (int i = 0; i < size; i++) writer.add(words[i]);
+            }
+            Arrays.fill(words, 0, size, null);
+            size = 0;
+        }
+    }
+
+    /** Counts bytes for progress, and ends the parse early when the sink failed. */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+        IOException failure;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkFailure();
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkFailure();
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        private void checkFailure() throws IOException {
+            if (failure != null) throw failure;
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Import cancelled");
+        }
+    }
+
+    /** One open run during a merge, positioned on its smallest unread word. */
+    private static final class RunCursor implements Comparable<RunCursor> {
+        final CompactWordList.Reader reader;
+        String word;
+
+        RunCursor(CompactWordList.Reader reader) throws IOException {
+            this.reader = reader;
+            this.word = reader.next();
+        }
+
+        @Override
+        public int compareTo(RunCursor other) {
+            return word.compareTo(other.word);
+        }
+    }
+
+    /** K-way merge of sorted runs; the writer drops the duplicates. Returns the words written. */
+    private static int merge(List<File> runs, File output, String label) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(1, runs.size()));
+        List<CompactWordList.Reader> readers = new ArrayList<>();
+        try {
+            for (File run : runs) {
+                CompactWordList.Reader reader = new CompactWordList.Reader(new FileInputStream(run));
+                readers.add(reader);
+                RunCursor cursor = new RunCursor(reader);
+                if (cursor.word != null) queue.add(cursor);
+            }
+            try (CompactWordList.Writer writer = new CompactWordList.Writer(new FileOutputStream(output), label)) {
+                while (!queue.isEmpty()) {
+                    RunCursor cursor = queue.poll();
+                    writer.add(cursor.word);
+                    cursor.word = cursor.reader.next();
+                    if (cursor.word != null) queue.add(cursor);
+                }
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Import cancelled");
+                return writer.getCount();
+            }
+        } finally {
+            for (CompactWordList.Reader reader : readers) reader.close();
+        }
+    }
+
+    /** A new empty run in the work directory, recorded in {@code temporary} to be deleted at the end. */
+    private File newRunFile(List<File> temporary) throws IOException {
+        File run = File.createTempFile("import", ".run", workDir);
+        temporary.add(run);
+        return run;
+    }
+
+    private static void deleteAll(List<File> files) {
+        for (File file : files) {
+            if (file.exists() && !file.delete()) file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.raptrainer.word_manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only concatenation of the selected categories' word id arrays.
+ * The arrays are referenced, never copied, so changing the selection costs
+ * O(#categories) regardless of how many words they hold.
+ */
+final class WordSelection {
+    private final List<int[]> lists = new ArrayList<>();
+    // offsets[i] is the position of the first word of lists.get(i); offsets[lists.size()] is the total size
+    private int[] offsets = new int[1];
+
+    void set(List<int[]> categoryWordIds) {
+        lists.clear();
+        lists.addAll(categoryWordIds);
+        if (offsets.length < lists.size() + 1) {
+            offsets = new int[lists.size() + 1];
+        }
+        int total = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            offsets[i] = total;
+            total += lists.get(i).length;
+        }
+        offsets[lists.size()] = total;
+    }
+
+    int size() {
+        return offsets[lists.size()];
+    }
+
+    /** Word id at a position of the virtual concatenation. */
+    int get(int position) {
+        int list = listAt(position);
+        return lists.get(list)[position - offsets[list]];
+    }
+
+    int listCount() {
+        return lists.size();
+    }
+
+    /** The list holding a position, found by binary search over the list offsets. */
+    int listAt(int position) {
+        int list = Arrays.binarySearch(offsets, 0, lists.size() + 1, position);
+        if (list < 0) return -list - 2;
+        // Skip empty lists that start at the same position
+        while (offsets[list + 1] == position) list++;
+        return list;
+    }
+
+    /** Position of the first word of a list. */
+    int listStart(int list) {
+        return offsets[list];
+    }
+
+    int listSize(int list) {
+        return lists.get(list).length;
+    }
+}
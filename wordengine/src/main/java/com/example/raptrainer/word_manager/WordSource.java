@@ -0,0 +1,43 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where category word lists come from: bundled assets, a directory of CSV
+ * files, a prebuilt word index, imported user lists or plain in-memory lists.
+ * Implementations must allow {@link #readWords} from any thread.
+ */
+public interface WordSource {
+
+    /** Category keys (CSV file names without ".csv"), in a stable order. */
+    List<String> getCategoryKeys() throws IOException;
+
+    /** Precomputed UI label of a category, or null to derive it from the key. */
+    String getCategoryLabel(String key);
+
+    /** The words of one category; an unknown key yields an empty list. */
+    List<String> readWords(String key) throws IOException;
+
+    /**
+     * The words of one category as ids interned into {@code pool}. Sources that
+     * parse text should override this to intern straight from their buffers.
+     */
+    default int[] readWordIds(String key, StringPool pool) throws IOException {
+        List<String> words = readWords(key);
+        int[] ids = new int[words.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pool.intern(words.get(i));
+        }
+        return ids;
+    }
+
+    /** Number of words in a category if known without reading them, else -1. */
+    default int getWordCount(String key) {
+        return -1;
+    }
+
+    /** Frees caches that can be rebuilt; called after categories are evicted. */
+    default void trimMemory() {
+    }
+}
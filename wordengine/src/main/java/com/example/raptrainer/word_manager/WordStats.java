@@ -0,0 +1,157 @@
+package com.example.raptrainer.word_manager;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * How often each word was shown and skipped, and when it was last seen,
+ * indexed by {@link StringPool} id. Persisted by word, since pool ids depend
+ * on the order categories were loaded in.
+ * Thread-safe.
+ */
+public final class WordStats {
+    static final int MAGIC = 0x52545753; // "RTWS"
+    static final int VERSION = 1;
+
+    /** Weight of an average word; weights are fixed point with this as 1.0. */
+    static final long UNIT_WEIGHT = 1024;
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final double MINUTES_PER_DAY = 24 * 60;
+    private static final double MAX_DUE_BOOST = 8;
+
+    private int[] shown = new int[0];
+    private int[] skipped = new int[0];
+    // Minutes since the epoch, 0 for never
+    private int[] lastSeenMinutes = new int[0];
+
+    public synchronized void recordShown(int wordId, long nowMillis) {
+        ensureCapacity(wordId);
+        if (shown[wordId] < Integer.MAX_VALUE) shown[wordId]++;
+        lastSeenMinutes[wordId] = toMinutes(nowMillis);
+    }
+
+    /** The user passed on the word, e.g. could not rhyme with it. */
+    public synchronized void recordSkipped(int wordId) {
+        ensureCapacity(wordId);
+        if (skipped[wordId] < Integer.MAX_VALUE) skipped[wordId]++;
+    }
+
+    public synchronized int getShown(int wordId) {
+        return wordId < shown.length ? shown[wordId] : 0;
+    }
+
+    public synchronized int getSkipped(int wordId) {
+        return wordId < skipped.length ? skipped[wordId] : 0;
+    }
+
+    /**
+     * Draw weight in units of {@link #UNIT_WEIGHT}; always at least 1.
+     * A word skipped every time weighs about 2x an average one and a word never
+     * skipped tends to 0.05x. The weight also grows by 1x per day since the word
+     * was last seen, up to 8x. Unseen words count as average and one day due.
+     */
+    synchronized long weight(int wordId, long nowMillis) {
+        int timesShown = wordId < shown.length ? shown[wordId] : 0;
+        double difficulty;
+        double due;
+        if (timesShown == 0) {
+            difficulty = 0.5;
+            due = 2;
+        } else {
+            // Skip ratio with a prior of one skip in two showings
+            difficulty = Math.min(1, (skipped[wordId] + 1.0) / (timesShown + 2.0));
+            double days = (toMinutes(nowMillis) - lastSeenMinutes[wordId]) / MINUTES_PER_DAY;
+            due = Math.min(MAX_DUE_BOOST, 1 + Math.max(0, days));
+        }
+        return Math.max(1, Math.round(UNIT_WEIGHT * (0.1 + 4 * difficulty) * due / 2.1));
+    }
+
+    /**
+     * Writes every word with stats; the stream is left open. Numbers are varints
+     * and times are relative to the oldest one, so a typical entry is the word
+     * plus four or five bytes.
+     */
+    public synchronized void writeTo(OutputStream outputStream, StringPool pool) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        int count = 0;
+        int baseMinutes = Integer.MAX_VALUE;
+        for (int id = 0; id < shown.length; id++) {
+            if (!hasStats(id)) continue;
+            count++;
+            if (lastSeenMinutes[id] != 0) baseMinutes = Math.min(baseMinutes, lastSeenMinutes[id]);
+        }
+        if (baseMinutes == Integer.MAX_VALUE) baseMinutes = 0;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(count);
+        out.writeInt(baseMinutes);
+        for (int id = 0; id < shown.length; id++) {
+            if (!hasStats(id)) continue;
+            out.writeUTF(pool.get(id));
+            writeVarInt(out, shown[id]);
+            writeVarInt(out, skipped[id]);
+            // 0 stays "never", anything else is shifted by one
+            writeVarInt(out, lastSeenMinutes[id] == 0 ? 0 : lastSeenMinutes[id] - baseMinutes + 1);
+        }
+        out.flush();
+    }
+
+    /** Merges stats written by {@link #writeTo}, interning their words into {@code pool}. */
+    public synchronized void readFrom(InputStream inputStream, StringPool pool) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) throw new IOException("Not a word stats file");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported word stats version: " + version);
+
+        int count = in.readInt();
+        int baseMinutes = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int id = pool.intern(in.readUTF());
+            ensureCapacity(id);
+            shown[id] = readVarInt(in);
+            skipped[id] = readVarInt(in);
+            int lastSeen = readVarInt(in);
+            lastSeenMinutes[id] = lastSeen == 0 ? 0 : baseMinutes + lastSeen - 1;
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private boolean hasStats(int id) {
+        return shown[id] != 0 || skipped[id] != 0;
+    }
+
+    private void ensureCapacity(int wordId) {
+        if (wordId < shown.length) return;
+        int capacity = Math.max(wordId + 1, shown.length * 2);
+        shown = Arrays.copyOf(shown, capacity);
+        skipped = Arrays.copyOf(skipped, capacity);
+        lastSeenMinutes = Arrays.copyOf(lastSeenMinutes, capacity);
+    }
+
+    private static int toMinutes(long millis) {
+        return (int) (millis / MILLIS_PER_MINUTE);
+    }
+}
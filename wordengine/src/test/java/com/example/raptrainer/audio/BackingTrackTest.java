@@ -0,0 +1,205 @@
+package com.example.raptrainer.audio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BackingTrackTest {
+
+    @Test
+    public void decodes16BitMonoWithLoopPoints() throws IOException {
+        byte[] data = new byte[8 * 2];
+        for (int i = 0; i < 8; i++) {
+            short value = (short) (i * 1000 - 3000);
+            data[i * 2] = (byte) value;
+            data[i * 2 + 1] = (byte) (value >> 8);
+        }
+        PcmLoop loop = WavDecoder.decode(wav(1, 1, 16, 8000, data, smpl(2, 5)));
+        assertEquals(8000, loop.getSampleRate());
+        assertEquals(8, loop.getFrames());
+        assertEquals(2, loop.getLoopStart());
+        assertEquals(6, loop.getLoopEnd());
+        assertEquals(-3000, loop.samples[0]);
+        assertEquals(-3000, loop.samples[1]);
+        assertEquals(4000, loop.samples[14]);
+    }
+
+    @Test
+    public void decodes24BitAndFloatStereo() throws IOException {
+        // 24-bit frame: left 0x123456, right -1
+        byte[] pcm24 = {0x56, 0x34, 0x12, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        PcmLoop loop = WavDecoder.decode(wav(1, 2, 24, 44100, pcm24, null));
+        assertArrayEquals(new short[]{0x1234, -1}, loop.samples);
+
+        ByteArrayOutputStream floats = new ByteArrayOutputStream();
+        for (float value : new float[]{0.5f, -1.5f}) {
+            int bits = Float.floatToIntBits(value);
+            for (int i = 0; i < 4; i++) floats.write(bits >>> (8 * i));
+        }
+        loop = WavDecoder.decode(wav(3, 2, 32, 48000, floats.toByteArray(), null));
+        assertArrayEquals(new short[]{16384, -32767}, loop.samples);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCompressedWave() throws IOException {
+        WavDecoder.decode(wav(2, 1, 4, 8000, new byte[4], null));
+    }
+
+    @Test
+    public void loopWrapsAtItsEndFrame() {
+        // Intro frames 0-1, loop 2-4
+        PcmLoop loop = new PcmLoop(ramp(5), 1000, 2, 5, 4);
+        AudioMixer mixer = new AudioMixer(1000);
+        mixer.play(loop);
+        mixer.skipRamp();
+
+        short[] out = new short[10 * 2];
+        mixer.render(out, 10);
+        assertArrayEquals(new short[]{0, 100, 200, 300, 400, 200, 300, 400, 200, 300}, left(out));
+        assertEquals(10, mixer.getFramesRendered());
+        assertEquals(2, mixer.getBeatGrid().getOriginFrame(), 0);
+        assertEquals(0.75, mixer.getBeatGrid().getFramesPerBeat(), 1e-12);
+    }
+
+    @Test
+    public void resamplesByInterpolatingAcrossTheSeam() {
+        PcmLoop loop = new PcmLoop(ramp(4), 1000, 0, 4, 4);
+        AudioMixer mixer = new AudioMixer(2000);
+        mixer.play(loop);
+        mixer.skipRamp();
+
+        short[] out = new short[10 * 2];
+        mixer.render(out, 10);
+        // Half-way points, and from the last frame back to the first one
+        assertArrayEquals(new short[]{0, 50, 100, 150, 200, 250, 300, 150, 0, 50}, left(out));
+        assertEquals(2, mixer.getBeatGrid().getFramesPerBeat(), 1e-12);
+    }
+
+    @Test
+    public void loopPositionStaysExactOverLongSessions() {
+        // 44.1 kHz loop of 3 s played at 48 kHz for about 20 minutes
+        int loopFrames = 3 * 44100;
+        PcmLoop loop = new PcmLoop(new short[loopFrames * 2], 44100, 0, loopFrames, 4);
+        LoopVoice voice = new LoopVoice(loop, 48000);
+        float[] mix = new float[4096 * 2];
+        long rendered = 0;
+        while (rendered < 20L * 60 * 48000) {
+            voice.render(mix, 4096);
+            rendered += 4096;
+        }
+        // 48000 output frames are exactly 44100 source frames
+        double expected = (rendered * 44100.0 / 48000) % loopFrames;
+        assertEquals(expected, voice.sourcePosition(), 1e-6);
+    }
+
+    @Test
+    public void stopFadesOutWithoutAClick() {
+        short[] samples = new short[1000 * 2];
+        java.util.Arrays.fill(samples, (short) 10000);
+        AudioMixer mixer = new AudioMixer(1000);
+        mixer.play(new PcmLoop(samples, 1000, 0, 1000, 4));
+        mixer.skipRamp();
+        short[] out = new short[LoopVoice.RAMP_FRAMES * 2 * 2];
+        mixer.render(out, 16);
+
+        mixer.stop();
+        mixer.render(out, LoopVoice.RAMP_FRAMES * 2);
+        assertNull(mixer.getBeatGrid());
+        int previous = 10000;
+        for (short value : left(out)) {
+            assertTrue(value <= previous && previous - value <= 10000 / LoopVoice.RAMP_FRAMES + 1);
+            previous = value;
+        }
+        assertEquals(0, previous);
+        assertTrue(mixer.isIdle());
+    }
+
+    @Test
+    public void clockMapsFramesToTime() {
+        AudioClock clock = new AudioClock(48000);
+        clock.update(48000, 5_000_000_000L);
+        assertEquals(6_000_000_000L, clock.frameToNanos(96000));
+        assertEquals(24000, clock.nanosToFrame(4_500_000_000L), 1e-9);
+    }
+
+    @Test
+    public void guessesTheBarCountFromTheLength() {
+        // 2 s: 4 beats are 120 bpm; 8 s: 16 beats
+        assertEquals(4, PcmLoop.guessBeats(2 * 44100, 44100));
+        assertEquals(16, PcmLoop.guessBeats(8 * 44100, 44100));
+        assertEquals(120, new PcmLoop(new short[2 * 88200], 44100, 0, 88200, 0).getBpm(), 1e-9);
+    }
+
+    private static short[] ramp(int frames) {
+        short[] samples = new short[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            samples[i * 2] = (short) (i * 100);
+            samples[i * 2 + 1] = (short) (-i * 100);
+        }
+        return samples;
+    }
+
+    private static short[] left(short[] interleaved) {
+        short[] left = new short[interleaved.length / 2];
+        for (int i = 0; i < left.length; i++) left[i] = interleaved[i * 2];
+        return left;
+    }
+
+    private static byte[] smpl(int start, int endInclusive) {
+        byte[] body = new byte[36 + 24];
+        putInt(body, 28, 1);
+        putInt(body, 36 + 8, start);
+        putInt(body, 36 + 12, endInclusive);
+        return body;
+    }
+
+    private static byte[] wav(int format, int channels, int bits, int rate, byte[] data, byte[] smpl) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] fmt = new byte[16];
+        fmt[0] = (byte) format;
+        fmt[2] = (byte) channels;
+        putInt(fmt, 4, rate);
+        int blockAlign = Math.max(1, channels * bits / 8);
+        putInt(fmt, 8, rate * blockAlign);
+        fmt[12] = (byte) blockAlign;
+        fmt[14] = (byte) bits;
+        chunk(out, "fmt ", fmt);
+        if (smpl != null) chunk(out, "smpl", smpl);
+        chunk(out, "data", data);
+
+        byte[] body = out.toByteArray();
+        byte[] header = new byte[12];
+        header[0] = 'R';
+        header[1] = 'I';
+        header[2] = 'F';
+        header[3] = 'F';
+        putInt(header, 4, body.length + 4);
+        header[8] = 'W';
+        header[9] = 'A';
+        header[10] = 'V';
+        header[11] = 'E';
+        ByteArrayOutputStream wav = new ByteArrayOutputStream();
+        wav.write(header, 0, header.length);
+        wav.write(body, 0, body.length);
+        return wav.toByteArray();
+    }
+
+    private static void chunk(ByteArrayOutputStream out, String tag, byte[] body) {
+        for (int i = 0; i < 4; i++) out.write(tag.charAt(i));
+        byte[] size = new byte[4];
+        putInt(size, 0, body.length);
+        out.write(size, 0, 4);
+        out.write(body, 0, body.length);
+        if ((body.length & 1) != 0) out.write(0);
+    }
+
+    private static void putInt(byte[] data, int offset, int value) {
+        for (int i = 0; i < 4; i++) data[offset + i] = (byte) (value >>> (8 * i));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.raptrainer.audio;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlowMeterTest {
+    private static final int RATE = 16000;
+
+    /**
+     * Syllable-like bursts: a 180 Hz tone under a raised-cosine swell lasting
+     * 70% of each period, over room noise at about -65 dBFS.
+     */
+    private static short[] syllables(double perSecond, double seconds, Random random) {
+        short[] pcm = new short[(int) (seconds * RATE)];
+        double period = RATE / perSecond;
+        for (int i = 0; i < pcm.length; i++) {
+            double phase = (i % period) / (period * 0.7);
+            double swell = phase < 1 ? 0.5 - 0.5 * Math.cos(2 * Math.PI * phase) : 0;
+            double value = 9000 * swell * Math.sin(2 * Math.PI * 180 * i / RATE) + random.nextGaussian() * 20;
+            pcm[i] = (short) value;
+        }
+        return pcm;
+    }
+
+    private static short[] noise(double seconds, double deviation, Random random) {
+        short[] pcm = new short[(int) (seconds * RATE)];
+        for (int i = 0; i < pcm.length; i++) pcm[i] = (short) (random.nextGaussian() * deviation);
+        return pcm;
+    }
+
+    private static void feed(FlowMeter meter, short[] pcm, int block) {
+        for (int start = 0; start < pcm.length; start += block) {
+            meter.process(pcm, start, Math.min(block, pcm.length - start));
+        }
+    }
+
+    @Test
+    public void countsSyllablesPerSecond() {
+        for (double rate : new double[]{3, 5, 7, 9}) {
+            FlowMeter meter = new FlowMeter(RATE);
+            feed(meter, syllables(rate, 6, new Random(1)), 160);
+            assertEquals("At " + rate + " per second", rate, meter.getSyllablesPerSecond(), 0.4);
+            assertEquals("At " + rate + " per second", rate * 6, meter.getSyllableCount(), 1);
+        }
+    }
+
+    @Test
+    public void measuresTheGapsBetweenLines() {
+        Random random = new Random(2);
+        FlowMeter meter = new FlowMeter(RATE);
+        feed(meter, syllables(5, 3, random), 256);
+        assertEquals(0, meter.getSilenceMillis());
+
+        feed(meter, noise(0.6, 20, random), 256);
+        assertFalse(meter.isVoiced());
+        // The last burst's tail is silent too, so the gap is a little longer than the noise
+        assertEquals(600, meter.getSilenceMillis(), 80);
+        assertEquals(0, meter.getGapCount());
+
+        feed(meter, syllables(5, 2, random), 256);
+        assertEquals(1, meter.getGapCount());
+        assertEquals(600, meter.getLastGapMillis(), 80);
+        assertEquals(0, meter.getSilenceMillis());
+    }
+
+    @Test
+    public void pausesBetweenSyllablesAreNotGaps() {
+        FlowMeter meter = new FlowMeter(RATE);
+        feed(meter, syllables(4, 5, new Random(3)), 160);
+        assertEquals(0, meter.getGapCount());
+    }
+
+    @Test
+    public void steadyNoiseIsNotRapping() {
+        Random random = new Random(4);
+        FlowMeter meter = new FlowMeter(RATE);
+        // A noisy room well above the absolute voice threshold
+        feed(meter, noise(4, 800, random), 160);
+        assertEquals(0, meter.getSyllableCount());
+        assertFalse(meter.isVoiced());
+        assertEquals(0, meter.getSilenceMillis());
+    }
+
+    @Test
+    public void rateFallsAwayAfterTheVerse() {
+        Random random = new Random(5);
+        FlowMeter meter = new FlowMeter(RATE);
+        feed(meter, syllables(6, 4, random), 160);
+        assertTrue(meter.getSyllablesPerSecond() > 5);
+        feed(meter, noise(3.5, 20, random), 160);
+        assertEquals(0, meter.getSyllablesPerSecond(), 1e-9);
+        assertTrue(meter.getSilenceMillis() >= 3500);
+    }
+
+    @Test
+    public void resultDoesNotDependOnTheBlockSize() {
+        short[] pcm = syllables(6, 5, new Random(6));
+        FlowMeter whole = new FlowMeter(RATE);
+        FlowMeter small = new FlowMeter(RATE);
+        feed(whole, pcm, pcm.length);
+        feed(small, pcm, 37);
+        assertEquals(whole.getSyllableCount(), small.getSyllableCount());
+        assertEquals(whole.getSyllablesPerSecond(), small.getSyllablesPerSecond(), 1e-9);
+        assertEquals(whole.getLevelDb(), small.getLevelDb(), 1e-9);
+    }
+
+    @Test
+    public void resetStartsOver() {
+        FlowMeter meter = new FlowMeter(44100);
+        Random random = new Random(7);
+        short[] pcm = new short[44100 * 3];
+        feed(meter, pcm, 441);
+        meter.reset();
+        assertEquals(0, meter.getSyllableCount());
+        assertEquals(0, meter.getSyllablesPerSecond(), 1e-9);
+        FlowMeter.Reading reading = meter.reading();
+        assertEquals(0, reading.getGapCount());
+        assertEquals(0, reading.getSilenceMillis());
+        feed(meter, noise(1, 20, random), 441);
+        assertEquals(0, meter.getSyllableCount());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.raptrainer.audio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PcmRingBufferTest {
+
+    private static short[] ramp(int from, int count) {
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) samples[i] = (short) (from + i);
+        return samples;
+    }
+
+    @Test
+    public void wrapsAroundTheEnd() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        short[] out = new short[8];
+        assertEquals(6, ring.write(ramp(0, 6), 0, 6));
+        assertEquals(4, ring.read(out, 0, 4));
+        // Four free at the end and two at the start
+        assertEquals(6, ring.write(ramp(6, 6), 0, 6));
+        assertEquals(8, ring.available());
+        assertEquals(8, ring.read(out, 0, 8));
+        for (int i = 0; i < 8; i++) assertEquals(4 + i, out[i]);
+        assertEquals(0, ring.read(out, 0, 8));
+    }
+
+    @Test
+    public void fullRingDropsWhatDoesNotFit() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        assertEquals(5, ring.write(ramp(0, 5), 0, 5));
+        assertEquals(3, ring.write(ramp(5, 5), 0, 5));
+        assertEquals(2, ring.getDropped());
+        short[] out = new short[10];
+        assertEquals(8, ring.read(out, 1, 9));
+        for (int i = 0; i < 8; i++) assertEquals(i, out[i + 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo() {
+        new PcmRingBuffer(1000);
+    }
+
+    @Test
+    public void readerSeesEverySampleInOrder() throws InterruptedException {
+        PcmRingBuffer ring = new PcmRingBuffer(256);
+        int total = 2_000_000;
+        Thread writer = new Thread(() -> {
+            short[] chunk = new short[100];
+            int next = 0;
+            while (next < total) {
+                int count = Math.min(chunk.length, total - next);
+                for (int i = 0; i < count; i++) chunk[i] = (short) (next + i);
+                int offset = 0;
+                // Retries rather than dropping, so the reader can check the sequence
+                while (offset < count) {
+                    offset += ring.write(chunk, offset, Math.min(count - offset, ring.getCapacity() - ring.available()));
+                    Thread.yield();
+                }
+                next += count;
+            }
+        });
+        writer.start();
+        short[] out = new short[77];
+        int expected = 0;
+        while (expected < total) {
+            int read = ring.read(out, 0, out.length);
+            for (int i = 0; i < read; i++) assertEquals((short) expected++, out[i]);
+        }
+        writer.join();
+        assertEquals(0, ring.getDropped());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.raptrainer.audio;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SpeechClipCacheTest {
+    private static final int RATE = 8000;
+    // Every fake clip is 100 frames per letter, 400 bytes in memory and 200 on disk plus a 44-byte header
+    private static final int FRAMES_PER_LETTER = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Writes a mono WAVE file of the word's length and records what it was asked for. */
+    private static final class FakeSynthesizer implements SpeechSynthesizer {
+        final List<String> spoken = new ArrayList<>();
+        String voice = "fake";
+        String failing;
+
+        @Override
+        public String getVoiceId() {
+            return voice;
+        }
+
+        @Override
+        public void synthesize(String word, File output) throws IOException {
+            spoken.add(word);
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(output))) {
+                if (word.equals(failing)) {
+                    out.writeInt(0x52494646);
+                    throw new IOException("Engine failed");
+                }
+                int dataBytes = word.length() * FRAMES_PER_LETTER * 2;
+                out.writeBytes("RIFF");
+                out.writeInt(Integer.reverseBytes(36 + dataBytes));
+                out.writeBytes("WAVEfmt ");
+                out.writeInt(Integer.reverseBytes(16));
+                out.writeShort(Short.reverseBytes((short) 1));
+                out.writeShort(Short.reverseBytes((short) 1));
+                out.writeInt(Integer.reverseBytes(RATE));
+                out.writeInt(Integer.reverseBytes(RATE * 2));
+                out.writeShort(Short.reverseBytes((short) 2));
+                out.writeShort(Short.reverseBytes((short) 16));
+                out.writeBytes("data");
+                out.writeInt(Integer.reverseBytes(dataBytes));
+                for (int i = 0; i < dataBytes / 2; i++) out.writeShort(Short.reverseBytes((short) (i * 31)));
+            }
+        }
+    }
+
+    /** Runs nothing until asked, like a worker thread that has not got to the queue yet. */
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) tasks.poll().run();
+        }
+    }
+
+    private static long diskSize(String word) {
+        return 44 + word.length() * FRAMES_PER_LETTER * 2L;
+    }
+
+    @Test
+    public void prefetchedWordsAreReadyAndOthersAreNot() throws IOException {
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        SpeechClipCache cache = new SpeechClipCache(synthesizer, folder.newFolder(), 1 << 20, 1 << 20, Runnable::run);
+        cache.prefetch(Arrays.asList("rima", "flow"));
+        PcmLoop clip = cache.get("rima");
+        assertNotNull(clip);
+        assertEquals(4 * FRAMES_PER_LETTER, clip.getFrames());
+        assertNull(cache.get("verso"));
+
+        cache.prefetch(Arrays.asList("flow", "verso"));
+        assertNotNull(cache.get("verso"));
+        assertEquals(Arrays.asList("rima", "flow", "verso"), synthesizer.spoken);
+    }
+
+    @Test
+    public void memoryKeepsTheRecentlyUsedClips() throws IOException {
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        // Room for two four-letter clips
+        SpeechClipCache cache = new SpeechClipCache(synthesizer, folder.newFolder(), 2 * 4 * FRAMES_PER_LETTER * 4, 1 << 20, Runnable::run);
+        cache.prefetch(Arrays.asList("rima", "flow"));
+        assertNotNull(cache.get("rima"));
+        cache.prefetch(Arrays.asList("beat"));
+        assertNull(cache.get("flow"));
+        assertNotNull(cache.get("rima"));
+        assertEquals(2 * 4 * FRAMES_PER_LETTER * 4, cache.getMemoryBytes());
+
+        // Back from disk, not synthesized again
+        cache.prefetch(Arrays.asList("flow"));
+        assertNotNull(cache.get("flow"));
+        assertEquals(3, synthesizer.spoken.size());
+
+        cache.clearMemory();
+        assertEquals(0, cache.getMemoryBytes());
+        assertNull(cache.get("beat"));
+    }
+
+    @Test
+    public void diskKeepsTheRecentlyUsedFilesAcrossRestarts() throws IOException {
+        File directory = folder.newFolder();
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        SpeechClipCache cache = new SpeechClipCache(synthesizer, directory, 1 << 20, 2 * diskSize("rima"), Runnable::run);
+        cache.prefetch(Arrays.asList("rima", "flow"));
+        new File(directory, SpeechClipCache.fileName("fake", "rima")).setLastModified(1000);
+        new File(directory, SpeechClipCache.fileName("fake", "flow")).setLastModified(2000);
+
+        // A new process: the older file is the one to go
+        synthesizer.spoken.clear();
+        cache = new SpeechClipCache(synthesizer, directory, 1 << 20, 2 * diskSize("rima"), Runnable::run);
+        cache.prefetch(Arrays.asList("flow", "beat"));
+        assertEquals(Arrays.asList("beat"), synthesizer.spoken);
+        assertEquals(2, directory.list().length);
+        cache.prefetch(Arrays.asList("rima"));
+        assertEquals(Arrays.asList("beat", "rima"), synthesizer.spoken);
+    }
+
+    @Test
+    public void anotherVoiceIsSynthesizedAgain() throws IOException {
+        File directory = folder.newFolder();
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        new SpeechClipCache(synthesizer, directory, 1 << 20, 1 << 20, Runnable::run).prefetch(Arrays.asList("rima"));
+        synthesizer.voice = "other";
+        new SpeechClipCache(synthesizer, directory, 1 << 20, 1 << 20, Runnable::run).prefetch(Arrays.asList("rima"));
+        assertEquals(Arrays.asList("rima", "rima"), synthesizer.spoken);
+        assertEquals(2, directory.list().length);
+    }
+
+    @Test
+    public void failuresLeaveNothingBehind() throws IOException {
+        File directory = folder.newFolder();
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        synthesizer.failing = "rima";
+        SpeechClipCache cache = new SpeechClipCache(synthesizer, directory, 1 << 20, 1 << 20, Runnable::run);
+        cache.prefetch(Arrays.asList("rima", "flow"));
+        assertNull(cache.get("rima"));
+        assertNotNull(cache.get("flow"));
+        assertEquals(1, directory.list().length);
+
+        // Tried again on the next prefetch
+        synthesizer.failing = null;
+        cache.prefetch(Arrays.asList("rima"));
+        assertNotNull(cache.get("rima"));
+    }
+
+    @Test
+    public void damagedFilesAreSynthesizedAgain() throws IOException {
+        File directory = folder.newFolder();
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        new SpeechClipCache(synthesizer, directory, 1 << 20, 1 << 20, Runnable::run).prefetch(Arrays.asList("rima"));
+        try (FileOutputStream out = new FileOutputStream(new File(directory, SpeechClipCache.fileName("fake", "rima")))) {
+            out.write(new byte[]{'R', 'I'});
+        }
+        SpeechClipCache cache = new SpeechClipCache(synthesizer, directory, 1 << 20, 1 << 20, Runnable::run);
+        cache.prefetch(Arrays.asList("rima"));
+        assertNull(cache.get("rima"));
+        cache.prefetch(Arrays.asList("rima"));
+        assertNotNull(cache.get("rima"));
+        assertEquals(2, synthesizer.spoken.size());
+    }
+
+    @Test
+    public void wordsNoLongerComingUpAreSkipped() throws IOException {
+        FakeSynthesizer synthesizer = new FakeSynthesizer();
+        ManualExecutor executor = new ManualExecutor();
+        SpeechClipCache cache = new SpeechClipCache(synthesizer, folder.newFolder(), 1 << 20, 1 << 20, executor);
+        cache.prefetch(Arrays.asList("rima", "flow"));
+        cache.prefetch(Arrays.asList("flow", "beat"));
+        cache.prefetch(Arrays.asList("flow", "beat"));
+        executor.runAll();
+        assertEquals(Arrays.asList("flow", "beat"), synthesizer.spoken);
+    }
+}
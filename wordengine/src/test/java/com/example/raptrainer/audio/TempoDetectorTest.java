@@ -0,0 +1,177 @@
+package com.example.raptrainer.audio;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TempoDetectorTest {
+    // Within a few envelope frames; the envelope runs at about 86 Hz
+    private static final double DOWNBEAT_TOLERANCE = 0.015;
+
+    @Test
+    public void findsTempoAndDownbeatOfClickTracks() {
+        double[][] cases = {
+                // rate, bpm, first click (s)
+                {44100, 90, 0.3},
+                {48000, 120.5, 1.1},
+                {44100, 140, 0.05},
+                {22050, 72, 0.7},
+                {44100, 100, 0},
+                {8000, 95, 0.4},
+        };
+        for (double[] c : cases) {
+            int rate = (int) c[0];
+            TempoDetector.Estimate estimate = feed(rate, clickTrack(rate, c[1], 60, c[2], 0));
+            String label = c[1] + " bpm at " + rate + " Hz";
+            assertNotNull(label, estimate);
+            assertEquals(label, c[1], estimate.getBpm(), 0.15);
+            assertEquals(label, c[2], estimate.getDownbeatSeconds(), DOWNBEAT_TOLERANCE);
+            assertTrue(label, estimate.getConfidence() > 0.3);
+        }
+    }
+
+    @Test
+    public void downbeatIsTheAccentedBeatNotTheFirstOne() {
+        // Clicks from 0.5 s, but the bar starts on the third one
+        TempoDetector.Estimate estimate = feed(44100, clickTrack(44100, 96, 45, 0.5, 2));
+        assertEquals(0.5 + 2 * 60 / 96.0, estimate.getDownbeatSeconds(), DOWNBEAT_TOLERANCE);
+    }
+
+    @Test
+    public void skipsTheSilenceBeforeTheMusic() {
+        // 2 s of noise is more than a bar at 128 bpm
+        TempoDetector.Estimate estimate = feed(44100, clickTrack(44100, 128, 45, 2, 0));
+        assertEquals(128, estimate.getBpm(), 0.15);
+        assertEquals(2, estimate.getDownbeatSeconds(), DOWNBEAT_TOLERANCE);
+    }
+
+    @Test
+    public void resultDoesNotDependOnTheBlockSize() {
+        short[] track = clickTrack(44100, 110, 30, 0.2, 0);
+        TempoDetector.Estimate whole = feed(44100, track, track.length / 2);
+        TempoDetector.Estimate small = feed(44100, track, 97);
+        assertEquals(whole.getBpm(), small.getBpm(), 1e-9);
+        assertEquals(whole.getDownbeatSeconds(), small.getDownbeatSeconds(), 1e-9);
+    }
+
+    @Test
+    public void streamsAWaveFile() throws IOException {
+        short[] track = clickTrack(44100, 85, 40, 0.25, 0);
+        TempoDetector.Estimate estimate = TempoDetector.analyze(new ByteArrayInputStream(wav(track, 44100)));
+        assertEquals(85, estimate.getBpm(), 0.15);
+        assertEquals(0.25, estimate.getDownbeatSeconds(), DOWNBEAT_TOLERANCE);
+    }
+
+    @Test
+    public void findsTheTempoOfALoopTheLengthGuessGetsWrong() {
+        // Three bars at 90 bpm: the guess assumes a power of two and says 16 beats at 120
+        int rate = 44100;
+        int frames = (int) Math.round(12 * 60.0 / 90 * rate);
+        PcmLoop loop = new PcmLoop(clickTrack(rate, 90, frames / (double) rate, 0, 0), rate, 0, frames, 0);
+        assertEquals(16, loop.getBeatsInLoop());
+        TempoDetector.Estimate estimate = TempoDetector.analyze(loop);
+        assertNotNull(estimate);
+        assertEquals(90, estimate.getBpm(), 0.15);
+        assertEquals(12, TempoDetector.beatsInLoop(loop, estimate));
+    }
+
+    @Test
+    public void noiseHasNoConfidentTempo() {
+        short[] noise = new short[44100 * 20 * 2];
+        Random random = new Random(3);
+        for (int i = 0; i < noise.length; i++) noise[i] = (short) (random.nextGaussian() * 3000);
+        TempoDetector.Estimate estimate = feed(44100, noise);
+        assertTrue(estimate == null || estimate.getConfidence() < 0.2);
+    }
+
+    @Test
+    public void tooShortForAnEstimate() {
+        assertEquals(null, feed(44100, clickTrack(44100, 120, 2, 0, 0)));
+    }
+
+    private static TempoDetector.Estimate feed(int rate, short[] track) {
+        return feed(rate, track, 4096);
+    }
+
+    private static TempoDetector.Estimate feed(int rate, short[] track, int blockFrames) {
+        TempoDetector detector = new TempoDetector(rate);
+        short[] block = new short[blockFrames * 2];
+        int frames = track.length / 2;
+        for (int start = 0; start < frames; start += blockFrames) {
+            int count = Math.min(blockFrames, frames - start);
+            System.arraycopy(track, start * 2, block, 0, count * 2);
+            detector.process(block, count);
+        }
+        return detector.finish();
+    }
+
+    /**
+     * Quiet noise with a short high click on every beat from {@code offset}; the
+     * beat {@code firstDownbeat} and every fourth one after it add a low kick.
+     */
+    private static short[] clickTrack(int rate, double bpm, double seconds, double offset, int firstDownbeat) {
+        int frames = (int) (seconds * rate);
+        float[] mono = new float[frames];
+        Random random = new Random(1);
+        for (int i = 0; i < frames; i++) mono[i] = (float) (random.nextGaussian() * 0.01);
+        for (int beat = 0; ; beat++) {
+            int start = (int) Math.round((offset + beat * 60 / bpm) * rate);
+            if (start >= frames) break;
+            boolean downbeat = beat >= firstDownbeat && (beat - firstDownbeat) % 4 == 0;
+            for (int i = 0; i < rate / 10 && start + i < frames; i++) {
+                double t = i / (double) rate;
+                double value = 0.4 * Math.sin(2 * Math.PI * Math.min(2000, rate / 4.0) * t) * Math.exp(-t / 0.005);
+                if (downbeat) value += 0.5 * Math.sin(2 * Math.PI * 70 * t) * Math.exp(-t / 0.05);
+                mono[start + i] += value;
+            }
+        }
+        short[] samples = new short[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            short value = (short) Math.round(Math.max(-1, Math.min(1, mono[i])) * Short.MAX_VALUE);
+            samples[i * 2] = value;
+            samples[i * 2 + 1] = value;
+        }
+        return samples;
+    }
+
+    private static byte[] wav(short[] samples, int rate) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int dataBytes = samples.length * 2;
+        writeTag(out, "RIFF");
+        writeInt(out, 36 + dataBytes);
+        writeTag(out, "WAVE");
+        writeTag(out, "fmt ");
+        writeInt(out, 16);
+        writeShort(out, 1);
+        writeShort(out, 2);
+        writeInt(out, rate);
+        writeInt(out, rate * 4);
+        writeShort(out, 4);
+        writeShort(out, 16);
+        writeTag(out, "data");
+        writeInt(out, dataBytes);
+        for (short sample : samples) writeShort(out, sample);
+        return out.toByteArray();
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, String tag) {
+        for (int i = 0; i < 4; i++) out.write(tag.charAt(i));
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        writeShort(out, value);
+        writeShort(out, value >> 16);
+    }
+}
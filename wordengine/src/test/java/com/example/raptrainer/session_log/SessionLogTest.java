@@ -0,0 +1,208 @@
+package com.example.raptrainer.session_log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SessionLogTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long DAY = 86_400_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SessionLog open(File directory) {
+        return new SessionLog(directory, UTC, 1024, 1 << 20, 7);
+    }
+
+    /** Two words two seconds apart, a skip, a pause, and a word after the pause. */
+    private static void drill(SessionLog log, long start) {
+        log.log(SessionLog.WORD_SHOWN, start, 0, "canción");
+        log.log(SessionLog.WORD_SHOWN, start + 2000, 0, "razón");
+        log.log(SessionLog.SKIPPED, start + 2500, 0, null);
+        log.log(SessionLog.PAUSED, start + 3000, 0, null);
+        log.log(SessionLog.RESUMED, start + 50_000, 0, null);
+        log.log(SessionLog.WORD_SHOWN, start + 51_000, 0, "corazón");
+        log.log(SessionLog.DELAY_CHANGED, start + 52_000, 1500, null);
+    }
+
+    private static int totalWords(List<DayRollup> days) {
+        int words = 0;
+        for (DayRollup day : days) words += day.getWordsShown();
+        return words;
+    }
+
+    @Test
+    public void rollsEventsUpByDay() throws IOException {
+        File directory = folder.newFolder();
+        SessionLog log = open(directory);
+        drill(log, 10 * DAY + 1000);
+        drill(log, 11 * DAY + 1000);
+        log.log(SessionLog.CATEGORIES_SELECTED, 11 * DAY + 60_000, 3, null);
+        log.close();
+
+        List<DayRollup> days = log.readRollups();
+        assertEquals(2, days.size());
+        DayRollup first = days.get(0);
+        assertEquals(10, first.getEpochDay());
+        assertEquals(3, first.getWordsShown());
+        assertEquals(1, first.getSkips());
+        assertEquals(1, first.getPauses());
+        // Only the gap between the first two words; the pause breaks the next one
+        assertEquals(2000, first.getPracticeMillis());
+        assertEquals(1500, first.getLastDelayMillis());
+        assertEquals(1, days.get(1).getSelectionChanges());
+        assertFalse(log.log(SessionLog.WORD_SHOWN, 12 * DAY, 0, "tarde"));
+    }
+
+    @Test
+    public void replaysWhatTheRollupsMissed() throws IOException {
+        File directory = folder.newFolder();
+        File rollups = new File(directory, SessionLog.ROLLUP_FILE);
+        File stale = new File(directory, "stale.bin");
+
+        SessionLog log = open(directory);
+        drill(log, 10 * DAY);
+        log.close();
+        Files.copy(rollups.toPath(), stale.toPath());
+
+        log = open(directory);
+        drill(log, 10 * DAY + 60_000);
+        log.close();
+        assertEquals(6, totalWords(log.readRollups()));
+
+        // As if the app died after writing the second session but before saving its rollups
+        Files.copy(stale.toPath(), rollups.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        log = open(directory);
+        log.close();
+        assertEquals(6, totalWords(log.readRollups()));
+
+        // Without rollups at all the whole log is replayed
+        assertTrue(rollups.delete());
+        log = open(directory);
+        log.close();
+        assertEquals(6, totalWords(log.readRollups()));
+    }
+
+    @Test
+    public void cutsOffAHalfWrittenEvent() throws IOException {
+        File directory = folder.newFolder();
+        SessionLog log = open(directory);
+        drill(log, 10 * DAY);
+        log.close();
+        File logFile = new File(directory, SessionLog.LOG_FILE);
+        long length = logFile.length();
+        try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(new byte[]{SessionLog.WORD_SHOWN, 0, 0, 0});
+        }
+        new File(directory, SessionLog.ROLLUP_FILE).delete();
+
+        log = open(directory);
+        log.log(SessionLog.WORD_SHOWN, 10 * DAY + 60_000, 0, "después");
+        log.close();
+        assertEquals(4, totalWords(log.readRollups()));
+        assertEquals(length + 13 + 2 + "después".length() + 1, logFile.length());
+    }
+
+    @Test
+    public void compactionKeepsTheRollups() throws IOException {
+        File directory = folder.newFolder();
+        long today = System.currentTimeMillis() / DAY * DAY;
+        SessionLog log = new SessionLog(directory, UTC, 1024, 200, 1);
+        for (int day = 20; day > 0; day--) drill(log, today - day * DAY);
+        drill(log, today);
+        log.close();
+
+        File logFile = new File(directory, SessionLog.LOG_FILE);
+        assertTrue("Log was not compacted: " + logFile.length(), logFile.length() < 200);
+        assertEquals(21, log.readRollups().size());
+        assertEquals(63, totalWords(log.readRollups()));
+
+        // The new generation is consistent with the rollups: nothing is replayed twice
+        log = open(directory);
+        log.close();
+        assertEquals(63, totalWords(log.readRollups()));
+    }
+
+    @Test(timeout = 10000)
+    public void syncedWriterSleepsUntilTheNextEvent() throws Exception {
+        File directory = folder.newFolder();
+        SessionLog log = open(directory);
+        log.log(SessionLog.WORD_SHOWN, 10 * DAY, 0, "canción");
+        log.flush();
+        Thread writer = null;
+        while (writer == null) {
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("session-log")) writer = thread;
+            }
+        }
+        // Parked without a timeout once everything is synced
+        while (writer.getState() != Thread.State.WAITING) Thread.sleep(10);
+        assertEquals(1, totalWords(log.readRollups()));
+
+        // Woken by the next event rather than a timer
+        File logFile = new File(directory, SessionLog.LOG_FILE);
+        long length = logFile.length();
+        log.log(SessionLog.WORD_SHOWN, 10 * DAY + 1000, 0, "razón");
+        while (logFile.length() == length) Thread.sleep(10);
+        log.close();
+        assertEquals(2, totalWords(log.readRollups()));
+    }
+
+    @Test
+    public void fullQueueDropsInsteadOfBlocking() throws IOException {
+        EventQueue queue = new EventQueue(4);
+        for (int i = 0; i < 4; i++) assertTrue(queue.offer(SessionLog.SKIPPED, i, i, null));
+        assertFalse(queue.offer(SessionLog.SKIPPED, 4, 4, null));
+        assertEquals(1, queue.getDropped());
+
+        List<Integer> values = new ArrayList<>();
+        assertEquals(4, queue.drain((type, time, value, word) -> values.add(value)));
+        assertEquals(4, values.size());
+        for (int i = 0; i < 4; i++) assertEquals(i, (int) values.get(i));
+        assertTrue(queue.offer(SessionLog.SKIPPED, 5, 5, null));
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingButDrops() throws Exception {
+        EventQueue queue = new EventQueue(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) queue.offer(SessionLog.WORD_SHOWN, producer, i, "w");
+            });
+            threads[p].start();
+        }
+        AtomicLong drained = new AtomicLong();
+        int[] lastValue = {-1, -1, -1, -1};
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) running |= thread.isAlive();
+            queue.drain((type, time, value, word) -> {
+                // Each producer's events come out in the order it offered them
+                assertTrue(value > lastValue[(int) time]);
+                lastValue[(int) time] = value;
+                drained.incrementAndGet();
+            });
+        }
+        assertEquals(producers * perProducer, drained.get() + queue.getDropped());
+    }
+}
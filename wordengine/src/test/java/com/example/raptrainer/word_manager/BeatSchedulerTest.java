@@ -0,0 +1,186 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the scheduler against a simulated main thread: a frame's worth of work
+ * every 16.7 ms plus a long stall every few seconds, over ten minutes of
+ * virtual time. Ticks are posted at whole milliseconds, like
+ * {@code Handler.postAtTime}.
+ */
+public class BeatSchedulerTest {
+    private static final long MS = 1_000_000L;
+    private static final long SESSION = 10 * 60 * 1000 * MS;
+    private static final long TICK_COST = MS;
+
+    @Test
+    public void tempoModeStaysOnTheBeatOnALoadedThread() {
+        LoadedThread thread = new LoadedThread(new Random(1));
+        BeatScheduler scheduler = new BeatScheduler(1000);
+        scheduler.setTempo(93, 1);
+        double period = 60e9 * BeatScheduler.BEATS_PER_BAR / 93;
+
+        long start = 1_000 * MS;
+        long deadline = scheduler.nextDeadline(start);
+        int ticks = 0;
+        int stalled = 0;
+        while (deadline < start + SESSION) {
+            long ranAt = thread.runAt(roundUpToMillis(deadline));
+            scheduler.onTick(ranAt);
+            ticks++;
+            long beat = Math.round((deadline - start) / period);
+            // The grid itself never drifts from the ideal beat
+            assertEquals("beat error at tick " + ticks, start + Math.round(beat * period), deadline);
+            if (thread.wasStalled()) {
+                stalled++;
+            } else {
+                assertTrue("tick " + ticks + " late by " + (ranAt - deadline) / MS + " ms", ranAt - deadline < 5 * MS);
+            }
+            deadline = scheduler.nextDeadline(ranAt + TICK_COST);
+        }
+        assertTrue(ticks > 200);
+        assertTrue("stalled ticks " + stalled, stalled < ticks / 10);
+    }
+
+    @Test
+    public void fixedDelayErrorDoesNotAccumulate() {
+        LoadedThread thread = new LoadedThread(new Random(2));
+        BeatScheduler scheduler = new BeatScheduler(250);
+        List<Long> lateness = new ArrayList<>();
+
+        long start = 1_000 * MS;
+        long deadline = scheduler.nextDeadline(start);
+        while (deadline < start + SESSION) {
+            long ranAt = thread.runAt(roundUpToMillis(deadline));
+            scheduler.onTick(ranAt);
+            if (!thread.wasStalled()) lateness.add(ranAt - deadline);
+            deadline = scheduler.nextDeadline(ranAt + TICK_COST);
+        }
+        long last = deadline - scheduler.getPeriodNanos();
+        assertEquals("grid drift", 0, (last - start) % scheduler.getPeriodNanos());
+        for (long late : lateness) assertTrue("late by " + late / MS + " ms", late < 5 * MS);
+
+        // The same load with chained relative delays ends up seconds behind
+        LoadedThread chainedThread = new LoadedThread(new Random(2));
+        long now = start;
+        long count = 0;
+        while (now < start + SESSION) {
+            now = chainedThread.runAt(roundUpToMillis(now + 250 * MS)) + TICK_COST;
+            count++;
+        }
+        long chainedDrift = (now - start) - count * 250 * MS;
+        assertTrue("chained drift " + chainedDrift / MS + " ms", chainedDrift > 1000 * MS);
+    }
+
+    @Test
+    public void missedBeatsAreSkippedNotBurst() {
+        BeatScheduler scheduler = new BeatScheduler(100);
+        assertEquals(100 * MS, scheduler.nextDeadline(0));
+        // The tick for 100 ms runs 350 ms late: the beats at 200, 300 and 400 ms are gone
+        scheduler.onTick(450 * MS);
+        assertEquals(500 * MS, scheduler.nextDeadline(450 * MS));
+    }
+
+    @Test
+    public void changingTheTempoKeepsThePendingBeat() {
+        BeatScheduler scheduler = new BeatScheduler(1000);
+        scheduler.setTempo(120, 1);
+        assertEquals(2000 * MS, scheduler.getPeriodNanos());
+        assertEquals(2000 * MS, scheduler.nextDeadline(0));
+
+        scheduler.setTempo(60, 1);
+        scheduler.onTick(2000 * MS);
+        assertEquals(6000 * MS, scheduler.nextDeadline(2000 * MS));
+
+        // A skipped word keeps the pending beat at a tempo but restarts a fixed delay
+        scheduler.onManualAdvance();
+        assertEquals(6000 * MS, scheduler.nextDeadline(5000 * MS));
+        scheduler.setDelay(500);
+        scheduler.onManualAdvance();
+        assertEquals(5500 * MS, scheduler.nextDeadline(5000 * MS));
+    }
+
+    @Test
+    public void lockedGridFollowsTheExternalBeat() {
+        BeatScheduler scheduler = new BeatScheduler(5000);
+        // 120 bpm, downbeat at 10 s, a word every bar
+        scheduler.lockTo(10_000 * MS, 500 * MS, 1);
+        assertEquals(10_000 * MS, scheduler.nextDeadline(9000 * MS));
+        scheduler.onTick(10_000 * MS);
+
+        // The audio clock runs 1 ms slow: the next bar moves with it
+        scheduler.lockTo(10_001 * MS, 500 * MS, 1);
+        assertEquals(12_001 * MS, scheduler.nextDeadline(10_010 * MS));
+
+        // Locking late in a loop starts at the next bar without counting misses
+        BeatScheduler late = new BeatScheduler(5000);
+        late.lockTo(0, 500 * MS, 2);
+        assertEquals(8000 * MS, late.nextDeadline(7000 * MS));
+    }
+
+    private static long roundUpToMillis(long nanos) {
+        return (nanos + MS - 1) / MS * MS;
+    }
+
+    /** Busy intervals of a main thread, generated as time advances. */
+    private static final class LoadedThread {
+        private static final double FRAME = 1e9 / 60;
+
+        private final Random random;
+        private long frame;
+        private long busyStart;
+        private long busyEnd;
+        private long nextStall;
+        private long stallStart;
+        private long stallEnd;
+        private boolean stalled;
+
+        LoadedThread(Random random) {
+            this.random = random;
+            this.nextStall = 2_000 * MS;
+        }
+
+        /** When a callback posted for {@code requested} gets to run. */
+        long runAt(long requested) {
+            long time = requested;
+            stalled = false;
+            while (true) {
+                advanceTo(time);
+                if (time >= stallStart && time < stallEnd) {
+                    time = stallEnd;
+                    stalled = true;
+                } else if (time >= busyStart && time < busyEnd) {
+                    time = busyEnd;
+                } else {
+                    return time;
+                }
+            }
+        }
+
+        /** Whether the last {@link #runAt} had to wait for a stall. */
+        boolean wasStalled() {
+            return stalled;
+        }
+
+        /** Frame work of 0.5 to 3.5 ms at every vsync; a 50 to 150 ms stall every 3 to 8 s. */
+        private void advanceTo(long time) {
+            while (Math.round((frame + 1) * FRAME) <= time) {
+                frame++;
+                busyStart = Math.round(frame * FRAME);
+                busyEnd = busyStart + (long) ((0.5 + 3 * random.nextDouble()) * MS);
+            }
+            while (nextStall <= time) {
+                stallStart = nextStall;
+                stallEnd = stallStart + (50 + random.nextInt(100)) * MS;
+                nextStall = stallEnd + (3000 + random.nextInt(5000)) * MS;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CategoryCacheTest {
+
+    /** Counts reads and trims of the source. */
+    private static final class CountingSource extends InMemoryWordSource {
+        final List<String> reads = new ArrayList<>();
+        int trims;
+
+        CountingSource(Map<String, List<String>> wordsByKey) {
+            super(wordsByKey);
+        }
+
+        @Override
+        public List<String> readWords(String key) {
+            reads.add(key);
+            return super.readWords(key);
+        }
+
+        @Override
+        public void trimMemory() {
+            trims++;
+        }
+    }
+
+    private static Map<String, List<String>> words() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        words.put("words_o_n_e", Arrays.asList("canción", "corazón", "razón"));
+        words.put("words_a_r_o", Arrays.asList("claro", "raro"));
+        words.put("words_u_r_a", Arrays.asList("razón", "locura"));
+        return words;
+    }
+
+    private final StringPool pool = new StringPool();
+    private final CountingSource source = new CountingSource(words());
+    // Prefetches run only when a test runs them
+    private final List<Runnable> background = new ArrayList<>();
+    private final CategoryCache cache = new CategoryCache(source, pool, background::add);
+
+    @After
+    public void tearDown() {
+        Instrumentation.disable();
+        Instrumentation.reset();
+    }
+
+    @Test
+    public void wordsAreLoadedOnFirstUseOnly() {
+        assertEquals(Arrays.asList("words_o_n_e", "words_a_r_o", "words_u_r_a"), cache.getKeys());
+        assertTrue(source.reads.isEmpty());
+        assertFalse(cache.isLoaded("words_o_n_e"));
+        assertEquals(3, cache.getWordCount("words_o_n_e"));
+
+        int[] ids = cache.getWordIds("words_o_n_e");
+        assertTrue(cache.isLoaded("words_o_n_e"));
+        assertEquals("corazón", pool.get(ids[1]));
+        assertEquals(pool.intern("razón"), cache.getWordIds("words_u_r_a")[0]);
+        assertSame(ids, cache.getWordIds("words_o_n_e"));
+        assertEquals(Arrays.asList("words_o_n_e", "words_u_r_a"), source.reads);
+    }
+
+    @Test
+    public void evictionDropsTheOtherListsAndReloadsThemWithTheSameIds() {
+        Instrumentation.enable(null);
+        cache.loadAll();
+        int[] before = cache.getWordIds("words_a_r_o").clone();
+        assertEquals(3, Instrumentation.getCount(Instrumentation.Counter.CATEGORIES_LOADED));
+        assertEquals(7, Instrumentation.getCount(Instrumentation.Counter.WORDS_LOADED));
+
+        cache.evictExcept(Collections.singleton("words_o_n_e"));
+        assertTrue(cache.isLoaded("words_o_n_e"));
+        assertFalse(cache.isLoaded("words_a_r_o"));
+        assertFalse(cache.isLoaded("words_u_r_a"));
+        assertEquals(2, Instrumentation.getCount(Instrumentation.Counter.EVICTIONS));
+        assertEquals(1, source.trims);
+
+        // The words stay in the pool, so a reload hands out the same ids
+        int poolSize = pool.size();
+        assertArrayEquals(before, cache.getWordIds("words_a_r_o"));
+        assertEquals(poolSize, pool.size());
+        assertEquals(4, Instrumentation.getCount(Instrumentation.Counter.CATEGORIES_LOADED));
+        assertEquals(Arrays.asList("words_o_n_e", "words_a_r_o", "words_u_r_a", "words_a_r_o"), source.reads);
+
+        // Evicting what is not loaded changes nothing but still trims
+        cache.evictExcept(Arrays.asList("words_o_n_e", "words_a_r_o"));
+        assertEquals(2, Instrumentation.getCount(Instrumentation.Counter.EVICTIONS));
+        assertEquals(2, source.trims);
+    }
+
+    @Test
+    public void prefetchLoadsOnlyWhatIsMissingOnTheExecutor() {
+        cache.getWordIds("words_o_n_e");
+        cache.prefetch(Arrays.asList("words_o_n_e", "words_u_r_a"));
+        assertEquals(1, background.size());
+        assertFalse(cache.isLoaded("words_u_r_a"));
+        background.remove(0).run();
+        assertTrue(cache.isLoaded("words_u_r_a"));
+
+        cache.prefetch(Arrays.asList("words_o_n_e", "words_u_r_a"));
+        assertTrue(background.isEmpty());
+
+        // An evicted category is prefetched again
+        cache.evictExcept(Collections.singleton("words_o_n_e"));
+        cache.prefetch(Arrays.asList("words_o_n_e", "words_u_r_a"));
+        assertEquals(1, background.size());
+    }
+
+    @Test
+    public void aFailedReadYieldsAnEmptyListAndIsCounted() {
+        WordSource failing = new WordSource() {
+            @Override
+            public List<String> getCategoryKeys() {
+                return Collections.singletonList("words_a_r_o");
+            }
+
+            @Override
+            public String getCategoryLabel(String key) {
+                return null;
+            }
+
+            @Override
+            public List<String> readWords(String key) throws IOException {
+                throw new IOException("unreadable");
+            }
+        };
+        CategoryCache failingCache = new CategoryCache(failing, pool, Runnable::run);
+        Instrumentation.enable(null);
+
+        assertEquals(0, failingCache.getWordIds("words_a_r_o").length);
+        assertTrue(failingCache.isLoaded("words_a_r_o"));
+        assertEquals(0, failingCache.getWordCount("words_a_r_o"));
+        assertEquals(1, Instrumentation.getCount(Instrumentation.Counter.LOAD_ERRORS));
+    }
+}
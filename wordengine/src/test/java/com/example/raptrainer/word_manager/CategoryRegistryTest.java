@@ -0,0 +1,103 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CategoryRegistryTest {
+    private static final List<String> FIRST_RUN = Arrays.asList("words_o_n_e", "words_a_c1t1p_e", "words_e_r_a");
+
+    private static CategoryRegistry registry(List<String> keys, List<String> knownIdOrder) {
+        return new CategoryRegistry(keys, Collections.<String, String>emptyMap(), knownIdOrder);
+    }
+
+    @Test
+    public void knownKeysKeepTheirIdsAndNewOnesAreAppended() {
+        CategoryRegistry first = registry(FIRST_RUN, Collections.<String>emptyList());
+        assertEquals(FIRST_RUN, first.getIdOrder());
+
+        List<String> grown = new ArrayList<>(FIRST_RUN);
+        grown.add(0, "words_a_r_o");
+        grown.add("words_u_s_a");
+        CategoryRegistry second = registry(grown, first.getIdOrder());
+        for (String key : FIRST_RUN) assertEquals(first.get(key).id, second.get(key).id);
+        assertEquals(3, second.get("words_a_r_o").id);
+        assertEquals(4, second.get("words_u_s_a").id);
+        assertEquals(5, second.getIdLimit());
+        assertEquals(5, second.size());
+    }
+
+    @Test
+    public void removedKeysDropOutButKeepTheirSlot() {
+        CategoryRegistry first = registry(FIRST_RUN, Collections.<String>emptyList());
+        CategoryRegistry second = registry(Arrays.asList("words_o_n_e", "words_e_r_a", "words_i_d_o"), first.getIdOrder());
+
+        assertNull(second.get("words_a_c1t1p_e"));
+        assertNull(second.get(1));
+        assertFalse(second.getPresentMask().get(1));
+        assertEquals(-1, second.rowOf(1));
+        assertEquals(3, second.size());
+        assertEquals(4, second.getIdLimit());
+        assertEquals(3, second.get("words_i_d_o").id);
+        for (int row = 0; row < second.size(); row++) assertTrue(second.idAtRow(row) != 1);
+
+        // The removed key comes back with its old id
+        CategoryRegistry third = registry(FIRST_RUN, second.getIdOrder());
+        assertEquals(1, third.get("words_a_c1t1p_e").id);
+    }
+
+    @Test
+    public void persistedSelectionMapsBackToTheSameKeysAfterTheListGrows() {
+        CategoryRegistry first = registry(FIRST_RUN, Collections.<String>emptyList());
+        BitSet selection = new BitSet();
+        selection.set(first.get("words_o_n_e").id);
+        selection.set(first.get("words_e_r_a").id);
+        long[] persisted = selection.toLongArray();
+        List<String> persistedOrder = new ArrayList<>(first.getIdOrder());
+
+        // New categories sort before and between the old ones
+        List<String> grown = new ArrayList<>(FIRST_RUN);
+        grown.addAll(Arrays.asList("words_a_a_a", "words_e_b_e", "words_o_z_o"));
+        CategoryRegistry second = registry(grown, persistedOrder);
+        BitSet restored = BitSet.valueOf(persisted);
+        restored.and(second.getPresentMask());
+        List<String> keys = new ArrayList<>();
+        for (int id = restored.nextSetBit(0); id >= 0; id = restored.nextSetBit(id + 1)) keys.add(second.get(id).key);
+        Collections.sort(keys);
+        assertEquals(Arrays.asList("words_e_r_a", "words_o_n_e"), keys);
+    }
+
+    @Test
+    public void displayOrderIsByKeyAndMasksGroupByVowel() {
+        Map<String, String> labels = new HashMap<>();
+        labels.put("words_e_r_a", "é-a");
+        CategoryRegistry registry = new CategoryRegistry(FIRST_RUN, labels, Collections.<String>emptyList());
+
+        String[] expected = {"words_a_c1t1p_e", "words_e_r_a", "words_o_n_e"};
+        for (int row = 0; row < expected.length; row++) {
+            assertEquals(expected[row], registry.get(registry.idAtRow(row)).key);
+            assertEquals(row, registry.rowOf(registry.idAtRow(row)));
+        }
+        assertEquals(Arrays.asList("a (c/t/p) e", "é-a", "o (n) e"), Arrays.asList(registry.getDisplayLabels()));
+
+        CategoryRegistry.Category category = registry.get("words_a_c1t1p_e");
+        assertEquals('a', category.vowel);
+        assertEquals("c/t/p", category.consonantClass);
+        assertEquals("e", category.ending);
+        BitSet aMask = registry.getVowelMask('a');
+        assertEquals(1, aMask.cardinality());
+        assertTrue(aMask.get(category.id));
+        assertTrue(registry.getVowelMask('u').isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CategoryTreeTest {
+
+    private static WordCorpus corpus() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        words.put("words_a_c1t1p_a", Arrays.asList("plata", "lata"));
+        words.put("words_a_c1t1p_e", Arrays.asList("mate"));
+        words.put("words_a_rr_o", Arrays.asList("carro", "jarro", "barro"));
+        words.put("words_ar1an1al", Arrays.asList("cantar"));
+        words.put("words_e_m1n_a", Arrays.asList("pena", "cena"));
+        words.put("user_mia", Arrays.asList("canción"));
+        return new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+    }
+
+    private static List<String> labels(List<CategoryTree.Node> nodes) {
+        List<String> labels = new ArrayList<>();
+        for (CategoryTree.Node node : nodes) labels.add(node.label);
+        return labels;
+    }
+
+    @Test
+    public void groupsByVowelClassAndEndingWithCounts() {
+        WordCorpus corpus = corpus();
+        CategoryTree tree = corpus.getCategoryTree();
+
+        List<CategoryTree.Node> roots = tree.getRoots();
+        assertEquals(Arrays.asList("a", "e", ""), labels(roots));
+        assertEquals(7, roots.get(0).wordCount);
+        assertEquals(4, roots.get(0).getCategoryCount());
+
+        List<CategoryTree.Node> classes = tree.getChildren(roots.get(0));
+        assertEquals(Arrays.asList("c/t/p", "rr", "ar/an/al"), labels(classes));
+        assertTrue(classes.get(2).isLeaf());
+        assertEquals(Arrays.asList("a", "e"), labels(tree.getChildren(classes.get(0))));
+        assertEquals(3, classes.get(0).wordCount);
+
+        CategoryTree.Node imported = tree.getChildren(roots.get(2)).get(0);
+        assertEquals("user_mia", imported.label);
+        assertEquals(corpus.getRegistry().get("user_mia").id, imported.categoryId);
+    }
+
+    @Test
+    public void parentsAreTriState() {
+        WordCorpus corpus = corpus();
+        CategoryTree tree = corpus.getCategoryTree();
+        CategoryTree.Node vowelA = tree.getRoots().get(0);
+        CategoryTree.Node ctp = tree.getChildren(vowelA).get(0);
+        BitSet selection = new BitSet();
+
+        selection.set(tree.getChildren(ctp).get(1).categoryId);
+        assertEquals(CategoryTree.PARTIAL, CategoryTree.getState(ctp, selection));
+        assertEquals(CategoryTree.PARTIAL, CategoryTree.getState(vowelA, selection));
+        assertEquals(CategoryTree.UNCHECKED, CategoryTree.getState(tree.getRoots().get(1), selection));
+
+        CategoryTree.setSelected(ctp, selection, true);
+        assertEquals(CategoryTree.CHECKED, CategoryTree.getState(ctp, selection));
+        CategoryTree.setSelected(vowelA, selection, true);
+        assertEquals(CategoryTree.CHECKED, CategoryTree.getState(vowelA, selection));
+        CategoryTree.setSelected(vowelA, selection, false);
+        assertTrue(selection.isEmpty());
+    }
+
+    @Test
+    public void searchNarrowsAsTheUserTypes() {
+        WordCorpus corpus = corpus();
+        CategoryTree tree = corpus.getCategoryTree();
+        CategoryTree.Search search = tree.newSearch();
+        CategoryRegistry registry = corpus.getRegistry();
+
+        BitSet matches = search.match("a c/t");
+        assertEquals(2, matches.cardinality());
+        matches = search.match("a c/t/p e");
+        assertEquals(1, matches.cardinality());
+        assertTrue(matches.get(registry.get("words_a_c1t1p_e").id));
+        assertEquals(Arrays.asList("a", "c/t/p", "e"), labels(tree.rowsMatching(matches)));
+
+        // Deleting letters widens the search again
+        assertEquals(2, search.match("a c").cardinality());
+        assertEquals(1, search.match("AN/al").cardinality());
+        assertEquals(1, search.match("mía").cardinality());
+        assertNull(search.match("  "));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvWordReaderTest {
+
+    private static List<String> read(String csv) throws IOException {
+        return CsvWordReader.readWords(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void readsSpanishCharactersAsUtf8() throws IOException {
+        assertEquals(Arrays.asList("ñeri", "canción", "maní", "café", "mamá", "pingüino", "Ñandú"),
+                read("ñeri, canción, maní,café,  mamá\npingüino,Ñandú"));
+    }
+
+    @Test
+    public void splitsOnCommasAndLineBreaksAndTrims() throws IOException {
+        assertEquals(Arrays.asList("peli", "perri", "dos palabras", "fin"),
+                read(" peli ,perri\r\n\tdos palabras ,\n,  ,fin\n"));
+    }
+
+    @Test
+    public void skipsByteOrderMark() throws IOException {
+        assertEquals(Arrays.asList("año", "niño"), read("\uFEFFaño, niño"));
+    }
+
+    @Test
+    public void emptyInputYieldsNoWords() throws IOException {
+        assertEquals(Collections.<String>emptyList(), read(""));
+        assertEquals(Collections.<String>emptyList(), read(" ,\n, "));
+    }
+
+    @Test
+    public void wordsStraddlingTheReadBufferStayWhole() throws IOException {
+        // Multi-byte words at every offset around the 8192 char buffer boundary
+        StringBuilder csv = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; csv.length() < 20000; i++) {
+            String word = "señoría" + i;
+            expected.add(word);
+            csv.append(word).append(i % 3 == 0 ? ",\n" : ", ");
+        }
+        StringBuilder longWord = new StringBuilder();
+        for (int i = 0; i < 10000; i++) longWord.append(i % 2 == 0 ? 'ñ' : 'á');
+        expected.add(longWord.toString());
+        csv.append(longWord);
+
+        assertEquals(expected, read(csv.toString()));
+    }
+
+    @Test
+    public void sinkReceivesTrimmedRanges() throws IOException {
+        List<String> words = new ArrayList<>();
+        CsvWordReader.readWords(new ByteArrayInputStream(" sueño ,montaña".getBytes(StandardCharsets.UTF_8)),
+                (buffer, offset, length) -> words.add(new String(buffer, offset, length)));
+        assertEquals(Arrays.asList("sueño", "montaña"), words);
+    }
+}
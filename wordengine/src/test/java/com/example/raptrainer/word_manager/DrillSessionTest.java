@@ -0,0 +1,275 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DrillSessionTest {
+
+    @Test
+    public void permutationIsABijection() {
+        for (int size : new int[]{1, 2, 3, 5, 16, 17, 1000, 4097}) {
+            IndexPermutation permutation = new IndexPermutation(size, size * 31L);
+            BitSet seen = new BitSet(size);
+            for (int i = 0; i < size; i++) {
+                int value = permutation.get(i);
+                assertTrue(value >= 0 && value < size);
+                assertFalse("duplicate " + value + " of " + size, seen.get(value));
+                seen.set(value);
+            }
+        }
+    }
+
+    @Test
+    public void permutationDependsOnTheSeed() {
+        IndexPermutation first = new IndexPermutation(1000, 1);
+        IndexPermutation second = new IndexPermutation(1000, 2);
+        int same = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (first.get(i) == second.get(i)) same++;
+        }
+        assertTrue("same positions: " + same, same < 20);
+    }
+
+    @Test
+    public void codeRoundTrips() {
+        List<String> keys = Arrays.asList("words_a_c1t1p_e", "words_e_r_a", "words_o_s_o");
+        DrillSession session = DrillSession.create(0xCAFEBABEL, new int[]{0, 7, 300}, keys, 3, 41, true);
+        String code = session.toCode();
+
+        DrillSession parsed = DrillSession.parse(code.toLowerCase().replace('0', 'o'));
+        assertEquals(0xCAFEBABEL, parsed.getSeed());
+        assertArrayEquals(new int[]{0, 7, 300}, parsed.getRows());
+        assertEquals(3, parsed.getRound());
+        assertEquals(41, parsed.getIndex());
+        assertTrue(parsed.isAllowRepeat());
+        assertTrue(parsed.matches(keys));
+        assertFalse(parsed.matches(Arrays.asList("words_a_c1t1p_e", "words_e_r_a", "words_u_s_o")));
+        assertEquals(code, parsed.toCode());
+
+        // Many rows pick the bitset form
+        int[] rows = new int[60];
+        for (int i = 0; i < rows.length; i++) rows[i] = i * 2;
+        DrillSession dense = DrillSession.create(5, rows, keys, 0, 0, false);
+        assertArrayEquals(rows, DrillSession.parse(dense.toCode()).getRows());
+    }
+
+    @Test
+    public void malformedCodesAreRejected() {
+        for (String code : new String[]{"", "U", "4ZK8", "!!!!-!!!!"}) {
+            try {
+                DrillSession.parse(code);
+                fail("parsed " + code);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void restoredSessionDrawsTheSameWordsOnAnotherInstall() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        for (String key : new String[]{"words_a_c1t1p_e", "words_a_r_o", "words_e_s_a", "words_o_n_e"}) {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < 25; i++) list.add(key.substring(6) + i);
+            words.put(key, list);
+        }
+        WordCorpus corpus = new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+        // Another install that saw the categories in a different order has different ids
+        List<String> otherIdOrder = new ArrayList<>(words.keySet());
+        Collections.reverse(otherIdOrder);
+        WordCorpus otherCorpus = new WordCorpus(new InMemoryWordSource(words), otherIdOrder);
+
+        WordEngine engine = new WordEngine(corpus, new Random(3));
+        engine.setAllowRepeat(true);
+        engine.setCategorySelected(corpus.getRegistry().get("words_a_r_o").id, true);
+        engine.setCategorySelected(corpus.getRegistry().get("words_o_n_e").id, true);
+        engine.applySelection();
+        for (int i = 0; i < 70; i++) engine.getNextWord();
+
+        String code = engine.snapshot().toCode();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 60; i++) expected.add(engine.getNextWord());
+
+        WordEngine restored = new WordEngine(otherCorpus, new Random(4));
+        restored.restore(DrillSession.parse(code));
+        assertTrue(restored.isAllowRepeat());
+        // The word last drawn before the snapshot comes first
+        restored.getNextWord();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < 60; i++) actual.add(restored.getNextWord());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void sessionResumesExactlyAfterChangesPartWayThroughAShuffle() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        for (String key : new String[]{"words_a_c1t1p_e", "words_a_r_o", "words_e_s_a", "words_o_n_e"}) {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < 25; i++) list.add(key.substring(6) + i);
+            words.put(key, list);
+        }
+        WordCorpus corpus = new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+        List<String> otherIdOrder = new ArrayList<>(words.keySet());
+        Collections.reverse(otherIdOrder);
+        WordCorpus otherCorpus = new WordCorpus(new InMemoryWordSource(words), otherIdOrder);
+
+        WordEngine engine = new WordEngine(corpus, new Random(8));
+        select(engine, "words_a_r_o", true);
+        select(engine, "words_e_s_a", true);
+        engine.applySelection();
+        List<String> shown = new ArrayList<>();
+        for (int i = 0; i < 12; i++) shown.add(engine.getNextWord());
+        // Removed, then back with only its unseen words, plus a new category
+        select(engine, "words_e_s_a", false);
+        engine.applySelection();
+        for (int i = 0; i < 8; i++) shown.add(engine.getNextWord());
+        select(engine, "words_e_s_a", true);
+        select(engine, "words_o_n_e", true);
+        engine.applySelection();
+        for (int i = 0; i < 5; i++) shown.add(engine.getNextWord());
+
+        DrillSession session = DrillSession.parse(engine.snapshot().toCode());
+        assertEquals(24, session.getIndex());
+        assertEquals(2, session.getChanges().size());
+        assertEquals(3, session.getRows().length);
+        assertEquals(2, session.getRoundRows().length);
+
+        WordEngine restored = new WordEngine(otherCorpus, new Random(9));
+        restored.restore(session);
+        assertEquals(shown.get(shown.size() - 1), restored.getNextWord());
+        List<String> expected = new ArrayList<>();
+        String word;
+        while ((word = engine.getNextWord()) != null) expected.add(word);
+        List<String> actual = new ArrayList<>();
+        while ((word = restored.getNextWord()) != null) actual.add(word);
+        assertEquals(expected, actual);
+        // Nothing shown before comes up again
+        for (String next : actual) assertFalse(next, shown.contains(next));
+        assertEquals(75 - shown.size(), actual.size());
+
+        // A session made right after a change returns the last word, then the changed draw
+        engine = new WordEngine(corpus, new Random(10));
+        engine.setAllowRepeat(true);
+        select(engine, "words_a_r_o", true);
+        engine.applySelection();
+        String last = null;
+        for (int i = 0; i < 7; i++) last = engine.getNextWord();
+        select(engine, "words_o_n_e", true);
+        engine.applySelection();
+        restored = new WordEngine(otherCorpus, new Random(11));
+        restored.restore(DrillSession.parse(engine.snapshot().toCode()));
+        assertEquals(last, restored.getNextWord());
+        for (int i = 0; i < 100; i++) assertEquals(engine.getNextWord(), restored.getNextWord());
+
+        // A word list without one of the categories selected along the way
+        Map<String, List<String>> fewer = new LinkedHashMap<>(words);
+        fewer.remove("words_o_n_e");
+        WordEngine other = new WordEngine(new WordCorpus(new InMemoryWordSource(fewer), Collections.<String>emptyList()));
+        try {
+            other.restore(session);
+            fail("restored over another word list");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void select(WordEngine engine, String key, boolean selected) {
+        engine.setCategorySelected(engine.getCorpus().getRegistry().get(key).id, selected);
+    }
+
+    @Test
+    public void engineDrawMatchesTheDrillStream() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 30; i++) list.add("palabra" + i);
+        words.put("words_a_r_o", list);
+        WordCorpus corpus = new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+        WordEngine engine = new WordEngine(corpus, new Random(5));
+        engine.setAllowRepeat(true);
+        engine.selectAllCategories();
+        engine.applySelection();
+
+        long seed = engine.snapshot().getSeed();
+        List<String> drawn = new ArrayList<>();
+        for (int i = 0; i < 100; i++) drawn.add(engine.getNextWord());
+        assertEquals(drawn, engine.drill(100, seed).parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void peekReturnsTheNextWordsWithoutShowingThem() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) list.add("palabra" + i);
+        words.put("words_a_r_o", list);
+        WordCorpus corpus = new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+        WordEngine engine = new WordEngine(corpus, new Random(6));
+        engine.selectAllCategories();
+        engine.applySelection();
+        for (int i = 0; i < 7; i++) engine.getNextWord();
+
+        // Without repeat the peek stops at the end of the shuffle
+        List<String> peeked = engine.peekNextWords(4);
+        assertEquals(3, peeked.size());
+        assertEquals(peeked, engine.peekNextWords(4));
+        for (String word : peeked) assertEquals(word, engine.getNextWord());
+
+        engine.setAllowRepeat(true);
+        peeked = engine.peekNextWords(4);
+        assertEquals(4, peeked.size());
+        for (String word : peeked) assertEquals(word, engine.getNextWord());
+    }
+
+    @Test(timeout = 10000)
+    public void peekHoldsInEveryModeAndLeavesTheSessionAlone() throws InterruptedException {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        words.put("words_a_r_o", Arrays.asList("faro", "claro", "caro", "raro", "paro", "descaro", "amparo", "disparo"));
+        words.put("words_e_n_a", Arrays.asList("pena", "cena", "arena", "vena", "buena", "llena", "antena", "escena"));
+        WordCorpus corpus = new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+        WordEngine engine = new WordEngine(corpus, new Random(7));
+        engine.setAllowRepeat(true);
+        engine.selectAllCategories();
+        engine.applySelection();
+        for (int i = 0; i < 3; i++) engine.getNextWord();
+
+        String code = engine.snapshot().toCode();
+        List<String> peeked = engine.peekNextWords(5);
+        assertEquals(5, peeked.size());
+        assertEquals(code, engine.snapshot().toCode());
+        for (String word : peeked) assertEquals(word, engine.getNextWord());
+
+        engine.setSpacedRepetition(true);
+        peeked = engine.peekNextWords(5);
+        assertEquals(5, peeked.size());
+        for (String word : peeked) assertEquals(word, engine.getNextWord());
+        engine.setSpacedRepetition(false);
+
+        engine.setRhymeChain(true);
+        while (corpus.getRhymeIndex() == null) Thread.sleep(10);
+        peeked = engine.peekNextWords(6);
+        assertEquals(6, peeked.size());
+        for (String word : peeked) assertEquals(word, engine.getNextWord());
+
+        // Words drawn ahead and dropped by a change are not lost from the shuffle
+        engine.setRhymeChain(false);
+        code = engine.snapshot().toCode();
+        engine.peekNextWords(4);
+        engine.setRhymeChain(true);
+        engine.setRhymeChain(false);
+        assertEquals(code, engine.snapshot().toCode());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumentationTest {
+
+    @After
+    public void tearDown() {
+        // The numbers are global; leave them as the other tests expect them
+        Instrumentation.disable();
+        Instrumentation.reset();
+    }
+
+    @Test
+    public void nothingIsCollectedWhileDisabled() {
+        assertFalse(Instrumentation.isEnabled());
+        long start = Instrumentation.begin(Instrumentation.Timer.NEXT_WORD);
+        assertEquals(0, start);
+        Instrumentation.end(Instrumentation.Timer.NEXT_WORD, start);
+        Instrumentation.record(Instrumentation.Timer.SHUFFLE, 5000);
+        Instrumentation.increment(Instrumentation.Counter.WORDS_DRAWN);
+        Instrumentation.add(Instrumentation.Counter.EVICTIONS, 3);
+
+        assertEquals(0, Instrumentation.getStats(Instrumentation.Timer.NEXT_WORD).getCount());
+        assertEquals(0, Instrumentation.getStats(Instrumentation.Timer.SHUFFLE).getCount());
+        assertEquals(0, Instrumentation.getCount(Instrumentation.Counter.WORDS_DRAWN));
+        assertEquals(0, Instrumentation.getCount(Instrumentation.Counter.EVICTIONS));
+        assertEquals("", Instrumentation.toText());
+    }
+
+    @Test
+    public void countsAndTimesWhileEnabledAndTracesSections() {
+        List<String> trace = new ArrayList<>();
+        Instrumentation.enable(new Instrumentation.TraceBackend() {
+            @Override
+            public void beginSection(String name) {
+                trace.add(name);
+            }
+
+            @Override
+            public void endSection() {
+                trace.add("end");
+            }
+        });
+        assertTrue(Instrumentation.isEnabled());
+
+        long start = Instrumentation.begin(Instrumentation.Timer.NEXT_WORD);
+        assertTrue(start != 0);
+        Instrumentation.end(Instrumentation.Timer.NEXT_WORD, start);
+        assertEquals(Arrays.asList("RapTrainer:nextWord", "end"), trace);
+        Instrumentation.TimerStats nextWord = Instrumentation.getStats(Instrumentation.Timer.NEXT_WORD);
+        assertEquals(1, nextWord.getCount());
+        assertEquals(nextWord.getLastNanos(), nextWord.getTotalNanos());
+
+        Instrumentation.increment(Instrumentation.Counter.WORDS_DRAWN);
+        Instrumentation.increment(Instrumentation.Counter.WORDS_DRAWN);
+        Instrumentation.add(Instrumentation.Counter.WORDS_LOADED, 40);
+        assertEquals(2, Instrumentation.getCount(Instrumentation.Counter.WORDS_DRAWN));
+        assertEquals(40, Instrumentation.getCount(Instrumentation.Counter.WORDS_LOADED));
+    }
+
+    @Test
+    public void percentilesAreBucketBoundsCappedAtTheMaximum() {
+        Instrumentation.enable(null);
+        Instrumentation.TimerStats shuffle = Instrumentation.getStats(Instrumentation.Timer.SHUFFLE);
+        assertEquals(0, shuffle.getPercentileNanos(0.5));
+
+        for (int i = 0; i < 99; i++) Instrumentation.record(Instrumentation.Timer.SHUFFLE, 1000);
+        Instrumentation.record(Instrumentation.Timer.SHUFFLE, 1_000_000);
+        Instrumentation.record(Instrumentation.Timer.SHUFFLE, -5);
+
+        assertEquals(101, shuffle.getCount());
+        assertEquals(99 * 1000 + 1_000_000, shuffle.getTotalNanos());
+        assertEquals(1_000_000, shuffle.getMaxNanos());
+        assertEquals(0, shuffle.getLastNanos());
+        // 1000 ns has bit length 10, so its bucket ends at 1023 ns
+        assertEquals(1023, shuffle.getPercentileNanos(0.5));
+        assertEquals(1023, shuffle.getPercentileNanos(0.95));
+        assertEquals(1_000_000, shuffle.getPercentileNanos(1.0));
+    }
+
+    @Test
+    public void snapshotsReflectTheNumbersAndResetClearsThem() {
+        Instrumentation.enable(null);
+        Instrumentation.record(Instrumentation.Timer.PARSE, 2_000_000);
+        Instrumentation.add(Instrumentation.Counter.CATEGORIES_LOADED, 3);
+
+        // Only lines of what was recorded; other tests' background threads may add theirs
+        String text = Instrumentation.toText();
+        assertTrue(text, text.contains("parse: 1x  avg 2.000ms  p95 2.000ms  max 2.000ms\n"));
+        assertTrue(text, text.contains("categories_loaded: 3\n"));
+        String json = Instrumentation.toJson();
+        assertTrue(json, json.startsWith("{\"timers\":{"));
+        assertTrue(json, json.contains("\"parse\":{\"count\":1,\"totalNs\":2000000,\"maxNs\":2000000,\"lastNs\":2000000,"
+                + "\"p50Ns\":2000000,\"p95Ns\":2000000}"));
+        assertTrue(json, json.contains("\"shuffle\":{\"count\":0,"));
+        assertTrue(json, json.contains("\"categories_loaded\":3,"));
+        assertTrue(json, json.endsWith("}}"));
+
+        Instrumentation.reset();
+        assertTrue(Instrumentation.isEnabled());
+        assertEquals(0, Instrumentation.getStats(Instrumentation.Timer.PARSE).getCount());
+        assertEquals(0, Instrumentation.getStats(Instrumentation.Timer.PARSE).getMaxNanos());
+        assertEquals(0, Instrumentation.getStats(Instrumentation.Timer.PARSE).getPercentileNanos(0.95));
+        assertEquals(0, Instrumentation.getCount(Instrumentation.Counter.CATEGORIES_LOADED));
+        assertFalse(Instrumentation.toText().contains("parse:"));
+    }
+
+    @Test
+    public void disablingKeepsTheNumbersSoFar() {
+        Instrumentation.enable(null);
+        Instrumentation.increment(Instrumentation.Counter.RHYMES_CHAINED);
+        Instrumentation.record(Instrumentation.Timer.SELECTION_UPDATE, 700);
+
+        Instrumentation.disable();
+        assertFalse(Instrumentation.isEnabled());
+        Instrumentation.increment(Instrumentation.Counter.RHYMES_CHAINED);
+        Instrumentation.record(Instrumentation.Timer.SELECTION_UPDATE, 700);
+        assertEquals(1, Instrumentation.getCount(Instrumentation.Counter.RHYMES_CHAINED));
+        assertEquals(1, Instrumentation.getStats(Instrumentation.Timer.SELECTION_UPDATE).getCount());
+
+        // A section begun while enabled still ends once disabled
+        Instrumentation.enable(null);
+        long start = Instrumentation.begin(Instrumentation.Timer.SELECTION_UPDATE);
+        Instrumentation.disable();
+        Instrumentation.end(Instrumentation.Timer.SELECTION_UPDATE, start);
+        assertEquals(2, Instrumentation.getStats(Instrumentation.Timer.SELECTION_UPDATE).getCount());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class RhymeClassifierTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RhymeClassifier classifier = new RhymeClassifier();
+
+    @Test
+    public void filesByStressedVowelConsonantsAndEnding() {
+        assertEquals("words_a_c1t1p_a", classifier.classify("plata"));
+        assertEquals("words_u_nb1ng1nd_o", classifier.classify("mundo"));
+        assertEquals("words_e_rr_a", classifier.classify("Guerra"));
+        assertEquals("words_e_f1s1j_o", classifier.classify("queso"));
+        assertEquals("words_a_ch_o", classifier.classify("chancho"));
+        assertEquals("words_a_ll_e", classifier.classify("calle"));
+        assertEquals("words_i_ñ_o", classifier.classify("niño"));
+        assertEquals("words_a_ft1st_o", classifier.classify("pasto"));
+        assertEquals("words_o_br1gr1dr_e", classifier.classify("hombre"));
+        assertEquals("words_a_rt1lt_o", classifier.classify("árbol"));
+    }
+
+    @Test
+    public void filesFinalStressByLastSound() {
+        assertEquals("words_as1az", classifier.classify("papá"));
+        assertEquals("words_as1az", classifier.classify("capaz"));
+        assertEquals("words_or1on1ol", classifier.classify("canción"));
+        assertEquals("words_ad1ab", classifier.classify("verdad"));
+        assertEquals("words_ir1in1il", classifier.classify("abril"));
+        assertEquals("words_is1iz", classifier.classify("feliz"));
+    }
+
+    @Test
+    public void handlesGlidesAndLoanwords() {
+        assertEquals("words_e_ñ_o", classifier.classify("genio"));
+        assertEquals("words_a_cr1pr1tr_o", classifier.classify("cuatro"));
+        assertEquals("words_a_nb1ng1nd_i", classifier.classify("candy"));
+        // Nothing between the stressed vowel and the ending
+        assertNull(classifier.classify("día"));
+        assertNull(classifier.classify(""));
+    }
+
+    @Test
+    public void prefersExistingEndings() {
+        assertEquals("words_a_c1t1p_i", classifier.classify("saqui"));
+        RhymeClassifier scheme = new RhymeClassifier(Arrays.asList("words_a_c1t1p_e", "words_e_f1s1j_o"));
+        assertEquals("words_a_c1t1p_e", scheme.classify("saqui"));
+        assertEquals("words_e_f1s1j_o", scheme.classify("mesu"));
+    }
+
+    @Test
+    public void classifiesCharacterRanges() {
+        char[] buffer = "xx mundo yy".toCharArray();
+        assertEquals("words_u_nb1ng1nd_o", classifier.classify(buffer, 3, 5));
+    }
+
+    @Test
+    public void splitsAListIntoCategories() throws IOException {
+        Map<String, List<String>> categories = RhymeClassifier.split(
+                new ByteArrayInputStream("plata, lata, día\ncanción".getBytes(StandardCharsets.UTF_8)));
+        Map<String, List<String>> expected = new HashMap<>();
+        expected.put("words_a_c1t1p_a", Arrays.asList("plata", "lata"));
+        expected.put("words_or1on1ol", Collections.singletonList("canción"));
+        assertEquals(expected, categories);
+    }
+
+    @Test
+    public void importedListsJoinBundledRhymeCategories() throws IOException {
+        File lists = folder.newFolder("lists");
+        File list = ImportedWordSource.fileFor(lists, "Mía");
+        try (CompactWordList.Writer writer = new CompactWordList.Writer(new FileOutputStream(list), "Mía")) {
+            for (String word : new String[]{"día", "lata", "pasta", "plata"}) writer.add(word);
+        }
+        assertEquals(3, ImportedWordSource.fileRhymes(list, Collections.<String>emptyList()));
+
+        WordSource bundled = new InMemoryWordSource(Collections.singletonMap("words_a_c1t1p_a", Arrays.asList("gata", "lata")));
+        WordSource composite = new CompositeWordSource(bundled, new ImportedWordSource(lists));
+        assertEquals(Arrays.asList("words_a_c1t1p_a", "user_mia", "words_a_ft1st_a"), composite.getCategoryKeys());
+        assertEquals(Arrays.asList("gata", "lata", "plata"), composite.readWords("words_a_c1t1p_a"));
+
+        StringPool pool = new StringPool();
+        int[] ids = composite.readWordIds("words_a_c1t1p_a", pool);
+        assertArrayEquals(new int[]{pool.intern("gata"), pool.intern("lata"), pool.intern("plata")}, ids);
+    }
+
+    @Test
+    public void agreesWithTheBundledLists() throws IOException {
+        File words = new File("../app/src/main/assets/words");
+        assumeTrue(words.isDirectory());
+        RhymeClassifier.Agreement agreement = RhymeClassifier.check(new CsvDirectoryWordSource(words));
+        assertTrue(agreement.mismatches.toString(), agreement.matching >= agreement.total * 0.99);
+    }
+}
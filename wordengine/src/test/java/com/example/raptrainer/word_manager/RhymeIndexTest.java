@@ -0,0 +1,62 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RhymeIndexTest {
+    private static final RhymeIndex INDEX = RhymeIndex.build(Arrays.asList(
+            "canción", "razón", "corazón", "pasión", "canción",
+            "tierna", "cerca", "mesa", "nave", "cabe", "valla", "raya"));
+
+    private static Set<String> rhymes(String word, RhymeIndex.RhymeType type) {
+        return new HashSet<>(INDEX.findRhymes(word, type, 10, new Random(1)));
+    }
+
+    @Test
+    public void duplicatesAreIndexedOnce() {
+        assertEquals(11, INDEX.size());
+    }
+
+    @Test
+    public void findsConsonantRhymesButNeverTheWordItself() {
+        assertEquals(new HashSet<>(Arrays.asList("razón", "corazón", "pasión")), rhymes("canción", RhymeIndex.RhymeType.CONSONANT));
+        assertEquals(new HashSet<>(Arrays.asList("cabe")), rhymes("nave", RhymeIndex.RhymeType.CONSONANT));
+        assertEquals(new HashSet<>(Arrays.asList("raya")), rhymes("valla", RhymeIndex.RhymeType.CONSONANT));
+        // A word outside the index rhymes with all of its class
+        assertEquals(4, rhymes("melón", RhymeIndex.RhymeType.CONSONANT).size());
+    }
+
+    @Test
+    public void findsAssonantRhymes() {
+        Set<String> found = rhymes("tierna", RhymeIndex.RhymeType.ASSONANT);
+        assertEquals(new HashSet<>(Arrays.asList("cerca", "mesa")), found);
+        assertFalse(rhymes("tierna", RhymeIndex.RhymeType.CONSONANT).contains("cerca"));
+    }
+
+    @Test
+    public void wordsWithoutRhymesGetNone() {
+        assertTrue(rhymes("brújula", RhymeIndex.RhymeType.CONSONANT).isEmpty());
+        assertTrue(rhymes("brújula", RhymeIndex.RhymeType.ASSONANT).isEmpty());
+        assertTrue(rhymes("brr", RhymeIndex.RhymeType.CONSONANT).isEmpty());
+    }
+
+    @Test
+    public void samplesDistinctRhymesUpToTheCount() {
+        for (int seed = 0; seed < 50; seed++) {
+            List<String> sample = INDEX.findRhymes("canción", RhymeIndex.RhymeType.CONSONANT, 2, new Random(seed));
+            assertEquals(2, sample.size());
+            assertEquals(2, new HashSet<>(sample).size());
+            assertFalse(sample.contains("canción"));
+            assertTrue(Arrays.asList("razón", "corazón", "pasión").containsAll(sample));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SelectionChangeTest {
+    private static final String[] KEYS = {"words_a_r_o", "words_e_n_a", "words_o_l_e"};
+
+    private static WordCorpus corpus() {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        for (String key : KEYS) {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < 40; i++) list.add(key.substring(6, 7) + i);
+            words.put(key, list);
+        }
+        return new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+    }
+
+    private static void select(WordEngine engine, String key, boolean selected) {
+        engine.setCategorySelected(engine.getCorpus().getRegistry().get(key).id, selected);
+    }
+
+    private static List<String> drawAll(WordEngine engine) {
+        List<String> words = new ArrayList<>();
+        String word;
+        while ((word = engine.getNextWord()) != null) words.add(word);
+        return words;
+    }
+
+    @Test
+    public void inverseUndoesThePermutation() {
+        for (int size : new int[]{1, 7, 64, 1000}) {
+            IndexPermutation permutation = new IndexPermutation(size, 42);
+            for (int i = 0; i < size; i++) assertEquals(i, permutation.indexOf(permutation.get(i)));
+        }
+    }
+
+    @Test
+    public void addedWordsJoinTheRestOfTheShuffle() {
+        WordEngine engine = new WordEngine(corpus(), new Random(1));
+        select(engine, KEYS[0], true);
+        engine.applySelection();
+        Set<String> shown = new HashSet<>();
+        for (int i = 0; i < 25; i++) shown.add(engine.getNextWord());
+
+        select(engine, KEYS[1], true);
+        engine.applySelection();
+        List<String> rest = drawAll(engine);
+        assertEquals(15 + 40, rest.size());
+        assertEquals(rest.size(), new HashSet<>(rest).size());
+        for (String word : rest) assertFalse(word, shown.contains(word));
+        // Spread over the rest rather than appended
+        int addedInFirstHalf = 0;
+        for (String word : rest.subList(0, rest.size() / 2)) if (word.startsWith("e")) addedInFirstHalf++;
+        assertTrue(addedInFirstHalf > 5 && addedInFirstHalf < 25);
+    }
+
+    @Test
+    public void removedWordsLeaveTheQueue() {
+        WordEngine engine = new WordEngine(corpus(), new Random(2));
+        select(engine, KEYS[0], true);
+        select(engine, KEYS[1], true);
+        engine.applySelection();
+        Set<String> shown = new HashSet<>();
+        for (int i = 0; i < 30; i++) shown.add(engine.getNextWord());
+        int shownOfKept = 0;
+        for (String word : shown) if (word.startsWith("a")) shownOfKept++;
+
+        select(engine, KEYS[1], false);
+        engine.applySelection();
+        List<String> rest = drawAll(engine);
+        assertEquals(40 - shownOfKept, rest.size());
+        for (String word : rest) {
+            assertTrue(word, word.startsWith("a"));
+            assertFalse(word, shown.contains(word));
+        }
+        assertTrue(engine.isEmpty());
+    }
+
+    @Test
+    public void readdedCategoryOnlyBringsBackUnseenWords() {
+        WordEngine engine = new WordEngine(corpus(), new Random(3));
+        select(engine, KEYS[0], true);
+        select(engine, KEYS[1], true);
+        engine.applySelection();
+        Set<String> shown = new HashSet<>();
+        for (int i = 0; i < 20; i++) shown.add(engine.getNextWord());
+
+        select(engine, KEYS[1], false);
+        engine.applySelection();
+        for (int i = 0; i < 10; i++) shown.add(engine.getNextWord());
+        select(engine, KEYS[1], true);
+        select(engine, KEYS[2], true);
+        engine.applySelection();
+
+        List<String> rest = drawAll(engine);
+        Set<String> all = new HashSet<>(shown);
+        all.addAll(rest);
+        assertEquals(120, all.size());
+        assertEquals(120, shown.size() + rest.size());
+    }
+
+    @Test
+    public void peekFollowsTheChangedDraw() {
+        WordEngine engine = new WordEngine(corpus(), new Random(4));
+        engine.setAllowRepeat(true);
+        select(engine, KEYS[0], true);
+        engine.applySelection();
+        for (int i = 0; i < 10; i++) engine.getNextWord();
+        select(engine, KEYS[2], true);
+        select(engine, KEYS[0], false);
+        select(engine, KEYS[1], true);
+        engine.applySelection();
+
+        List<String> peeked = engine.peekNextWords(100);
+        assertEquals(100, peeked.size());
+        for (String word : peeked) assertEquals(word, engine.getNextWord());
+    }
+
+    @Test
+    public void sessionAfterAChangeResumesTheChangedShuffle() {
+        WordCorpus corpus = corpus();
+        WordEngine engine = new WordEngine(corpus, new Random(5));
+        engine.setAllowRepeat(true);
+        select(engine, KEYS[0], true);
+        engine.applySelection();
+        String last = null;
+        for (int i = 0; i < 10; i++) last = engine.getNextWord();
+        select(engine, KEYS[1], true);
+        engine.applySelection();
+
+        DrillSession session = DrillSession.parse(engine.snapshot().toCode());
+        assertEquals(9, session.getIndex());
+        WordEngine restored = new WordEngine(corpus, new Random(6));
+        restored.restore(session);
+
+        // The word last shown, then the rest of the changed shuffle and the next one
+        assertEquals(last, restored.getNextWord());
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < 30 + 40 + 80; i++) {
+            expected.add(engine.getNextWord());
+            actual.add(restored.getNextWord());
+        }
+        assertEquals(expected, actual);
+        assertEquals(70, new HashSet<>(actual.subList(0, 70)).size());
+    }
+}
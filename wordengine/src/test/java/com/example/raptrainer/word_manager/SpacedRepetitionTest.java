@@ -0,0 +1,136 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpacedRepetitionTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void samplerFindsPositionsByCumulativeWeight() {
+        WeightedSampler sampler = new WeightedSampler(new long[]{0, 3, 0, 2, 5});
+        assertEquals(10, sampler.total());
+        assertEquals(1, sampler.find(0));
+        assertEquals(1, sampler.find(2));
+        assertEquals(3, sampler.find(3));
+        assertEquals(4, sampler.find(5));
+        assertEquals(4, sampler.find(9));
+
+        sampler.setWeight(4, 0);
+        sampler.setWeight(2, 4);
+        assertEquals(9, sampler.total());
+        assertEquals(2, sampler.find(3));
+        assertEquals(3, sampler.find(8));
+    }
+
+    @Test
+    public void samplerDrawsProportionallyToWeight() {
+        long[] weights = new long[1000];
+        for (int i = 0; i < weights.length; i++) weights[i] = i % 2 == 0 ? 1 : 3;
+        WeightedSampler sampler = new WeightedSampler(weights);
+        Random random = new Random(1);
+        int odd = 0;
+        int draws = 200_000;
+        for (int i = 0; i < draws; i++) {
+            if (sampler.sample(random) % 2 == 1) odd++;
+        }
+        assertEquals(0.75, odd / (double) draws, 0.01);
+    }
+
+    @Test
+    public void skippedWordsComeBackMoreOften() {
+        StringPool pool = new StringPool();
+        WordStats stats = new WordStats();
+        int[] ids = new int[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pool.intern("palabra" + i);
+            stats.recordShown(ids[i], NOW);
+            stats.recordShown(ids[i], NOW);
+            if (i < 10) {
+                stats.recordSkipped(ids[i]);
+                stats.recordSkipped(ids[i]);
+            }
+        }
+        WordSelection selection = new WordSelection();
+        selection.set(Arrays.asList(ids));
+        SpacedRepetitionScheduler scheduler = new SpacedRepetitionScheduler(selection, stats, NOW);
+
+        Random random = new Random(2);
+        int skippedDraws = 0;
+        int draws = 20_000;
+        for (int i = 0; i < draws; i++) {
+            if (scheduler.next(random, NOW) < 10) skippedDraws++;
+        }
+        // 10% of the words but weighted 0.75 vs 0.25 difficulty before the cooldown
+        assertTrue("skipped words drawn " + skippedDraws, skippedDraws > draws / 5);
+    }
+
+    @Test
+    public void drawnWordSitsOutTheCooldown() {
+        int[] ids = new int[40];
+        for (int i = 0; i < ids.length; i++) ids[i] = i;
+        WordSelection selection = new WordSelection();
+        selection.set(Arrays.asList(ids));
+        SpacedRepetitionScheduler scheduler = new SpacedRepetitionScheduler(selection, new WordStats(), NOW);
+
+        Random random = new Random(3);
+        int[] recent = new int[SpacedRepetitionScheduler.MAX_COOLDOWN];
+        for (int i = 0; i < 2000; i++) {
+            int position = scheduler.next(random, NOW);
+            for (int j = 0; j < Math.min(i, recent.length); j++) {
+                assertFalse(recent[j] == position);
+            }
+            recent[i % recent.length] = position;
+        }
+    }
+
+    @Test
+    public void tinySelectionsStillDraw() {
+        WordSelection selection = new WordSelection();
+        selection.set(Arrays.asList(new int[]{7}, new int[0]));
+        SpacedRepetitionScheduler scheduler = new SpacedRepetitionScheduler(selection, new WordStats(), NOW);
+        assertEquals(0, scheduler.next(new Random(4), NOW));
+        assertEquals(0, scheduler.next(new Random(4), NOW));
+
+        selection.set(Arrays.asList(new int[0]));
+        assertEquals(-1, new SpacedRepetitionScheduler(selection, new WordStats(), NOW).next(new Random(4), NOW));
+    }
+
+    @Test
+    public void statsRoundTripByWord() throws IOException {
+        StringPool pool = new StringPool();
+        WordStats stats = new WordStats();
+        int cancion = pool.intern("canción");
+        pool.intern("nunca");
+        int nino = pool.intern("niño");
+        stats.recordShown(cancion, NOW);
+        stats.recordShown(cancion, NOW + 3_600_000L);
+        stats.recordSkipped(cancion);
+        stats.recordShown(nino, NOW - 86_400_000L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stats.writeTo(out, pool);
+
+        // A fresh pool hands out different ids
+        StringPool otherPool = new StringPool();
+        otherPool.intern("otra");
+        WordStats restored = new WordStats();
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()), otherPool);
+
+        int restoredCancion = otherPool.intern("canción");
+        assertEquals(2, restored.getShown(restoredCancion));
+        assertEquals(1, restored.getSkipped(restoredCancion));
+        assertEquals(stats.weight(cancion, NOW + 86_400_000L), restored.weight(restoredCancion, NOW + 86_400_000L));
+        assertEquals(stats.weight(nino, NOW), restored.weight(otherPool.intern("niño"), NOW));
+        assertEquals(0, restored.getShown(otherPool.intern("nunca")));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpanishRhymeTest {
+
+    @Test
+    public void consonantKeyIsEverythingFromTheStressedVowel() {
+        assertEquals("on", SpanishRhyme.consonantKey("canción"));
+        assertEquals("on", SpanishRhyme.consonantKey("Razón"));
+        assertEquals("asa", SpanishRhyme.consonantKey("casa"));
+        assertEquals("eta", SpanishRhyme.consonantKey("poeta"));
+        assertEquals("ia", SpanishRhyme.consonantKey("día"));
+    }
+
+    @Test
+    public void assonantKeyKeepsOnlyTheVowels() {
+        assertEquals("ea", SpanishRhyme.assonantKey("tierna"));
+        assertEquals("ea", SpanishRhyme.assonantKey("cerca"));
+        assertEquals("aa", SpanishRhyme.assonantKey("agua"));
+        assertEquals("o", SpanishRhyme.assonantKey("canción"));
+        assertEquals("uia", SpanishRhyme.assonantKey("música"));
+        assertEquals("", SpanishRhyme.assonantKey("brr"));
+    }
+
+    @Test
+    public void lettersThatSoundAlikeShareAKey() {
+        // b and v
+        assertEquals(SpanishRhyme.consonantKey("cabe"), SpanishRhyme.consonantKey("nave"));
+        // s, z and c before e or i
+        assertEquals("oso", SpanishRhyme.consonantKey("pozo"));
+        assertEquals("oso", SpanishRhyme.consonantKey("oso"));
+        assertEquals(SpanishRhyme.consonantKey("paz"), SpanishRhyme.consonantKey("más"));
+        assertEquals(SpanishRhyme.consonantKey("luces"), SpanishRhyme.consonantKey("cruces"));
+        assertEquals("uses", SpanishRhyme.consonantKey("luces"));
+        // ll and y, and a silent h
+        assertEquals("aya", SpanishRhyme.consonantKey("valla"));
+        assertEquals("aya", SpanishRhyme.consonantKey("raya"));
+        assertEquals("aya", SpanishRhyme.consonantKey("haya"));
+        // c before a, o and u is hard
+        assertEquals("usika", SpanishRhyme.consonantKey("música"));
+    }
+
+    @Test
+    public void stressFollowsTheWrittenRules() {
+        // Agudas: an accent, or a last consonant other than n or s
+        assertEquals("on", SpanishRhyme.consonantKey("corazón"));
+        assertEquals("or", SpanishRhyme.consonantKey("amor"));
+        assertEquals("oj", SpanishRhyme.consonantKey("reloj"));
+        assertEquals('o', SpanishRhyme.stressedVowel("amor"));
+        // Llanas: a last vowel, n or s, or an accent on the second-to-last syllable
+        assertEquals("amen", SpanishRhyme.consonantKey("examen"));
+        assertEquals("asas", SpanishRhyme.consonantKey("casas"));
+        assertEquals("arbol", SpanishRhyme.consonantKey("árbol"));
+        assertEquals('a', SpanishRhyme.stressedVowel("árbol"));
+        // Esdrújulas always carry the accent
+        assertEquals("ajaro", SpanishRhyme.consonantKey("pájaro"));
+        assertEquals("efono", SpanishRhyme.consonantKey("teléfono"));
+        assertEquals("aao", SpanishRhyme.assonantKey("pájaro"));
+        assertEquals('e', SpanishRhyme.stressedVowel("teléfono"));
+        assertEquals(0, SpanishRhyme.stressedVowel("brr"));
+    }
+}
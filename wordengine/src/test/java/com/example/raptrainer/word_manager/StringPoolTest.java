@@ -0,0 +1,52 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StringPoolTest {
+
+    @Test
+    public void deduplicatesWords() {
+        StringPool pool = new StringPool();
+        int first = pool.intern("canción");
+        char[] buffer = " canción,".toCharArray();
+        assertEquals(first, pool.intern(buffer, 1, 7));
+        assertNotEquals(first, pool.intern("cancion"));
+        assertEquals(2, pool.size());
+        assertEquals("canción", pool.get(first));
+    }
+
+    @Test
+    public void keepsIdsAcrossGrowth() {
+        StringPool pool = new StringPool(4);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, pool.intern("niño" + i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("niño" + i, pool.get(i));
+            assertEquals(i, pool.intern("niño" + i));
+        }
+        assertEquals(10000, pool.size());
+    }
+
+    @Test
+    public void matchesComparesWithoutAllocating() {
+        StringPool pool = new StringPool();
+        int id = pool.intern("mamá");
+        assertTrue(pool.matches(id, "mamá"));
+        assertFalse(pool.matches(id, "mama"));
+        assertFalse(pool.matches(id, "mamás"));
+    }
+
+    @Test
+    public void emptyWordIsAWord() {
+        StringPool pool = new StringPool();
+        int id = pool.intern("");
+        assertEquals("", pool.get(id));
+        assertEquals(id, pool.intern(""));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeIndexTest {
+    private static final List<String> SPORT = Arrays.asList("gol", "pelota", "árbitro", "fútbol");
+    // The app's corpus and theme lexicons, see the test task in build.gradle.kts
+    private static final File WORDS_DIR = new File(System.getProperty("raptrainer.wordsDir", "../app/src/main/assets/words"));
+    private static final File LEXICON_DIR = new File(System.getProperty("raptrainer.lexiconDir", "../app/src/main/themes"));
+    // Each stressed vowel's words are one typical selection
+    private static final int VOWEL_GROUP_KEY_LENGTH = "words_a".length();
+    private static final int MIN_RELATED_PERCENT = 3;
+
+    @Test
+    public void seedsScoreHighestThenPluralsThenDerivations() {
+        SortedMap<String, Integer> scores = ThemeIndexCompiler.score(
+                Arrays.asList("gol", "goles", "pelotas", "pelotero", "arbitro", "futbolista", "casa"), SPORT);
+
+        assertEquals(ThemeIndexCompiler.SEED_SCORE, (int) scores.get("gol"));
+        // Accents do not matter
+        assertEquals(ThemeIndexCompiler.SEED_SCORE, (int) scores.get("arbitro"));
+        assertEquals(ThemeIndexCompiler.PLURAL_SCORE, (int) scores.get("goles"));
+        assertEquals(ThemeIndexCompiler.PLURAL_SCORE, (int) scores.get("pelotas"));
+        assertEquals(ThemeIndexCompiler.DERIVATION_SCORE, (int) scores.get("pelotero"));
+        assertEquals(ThemeIndexCompiler.DERIVATION_SCORE, (int) scores.get("futbolista"));
+        assertFalse(scores.containsKey("casa"));
+    }
+
+    @Test
+    public void sharingAPrefixIsNotBeingRelated() {
+        // Each of these started with a seed's stem and used to score close to a seed
+        assertEquals(Collections.singleton("sectas"),
+                ThemeIndexCompiler.score(Arrays.asList("sector", "karman", "sectas"), Arrays.asList("secta", "karma")).keySet());
+        assertTrue(ThemeIndexCompiler.score(Arrays.asList("equipaje", "canasto", "pelotón", "golpe", "golero"),
+                Arrays.asList("equipo", "canasta", "pelota", "gol")).isEmpty());
+        // The other gender is as often another word
+        assertTrue(ThemeIndexCompiler.score(Arrays.asList("cuento", "plato", "manga"),
+                Arrays.asList("cuenta", "plata", "mango")).isEmpty());
+        // Derivations need a stem long enough to be told apart
+        assertTrue(ThemeIndexCompiler.score(Collections.singletonList("costera"), Collections.singletonList("costo")).isEmpty());
+    }
+
+    @Test
+    public void laterLexiconLinesRelateLess() {
+        SortedMap<String, Integer> scores = ThemeIndexCompiler.score(
+                Arrays.asList("gol", "guante", "guantes", "calambre", "casa"),
+                Arrays.asList(Collections.singletonList("gol"), Collections.singletonList("guante"),
+                        Collections.singletonList("calambre")));
+
+        assertEquals(ThemeIndexCompiler.SEED_SCORE, (int) scores.get("gol"));
+        assertEquals(ThemeIndexCompiler.SEED_SCORE / 2, (int) scores.get("guante"));
+        assertEquals(ThemeIndexCompiler.PLURAL_SCORE / 2, (int) scores.get("guantes"));
+        assertEquals(ThemeIndexCompiler.SEED_SCORE / 4, (int) scores.get("calambre"));
+        assertFalse(scores.containsKey("casa"));
+    }
+
+    @Test
+    public void bundledLexiconsRelateAShareOfEveryVowelGroup() throws IOException {
+        WordSource source = new CsvDirectoryWordSource(WORDS_DIR);
+        Set<String> words = new TreeSet<>();
+        Map<String, Set<String>> groups = new TreeMap<>();
+        Map<String, List<String>> groupKeys = new TreeMap<>();
+        for (String key : source.getCategoryKeys()) {
+            String group = key.substring(0, VOWEL_GROUP_KEY_LENGTH);
+            List<String> category = source.readWords(key);
+            words.addAll(category);
+            if (!groups.containsKey(group)) {
+                groups.put(group, new TreeSet<String>());
+                groupKeys.put(group, new ArrayList<String>());
+            }
+            groups.get(group).addAll(category);
+            groupKeys.get(group).add(key);
+        }
+        assertEquals(5, groups.size());
+
+        File[] lexicons = LEXICON_DIR.listFiles();
+        assertTrue(LEXICON_DIR.toString(), lexicons != null && lexicons.length > 0);
+        Map<String, SortedMap<String, Integer>> themes = new LinkedHashMap<>();
+        for (File lexicon : lexicons) {
+            SortedMap<String, Integer> scores = ThemeIndexCompiler.score(words, ThemeIndexCompiler.readLexicon(lexicon));
+            themes.put(lexicon.getName(), scores);
+            for (Map.Entry<String, Set<String>> group : groups.entrySet()) {
+                int related = 0;
+                for (String word : group.getValue()) {
+                    if (scores.containsKey(word)) related++;
+                }
+                assertTrue(lexicon.getName() + " relates " + related + " of " + group.getValue().size() + " in " + group.getKey(),
+                        related * 100 >= group.getValue().size() * MIN_RELATED_PERCENT);
+            }
+        }
+
+        // So with any theme, about half of what a vowel group draws is related to it
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThemeIndex.write(out, themes);
+        WordCorpus corpus = new WordCorpus(source, Collections.<String>emptyList());
+        corpus.loadThemes(new ByteArrayInputStream(out.toByteArray()));
+        for (String label : themes.keySet()) {
+            for (Map.Entry<String, List<String>> group : groupKeys.entrySet()) {
+                WordEngine engine = new WordEngine(corpus, new Random(5));
+                for (String key : group.getValue()) engine.setCategorySelected(corpus.getRegistry().get(key).id, true);
+                engine.applySelection();
+                engine.setTheme(label);
+                int related = 0;
+                for (int i = 0; i < 40; i++) {
+                    if (themes.get(label).containsKey(engine.getNextWord())) related++;
+                }
+                assertTrue(label + " drew " + related + " related words of 40 in " + group.getKey(), related >= 12);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripsThroughThePool() throws IOException {
+        Map<String, SortedMap<String, Integer>> themes = new LinkedHashMap<>();
+        themes.put("deporte", ThemeIndexCompiler.score(Arrays.asList("gol", "pelotas", "casa"), SPORT));
+        themes.put("religión", ThemeIndexCompiler.score(Arrays.asList("casa", "misa"), Collections.singletonList("misa")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThemeIndex.write(out, themes);
+
+        StringPool pool = new StringPool();
+        int casa = pool.intern("casa");
+        ThemeIndex index = ThemeIndex.read(new ByteArrayInputStream(out.toByteArray()), pool);
+
+        assertEquals(Arrays.asList("deporte", "religión"), index.getLabels());
+        ThemeIndex.Theme sport = index.get("deporte");
+        assertEquals(2, sport.size());
+        assertEquals(255, sport.score(pool.intern("gol")));
+        assertEquals((int) themes.get("deporte").get("pelotas"), sport.score(pool.intern("pelotas")));
+        assertEquals(0, sport.score(casa));
+        assertEquals(0, sport.score(-1));
+        assertEquals(255, index.get("religión").score(pool.intern("misa")));
+        assertNull(index.get("dinero"));
+    }
+
+    @Test
+    public void themeBiasesDrawsWithinTheSelection() throws IOException {
+        Map<String, List<String>> words = new LinkedHashMap<>();
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) selected.add("palabra" + i);
+        selected.add("gol");
+        selected.add("pelota");
+        words.put("words_a_r_o", selected);
+        words.put("words_e_n_a", Collections.singletonList("fútbol"));
+        WordCorpus corpus = new WordCorpus(new InMemoryWordSource(words), Collections.<String>emptyList());
+
+        Map<String, SortedMap<String, Integer>> themes = new LinkedHashMap<>();
+        themes.put("deporte", ThemeIndexCompiler.score(Arrays.asList("gol", "pelota", "fútbol"), SPORT));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThemeIndex.write(out, themes);
+        corpus.loadThemes(new ByteArrayInputStream(out.toByteArray()));
+
+        WordEngine engine = new WordEngine(corpus, new Random(3));
+        engine.setCategorySelected(corpus.getRegistry().get("words_a_r_o").id, true);
+        engine.applySelection();
+        engine.setTheme("deporte");
+        assertEquals("deporte", engine.getTheme());
+        List<String> peeked = engine.peekNextWords(12);
+
+        // Both related words come up within the first few draws rather than at random in 202
+        List<String> drawn = new ArrayList<>();
+        for (int i = 0; i < 12; i++) drawn.add(engine.getNextWord());
+        assertEquals(peeked, drawn);
+        Set<String> first = new HashSet<>(drawn);
+        assertTrue(first.contains("gol"));
+        assertTrue(first.contains("pelota"));
+        assertFalse(first.contains("fútbol"));
+
+        // Related words drawn early are drawn again from the queue, so nothing is lost
+        Set<String> all = new HashSet<>(first);
+        while (!engine.isEmpty()) all.add(engine.getNextWord());
+        assertEquals(new HashSet<>(selected), all);
+
+        engine.setTheme("desconocido");
+        assertNull(engine.getTheme());
+    }
+}
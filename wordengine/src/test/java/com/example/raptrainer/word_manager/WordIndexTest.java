@@ -0,0 +1,138 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WordIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] sample() throws IOException {
+        WordIndexWriter writer = new WordIndexWriter();
+        writer.addCategory("words_o_n_e", "ó-e", Arrays.asList("canción", "corazón", "razón"));
+        writer.addCategory("words_a_r_o", "á-o", Arrays.asList("claro", "raro"));
+        writer.addCategory("words_e_s_a", "é-a", new ArrayList<String>());
+        // Shares a word with the first category; one outside the basic plane takes two chars
+        writer.addCategory("words_u_r_a", "ú-a", Arrays.asList("razón", "criatura 🎤"));
+        return writer.toByteArray();
+    }
+
+    private static void assertSample(WordIndex index) {
+        assertEquals(4, index.getCategoryCount());
+        assertEquals("words_o_n_e", index.getCategoryKey(0));
+        assertEquals("ó-e", index.getCategoryLabel(0));
+        assertEquals(Arrays.asList("canción", "corazón", "razón"), index.getWords(0));
+        assertEquals(Arrays.asList("claro", "raro"), index.getWords(1));
+        assertEquals(0, index.getWordCount(2));
+        assertEquals(0, index.getWords(2).size());
+        assertEquals(2, index.getWordCount(3));
+        assertSame(index.getWords(0).get(2), index.getWords(3).get(0));
+
+        StringPool pool = new StringPool();
+        int[] ids = index.internWords(3, pool);
+        assertEquals(pool.intern("razón"), ids[0]);
+        assertEquals("criatura 🎤", pool.get(ids[1]));
+        assertArrayEquals(new int[]{pool.intern("canción"), pool.intern("corazón"), ids[0]}, index.internWords(0, pool));
+        assertEquals(0, index.internWords(2, pool).length);
+
+        index.trimDecodedStrings();
+        assertEquals("words_u_r_a", index.getCategoryKey(3));
+        assertEquals("criatura 🎤", index.getWords(3).get(1));
+    }
+
+    @Test
+    public void roundTripsThroughAHeapBuffer() throws IOException {
+        assertSample(WordIndex.read(ByteBuffer.wrap(sample())));
+    }
+
+    @Test
+    public void roundTripsThroughAMappedFileAtAnOffset() throws IOException {
+        byte[] bytes = sample();
+        File file = folder.newFile("words.idx");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3});
+            out.write(bytes);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            mapped.position(3);
+            assertSample(WordIndex.read(mapped));
+            // The caller's buffer is left where it was
+            assertEquals(3, mapped.position());
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertSample(WordIndex.read(direct.asReadOnlyBuffer()));
+    }
+
+    @Test
+    public void rejectsOtherAndTruncatedData() throws IOException {
+        byte[] bytes = sample();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        byte[] other = bytes.clone();
+        other[0] = 'X';
+        for (byte[] data : new byte[][]{truncated, other, new byte[8]}) {
+            try {
+                WordIndex.read(ByteBuffer.wrap(data));
+                fail("read " + data.length + " bytes");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void aCategoryKeyTwiceFailsTheCompile() throws IOException {
+        File words = folder.newFolder("words");
+        File vowelA = new File(words, "words_a");
+        File vowelE = new File(words, "words_e");
+        assertTrue(vowelA.mkdir() && vowelE.mkdir());
+        for (File directory : new File[]{vowelA, vowelE}) {
+            try (FileOutputStream out = new FileOutputStream(new File(directory, "words_a_n_o.csv"))) {
+                out.write("año, paño".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        File output = new File(folder.getRoot(), "words.idx");
+        try {
+            WordIndexCompiler.compile(new CsvDirectoryWordSource(words), output);
+            fail("two files of words_a_n_o");
+        } catch (IOException expected) {
+            // expected
+        }
+
+        // However the source lists it twice
+        WordSource twice = new InMemoryWordSource(Collections.singletonMap("words_a_n_o", Arrays.asList("año"))) {
+            @Override
+            public List<String> getCategoryKeys() {
+                return Arrays.asList("words_a_n_o", "words_a_n_o");
+            }
+        };
+        try {
+            WordIndexCompiler.compile(twice, output);
+            fail("words_a_n_o listed twice");
+        } catch (IOException expected) {
+            // expected
+        }
+        assertFalse(output.exists());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WordListImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesSortedDistinctNormalizedWords() throws IOException {
+        File target = folder.newFile("out.words");
+        int count = importText(new WordListImporter(folder.newFolder("work")),
+                "Canción, peli\nPELI, canción ,ñeri,\n\nperri", target);
+        assertEquals(4, count);
+        assertEquals(Arrays.asList("canción", "peli", "perri", "ñeri"), readList(target));
+    }
+
+    @Test
+    public void mergesManySmallRunsInSeveralPasses() throws IOException {
+        // 3000 words in runs of 7, merged 3 at a time: several passes, duplicates across runs
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 3000; i++) {
+            String word = "w" + random.nextInt(1200);
+            expected.add(word);
+            text.append(word).append(i % 10 == 0 ? '\n' : ',');
+        }
+        File work = folder.newFolder("work");
+        File target = new File(folder.getRoot(), "big.words");
+        int count = importText(new WordListImporter(work, 7, 3), text.toString(), target);
+
+        assertEquals(expected.size(), count);
+        assertEquals(new ArrayList<>(expected), readList(target));
+        assertEquals("Temporary runs are deleted", 0, work.list().length);
+    }
+
+    @Test
+    public void reportsProgressUpToTheWholeInput() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) text.append("palabra").append(i).append(',');
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        List<long[]> updates = new ArrayList<>();
+        new WordListImporter(folder.newFolder("work"), 500, 4).importWords(new ByteArrayInputStream(bytes), "x",
+                new File(folder.getRoot(), "p.words"), (bytesRead, wordsRead) -> updates.add(new long[]{bytesRead, wordsRead}));
+
+        assertTrue(updates.size() > 1);
+        for (int i = 1; i < updates.size(); i++) {
+            assertTrue(updates.get(i)[0] >= updates.get(i - 1)[0]);
+            assertTrue(updates.get(i)[1] >= updates.get(i - 1)[1]);
+        }
+        long[] last = updates.get(updates.size() - 1);
+        assertEquals(bytes.length, last[0]);
+        assertEquals(10000, last[1]);
+    }
+
+    @Test
+    public void skipsOverlongEntries() throws IOException {
+        char[] sentence = new char[WordListImporter.MAX_WORD_LENGTH + 1];
+        Arrays.fill(sentence, 'a');
+        File target = folder.newFile("out.words");
+        importText(new WordListImporter(folder.newFolder("work")), "uno," + new String(sentence) + ",dos", target);
+        assertEquals(Arrays.asList("dos", "uno"), readList(target));
+    }
+
+    @Test
+    public void importedListsBecomeCategories() throws IOException {
+        File lists = folder.newFolder("lists");
+        WordListImporter importer = new WordListImporter(folder.newFolder("work"));
+        importText(importer, "zeta, alfa", ImportedWordSource.fileFor(lists, "Mis rimas ñ"), "Mis rimas ñ");
+        importText(importer, "peli", ImportedWordSource.fileFor(lists, "Otra"), "Otra");
+        assertTrue(ImportedWordSource.hasLists(lists));
+
+        ImportedWordSource imported = new ImportedWordSource(lists);
+        String key = ImportedWordSource.keyFor("Mis rimas ñ");
+        assertEquals("user_mis-rimas-n", key);
+        assertEquals(Arrays.asList(key, "user_otra"), imported.getCategoryKeys());
+        assertEquals("Mis rimas ñ", imported.getCategoryLabel(key));
+
+        StringPool pool = new StringPool();
+        int[] ids = imported.readWordIds(key, pool);
+        assertEquals("alfa", pool.get(ids[0]));
+        assertEquals("zeta", pool.get(ids[1]));
+        assertArrayEquals(new int[0], imported.readWordIds("user_nada", pool));
+    }
+
+    @Test
+    public void compositeServesBundledAndImportedCategories() throws IOException {
+        File lists = folder.newFolder("lists");
+        importText(new WordListImporter(folder.newFolder("work")), "peli, perri", ImportedWordSource.fileFor(lists, "Mía"), "Mía");
+        WordSource bundled = new InMemoryWordSource(Collections.singletonMap("words_e_l_i", Arrays.asList("peli", "meli")));
+        WordSource composite = new CompositeWordSource(bundled, new ImportedWordSource(lists));
+
+        assertEquals(Arrays.asList("words_e_l_i", "user_mia"), composite.getCategoryKeys());
+        assertEquals(Arrays.asList("peli", "perri"), composite.readWords("user_mia"));
+        assertEquals(Arrays.asList("peli", "meli"), composite.readWords("words_e_l_i"));
+
+        CategoryRegistry registry = new CategoryRegistry(composite.getCategoryKeys(),
+                Collections.singletonMap("user_mia", "Mía"), Collections.<String>emptyList());
+        CategoryRegistry.Category category = registry.get("user_mia");
+        assertEquals("Mía", category.label);
+        assertEquals("", category.consonantClass);
+        assertEquals("user_x", CategoryRegistry.extractButtonLabel("user_x"));
+    }
+
+    @Test
+    public void failedImportKeepsThePreviousList() throws IOException {
+        File target = folder.newFile("out.words");
+        WordListImporter importer = new WordListImporter(folder.newFolder("work"));
+        importText(importer, "uno", target);
+        try {
+            importer.importWords(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("unplugged");
+                }
+            }, "x", target, (bytesRead, wordsRead) -> { });
+            fail("The read error is reported");
+        } catch (IOException expected) {
+            // the old list must survive it
+        }
+        assertEquals(Collections.singletonList("uno"), readList(target));
+        assertFalse(new File(target.getPath() + ".tmp").exists());
+    }
+
+    private static int importText(WordListImporter importer, String text, File target) throws IOException {
+        return importText(importer, text, target, "test");
+    }
+
+    private static int importText(WordListImporter importer, String text, File target, String label) throws IOException {
+        return importer.importWords(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), label, target,
+                (bytesRead, wordsRead) -> { });
+    }
+
+    private static List<String> readList(File file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (CompactWordList.Reader reader = new CompactWordList.Reader(new FileInputStream(file))) {
+            String word;
+            while ((word = reader.next()) != null) words.add(word);
+            assertNull(reader.next());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.raptrainer.word_manager;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WordSelectionTest {
+
+    @Test
+    public void positionsRunAcrossTheListsAndSkipEmptyOnes() {
+        WordSelection selection = new WordSelection();
+        selection.set(Arrays.asList(new int[0], new int[]{4, 7}, new int[0], new int[0], new int[]{1}, new int[]{9, 2}));
+
+        assertEquals(5, selection.size());
+        int[] ids = new int[selection.size()];
+        for (int position = 0; position < ids.length; position++) ids[position] = selection.get(position);
+        assertArrayEquals(new int[]{4, 7, 1, 9, 2}, ids);
+    }
+
+    @Test
+    public void listsAreReferencedNotCopied() {
+        int[] category = {4, 7};
+        WordSelection selection = new WordSelection();
+        selection.set(Collections.singletonList(category));
+        category[1] = 8;
+        assertEquals(8, selection.get(1));
+    }
+
+    @Test
+    public void aNewSelectionReplacesTheOldOne() {
+        WordSelection selection = new WordSelection();
+        selection.set(Arrays.asList(new int[]{0, 1}, new int[]{2}, new int[]{3, 4, 5}));
+        assertEquals(6, selection.size());
+
+        selection.set(Collections.singletonList(new int[]{6}));
+        assertEquals(1, selection.size());
+        assertEquals(6, selection.get(0));
+
+        selection.set(Collections.<int[]>emptyList());
+        assertEquals(0, selection.size());
+    }
+}